@@ -0,0 +1,92 @@
+package com.embea.policy.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.facade.PolicyFacade;
+import com.embea.policy.model.PolicyFetchRequest;
+import com.embea.policy.model.PolicyResponse;
+import com.embea.policy.utils.PolicyIdUtils;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:primary-${random.uuid}",
+      "policy.read-replica.enabled=true",
+      "policy.read-replica.url=jdbc:h2:mem:replica-${random.uuid};DB_CLOSE_DELAY=-1",
+      "policy.membership-index.enabled=true",
+      "policy.fetch-cache.enabled=true"
+    })
+public class ReadReplicaIndexIntTest {
+
+  private static final Date START_DATE = new Date(new Date().getTime() + 86400000);
+  private static final BigDecimal PREMIUM = new BigDecimal("12.90");
+  private static final long PERSON_ID = 1_000_000L;
+
+  @Autowired private PolicyFacade policyFacade;
+
+  @Autowired
+  @Qualifier("primaryDataSource")
+  private DataSource primaryDataSource;
+
+  @Autowired
+  @Qualifier("replicaDataSource")
+  private DataSource replicaDataSource;
+
+  @BeforeEach
+  void setUp() {
+    Flyway.configure().dataSource(replicaDataSource).load().migrate();
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy whose insured person is not replicated yet "
+          + "When we fetch it twice with the membership index and fetch cache enabled "
+          + "Then the index loads it from the primary and neither fetch sees the lagging replica.")
+  void testIndexLoadsFromPrimary() {
+    String policyId = PolicyIdUtils.generate();
+    JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+    JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+    for (JdbcTemplate database : new JdbcTemplate[] {primary, replica}) {
+      database.update(
+          "insert into policy (id, start_date) values (?, ?)",
+          PolicyIdUtils.toBytes(policyId),
+          new Timestamp(START_DATE.getTime()));
+    }
+    primary.update(
+        "insert into person (id, first_name, second_name) values (?, ?, ?)",
+        PERSON_ID,
+        "Jane",
+        "Doe");
+    primary.update(
+        "insert into policy_mapping (id, policy_id, person_id, premium, addition_date)"
+            + " values (?, ?, ?, ?, ?)",
+        PERSON_ID,
+        PolicyIdUtils.toBytes(policyId),
+        PERSON_ID,
+        PREMIUM,
+        new Timestamp(START_DATE.getTime()));
+
+    PolicyResponse fetchedPolicy = fetch(policyId);
+    PolicyResponse fetchedAgain = fetch(policyId);
+
+    assertEquals(1, fetchedPolicy.getInsuredPersons().size());
+    assertEquals(PERSON_ID, fetchedPolicy.getInsuredPersons().get(0).getId());
+    assertEquals(fetchedPolicy.getInsuredPersons(), fetchedAgain.getInsuredPersons());
+  }
+
+  private PolicyResponse fetch(String policyId) {
+    return policyFacade.fetchPolicy(
+        PolicyFetchRequest.builder().policyId(policyId).requestDate(START_DATE).build());
+  }
+}
@@ -0,0 +1,119 @@
+package com.embea.policy.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.exception.PolicyNotFoundException;
+import com.embea.policy.facade.PolicyFacade;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyFetchRequest;
+import com.embea.policy.model.PolicyResponse;
+import com.embea.policy.utils.PolicyIdUtils;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:primary-${random.uuid}",
+      "policy.read-replica.enabled=true",
+      "policy.read-replica.url=jdbc:h2:mem:replica-${random.uuid};DB_CLOSE_DELAY=-1",
+      "policy.membership-index.enabled=false",
+      "policy.fetch-cache.enabled=false"
+    })
+public class ReadReplicaIntTest {
+
+  private static final Date START_DATE = new Date(new Date().getTime() + 86400000);
+  private static final BigDecimal PREMIUM = new BigDecimal("12.90");
+
+  @Autowired private PolicyFacade policyFacade;
+
+  @Autowired
+  @Qualifier("primaryDataSource")
+  private DataSource primaryDataSource;
+
+  @Autowired
+  @Qualifier("replicaDataSource")
+  private DataSource replicaDataSource;
+
+  @BeforeEach
+  void setUp() {
+    Flyway.configure().dataSource(replicaDataSource).load().migrate();
+  }
+
+  @Test
+  @DisplayName(
+      "Given a read replica separate from the primary "
+          + "When we create a policy and fetch it "
+          + "Then it is written to the primary only and the fetch reads the replica.")
+  void testWritesGoToPrimaryAndFetchesToReplica() {
+    PolicyResponse createdPolicy =
+        policyFacade.createPolicy(
+            PolicyCreationRequest.builder()
+                .startDate(START_DATE)
+                .insuredPersons(new ArrayList<>(List.of(buildPerson())))
+                .build());
+
+    assertEquals(1, countPolicies(primaryDataSource, createdPolicy.getPolicyId()));
+    assertEquals(0, countPolicies(replicaDataSource, createdPolicy.getPolicyId()));
+    assertThrows(PolicyNotFoundException.class, () -> fetch(createdPolicy.getPolicyId()));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy replicated to the read replica "
+          + "When we fetch it "
+          + "Then it is read from the replica.")
+  void testFetchReadsReplica() {
+    String policyId = PolicyIdUtils.generate();
+    JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+    replica.update(
+        "insert into policy (id, start_date) values (?, ?)",
+        PolicyIdUtils.toBytes(policyId),
+        new Timestamp(START_DATE.getTime()));
+    replica.update(
+        "insert into person (id, first_name, second_name) values (?, ?, ?)", 1L, "Jane", "Doe");
+    replica.update(
+        "insert into policy_mapping (id, policy_id, person_id, premium, addition_date)"
+            + " values (?, ?, ?, ?, ?)",
+        1L,
+        PolicyIdUtils.toBytes(policyId),
+        1L,
+        PREMIUM,
+        new Timestamp(START_DATE.getTime()));
+
+    PolicyResponse fetchedPolicy = fetch(policyId);
+
+    assertEquals(1, fetchedPolicy.getInsuredPersons().size());
+    assertEquals("Jane", fetchedPolicy.getInsuredPersons().get(0).getFirstName());
+    assertEquals(0, countPolicies(primaryDataSource, policyId));
+  }
+
+  private int countPolicies(DataSource dataSource, String policyId) {
+    return new JdbcTemplate(dataSource)
+        .queryForObject(
+            "select count(*) from policy where id = ?",
+            Integer.class,
+            PolicyIdUtils.toBytes(policyId));
+  }
+
+  private PolicyResponse fetch(String policyId) {
+    return policyFacade.fetchPolicy(
+        PolicyFetchRequest.builder().policyId(policyId).requestDate(START_DATE).build());
+  }
+
+  private InsuredPerson buildPerson() {
+    return InsuredPerson.builder().firstName("Jack").secondName("Doe").premium(PREMIUM).build();
+  }
+}
@@ -1,235 +1,544 @@
-package com.embea.policy.controllers;
-
-import static org.junit.jupiter.api.Assertions.*;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
-
-import com.embea.policy.model.*;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import org.junit.jupiter.api.DisplayName;
-import org.junit.jupiter.api.Test;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.http.MediaType;
-import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.test.web.servlet.MvcResult;
-
-@SpringBootTest
-@AutoConfigureMockMvc
-public class PolicyControllerIntTest {
-
-  private static final Date CURRENT_DATE = new Date();
-  private static final Date OLD_DATE = new Date(CURRENT_DATE.getTime() - 432000000);
-  private static final Date START_DATE = new Date(CURRENT_DATE.getTime() + 86400000);
-  private static final Date UPDATED_DATE = new Date(START_DATE.getTime() + 432000000);
-  private static final String FIRST_NAME_1 = "Jane";
-  private static final String SECOND_NAME_1 = "Jackson";
-  private static final BigDecimal PREMIUM_1 = BigDecimal.valueOf(12.90);
-  private static final String FIRST_NAME_2 = "Jack";
-  private static final String SECOND_NAME_2 = "Doe";
-  private static final BigDecimal PREMIUM_2 = BigDecimal.valueOf(15.90);
-  private static final String FIRST_NAME_3 = "Will";
-  private static final String SECOND_NAME_3 = "Smith";
-  private static final BigDecimal PREMIUM_3 =
-      BigDecimal.valueOf(12.90).setScale(2, RoundingMode.HALF_UP);
-  private static final BigDecimal TOTAL_PREMIUM =
-      BigDecimal.valueOf(28.80).setScale(2, RoundingMode.HALF_UP);
-  private static final String POLICY_CREATE_URL = "/v1/policy/create";
-  private static final String POLICY_FETCH_URL = "/v1/policy/fetch";
-  private static final String POLICY_MODIFY_URL = "/v1/policy/modify";
-
-  @Autowired private MockMvc mockMvc;
-
-  @Autowired private ObjectMapper objectMapper;
-
-  @Test
-  @DisplayName(
-      "Given invalid input type "
-          + "When we invoke policy create API "
-          + "Then 415 http status code returned.")
-  public void testInvalidContentTypeInput() throws Exception {
-    mockMvc
-        .perform(post(POLICY_CREATE_URL).content("{}"))
-        .andExpect(status().isUnsupportedMediaType());
-  }
-
-  @Test
-  @DisplayName(
-      "Given invalid input  "
-          + "When we invoke policy create API "
-          + "Then 400 http status code returned.")
-  public void testCreatePolicyWithInvalidInput() throws Exception {
-    PolicyCreationRequest policyCreationRequest = PolicyCreationRequest.builder().build();
-
-    mockMvc
-        .perform(
-            post(POLICY_CREATE_URL)
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(policyCreationRequest)))
-        .andExpect(status().isBadRequest());
-  }
-
-  @Test
-  @DisplayName(
-      "Given valid input  "
-          + "When we invoke policy create API followed by fetch API on start date and older date "
-          + "Then 200 http status code returned for start date "
-          + "And policy Id and participant count matches between responses "
-          + "And for older date, 404 not found status returned.")
-  public void testCreatePolicyWithValidInput() throws Exception {
-    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
-
-    MvcResult mvcResult1 = makeMvcCall(policyCreationRequest, POLICY_CREATE_URL);
-    String jsonResponse1 = mvcResult1.getResponse().getContentAsString();
-    PolicyCreationResponse policyCreationResponse =
-        objectMapper.readValue(jsonResponse1, PolicyCreationResponse.class);
-    assertNotNull(policyCreationResponse);
-
-    String policyId = policyCreationResponse.getPolicyId();
-
-    PolicyFetchRequest policyFetchRequest1 =
-        PolicyFetchRequest.builder().policyId(policyId).requestDate(START_DATE).build();
-
-    MvcResult mvcResult2 = makeMvcCall(policyFetchRequest1, POLICY_FETCH_URL);
-    String jsonResponse2 = mvcResult2.getResponse().getContentAsString();
-    PolicyFetchResponse policyFetchResponse1 =
-        objectMapper.readValue(jsonResponse2, PolicyFetchResponse.class);
-    assertNotNull(policyFetchResponse1);
-    assertEquals(policyCreationResponse.getPolicyId(), policyFetchResponse1.getPolicyId());
-    assertEquals(TOTAL_PREMIUM, policyFetchResponse1.getTotalPremium());
-    assertEquals(2, policyFetchResponse1.getInsuredPersons().size());
-    List<String> firstNameList = List.of(FIRST_NAME_1, FIRST_NAME_2);
-    List<String> secondNameList = List.of(SECOND_NAME_1, SECOND_NAME_2);
-    for (InsuredPerson insuredPerson : policyFetchResponse1.getInsuredPersons()) {
-      assertNotNull(insuredPerson.getId());
-      assertTrue(firstNameList.contains(insuredPerson.getFirstName()));
-      assertTrue(secondNameList.contains(insuredPerson.getSecondName()));
-    }
-
-    PolicyFetchRequest policyFetchRequest2 =
-        PolicyFetchRequest.builder().policyId(policyId).requestDate(OLD_DATE).build();
-    mockMvc
-        .perform(
-            post(POLICY_CREATE_URL)
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(policyFetchRequest2)))
-        .andExpect(status().isBadRequest());
-  }
-
-  @Test
-  @DisplayName(
-      "Given valid input  "
-          + "When we invoke create policy API with 2 participants on start date "
-          + " And then invoke modify policy API with 1 participant added and earlier 2 removed on updated date "
-          + "Then 200 http status code returned"
-          + "And fetch API insured person count should be 2 on start date "
-          + "And fetch API insured person count should be 1 on updated date.")
-  public void testModifyPolicyAddingAndRemovingPerson() throws Exception {
-    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
-
-    MvcResult mvcResult1 = makeMvcCall(policyCreationRequest, POLICY_CREATE_URL);
-    String jsonResponse1 = mvcResult1.getResponse().getContentAsString();
-    PolicyCreationResponse policyCreationResponse =
-        objectMapper.readValue(jsonResponse1, PolicyCreationResponse.class);
-    assertNotNull(policyCreationResponse);
-
-    String policyId = policyCreationResponse.getPolicyId();
-
-    PolicyModificationRequest policyModificationRequest =
-        PolicyModificationRequest.builder()
-            .policyId(policyCreationResponse.getPolicyId())
-            .effectiveDate(UPDATED_DATE)
-            .insuredPersons(
-                List.of(
-                    InsuredPerson.builder()
-                        .firstName(FIRST_NAME_3)
-                        .secondName(SECOND_NAME_3)
-                        .premium(PREMIUM_3)
-                        .build()))
-            .build();
-
-    MvcResult mvcResult3 = makeMvcCall(policyModificationRequest, POLICY_MODIFY_URL);
-    String jsonResponse3 = mvcResult3.getResponse().getContentAsString();
-    PolicyModificationResponse policyModificationResponse =
-        objectMapper.readValue(jsonResponse3, PolicyModificationResponse.class);
-    assertNotNull(policyModificationResponse);
-
-    PolicyFetchRequest policyFetchRequest1 =
-        PolicyFetchRequest.builder().policyId(policyId).requestDate(START_DATE).build();
-
-    MvcResult mvcResult2 = makeMvcCall(policyFetchRequest1, POLICY_FETCH_URL);
-    String jsonResponse2 = mvcResult2.getResponse().getContentAsString();
-    PolicyFetchResponse policyFetchResponse1 =
-        objectMapper.readValue(jsonResponse2, PolicyFetchResponse.class);
-    assertNotNull(policyFetchResponse1);
-    assertEquals(policyCreationResponse.getPolicyId(), policyFetchResponse1.getPolicyId());
-    assertEquals(TOTAL_PREMIUM, policyFetchResponse1.getTotalPremium());
-    assertEquals(2, policyFetchResponse1.getInsuredPersons().size());
-    List<String> firstNameList = List.of(FIRST_NAME_1, FIRST_NAME_2);
-    List<String> secondNameList = List.of(SECOND_NAME_1, SECOND_NAME_2);
-    for (InsuredPerson insuredPerson : policyFetchResponse1.getInsuredPersons()) {
-      assertNotNull(insuredPerson.getId());
-      assertTrue(firstNameList.contains(insuredPerson.getFirstName()));
-      assertTrue(secondNameList.contains(insuredPerson.getSecondName()));
-    }
-
-    PolicyFetchRequest policyFetchRequest2 =
-        PolicyFetchRequest.builder().policyId(policyId).requestDate(UPDATED_DATE).build();
-
-    MvcResult mvcResult4 = makeMvcCall(policyFetchRequest2, POLICY_FETCH_URL);
-    String jsonResponse4 = mvcResult4.getResponse().getContentAsString();
-    PolicyFetchResponse policyFetchResponse2 =
-        objectMapper.readValue(jsonResponse4, PolicyFetchResponse.class);
-    assertNotNull(policyFetchResponse2);
-    assertEquals(policyModificationResponse.getPolicyId(), policyFetchResponse2.getPolicyId());
-    assertEquals(PREMIUM_3, policyFetchResponse2.getTotalPremium());
-    assertEquals(1, policyFetchResponse2.getInsuredPersons().size());
-    for (InsuredPerson insuredPerson : policyFetchResponse2.getInsuredPersons()) {
-      assertNotNull(insuredPerson.getId());
-      assertEquals(FIRST_NAME_3, insuredPerson.getFirstName());
-      assertEquals(SECOND_NAME_3, insuredPerson.getSecondName());
-    }
-  }
-
-  private MvcResult makeMvcCall(Object request, String policyCreateUrl) throws Exception {
-    return mockMvc
-        .perform(
-            post(policyCreateUrl)
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
-        .andExpect(status().isOk())
-        .andReturn();
-  }
-
-  private PolicyCreationRequest buildPolicyCreationRequest() {
-    return PolicyCreationRequest.builder()
-        .startDate(START_DATE)
-        .insuredPersons(getInsuredPersonList())
-        .build();
-  }
-
-  private List<InsuredPerson> getInsuredPersonList() {
-    InsuredPerson insuredPerson1 =
-        InsuredPerson.builder()
-            .firstName(FIRST_NAME_1)
-            .secondName(SECOND_NAME_1)
-            .premium(PREMIUM_1)
-            .build();
-    InsuredPerson insuredPerson2 =
-        InsuredPerson.builder()
-            .firstName(FIRST_NAME_2)
-            .secondName(SECOND_NAME_2)
-            .premium(PREMIUM_2)
-            .build();
-    List<InsuredPerson> insuredPersonList = new ArrayList<>();
-    insuredPersonList.add(insuredPerson1);
-    insuredPersonList.add(insuredPerson2);
-    return insuredPersonList;
-  }
-}
+package com.embea.policy.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.embea.policy.model.*;
+import com.embea.policy.utils.DateUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PolicyControllerIntTest {
+
+  private static final Date CURRENT_DATE = new Date();
+  private static final Date OLD_DATE = new Date(CURRENT_DATE.getTime() - 432000000);
+  private static final Date START_DATE = new Date(CURRENT_DATE.getTime() + 86400000);
+  private static final Date UPDATED_DATE = new Date(START_DATE.getTime() + 432000000);
+  private static final String FIRST_NAME_1 = "Jane";
+  private static final String SECOND_NAME_1 = "Jackson";
+  private static final BigDecimal PREMIUM_1 = BigDecimal.valueOf(12.90);
+  private static final String FIRST_NAME_2 = "Jack";
+  private static final String SECOND_NAME_2 = "Doe";
+  private static final BigDecimal PREMIUM_2 = BigDecimal.valueOf(15.90);
+  private static final String FIRST_NAME_3 = "Will";
+  private static final String SECOND_NAME_3 = "Smith";
+  private static final BigDecimal PREMIUM_3 =
+      BigDecimal.valueOf(12.90).setScale(2, RoundingMode.HALF_UP);
+  private static final BigDecimal TOTAL_PREMIUM =
+      BigDecimal.valueOf(28.80).setScale(2, RoundingMode.HALF_UP);
+  private static final String POLICY_CREATE_URL = "/v1/policy/create";
+  private static final String POLICY_FETCH_URL = "/v1/policy/fetch";
+  private static final String POLICY_GET_URL = "/v1/policy/{policyId}";
+  private static final String POLICY_MODIFY_URL = "/v1/policy/modify";
+  private static final String POLICY_BATCH_FETCH_URL = "/v1/policy/fetch/batch";
+  private static final String POLICY_BULK_CREATE_URL = "/v1/policy/create/bulk";
+  private static final String POLICY_TIMELINE_URL = "/v1/policy/timeline";
+  private static final String APPLICATION_NDJSON = "application/x-ndjson";
+  private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Test
+  @DisplayName(
+      "Given invalid input type "
+          + "When we invoke policy create API "
+          + "Then 415 http status code returned.")
+  public void testInvalidContentTypeInput() throws Exception {
+    mockMvc
+        .perform(post(POLICY_CREATE_URL).content("{}"))
+        .andExpect(status().isUnsupportedMediaType());
+  }
+
+  @Test
+  @DisplayName(
+      "Given invalid input  "
+          + "When we invoke policy create API "
+          + "Then 400 http status code returned.")
+  public void testCreatePolicyWithInvalidInput() throws Exception {
+    PolicyCreationRequest policyCreationRequest = PolicyCreationRequest.builder().build();
+
+    mockMvc
+        .perform(
+            post(POLICY_CREATE_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(policyCreationRequest)))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName(
+      "Given valid input  "
+          + "When we invoke policy create API followed by fetch API on start date and older date "
+          + "Then 200 http status code returned for start date "
+          + "And policy Id and participant count matches between responses "
+          + "And for older date, 404 not found status returned.")
+  public void testCreatePolicyWithValidInput() throws Exception {
+    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
+
+    MvcResult mvcResult1 = makeMvcCall(policyCreationRequest, POLICY_CREATE_URL);
+    String jsonResponse1 = mvcResult1.getResponse().getContentAsString();
+    PolicyCreationResponse policyCreationResponse =
+        objectMapper.readValue(jsonResponse1, PolicyCreationResponse.class);
+    assertNotNull(policyCreationResponse);
+
+    String policyId = policyCreationResponse.getPolicyId();
+
+    PolicyFetchRequest policyFetchRequest1 =
+        PolicyFetchRequest.builder().policyId(policyId).requestDate(START_DATE).build();
+
+    MvcResult mvcResult2 = makeMvcCall(policyFetchRequest1, POLICY_FETCH_URL);
+    String jsonResponse2 = mvcResult2.getResponse().getContentAsString();
+    PolicyFetchResponse policyFetchResponse1 =
+        objectMapper.readValue(jsonResponse2, PolicyFetchResponse.class);
+    assertNotNull(policyFetchResponse1);
+    assertEquals(policyCreationResponse.getPolicyId(), policyFetchResponse1.getPolicyId());
+    assertEquals(TOTAL_PREMIUM, policyFetchResponse1.getTotalPremium());
+    assertEquals(2, policyFetchResponse1.getInsuredPersons().size());
+    List<String> firstNameList = List.of(FIRST_NAME_1, FIRST_NAME_2);
+    List<String> secondNameList = List.of(SECOND_NAME_1, SECOND_NAME_2);
+    for (InsuredPerson insuredPerson : policyFetchResponse1.getInsuredPersons()) {
+      assertNotNull(insuredPerson.getId());
+      assertTrue(firstNameList.contains(insuredPerson.getFirstName()));
+      assertTrue(secondNameList.contains(insuredPerson.getSecondName()));
+    }
+
+    PolicyFetchRequest policyFetchRequest2 =
+        PolicyFetchRequest.builder().policyId(policyId).requestDate(OLD_DATE).build();
+    mockMvc
+        .perform(
+            post(POLICY_CREATE_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(policyFetchRequest2)))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName(
+      "Given valid input  "
+          + "When we invoke create policy API with 2 participants on start date "
+          + " And then invoke modify policy API with 1 participant added and earlier 2 removed on updated date "
+          + "Then 200 http status code returned"
+          + "And fetch API insured person count should be 2 on start date "
+          + "And fetch API insured person count should be 1 on updated date.")
+  public void testModifyPolicyAddingAndRemovingPerson() throws Exception {
+    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
+
+    MvcResult mvcResult1 = makeMvcCall(policyCreationRequest, POLICY_CREATE_URL);
+    String jsonResponse1 = mvcResult1.getResponse().getContentAsString();
+    PolicyCreationResponse policyCreationResponse =
+        objectMapper.readValue(jsonResponse1, PolicyCreationResponse.class);
+    assertNotNull(policyCreationResponse);
+
+    String policyId = policyCreationResponse.getPolicyId();
+
+    PolicyModificationRequest policyModificationRequest =
+        PolicyModificationRequest.builder()
+            .policyId(policyCreationResponse.getPolicyId())
+            .effectiveDate(UPDATED_DATE)
+            .insuredPersons(
+                List.of(
+                    InsuredPerson.builder()
+                        .firstName(FIRST_NAME_3)
+                        .secondName(SECOND_NAME_3)
+                        .premium(PREMIUM_3)
+                        .build()))
+            .build();
+
+    MvcResult mvcResult3 = makeMvcCall(policyModificationRequest, POLICY_MODIFY_URL);
+    String jsonResponse3 = mvcResult3.getResponse().getContentAsString();
+    PolicyModificationResponse policyModificationResponse =
+        objectMapper.readValue(jsonResponse3, PolicyModificationResponse.class);
+    assertNotNull(policyModificationResponse);
+
+    PolicyFetchRequest policyFetchRequest1 =
+        PolicyFetchRequest.builder().policyId(policyId).requestDate(START_DATE).build();
+
+    MvcResult mvcResult2 = makeMvcCall(policyFetchRequest1, POLICY_FETCH_URL);
+    String jsonResponse2 = mvcResult2.getResponse().getContentAsString();
+    PolicyFetchResponse policyFetchResponse1 =
+        objectMapper.readValue(jsonResponse2, PolicyFetchResponse.class);
+    assertNotNull(policyFetchResponse1);
+    assertEquals(policyCreationResponse.getPolicyId(), policyFetchResponse1.getPolicyId());
+    assertEquals(TOTAL_PREMIUM, policyFetchResponse1.getTotalPremium());
+    assertEquals(2, policyFetchResponse1.getInsuredPersons().size());
+    List<String> firstNameList = List.of(FIRST_NAME_1, FIRST_NAME_2);
+    List<String> secondNameList = List.of(SECOND_NAME_1, SECOND_NAME_2);
+    for (InsuredPerson insuredPerson : policyFetchResponse1.getInsuredPersons()) {
+      assertNotNull(insuredPerson.getId());
+      assertTrue(firstNameList.contains(insuredPerson.getFirstName()));
+      assertTrue(secondNameList.contains(insuredPerson.getSecondName()));
+    }
+
+    PolicyFetchRequest policyFetchRequest2 =
+        PolicyFetchRequest.builder().policyId(policyId).requestDate(UPDATED_DATE).build();
+
+    MvcResult mvcResult4 = makeMvcCall(policyFetchRequest2, POLICY_FETCH_URL);
+    String jsonResponse4 = mvcResult4.getResponse().getContentAsString();
+    PolicyFetchResponse policyFetchResponse2 =
+        objectMapper.readValue(jsonResponse4, PolicyFetchResponse.class);
+    assertNotNull(policyFetchResponse2);
+    assertEquals(policyModificationResponse.getPolicyId(), policyFetchResponse2.getPolicyId());
+    assertEquals(PREMIUM_3, policyFetchResponse2.getTotalPremium());
+    assertEquals(1, policyFetchResponse2.getInsuredPersons().size());
+    for (InsuredPerson insuredPerson : policyFetchResponse2.getInsuredPersons()) {
+      assertNotNull(insuredPerson.getId());
+      assertEquals(FIRST_NAME_3, insuredPerson.getFirstName());
+      assertEquals(SECOND_NAME_3, insuredPerson.getSecondName());
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given newline delimited valid create policy requests "
+          + "When we invoke bulk policy create API "
+          + "Then 200 http status code returned "
+          + "And one creation response streamed per request "
+          + "And every created policy can be fetched.")
+  public void testCreatePoliciesInBulk() throws Exception {
+    StringBuilder requestBody = new StringBuilder();
+    for (int i = 0; i < 3; i++) {
+      requestBody
+          .append(objectMapper.writeValueAsString(buildPolicyCreationRequest()))
+          .append('\n');
+    }
+
+    MvcResult asyncResult =
+        mockMvc
+            .perform(
+                post(POLICY_BULK_CREATE_URL)
+                    .contentType(APPLICATION_NDJSON)
+                    .content(requestBody.toString()))
+            .andReturn();
+    MvcResult mvcResult =
+        mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk()).andReturn();
+
+    String[] responseLines = mvcResult.getResponse().getContentAsString().split("\n");
+    assertEquals(3, responseLines.length);
+    for (String responseLine : responseLines) {
+      PolicyCreationResponse policyCreationResponse =
+          objectMapper.readValue(responseLine, PolicyCreationResponse.class);
+      assertNotNull(policyCreationResponse.getPolicyId());
+      assertEquals(0, TOTAL_PREMIUM.compareTo(policyCreationResponse.getTotalPremium()));
+
+      PolicyFetchRequest policyFetchRequest =
+          PolicyFetchRequest.builder()
+              .policyId(policyCreationResponse.getPolicyId())
+              .requestDate(START_DATE)
+              .build();
+      MvcResult fetchResult = makeMvcCall(policyFetchRequest, POLICY_FETCH_URL);
+      PolicyFetchResponse policyFetchResponse =
+          objectMapper.readValue(
+              fetchResult.getResponse().getContentAsString(), PolicyFetchResponse.class);
+      assertEquals(2, policyFetchResponse.getInsuredPersons().size());
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given two created policies "
+          + "When we invoke batch fetch API with their ids and an unknown id on start date "
+          + "Then both policies returned in request order "
+          + "And unknown id reported as not found.")
+  public void testFetchPoliciesInBatch() throws Exception {
+    List<String> policyIds = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      MvcResult mvcResult = makeMvcCall(buildPolicyCreationRequest(), POLICY_CREATE_URL);
+      policyIds.add(
+          objectMapper
+              .readValue(mvcResult.getResponse().getContentAsString(), PolicyCreationResponse.class)
+              .getPolicyId());
+    }
+    String unknownPolicyId = UUID.randomUUID().toString();
+    policyIds.add(unknownPolicyId);
+    PolicyBatchFetchRequest policyBatchFetchRequest =
+        PolicyBatchFetchRequest.builder().policyIds(policyIds).requestDate(START_DATE).build();
+
+    MvcResult mvcResult = makeMvcCall(policyBatchFetchRequest, POLICY_BATCH_FETCH_URL);
+
+    PolicyBatchFetchResponse policyBatchFetchResponse =
+        objectMapper.readValue(
+            mvcResult.getResponse().getContentAsString(), PolicyBatchFetchResponse.class);
+    assertEquals(2, policyBatchFetchResponse.getPolicies().size());
+    for (int i = 0; i < 2; i++) {
+      PolicyFetchResponse policyFetchResponse = policyBatchFetchResponse.getPolicies().get(i);
+      assertEquals(policyIds.get(i), policyFetchResponse.getPolicyId());
+      assertEquals(TOTAL_PREMIUM, policyFetchResponse.getTotalPremium());
+      assertEquals(2, policyFetchResponse.getInsuredPersons().size());
+    }
+    assertEquals(List.of(unknownPolicyId), policyBatchFetchResponse.getNotFoundPolicyIds());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a created policy "
+          + "When we get it for its start date and again with the returned ETag "
+          + "Then 200 http status code returned with an ETag to revalidate "
+          + "And 304 http status code returned without body, also after a later modification.")
+  public void testGetPolicyWithETag() throws Exception {
+    MvcResult createResult = makeMvcCall(buildPolicyCreationRequest(), POLICY_CREATE_URL);
+    PolicyCreationResponse policyCreationResponse =
+        objectMapper.readValue(
+            createResult.getResponse().getContentAsString(), PolicyCreationResponse.class);
+    String policyId = policyCreationResponse.getPolicyId();
+    String startDate = DateUtils.formatDate(START_DATE);
+
+    MvcResult getResult =
+        mockMvc
+            .perform(get(POLICY_GET_URL, policyId).param("date", startDate))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+            .andExpect(jsonPath("$.policyId").value(policyId))
+            .andExpect(jsonPath("$.requestDate").value(startDate))
+            .andReturn();
+    String eTag = getResult.getResponse().getHeader(HttpHeaders.ETAG);
+    assertNotNull(eTag);
+
+    List<InsuredPerson> insuredPersons =
+        new ArrayList<>(policyCreationResponse.getInsuredPersons());
+    insuredPersons.remove(0);
+    makeMvcCall(
+        PolicyModificationRequest.builder()
+            .policyId(policyId)
+            .effectiveDate(UPDATED_DATE)
+            .insuredPersons(insuredPersons)
+            .build(),
+        POLICY_MODIFY_URL);
+
+    MvcResult notModifiedResult =
+        mockMvc
+            .perform(
+                get(POLICY_GET_URL, policyId)
+                    .param("date", startDate)
+                    .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andReturn();
+    assertEquals(0, notModifiedResult.getResponse().getContentLength());
+    mockMvc
+        .perform(
+            get(POLICY_GET_URL, policyId)
+                .param("date", DateUtils.formatDate(UPDATED_DATE))
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.insuredPersons.length()").value(1));
+    mockMvc
+        .perform(get(POLICY_GET_URL, policyId).param("date", "31.02.2030"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("date must be a valid date in dd.MM.yyyy format"));
+  }
+
+  @Test
+  @DisplayName(
+      "Given fetch request with a policy id that is not a UUID "
+          + "When we invoke policy fetch API "
+          + "Then 400 http status code returned with the validation message.")
+  public void testFetchPolicyWithInvalidPolicyId() throws Exception {
+    PolicyFetchRequest policyFetchRequest =
+        PolicyFetchRequest.builder().policyId("unknown-policy-id").requestDate(START_DATE).build();
+
+    mockMvc
+        .perform(
+            post(POLICY_FETCH_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(policyFetchRequest)))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("Policy Id is invalid"));
+  }
+
+  @Test
+  @DisplayName(
+      "Given batch fetch request without policy ids "
+          + "When we invoke batch fetch API "
+          + "Then 400 http status code returned.")
+  public void testFetchPoliciesWithInvalidInput() throws Exception {
+    PolicyBatchFetchRequest policyBatchFetchRequest =
+        PolicyBatchFetchRequest.builder().policyIds(List.of()).build();
+
+    mockMvc
+        .perform(
+            post(POLICY_BATCH_FETCH_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(policyBatchFetchRequest)))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy with its 2 participants replaced by 1 participant on updated date "
+          + "When we invoke policy timeline API from before start date to after updated date "
+          + "Then 200 http status code returned "
+          + "And 2 periods returned with the same persons and premium as fetch API on their days.")
+  public void testFetchPolicyTimeline() throws Exception {
+    MvcResult createResult = makeMvcCall(buildPolicyCreationRequest(), POLICY_CREATE_URL);
+    String policyId =
+        objectMapper
+            .readValue(
+                createResult.getResponse().getContentAsString(), PolicyCreationResponse.class)
+            .getPolicyId();
+    PolicyModificationRequest policyModificationRequest =
+        PolicyModificationRequest.builder()
+            .policyId(policyId)
+            .effectiveDate(UPDATED_DATE)
+            .insuredPersons(
+                List.of(
+                    InsuredPerson.builder()
+                        .firstName(FIRST_NAME_3)
+                        .secondName(SECOND_NAME_3)
+                        .premium(PREMIUM_3)
+                        .build()))
+            .build();
+    makeMvcCall(policyModificationRequest, POLICY_MODIFY_URL);
+    Date toDate = new Date(UPDATED_DATE.getTime() + 86400000);
+    PolicyTimelineRequest policyTimelineRequest =
+        PolicyTimelineRequest.builder()
+            .policyId(policyId)
+            .fromDate(OLD_DATE)
+            .toDate(toDate)
+            .build();
+
+    MvcResult mvcResult = makeMvcCall(policyTimelineRequest, POLICY_TIMELINE_URL);
+
+    PolicyTimelineResponse policyTimelineResponse =
+        objectMapper.readValue(
+            mvcResult.getResponse().getContentAsString(), PolicyTimelineResponse.class);
+    assertEquals(policyId, policyTimelineResponse.getPolicyId());
+    List<PolicyTimelinePeriod> periods = policyTimelineResponse.getPeriods();
+    assertEquals(2, periods.size());
+    assertEquals(
+        DateUtils.toEpochDay(START_DATE), DateUtils.toEpochDay(periods.get(0).getFromDate()));
+    assertEquals(
+        DateUtils.toEpochDay(UPDATED_DATE) - 1, DateUtils.toEpochDay(periods.get(0).getToDate()));
+    assertEquals(
+        DateUtils.toEpochDay(UPDATED_DATE), DateUtils.toEpochDay(periods.get(1).getFromDate()));
+    assertEquals(DateUtils.toEpochDay(toDate), DateUtils.toEpochDay(periods.get(1).getToDate()));
+    for (PolicyTimelinePeriod period : periods) {
+      PolicyFetchRequest policyFetchRequest =
+          PolicyFetchRequest.builder().policyId(policyId).requestDate(period.getToDate()).build();
+      PolicyFetchResponse policyFetchResponse =
+          objectMapper.readValue(
+              makeMvcCall(policyFetchRequest, POLICY_FETCH_URL).getResponse().getContentAsString(),
+              PolicyFetchResponse.class);
+      assertEquals(policyFetchResponse.getInsuredPersons(), period.getInsuredPersons());
+      assertEquals(0, policyFetchResponse.getTotalPremium().compareTo(period.getTotalPremium()));
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy timeline request with to date before from date "
+          + "When we invoke policy timeline API "
+          + "Then 400 http status code returned with the validation message.")
+  public void testFetchPolicyTimelineWithInvalidRange() throws Exception {
+    PolicyTimelineRequest policyTimelineRequest =
+        PolicyTimelineRequest.builder()
+            .policyId(UUID.randomUUID().toString())
+            .fromDate(UPDATED_DATE)
+            .toDate(START_DATE)
+            .build();
+
+    mockMvc
+        .perform(
+            post(POLICY_TIMELINE_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(policyTimelineRequest)))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("toDate must not be before fromDate"));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a create request with an idempotency key "
+          + "When we invoke policy create API twice with the same key "
+          + "Then the same policy Id is returned both times "
+          + "And a different request with the same key returns 422 http status code.")
+  public void testCreatePolicyWithIdempotencyKey() throws Exception {
+    String idempotencyKey = UUID.randomUUID().toString();
+
+    String policyId1 = createWithIdempotencyKey(idempotencyKey).getPolicyId();
+    String policyId2 = createWithIdempotencyKey(idempotencyKey).getPolicyId();
+    assertEquals(policyId1, policyId2);
+
+    PolicyCreationRequest otherRequest = buildPolicyCreationRequest();
+    otherRequest.getInsuredPersons().remove(1);
+    mockMvc
+        .perform(
+            post(POLICY_CREATE_URL)
+                .header(IDEMPOTENCY_KEY, idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(otherRequest)))
+        .andExpect(status().isUnprocessableEntity());
+  }
+
+  private PolicyCreationResponse createWithIdempotencyKey(String idempotencyKey) throws Exception {
+    MvcResult mvcResult =
+        mockMvc
+            .perform(
+                post(POLICY_CREATE_URL)
+                    .header(IDEMPOTENCY_KEY, idempotencyKey)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(buildPolicyCreationRequest())))
+            .andExpect(status().isOk())
+            .andReturn();
+    return objectMapper.readValue(
+        mvcResult.getResponse().getContentAsString(), PolicyCreationResponse.class);
+  }
+
+  private MvcResult makeMvcCall(Object request, String policyCreateUrl) throws Exception {
+    return mockMvc
+        .perform(
+            post(policyCreateUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk())
+        .andReturn();
+  }
+
+  private PolicyCreationRequest buildPolicyCreationRequest() {
+    return PolicyCreationRequest.builder()
+        .startDate(START_DATE)
+        .insuredPersons(getInsuredPersonList())
+        .build();
+  }
+
+  private List<InsuredPerson> getInsuredPersonList() {
+    InsuredPerson insuredPerson1 =
+        InsuredPerson.builder()
+            .firstName(FIRST_NAME_1)
+            .secondName(SECOND_NAME_1)
+            .premium(PREMIUM_1)
+            .build();
+    InsuredPerson insuredPerson2 =
+        InsuredPerson.builder()
+            .firstName(FIRST_NAME_2)
+            .secondName(SECOND_NAME_2)
+            .premium(PREMIUM_2)
+            .build();
+    List<InsuredPerson> insuredPersonList = new ArrayList<>();
+    insuredPersonList.add(insuredPerson1);
+    insuredPersonList.add(insuredPerson2);
+    return insuredPersonList;
+  }
+}
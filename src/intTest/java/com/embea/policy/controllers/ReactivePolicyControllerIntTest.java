@@ -0,0 +1,160 @@
+package com.embea.policy.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.model.*;
+import com.embea.policy.services.PolicyPremiumService;
+import com.embea.policy.services.PolicyService;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+public class ReactivePolicyControllerIntTest {
+
+  private static final Date START_DATE = new Date(new Date().getTime() + 86400000);
+  private static final Date EFFECTIVE_DATE = new Date(START_DATE.getTime() + 432000000);
+  private static final BigDecimal PREMIUM = new BigDecimal("12.90");
+  private static final String POLICY_CREATE_URL = "/v1/policy/create";
+  private static final String POLICY_FETCH_URL = "/v1/policy/fetch";
+  private static final String POLICY_MODIFY_URL = "/v1/policy/modify";
+
+  @Autowired private WebTestClient webTestClient;
+
+  @Autowired private PolicyService policyService;
+
+  @Autowired private PolicyPremiumService policyPremiumService;
+
+  @Test
+  @DisplayName(
+      "Given the reactive stack "
+          + "When we create a policy, replace one of its persons and fetch it before and after "
+          + "Then each fetch returns the persons insured on its date.")
+  void testCreateModifyAndFetchPolicy() {
+    PolicyCreationRequest policyCreationRequest =
+        PolicyCreationRequest.builder()
+            .startDate(START_DATE)
+            .insuredPersons(List.of(buildPerson("Jane", "Jackson"), buildPerson("Jack", "Doe")))
+            .build();
+    PolicyCreationResponse createdPolicy =
+        post(POLICY_CREATE_URL, policyCreationRequest)
+            .expectStatus()
+            .isOk()
+            .expectBody(PolicyCreationResponse.class)
+            .returnResult()
+            .getResponseBody();
+    assertNotNull(createdPolicy);
+    assertEquals(2, createdPolicy.getInsuredPersons().size());
+    assertEquals(0, new BigDecimal("25.80").compareTo(createdPolicy.getTotalPremium()));
+    InsuredPerson keptPerson = createdPolicy.getInsuredPersons().get(0);
+
+    PolicyModificationRequest policyModificationRequest =
+        PolicyModificationRequest.builder()
+            .policyId(createdPolicy.getPolicyId())
+            .effectiveDate(EFFECTIVE_DATE)
+            .insuredPersons(List.of(keptPerson, buildPerson("Will", "Smith")))
+            .build();
+    post(POLICY_MODIFY_URL, policyModificationRequest).expectStatus().isOk();
+
+    PolicyFetchResponse policyBefore = fetch(createdPolicy.getPolicyId(), START_DATE);
+    PolicyFetchResponse policyAfter = fetch(createdPolicy.getPolicyId(), EFFECTIVE_DATE);
+    assertEquals(createdPolicy.getInsuredPersons(), policyBefore.getInsuredPersons());
+    assertEquals(2, policyAfter.getInsuredPersons().size());
+    assertTrue(policyAfter.getInsuredPersons().contains(keptPerson));
+    assertEquals("Will", policyAfter.getInsuredPersons().get(1).getFirstName());
+    List<PolicyMember> storedMembers =
+        policyService.getPolicyMembers(createdPolicy.getPolicyId(), EFFECTIVE_DATE);
+    assertEquals(2, storedMembers.size());
+    assertEquals(
+        0,
+        createdPolicy
+            .getTotalPremium()
+            .compareTo(
+                policyPremiumService.getTotalPremium(createdPolicy.getPolicyId(), START_DATE)));
+    assertEquals(
+        0,
+        policyAfter
+            .getTotalPremium()
+            .compareTo(
+                policyPremiumService.getTotalPremium(createdPolicy.getPolicyId(), EFFECTIVE_DATE)));
+  }
+
+  @Test
+  @DisplayName(
+      "Given the reactive stack "
+          + "When we fetch or modify an unknown policy "
+          + "Then 404 http status code returned.")
+  void testUnknownPolicy() {
+    post(
+            POLICY_FETCH_URL,
+            PolicyFetchRequest.builder().policyId(UUID.randomUUID().toString()).build())
+        .expectStatus()
+        .isNotFound()
+        .expectBody()
+        .jsonPath("$.message")
+        .isEqualTo("Policy not found.");
+    post(
+            POLICY_MODIFY_URL,
+            PolicyModificationRequest.builder()
+                .policyId(UUID.randomUUID().toString())
+                .effectiveDate(EFFECTIVE_DATE)
+                .insuredPersons(List.of(buildPerson("Jane", "Jackson")))
+                .build())
+        .expectStatus()
+        .isNotFound();
+  }
+
+  @Test
+  @DisplayName(
+      "Given the reactive stack "
+          + "When we create a policy without insured persons "
+          + "Then 400 http status code returned with the validation message.")
+  void testInvalidCreationRequest() {
+    post(
+            POLICY_CREATE_URL,
+            PolicyCreationRequest.builder().startDate(START_DATE).insuredPersons(List.of()).build())
+        .expectStatus()
+        .isBadRequest()
+        .expectBody()
+        .jsonPath("$.message")
+        .isEqualTo("Atleast 1 person should be present");
+  }
+
+  private PolicyFetchResponse fetch(String policyId, Date requestDate) {
+    return post(
+            POLICY_FETCH_URL,
+            PolicyFetchRequest.builder().policyId(policyId).requestDate(requestDate).build())
+        .expectStatus()
+        .isOk()
+        .expectBody(PolicyFetchResponse.class)
+        .returnResult()
+        .getResponseBody();
+  }
+
+  private WebTestClient.ResponseSpec post(String url, Object body) {
+    return webTestClient
+        .post()
+        .uri(url)
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(body)
+        .exchange();
+  }
+
+  private InsuredPerson buildPerson(String firstName, String secondName) {
+    return InsuredPerson.builder()
+        .firstName(firstName)
+        .secondName(secondName)
+        .premium(PREMIUM)
+        .build();
+  }
+}
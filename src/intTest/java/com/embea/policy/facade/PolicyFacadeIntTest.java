@@ -0,0 +1,271 @@
+package com.embea.policy.facade;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.dto.Policy;
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyBatchFetchRequest;
+import com.embea.policy.model.PolicyBatchFetchResponse;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyFetchRequest;
+import com.embea.policy.model.PolicyModificationRequest;
+import com.embea.policy.model.PolicyPremiumResponse;
+import com.embea.policy.model.PolicyResponse;
+import com.embea.policy.services.PolicyMembershipIndex;
+import com.embea.policy.services.PolicyService;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class PolicyFacadeIntTest {
+
+  private static final Date START_DATE = new Date(new Date().getTime() + 86400000);
+  private static final BigDecimal PREMIUM = BigDecimal.valueOf(12.90);
+  private static final int BATCH_SIZE = 50;
+
+  @Autowired private PolicyFacade policyFacade;
+
+  @Autowired private PolicyService policyService;
+
+  @Autowired private PolicyMembershipIndex policyMembershipIndex;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 10, 50})
+  @DisplayName(
+      "Given create policy request with up to one batch of insured persons "
+          + "When we create the policy "
+          + "Then the number of prepared statements does not depend on the person count.")
+  void testCreatePolicyStatementCountIsConstant(int personCount) {
+    statistics.clear();
+
+    PolicyResponse policyResponse = policyFacade.createPolicy(buildRequest(personCount));
+
+    assertEquals(personCount, policyResponse.getInsuredPersons().size());
+    // 1 policy insert, 1 person batch, 1 mapping batch, 1 premium change insert and at most 2
+    // sequence calls per table
+    assertTrue(
+        statistics.getPrepareStatementCount() <= 10,
+        "Prepared statements: " + statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {500})
+  @DisplayName(
+      "Given create policy request with several batches of insured persons "
+          + "When we create the policy "
+          + "Then the number of prepared statements grows with batches, not with persons.")
+  void testCreatePolicyStatementCountGrowsPerBatch(int personCount) {
+    statistics.clear();
+
+    policyFacade.createPolicy(buildRequest(personCount));
+
+    long batches = (personCount + BATCH_SIZE - 1) / BATCH_SIZE;
+    long maxStatements = 1 + 2 * batches + 2 * (batches + 1) + 3;
+    assertTrue(
+        statistics.getPrepareStatementCount() <= maxStatements,
+        "Prepared statements: " + statistics.getPrepareStatementCount());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 100})
+  @DisplayName(
+      "Given a created policy "
+          + "When we fetch the policy on its start date "
+          + "Then policy and insured persons are served from the membership index.")
+  void testFetchPolicyIsServedFromMembershipIndex(int personCount) {
+    PolicyResponse createdPolicy = policyFacade.createPolicy(buildRequest(personCount));
+    statistics.clear();
+
+    PolicyResponse fetchedPolicy =
+        policyFacade.fetchPolicy(
+            PolicyFetchRequest.builder()
+                .policyId(createdPolicy.getPolicyId())
+                .requestDate(START_DATE)
+                .build());
+
+    assertEquals(personCount, fetchedPolicy.getInsuredPersons().size());
+    assertEquals(0, createdPolicy.getTotalPremium().compareTo(fetchedPolicy.getTotalPremium()));
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 100})
+  @DisplayName(
+      "Given a created policy "
+          + "When we read its members on its start date from database "
+          + "Then policy and insured persons are read with a single statement.")
+  void testGetPolicyMembersUsesSingleStatement(int personCount) {
+    PolicyResponse createdPolicy = policyFacade.createPolicy(buildRequest(personCount));
+    statistics.clear();
+
+    List<PolicyMember> policyMembers =
+        policyService.getPolicyMembers(createdPolicy.getPolicyId(), START_DATE);
+
+    assertEquals(personCount, policyMembers.size());
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy stored without going through the facade "
+          + "When we fetch its members from the membership index twice "
+          + "Then its history is loaded with a single statement on first fetch only.")
+  void testMembershipIndexLoadsPolicyOnce() {
+    Policy storedPolicy = policyService.insertPolicy(buildRequest(0));
+    statistics.clear();
+
+    List<PolicyMember> firstFetch =
+        policyMembershipIndex.getPolicyMembers(storedPolicy.getPolicyId(), START_DATE);
+    List<PolicyMember> secondFetch =
+        policyMembershipIndex.getPolicyMembers(storedPolicy.getPolicyId(), START_DATE);
+
+    assertEquals(1, firstFetch.size());
+    assertNull(firstFetch.get(0).getPersonId());
+    assertEquals(firstFetch, secondFetch);
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 20})
+  @DisplayName(
+      "Given created policies "
+          + "When we fetch them in one batch on their start date "
+          + "Then all policies are read with a single statement.")
+  void testFetchPoliciesUsesSingleStatement(int policyCount) {
+    List<String> policyIds = new ArrayList<>(policyCount);
+    for (int i = 0; i < policyCount; i++) {
+      policyIds.add(policyFacade.createPolicy(buildRequest(3)).getPolicyId());
+    }
+    statistics.clear();
+
+    PolicyBatchFetchResponse policyBatchFetchResponse =
+        policyFacade.fetchPolicies(
+            PolicyBatchFetchRequest.builder().policyIds(policyIds).requestDate(START_DATE).build());
+
+    assertEquals(policyCount, policyBatchFetchResponse.getPolicies().size());
+    assertTrue(policyBatchFetchResponse.getNotFoundPolicyIds().isEmpty());
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy with two insured persons "
+          + "When one person is removed and the other one is removed a day later "
+          + "Then the first removal date is kept.")
+  void testModifyPolicyKeepsEarlierRemovals() {
+    PolicyResponse createdPolicy = policyFacade.createPolicy(buildRequest(2));
+    Date firstRemovalDate = new Date(START_DATE.getTime() + 86400000);
+    Date secondRemovalDate = new Date(firstRemovalDate.getTime() + 86400000);
+    InsuredPerson keptPerson = createdPolicy.getInsuredPersons().get(1);
+    policyFacade.modifyPolicy(
+        buildModificationRequest(createdPolicy, firstRemovalDate, keptPerson));
+    InsuredPerson addedPerson =
+        InsuredPerson.builder().firstName("First").secondName("Second").premium(PREMIUM).build();
+    policyFacade.modifyPolicy(
+        buildModificationRequest(createdPolicy, secondRemovalDate, addedPerson));
+
+    List<PolicyMember> storedMembers =
+        policyService.getPolicyMembers(createdPolicy.getPolicyId(), firstRemovalDate);
+    PolicyResponse fetchedPolicy =
+        policyFacade.fetchPolicy(
+            PolicyFetchRequest.builder()
+                .policyId(createdPolicy.getPolicyId())
+                .requestDate(firstRemovalDate)
+                .build());
+
+    assertEquals(1, storedMembers.size());
+    assertEquals(keptPerson.getId(), storedMembers.get(0).getPersonId());
+    assertEquals(1, fetchedPolicy.getInsuredPersons().size());
+    assertEquals(keptPerson.getId(), fetchedPolicy.getInsuredPersons().get(0).getId());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy modified on a later date and then on an earlier date "
+          + "When we fetch its premium on dates around both modifications "
+          + "Then the premium timeline gives the total premium of the members on each date.")
+  void testFetchPremiumMatchesPolicyMembers() {
+    PolicyResponse createdPolicy = policyFacade.createPolicy(buildRequest(2));
+    Date firstDate = new Date(START_DATE.getTime() + 86400000);
+    Date secondDate = new Date(firstDate.getTime() + 86400000);
+    Date thirdDate = new Date(secondDate.getTime() + 86400000);
+    policyFacade.modifyPolicy(
+        buildModificationRequest(
+            createdPolicy, secondDate, createdPolicy.getInsuredPersons().get(1)));
+    InsuredPerson addedPerson =
+        InsuredPerson.builder()
+            .firstName("First")
+            .secondName("Second")
+            .premium(new BigDecimal("30.25"))
+            .build();
+    policyFacade.modifyPolicy(buildModificationRequest(createdPolicy, firstDate, addedPerson));
+
+    for (Date requestDate : List.of(START_DATE, firstDate, secondDate, thirdDate)) {
+      BigDecimal memberPremium = BigDecimal.ZERO;
+      for (PolicyMember policyMember :
+          policyService.getPolicyMembers(createdPolicy.getPolicyId(), requestDate)) {
+        if (policyMember.getPremium() != null) {
+          memberPremium = memberPremium.add(policyMember.getPremium());
+        }
+      }
+      statistics.clear();
+      PolicyPremiumResponse policyPremiumResponse =
+          policyFacade.fetchPremium(
+              PolicyFetchRequest.builder()
+                  .policyId(createdPolicy.getPolicyId())
+                  .requestDate(requestDate)
+                  .build());
+      assertEquals(
+          0, memberPremium.compareTo(policyPremiumResponse.getTotalPremium()), "On " + requestDate);
+      assertEquals(1, statistics.getPrepareStatementCount());
+    }
+  }
+
+  private PolicyCreationRequest buildRequest(int personCount) {
+    List<InsuredPerson> insuredPersons = new ArrayList<>(personCount);
+    for (int i = 0; i < personCount; i++) {
+      insuredPersons.add(
+          InsuredPerson.builder()
+              .firstName("First" + i)
+              .secondName("Second" + i)
+              .premium(PREMIUM)
+              .build());
+    }
+    return PolicyCreationRequest.builder()
+        .startDate(START_DATE)
+        .insuredPersons(insuredPersons)
+        .build();
+  }
+
+  private PolicyModificationRequest buildModificationRequest(
+      PolicyResponse policy, Date effectiveDate, InsuredPerson insuredPerson) {
+    return PolicyModificationRequest.builder()
+        .policyId(policy.getPolicyId())
+        .effectiveDate(effectiveDate)
+        .insuredPersons(List.of(insuredPerson))
+        .build();
+  }
+}
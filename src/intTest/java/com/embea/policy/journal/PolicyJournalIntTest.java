@@ -0,0 +1,113 @@
+package com.embea.policy.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.dto.PolicyMapping;
+import com.embea.policy.facade.PolicyFacade;
+import com.embea.policy.journal.MappedJournal.JournalRecord;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyFetchRequest;
+import com.embea.policy.model.PolicyModificationRequest;
+import com.embea.policy.model.PolicyResponse;
+import com.embea.policy.repository.PolicyMappingRepo;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(
+    properties = {
+      "policy.journal.enabled=true",
+      "policy.journal.directory=${java.io.tmpdir}/policy-journal-${random.uuid}",
+      "policy.membership-index.enabled=false",
+      "policy.fetch-cache.enabled=false"
+    })
+public class PolicyJournalIntTest {
+
+  private static final Date START_DATE = new Date(new Date().getTime() + 86400000);
+  private static final Date EFFECTIVE_DATE = new Date(START_DATE.getTime() + 432000000);
+  private static final BigDecimal PREMIUM = new BigDecimal("12.90");
+
+  @Autowired private PolicyFacade policyFacade;
+
+  @Autowired private PolicyJournal policyJournal;
+
+  @Autowired private PolicyMappingRepo policyMappingRepo;
+
+  @Test
+  @DisplayName(
+      "Given the policy journal is enabled "
+          + "When we create a policy, replace one of its persons right away and fetch it "
+          + "Then the modification and fetches see the journaled changes "
+          + "And the journal holds every change of the policy in order.")
+  void testCreateModifyAndFetchThroughJournal() {
+    PolicyResponse createdPolicy =
+        policyFacade.createPolicy(
+            PolicyCreationRequest.builder()
+                .startDate(START_DATE)
+                .insuredPersons(
+                    new ArrayList<>(
+                        List.of(buildPerson("Jane", "Jackson"), buildPerson("Jack", "Doe"))))
+                .build());
+    String policyId = createdPolicy.getPolicyId();
+    InsuredPerson keptPerson = createdPolicy.getInsuredPersons().get(0);
+    InsuredPerson removedPerson = createdPolicy.getInsuredPersons().get(1);
+    policyFacade.modifyPolicy(
+        PolicyModificationRequest.builder()
+            .policyId(policyId)
+            .effectiveDate(EFFECTIVE_DATE)
+            .insuredPersons(new ArrayList<>(List.of(keptPerson, buildPerson("Will", "Smith"))))
+            .build());
+
+    PolicyResponse policyBefore = fetch(policyId, START_DATE);
+    PolicyResponse policyAfter = fetch(policyId, EFFECTIVE_DATE);
+    assertEquals(createdPolicy.getInsuredPersons(), policyBefore.getInsuredPersons());
+    assertEquals(2, policyAfter.getInsuredPersons().size());
+    assertTrue(policyAfter.getInsuredPersons().contains(keptPerson));
+    assertFalse(policyAfter.getInsuredPersons().contains(removedPerson));
+
+    List<PolicyEvent> events =
+        policyJournal.read(0, Integer.MAX_VALUE).stream()
+            .map(JournalRecord::getEvent)
+            .filter(event -> event.getPolicyId().equals(policyId))
+            .collect(Collectors.toList());
+    assertEquals(
+        List.of(
+            PolicyEvent.Type.POLICY_CREATED,
+            PolicyEvent.Type.PERSON_ADDED,
+            PolicyEvent.Type.PERSON_ADDED,
+            PolicyEvent.Type.PERSON_ADDED,
+            PolicyEvent.Type.PERSON_REMOVED),
+        events.stream().map(PolicyEvent::getType).collect(Collectors.toList()));
+    assertEquals(removedPerson.getId(), events.get(4).getPersonId());
+
+    policyJournal.awaitApplied(policyId);
+    List<PolicyMapping> policyMappings = policyMappingRepo.findByPolicyId(policyId);
+    assertEquals(3, policyMappings.size());
+    for (PolicyMapping policyMapping : policyMappings) {
+      assertNotNull(policyMapping.getId());
+      if (policyMapping.getPersonId().equals(removedPerson.getId())) {
+        assertEquals(EFFECTIVE_DATE.getTime(), policyMapping.getRemovalDate().getTime());
+      } else {
+        assertNull(policyMapping.getRemovalDate());
+      }
+    }
+  }
+
+  private PolicyResponse fetch(String policyId, Date requestDate) {
+    return policyFacade.fetchPolicy(
+        PolicyFetchRequest.builder().policyId(policyId).requestDate(requestDate).build());
+  }
+
+  private InsuredPerson buildPerson(String firstName, String secondName) {
+    return InsuredPerson.builder()
+        .firstName(firstName)
+        .secondName(secondName)
+        .premium(PREMIUM)
+        .build();
+  }
+}
@@ -0,0 +1,91 @@
+package com.embea.policy.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyFetchRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMetrics
+@AutoConfigureMockMvc
+public class PolicyMetricsIntTest {
+
+  private static final Date START_DATE = new Date(new Date().getTime() + 86400000);
+  private static final String POLICY_CREATE_URL = "/v1/policy/create";
+  private static final String POLICY_FETCH_URL = "/v1/policy/fetch";
+  private static final String PROMETHEUS_URL = "/actuator/prometheus";
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Test
+  @DisplayName(
+      "Given a created policy and a fetch of an unknown policy "
+          + "When we scrape the prometheus endpoint "
+          + "Then facade and repository timers, insured person summaries and error counters are"
+          + " exported.")
+  void testPolicyMetricsAreExported() throws Exception {
+    PolicyCreationRequest policyCreationRequest =
+        PolicyCreationRequest.builder()
+            .startDate(START_DATE)
+            .insuredPersons(
+                List.of(
+                    InsuredPerson.builder()
+                        .firstName("Jane")
+                        .secondName("Jackson")
+                        .premium(BigDecimal.valueOf(12.90))
+                        .build()))
+            .build();
+    mockMvc
+        .perform(
+            post(POLICY_CREATE_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(policyCreationRequest)))
+        .andExpect(status().isOk());
+    PolicyFetchRequest policyFetchRequest =
+        PolicyFetchRequest.builder()
+            .policyId(UUID.randomUUID().toString())
+            .requestDate(START_DATE)
+            .build();
+    mockMvc
+        .perform(
+            post(POLICY_FETCH_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(policyFetchRequest)))
+        .andExpect(status().isNotFound());
+
+    String scrape =
+        mockMvc
+            .perform(get(PROMETHEUS_URL))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    assertTrue(scrape.contains("policy_facade_seconds_bucket{"));
+    assertTrue(scrape.contains("method=\"createPolicy\""));
+    assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket{"));
+    assertTrue(scrape.contains("repository=\"PolicyRepo\""));
+    assertTrue(scrape.contains("policy_insured_persons_count{"));
+    assertTrue(scrape.contains("exception=\"PolicyNotFoundException\""));
+    assertTrue(scrape.contains("policy_errors_total{"));
+  }
+}
@@ -0,0 +1,149 @@
+package com.embea.policy.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the hot policy mapping queries, captures the SQL Hibernate generates for them and asserts
+ * with EXPLAIN that the database answers them from the indexes of the managed schema.
+ */
+@SpringBootTest(
+    properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "com.embea.policy.repository.PolicyMappingQueryPlanIntTest$CapturingStatementInspector")
+public class PolicyMappingQueryPlanIntTest {
+
+  private static final String POLICY_ADDITION_INDEX = "IDX_POLICY_MAPPING_POLICY_ADDITION";
+  private static final String POLICY_PERSON_INDEX = "IDX_POLICY_MAPPING_POLICY_PERSON";
+  private static final String POLICY_ID = UUID.randomUUID().toString();
+  private static final Date REQUEST_DATE = new Date();
+
+  @Autowired private PolicyRepo policyRepo;
+
+  @Autowired private PolicyMappingRepo policyMappingRepo;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void setUp() {
+    CapturingStatementInspector.STATEMENTS.clear();
+  }
+
+  @Test
+  @DisplayName(
+      "Given the managed schema "
+          + "When we fetch policy members on a request date "
+          + "Then the mapping join uses the covering policy and addition date index.")
+  void testPolicyMembersQueryUsesCoveringIndex() {
+    policyRepo.findPolicyMembersByPolicyIdAndRequestDate(POLICY_ID, REQUEST_DATE);
+
+    assertLastStatementUses(POLICY_ADDITION_INDEX);
+  }
+
+  @Test
+  @DisplayName(
+      "Given the managed schema "
+          + "When we fetch policy members of several policies on a request date "
+          + "Then the mapping join uses the covering policy and addition date index.")
+  void testBatchPolicyMembersQueryUsesCoveringIndex() {
+    policyRepo.findPolicyMembersByPolicyIdsAndRequestDate(
+        List.of(POLICY_ID, UUID.randomUUID().toString()), REQUEST_DATE);
+
+    assertLastStatementUses(POLICY_ADDITION_INDEX);
+  }
+
+  @Test
+  @DisplayName(
+      "Given the managed schema "
+          + "When we fetch the membership history of a policy "
+          + "Then the mapping join uses the policy and addition date index.")
+  void testPolicyMemberIntervalsQueryUsesIndex() {
+    policyRepo.findPolicyMemberIntervalsByPolicyId(POLICY_ID);
+
+    assertLastStatementUses(POLICY_ADDITION_INDEX);
+  }
+
+  @Test
+  @DisplayName(
+      "Given the managed schema "
+          + "When we find all mappings of a policy "
+          + "Then the policy and addition date index is used.")
+  void testFindByPolicyIdUsesIndex() {
+    policyMappingRepo.findByPolicyId(POLICY_ID);
+
+    assertLastStatementUses(POLICY_ADDITION_INDEX);
+  }
+
+  @Test
+  @DisplayName(
+      "Given the managed schema "
+          + "When we find mappings of a policy on a request date "
+          + "Then the policy and addition date index is used.")
+  void testFindByPolicyIdAndRequestDateUsesIndex() {
+    policyMappingRepo.findByPolicyIdAndRequestDate(POLICY_ID, REQUEST_DATE);
+
+    assertLastStatementUses(POLICY_ADDITION_INDEX);
+  }
+
+  @Test
+  @DisplayName(
+      "Given the managed schema "
+          + "When we find persons insured by a policy on an effective date "
+          + "Then the covering policy and addition date index is used.")
+  void testFindActivePersonIdsUsesCoveringIndex() {
+    policyMappingRepo.findActivePersonIdsByPolicyIdAndEffectiveDate(POLICY_ID, REQUEST_DATE);
+
+    assertLastStatementUses(POLICY_ADDITION_INDEX);
+  }
+
+  @Test
+  @DisplayName(
+      "Given the managed schema "
+          + "When we set the removal date of persons of a policy "
+          + "Then the policy and person index is used.")
+  void testSetRemovalDateUsesIndex() {
+    transactionTemplate.executeWithoutResult(
+        status ->
+            policyMappingRepo.setRemovalDateByPolicyIdAndPersonIds(
+                List.of(1L, 2L), POLICY_ID, REQUEST_DATE));
+
+    assertLastStatementUses(POLICY_PERSON_INDEX);
+  }
+
+  private void assertLastStatementUses(String indexName) {
+    List<String> statements = CapturingStatementInspector.STATEMENTS;
+    assertFalse(statements.isEmpty());
+    String sql = statements.get(statements.size() - 1);
+    // Parameters only need to be bound, the plan does not depend on their values
+    Object[] parameters = new Object[sql.length() - sql.replace("?", "").length()];
+    String plan = jdbcTemplate.queryForObject("explain " + sql, String.class, parameters);
+    assertTrue(plan.contains(indexName), "Expected " + indexName + " in plan:\n" + plan);
+  }
+
+  /** Records every SQL statement Hibernate prepares. */
+  public static class CapturingStatementInspector implements StatementInspector {
+
+    static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String inspect(String sql) {
+      STATEMENTS.add(sql);
+      return sql;
+    }
+  }
+}
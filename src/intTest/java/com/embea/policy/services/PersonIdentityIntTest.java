@@ -0,0 +1,132 @@
+package com.embea.policy.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.facade.PolicyFacade;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyFetchRequest;
+import com.embea.policy.model.PolicyModificationRequest;
+import com.embea.policy.model.PolicyResponse;
+import com.embea.policy.repository.PersonRepo;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:person-identity-${random.uuid}",
+      "policy.person-identity.enabled=true"
+    })
+public class PersonIdentityIntTest {
+
+  private static final Date START_DATE = new Date(new Date().getTime() + 86400000);
+  private static final Date UPDATED_DATE = new Date(START_DATE.getTime() + 432000000);
+  private static final Date LATER_DATE = new Date(UPDATED_DATE.getTime() + 432000000);
+  private static final BigDecimal PREMIUM = new BigDecimal("12.90");
+
+  @Autowired private PolicyFacade policyFacade;
+
+  @Autowired private PersonRepo personRepo;
+
+  @Test
+  @DisplayName(
+      "Given person identity resolution enabled "
+          + "When the same person is insured on two policies and added again to one of them "
+          + "Then the first policies share one person row with its stored names "
+          + "And the person added again to a policy insuring it gets a new row.")
+  void testPersonsAreReusedAcrossPolicies() {
+    PolicyResponse firstPolicy = create(buildPerson("Jane", "Jackson"));
+    long personCount = personRepo.count();
+    PolicyResponse secondPolicy = create(buildPerson(" jane", "JACKSON "));
+
+    Long personId = firstPolicy.getInsuredPersons().get(0).getId();
+    assertEquals(personCount, personRepo.count());
+    assertEquals(personId, secondPolicy.getInsuredPersons().get(0).getId());
+    assertEquals("Jane", secondPolicy.getInsuredPersons().get(0).getFirstName());
+
+    List<InsuredPerson> insuredPersons = new ArrayList<>(secondPolicy.getInsuredPersons());
+    insuredPersons.add(buildPerson("Jane", "Jackson"));
+    PolicyResponse modifiedPolicy =
+        policyFacade.modifyPolicy(
+            PolicyModificationRequest.builder()
+                .policyId(secondPolicy.getPolicyId())
+                .effectiveDate(UPDATED_DATE)
+                .insuredPersons(insuredPersons)
+                .build());
+
+    assertEquals(personCount + 1, personRepo.count());
+    assertNotEquals(personId, modifiedPolicy.getInsuredPersons().get(1).getId());
+    PolicyResponse fetchedPolicy =
+        policyFacade.fetchPolicy(
+            PolicyFetchRequest.builder()
+                .policyId(secondPolicy.getPolicyId())
+                .requestDate(UPDATED_DATE)
+                .build());
+    assertEquals(2, fetchedPolicy.getInsuredPersons().size());
+  }
+
+  @Test
+  @DisplayName(
+      "Given person identity resolution enabled and a person added to a policy on a later date "
+          + "When the same person is added to the policy on an earlier date "
+          + "Then it gets a new row instead of overlapping its own later mapping.")
+  void testPersonInsuredLaterIsNotReused() {
+    PolicyResponse createdPolicy = create(buildPerson("Jack", "Doe"));
+    InsuredPerson jack = createdPolicy.getInsuredPersons().get(0);
+    PolicyResponse laterPolicy =
+        modify(createdPolicy.getPolicyId(), LATER_DATE, jack, buildPerson("Janet", "Later"));
+    Long laterPersonId = laterPolicy.getInsuredPersons().get(1).getId();
+
+    PolicyResponse modifiedPolicy =
+        modify(createdPolicy.getPolicyId(), UPDATED_DATE, jack, buildPerson("Janet", "Later"));
+
+    Long addedPersonId = modifiedPolicy.getInsuredPersons().get(1).getId();
+    assertNotEquals(laterPersonId, addedPersonId);
+    PolicyResponse fetchedPolicy =
+        policyFacade.fetchPolicy(
+            PolicyFetchRequest.builder()
+                .policyId(createdPolicy.getPolicyId())
+                .requestDate(LATER_DATE)
+                .build());
+    assertEquals(
+        Set.of(jack.getId(), laterPersonId, addedPersonId),
+        fetchedPolicy.getInsuredPersons().stream()
+            .map(InsuredPerson::getId)
+            .collect(Collectors.toSet()));
+    assertEquals(3, fetchedPolicy.getInsuredPersons().size());
+  }
+
+  private PolicyResponse modify(
+      String policyId, Date effectiveDate, InsuredPerson... insuredPersons) {
+    return policyFacade.modifyPolicy(
+        PolicyModificationRequest.builder()
+            .policyId(policyId)
+            .effectiveDate(effectiveDate)
+            .insuredPersons(new ArrayList<>(List.of(insuredPersons)))
+            .build());
+  }
+
+  private PolicyResponse create(InsuredPerson insuredPerson) {
+    return policyFacade.createPolicy(
+        PolicyCreationRequest.builder()
+            .startDate(START_DATE)
+            .insuredPersons(new ArrayList<>(List.of(insuredPerson)))
+            .build());
+  }
+
+  private InsuredPerson buildPerson(String firstName, String secondName) {
+    return InsuredPerson.builder()
+        .firstName(firstName)
+        .secondName(secondName)
+        .premium(PREMIUM)
+        .build();
+  }
+}
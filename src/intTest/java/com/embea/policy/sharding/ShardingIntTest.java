@@ -0,0 +1,158 @@
+package com.embea.policy.sharding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.facade.PolicyFacade;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyBatchFetchRequest;
+import com.embea.policy.model.PolicyBatchFetchResponse;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyFetchRequest;
+import com.embea.policy.model.PolicyFetchResponse;
+import com.embea.policy.model.PolicyModificationRequest;
+import com.embea.policy.model.PolicyResponse;
+import com.embea.policy.utils.PolicyIdUtils;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:shard0-${random.uuid}",
+      "policy.sharding.enabled=true",
+      "policy.sharding.urls[0]=jdbc:h2:mem:shard1-${random.uuid}",
+      "policy.sharding.urls[1]=jdbc:h2:mem:shard2-${random.uuid}",
+      "policy.membership-index.enabled=false",
+      "policy.fetch-cache.enabled=false"
+    })
+public class ShardingIntTest {
+
+  private static final int SHARD_COUNT = 3;
+  private static final Date START_DATE = new Date(new Date().getTime() + 86400000);
+  private static final BigDecimal PREMIUM = new BigDecimal("12.90");
+
+  @Autowired private PolicyFacade policyFacade;
+
+  @Autowired private ShardedDataSource shardedDataSource;
+
+  @Test
+  @DisplayName(
+      "Given three shards "
+          + "When we create policies "
+          + "Then each policy and its mappings are stored on the shard of its id only.")
+  void testPoliciesAreStoredOnTheirShard() {
+    Set<Integer> usedShards = new HashSet<>();
+    for (int i = 0; i < 12; i++) {
+      String policyId = createPolicy().getPolicyId();
+      int shard = ShardContext.shardOf(policyId, SHARD_COUNT);
+      usedShards.add(shard);
+
+      for (int otherShard = 0; otherShard < SHARD_COUNT; otherShard++) {
+        int expected = otherShard == shard ? 1 : 0;
+        assertEquals(expected, count(otherShard, "policy", "id", policyId));
+        assertEquals(expected, count(otherShard, "policy_mapping", "policy_id", policyId));
+      }
+    }
+    assertTrue(usedShards.size() > 1);
+  }
+
+  @Test
+  @DisplayName(
+      "Given policies on different shards "
+          + "When we modify one and fetch them one by one and as a batch "
+          + "Then every policy is found on its shard.")
+  void testModifyAndFetchAcrossShards() {
+    List<String> policyIds = new ArrayList<>();
+    Set<Integer> usedShards = new HashSet<>();
+    while (usedShards.size() < SHARD_COUNT) {
+      String policyId = createPolicy().getPolicyId();
+      policyIds.add(policyId);
+      usedShards.add(ShardContext.shardOf(policyId, SHARD_COUNT));
+    }
+    String modifiedPolicyId = policyIds.get(policyIds.size() - 1);
+    PolicyResponse modifiedPolicy =
+        policyFacade.modifyPolicy(
+            PolicyModificationRequest.builder()
+                .policyId(modifiedPolicyId)
+                .effectiveDate(START_DATE)
+                .insuredPersons(
+                    new ArrayList<>(
+                        List.of(
+                            fetch(modifiedPolicyId).getInsuredPersons().get(0),
+                            buildPerson("Jane"))))
+                .build());
+
+    PolicyBatchFetchResponse batchFetchResponse =
+        policyFacade.fetchPolicies(
+            PolicyBatchFetchRequest.builder().policyIds(policyIds).requestDate(START_DATE).build());
+
+    assertEquals(2, modifiedPolicy.getInsuredPersons().size());
+    assertEquals(2, fetch(modifiedPolicyId).getInsuredPersons().size());
+    assertEquals(policyIds.size(), batchFetchResponse.getPolicies().size());
+    assertTrue(batchFetchResponse.getNotFoundPolicyIds().isEmpty());
+    for (int i = 0; i < policyIds.size(); i++) {
+      PolicyFetchResponse fetchedPolicy = batchFetchResponse.getPolicies().get(i);
+      assertEquals(policyIds.get(i), fetchedPolicy.getPolicyId());
+      int expectedPersons = policyIds.get(i).equals(modifiedPolicyId) ? 2 : 1;
+      assertEquals(expectedPersons, fetchedPolicy.getInsuredPersons().size());
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given three shards "
+          + "When we create a chunk of policies in one transaction "
+          + "Then they are all generated onto the same shard.")
+  void testChunkStaysOnOneShard() {
+    List<PolicyCreationRequest> policyCreationRequests = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      policyCreationRequests.add(buildCreationRequest());
+    }
+
+    List<PolicyResponse> createdPolicies = policyFacade.createPolicies(policyCreationRequests);
+
+    int shard = ShardContext.shardOf(createdPolicies.get(0).getPolicyId(), SHARD_COUNT);
+    for (PolicyResponse createdPolicy : createdPolicies) {
+      assertEquals(shard, ShardContext.shardOf(createdPolicy.getPolicyId(), SHARD_COUNT));
+      assertEquals(1, count(shard, "policy", "id", createdPolicy.getPolicyId()));
+    }
+  }
+
+  private PolicyResponse createPolicy() {
+    return policyFacade.createPolicy(buildCreationRequest());
+  }
+
+  private PolicyResponse fetch(String policyId) {
+    return policyFacade.fetchPolicy(
+        PolicyFetchRequest.builder().policyId(policyId).requestDate(START_DATE).build());
+  }
+
+  private int count(int shard, String table, String column, String policyId) {
+    DataSource dataSource = shardedDataSource.getShards().get(shard);
+    return new JdbcTemplate(dataSource)
+        .queryForObject(
+            "select count(*) from " + table + " where " + column + " = ?",
+            Integer.class,
+            PolicyIdUtils.toBytes(policyId));
+  }
+
+  private PolicyCreationRequest buildCreationRequest() {
+    return PolicyCreationRequest.builder()
+        .startDate(START_DATE)
+        .insuredPersons(new ArrayList<>(List.of(buildPerson("Jack"))))
+        .build();
+  }
+
+  private InsuredPerson buildPerson(String firstName) {
+    return InsuredPerson.builder().firstName(firstName).secondName("Doe").premium(PREMIUM).build();
+  }
+}
@@ -0,0 +1,180 @@
+package com.embea.policy.snapshot;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.PolicyServiceApplication;
+import com.embea.policy.facade.PolicyFacade;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyFetchRequest;
+import com.embea.policy.model.PolicyModificationRequest;
+import com.embea.policy.model.PolicyResponse;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+public class PolicySnapshotIntTest {
+
+  private static final Date START_DATE = new Date(new Date().getTime() + 86400000);
+  private static final Date EFFECTIVE_DATE = new Date(START_DATE.getTime() + 432000000);
+  private static final BigDecimal PREMIUM = new BigDecimal("12.90");
+
+  @TempDir Path directory;
+
+  private final Map<String, PolicyResponse> policiesBefore = new HashMap<>();
+  private final Map<String, PolicyResponse> policiesAfter = new HashMap<>();
+
+  @Test
+  @DisplayName(
+      "Given a file database and policies fetched before a clean shutdown "
+          + "When the service is started again "
+          + "Then the policies are served from the restored snapshot without database access.")
+  void testPoliciesAreServedFromSnapshotAfterRestart() {
+    String policyId = createAndFetchPolicy();
+
+    assertServedFromSnapshot(policyId);
+  }
+
+  @Test
+  @DisplayName(
+      "Given the service running with the file profile on a restored snapshot "
+          + "When its JVM is shut down "
+          + "Then the snapshot is recorded before the database is closed "
+          + "And the next start serves the policies from it again.")
+  void testSnapshotIsRecordedOnJvmShutdown() throws Exception {
+    String policyId = createAndFetchPolicy();
+    Path log = directory.resolve("service.log");
+    Process process =
+        new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp",
+                System.getProperty("java.class.path"),
+                PolicyServiceApplication.class.getName(),
+                "--spring.profiles.active=file",
+                "--server.port=0",
+                "--policy.fetch-cache.enabled=false")
+            .directory(directory.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile())
+            .start();
+    try {
+      awaitStarted(process, log);
+    } finally {
+      process.destroy();
+      assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+    }
+
+    assertServedFromSnapshot(policyId);
+  }
+
+  /** Create and modify a policy and fetch it into the membership index, then shut down. */
+  private String createAndFetchPolicy() {
+    PolicyResponse createdPolicy;
+    PolicyResponse policyBefore;
+    PolicyResponse policyAfter;
+    try (ConfigurableApplicationContext context = start()) {
+      PolicyFacade policyFacade = context.getBean(PolicyFacade.class);
+      createdPolicy =
+          policyFacade.createPolicy(
+              PolicyCreationRequest.builder()
+                  .startDate(START_DATE)
+                  .insuredPersons(
+                      new ArrayList<>(
+                          List.of(buildPerson("Jane", "Jackson"), buildPerson("Jack", "Doe"))))
+                  .build());
+      policyFacade.modifyPolicy(
+          PolicyModificationRequest.builder()
+              .policyId(createdPolicy.getPolicyId())
+              .effectiveDate(EFFECTIVE_DATE)
+              .insuredPersons(
+                  new ArrayList<>(
+                      List.of(
+                          createdPolicy.getInsuredPersons().get(0), buildPerson("Will", "Smith"))))
+              .build());
+      policyBefore = fetch(policyFacade, createdPolicy.getPolicyId(), START_DATE);
+      policyAfter = fetch(policyFacade, createdPolicy.getPolicyId(), EFFECTIVE_DATE);
+    }
+    policiesBefore.put(createdPolicy.getPolicyId(), policyBefore);
+    policiesAfter.put(createdPolicy.getPolicyId(), policyAfter);
+    return createdPolicy.getPolicyId();
+  }
+
+  private void assertServedFromSnapshot(String policyId) {
+    try (ConfigurableApplicationContext context = start()) {
+      PolicyFacade policyFacade = context.getBean(PolicyFacade.class);
+      Statistics statistics =
+          context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+      statistics.clear();
+
+      assertEquals(
+          policiesBefore.get(policyId).getInsuredPersons(),
+          fetch(policyFacade, policyId, START_DATE).getInsuredPersons());
+      assertEquals(
+          policiesAfter.get(policyId).getInsuredPersons(),
+          fetch(policyFacade, policyId, EFFECTIVE_DATE).getInsuredPersons());
+      assertEquals(0, statistics.getPrepareStatementCount());
+    }
+  }
+
+  private ConfigurableApplicationContext start() {
+    return new SpringApplicationBuilder(PolicyServiceApplication.class)
+        .web(WebApplicationType.NONE)
+        .run(
+            "--spring.datasource.url=jdbc:h2:file:"
+                + directory.resolve("data").resolve("embeadb")
+                + ";DB_CLOSE_ON_EXIT=FALSE",
+            "--spring.jpa.properties.hibernate.generate_statistics=true",
+            "--policy.snapshot.enabled=true",
+            "--policy.snapshot.path=" + directory.resolve("data").resolve("policy-snapshot.bin"),
+            "--policy.fetch-cache.enabled=false");
+  }
+
+  /** Wait until the service in the process has started and restored the snapshot. */
+  private void awaitStarted(Process process, Path log) throws IOException, InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+    while (!Files.readString(log).contains("Started PolicyServiceApplication")) {
+      assertTrue(process.isAlive(), () -> "Service exited: " + readLog(log));
+      assertTrue(System.nanoTime() < deadline, "Service did not start within timeout");
+      TimeUnit.MILLISECONDS.sleep(100);
+    }
+    assertTrue(Files.readString(log).contains("Restored [1] policies"), () -> readLog(log));
+  }
+
+  private String readLog(Path log) {
+    try {
+      return Files.readString(log);
+    } catch (IOException e) {
+      return e.toString();
+    }
+  }
+
+  private PolicyResponse fetch(PolicyFacade policyFacade, String policyId, Date requestDate) {
+    return policyFacade.fetchPolicy(
+        PolicyFetchRequest.builder().policyId(policyId).requestDate(requestDate).build());
+  }
+
+  private InsuredPerson buildPerson(String firstName, String secondName) {
+    return InsuredPerson.builder()
+        .firstName(firstName)
+        .secondName(secondName)
+        .premium(PREMIUM)
+        .build();
+  }
+}
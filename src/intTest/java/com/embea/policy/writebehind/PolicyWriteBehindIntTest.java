@@ -0,0 +1,262 @@
+package com.embea.policy.writebehind;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.exception.PolicyNotFoundException;
+import com.embea.policy.facade.PolicyFacade;
+import com.embea.policy.facade.WriteBehindPolicyFacade;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyFetchRequest;
+import com.embea.policy.model.PolicyModificationRequest;
+import com.embea.policy.model.PolicyResponse;
+import com.embea.policy.utils.PolicyIdUtils;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:write-behind-${random.uuid}",
+      "policy.write-behind.enabled=true"
+    })
+public class PolicyWriteBehindIntTest {
+
+  private static final int POLICIES = 20;
+  private static final Date START_DATE = new Date(new Date().getTime() + 86400000);
+  private static final Date EFFECTIVE_DATE = new Date(START_DATE.getTime() + 432000000);
+  private static final BigDecimal PREMIUM = new BigDecimal("12.90");
+
+  @Autowired private PolicyFacade policyFacade;
+
+  @Autowired private WriteBehindPolicyFacade writeBehindPolicyFacade;
+
+  @Autowired private PolicyWriteBehind policyWriteBehind;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Test
+  @DisplayName(
+      "Given write-behind enabled and its writer busy "
+          + "When many policies are modified concurrently "
+          + "Then the modifications are committed together in one batch before they return "
+          + "And every policy holds exactly its added person afterwards.")
+  void testConcurrentModificationsAreWritten() throws Exception {
+    List<PolicyResponse> createdPolicies = new ArrayList<>();
+    for (int i = 0; i < POLICIES; i++) {
+      createdPolicies.add(createPolicy());
+    }
+    DistributionSummary batches = meterRegistry.summary(PolicyMetrics.WRITE_BEHIND_BATCH);
+    long batchesBefore = batches.count();
+    double writesBefore = batches.totalAmount();
+    ExecutorService executorService = Executors.newFixedThreadPool(POLICIES + 1);
+    CountDownLatch writerBlocked = new CountDownLatch(1);
+    CountDownLatch writerReleased = new CountDownLatch(1);
+    Future<?> blockingWrite =
+        executorService.submit(
+            () ->
+                policyWriteBehind.write(
+                    "blocking",
+                    () -> {
+                      writerBlocked.countDown();
+                      await(writerReleased);
+                      return null;
+                    }));
+    assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+    List<Future<PolicyResponse>> modifications = new ArrayList<>();
+
+    for (PolicyResponse createdPolicy : createdPolicies) {
+      modifications.add(
+          executorService.submit(
+              () ->
+                  writeBehindPolicyFacade.modifyPolicy(
+                      buildModificationRequest(
+                          createdPolicy.getPolicyId(), List.of(buildPerson("Jane"))))));
+    }
+    awaitQueued(POLICIES);
+    writerReleased.countDown();
+    blockingWrite.get(30, TimeUnit.SECONDS);
+    List<PolicyResponse> modifiedPolicies = new ArrayList<>();
+    for (Future<PolicyResponse> modification : modifications) {
+      modifiedPolicies.add(modification.get(30, TimeUnit.SECONDS));
+    }
+    executorService.shutdown();
+
+    for (PolicyResponse modifiedPolicy : modifiedPolicies) {
+      Long addedPersonId = modifiedPolicy.getInsuredPersons().get(0).getId();
+      assertNotNull(addedPersonId);
+      PolicyResponse fetchedPolicy = fetch(modifiedPolicy.getPolicyId());
+      assertEquals(1, fetchedPolicy.getInsuredPersons().size());
+      assertEquals(addedPersonId, fetchedPolicy.getInsuredPersons().get(0).getId());
+      assertEquals("Jane", fetchedPolicy.getInsuredPersons().get(0).getFirstName());
+      assertEquals(List.of(addedPersonId), activePersonIds(modifiedPolicy.getPolicyId()));
+    }
+    // The blocking write in one batch, all modifications together in the next
+    assertEquals(2, batches.count() - batchesBefore);
+    assertEquals(POLICIES + 1, (int) (batches.totalAmount() - writesBefore));
+    assertEquals(POLICIES, (int) batches.max());
+  }
+
+  @Test
+  @DisplayName(
+      "Given write-behind enabled "
+          + "When one policy is modified concurrently, each request adding another person "
+          + "Then every modification sees the one committed before it "
+          + "And the policy ends up with its first person and the last added person only.")
+  void testConcurrentModificationsOfOnePolicyAreSerialized() throws Exception {
+    PolicyResponse createdPolicy = createPolicy();
+    InsuredPerson jack = createdPolicy.getInsuredPersons().get(0);
+    ExecutorService executorService = Executors.newFixedThreadPool(POLICIES);
+    List<Future<PolicyResponse>> modifications = new ArrayList<>();
+
+    for (int i = 0; i < POLICIES; i++) {
+      InsuredPerson addedPerson = buildPerson("Jane" + i);
+      modifications.add(
+          executorService.submit(
+              () ->
+                  writeBehindPolicyFacade.modifyPolicy(
+                      buildModificationRequest(
+                          createdPolicy.getPolicyId(), List.of(jack, addedPerson)))));
+    }
+    for (Future<PolicyResponse> modification : modifications) {
+      modification.get(30, TimeUnit.SECONDS);
+    }
+    executorService.shutdown();
+
+    PolicyResponse fetchedPolicy = fetch(createdPolicy.getPolicyId());
+    assertEquals(2, fetchedPolicy.getInsuredPersons().size());
+    List<Long> activePersonIds = activePersonIds(createdPolicy.getPolicyId());
+    assertEquals(2, activePersonIds.size());
+    assertTrue(activePersonIds.contains(jack.getId()));
+  }
+
+  @Test
+  @DisplayName(
+      "Given write-behind enabled and its writer busy "
+          + "When a policy is modified together with a policy that does not exist "
+          + "Then both modifications are run in one batch "
+          + "And only the modification of the missing policy fails "
+          + "And the person added to the existing policy is stored with the returned id.")
+  void testModificationOfMissingPolicyOnlyFailsItself() throws Exception {
+    PolicyResponse createdPolicy = createPolicy();
+    DistributionSummary batches = meterRegistry.summary(PolicyMetrics.WRITE_BEHIND_BATCH);
+    long batchesBefore = batches.count();
+    double writesBefore = batches.totalAmount();
+    ExecutorService executorService = Executors.newFixedThreadPool(3);
+    CountDownLatch writerBlocked = new CountDownLatch(1);
+    CountDownLatch writerReleased = new CountDownLatch(1);
+    Future<?> blockingWrite =
+        executorService.submit(
+            () ->
+                policyWriteBehind.write(
+                    "blocking",
+                    () -> {
+                      writerBlocked.countDown();
+                      await(writerReleased);
+                      return null;
+                    }));
+    assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+
+    Future<PolicyResponse> modification =
+        executorService.submit(
+            () ->
+                writeBehindPolicyFacade.modifyPolicy(
+                    buildModificationRequest(
+                        createdPolicy.getPolicyId(), List.of(buildPerson("Jane")))));
+    awaitQueued(1);
+    Future<PolicyResponse> missingModification =
+        executorService.submit(
+            () ->
+                writeBehindPolicyFacade.modifyPolicy(
+                    buildModificationRequest(
+                        PolicyIdUtils.generate(), List.of(buildPerson("Joe")))));
+    awaitQueued(2);
+    writerReleased.countDown();
+    blockingWrite.get(30, TimeUnit.SECONDS);
+    PolicyResponse modifiedPolicy = modification.get(30, TimeUnit.SECONDS);
+    Exception exception =
+        assertThrows(Exception.class, () -> missingModification.get(30, TimeUnit.SECONDS));
+    executorService.shutdown();
+
+    assertInstanceOf(PolicyNotFoundException.class, exception.getCause());
+    Long addedPersonId = modifiedPolicy.getInsuredPersons().get(0).getId();
+    assertNotNull(addedPersonId);
+    assertEquals(List.of(addedPersonId), activePersonIds(createdPolicy.getPolicyId()));
+    assertEquals(
+        1,
+        jdbcTemplate.queryForObject(
+            "select count(*) from person where id = ?", Integer.class, addedPersonId));
+    PolicyResponse fetchedPolicy = fetch(createdPolicy.getPolicyId());
+    assertEquals(1, fetchedPolicy.getInsuredPersons().size());
+    assertEquals(addedPersonId, fetchedPolicy.getInsuredPersons().get(0).getId());
+    // The blocking write in one batch, both modifications together in the next
+    assertEquals(2, batches.count() - batchesBefore);
+    assertEquals(3, (int) (batches.totalAmount() - writesBefore));
+  }
+
+  private PolicyResponse createPolicy() {
+    return policyFacade.createPolicy(
+        PolicyCreationRequest.builder()
+            .startDate(START_DATE)
+            .insuredPersons(new ArrayList<>(List.of(buildPerson("Jack"))))
+            .build());
+  }
+
+  private PolicyModificationRequest buildModificationRequest(
+      String policyId, List<InsuredPerson> insuredPersons) {
+    return PolicyModificationRequest.builder()
+        .policyId(policyId)
+        .effectiveDate(EFFECTIVE_DATE)
+        .insuredPersons(new ArrayList<>(insuredPersons))
+        .build();
+  }
+
+  private PolicyResponse fetch(String policyId) {
+    return policyFacade.fetchPolicy(
+        PolicyFetchRequest.builder().policyId(policyId).requestDate(EFFECTIVE_DATE).build());
+  }
+
+  /** Ids of the persons whose mappings of the policy are not removed. */
+  private List<Long> activePersonIds(String policyId) {
+    return jdbcTemplate.queryForList(
+        "select person_id from policy_mapping where policy_id = ? and removal_date is null",
+        Long.class,
+        PolicyIdUtils.toBytes(policyId));
+  }
+
+  private void awaitQueued(int writes) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (meterRegistry.get(PolicyMetrics.WRITE_BEHIND_QUEUE).gauge().value() < writes) {
+      assertTrue(System.nanoTime() < deadline, "Modifications were not queued");
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      latch.await(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private InsuredPerson buildPerson(String firstName) {
+    return InsuredPerson.builder().firstName(firstName).secondName("Doe").premium(PREMIUM).build();
+  }
+}
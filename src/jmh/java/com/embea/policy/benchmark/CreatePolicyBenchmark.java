@@ -0,0 +1,24 @@
+package com.embea.policy.benchmark;
+
+import com.embea.policy.model.PolicyResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/** Creation of a policy with a given number of insured persons. */
+public class CreatePolicyBenchmark extends PolicyBenchmarkSupport {
+
+  @Param({"1", "10", "100", "1000"})
+  public int personCount;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    startContext();
+  }
+
+  @Benchmark
+  public PolicyResponse createPolicy() {
+    return policyFacade.createPolicy(buildCreationRequest(personCount));
+  }
+}
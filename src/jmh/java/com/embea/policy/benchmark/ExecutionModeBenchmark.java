@@ -0,0 +1,80 @@
+package com.embea.policy.benchmark;
+
+import com.embea.policy.model.PolicyFetchRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+/**
+ * Point-in-time fetches over HTTP from more concurrent clients than Tomcat has worker threads, with
+ * fetch cache and membership index disabled so that every request blocks on the database. Compares
+ * request handling on the platform thread pool against virtual threads, both behind the connection
+ * limiter. Sample time mode reports p99 latency next to throughput. The virtual mode needs a Java
+ * 21 runtime.
+ */
+@Threads(256)
+public class ExecutionModeBenchmark extends PolicyBenchmarkSupport {
+
+  private static final int PERSON_COUNT = 10;
+  private static final int HISTORY_DEPTH = 10;
+
+  @Param({"platform", "virtual"})
+  public String executionMode;
+
+  private HttpClient httpClient;
+  private HttpRequest[] fetchRequests;
+
+  @Setup(Level.Trial)
+  public void setUp() throws JsonProcessingException {
+    startContext(
+        WebApplicationType.SERVLET,
+        "server.port=0",
+        "policy.execution.mode=" + executionMode,
+        "policy.execution.limiter.enabled=true",
+        "policy.fetch-cache.enabled=false",
+        "policy.membership-index.enabled=false");
+    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+    ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+    String policyId = createPolicyWithHistory(PERSON_COUNT, HISTORY_DEPTH).getPolicyId();
+    fetchRequests = new HttpRequest[HISTORY_DEPTH + 1];
+    for (int day = 0; day <= HISTORY_DEPTH; day++) {
+      PolicyFetchRequest fetchRequest =
+          PolicyFetchRequest.builder()
+              .policyId(policyId)
+              .requestDate(toDate(START_DATE.plusDays(day)))
+              .build();
+      fetchRequests[day] =
+          HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v1/policy/fetch"))
+              .header("Content-Type", "application/json")
+              .POST(
+                  HttpRequest.BodyPublishers.ofString(
+                      objectMapper.writeValueAsString(fetchRequest)))
+              .build();
+    }
+    httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+  }
+
+  @Benchmark
+  public int fetchPolicy() throws IOException, InterruptedException {
+    HttpRequest fetchRequest =
+        fetchRequests[ThreadLocalRandom.current().nextInt(fetchRequests.length)];
+    HttpResponse<Void> response =
+        httpClient.send(fetchRequest, HttpResponse.BodyHandlers.discarding());
+    if (response.statusCode() != 200) {
+      throw new IllegalStateException("Fetch failed with status " + response.statusCode());
+    }
+    return response.statusCode();
+  }
+}
@@ -0,0 +1,51 @@
+package com.embea.policy.benchmark;
+
+import com.embea.policy.model.PolicyFetchRequest;
+import com.embea.policy.model.PolicyResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Point-in-time fetch of a policy, cycling through one request date per version of its history. The
+ * read path selects which layers may answer: the fetch cache, the membership index or only the
+ * database.
+ */
+public class FetchPolicyBenchmark extends PolicyBenchmarkSupport {
+
+  @Param({"1", "10", "100", "1000"})
+  public int personCount;
+
+  @Param({"0", "10", "100"})
+  public int historyDepth;
+
+  @Param({"cache", "index", "database"})
+  public String readPath;
+
+  private PolicyFetchRequest[] fetchRequests;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    startContext(
+        "policy.fetch-cache.enabled=" + readPath.equals("cache"),
+        "policy.membership-index.enabled=" + !readPath.equals("database"));
+    String policyId = createPolicyWithHistory(personCount, historyDepth).getPolicyId();
+    fetchRequests = new PolicyFetchRequest[historyDepth + 1];
+    for (int day = 0; day <= historyDepth; day++) {
+      fetchRequests[day] =
+          PolicyFetchRequest.builder()
+              .policyId(policyId)
+              .requestDate(toDate(START_DATE.plusDays(day)))
+              .build();
+    }
+  }
+
+  @Benchmark
+  public PolicyResponse fetchPolicy() {
+    PolicyFetchRequest fetchRequest = fetchRequests[next];
+    next = (next + 1) % fetchRequests.length;
+    return policyFacade.fetchPolicy(fetchRequest);
+  }
+}
@@ -0,0 +1,52 @@
+package com.embea.policy.benchmark;
+
+import com.embea.policy.model.PolicyFetchResponse;
+import com.embea.policy.model.PolicyResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Writing and reading a fetch response with the application object mapper, with the optimized JSON
+ * codec modules registered or with Jackson's reflective defaults only.
+ */
+public class JsonCodecBenchmark extends PolicyBenchmarkSupport {
+
+  @Param({"1", "10", "100", "1000"})
+  public int personCount;
+
+  @Param({"true", "false"})
+  public boolean jsonCodec;
+
+  private ObjectMapper objectMapper;
+  private PolicyFetchResponse fetchResponse;
+  private byte[] fetchResponseJson;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    startContext("policy.json-codec.enabled=" + jsonCodec);
+    objectMapper = context.getBean(ObjectMapper.class);
+    PolicyResponse createdPolicy = createPolicyWithHistory(personCount, 0);
+    fetchResponse =
+        PolicyFetchResponse.builder()
+            .policyId(createdPolicy.getPolicyId())
+            .insuredPersons(createdPolicy.getInsuredPersons())
+            .totalPremium(createdPolicy.getTotalPremium())
+            .requestDate(toDate(START_DATE))
+            .build();
+    fetchResponseJson = objectMapper.writeValueAsBytes(fetchResponse);
+  }
+
+  @Benchmark
+  public byte[] writeFetchResponse() throws IOException {
+    return objectMapper.writeValueAsBytes(fetchResponse);
+  }
+
+  @Benchmark
+  public PolicyFetchResponse readFetchResponse() throws IOException {
+    return objectMapper.readValue(fetchResponseJson, PolicyFetchResponse.class);
+  }
+}
@@ -0,0 +1,39 @@
+package com.embea.policy.benchmark;
+
+import com.embea.policy.model.PolicyResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Modification of a policy replacing one insured person. Every modification adds to the history, so
+ * a fresh policy with the requested history depth is built before each invocation and every
+ * measured modification sees the same depth. The setup runs outside the measurement, modifications
+ * take long enough for its overhead to not matter.
+ */
+public class ModifyPolicyBenchmark extends PolicyBenchmarkSupport {
+
+  @Param({"1", "10", "100", "1000"})
+  public int personCount;
+
+  @Param({"0", "10", "100"})
+  public int historyDepth;
+
+  private PolicyResponse current;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    startContext();
+  }
+
+  @Setup(Level.Invocation)
+  public void createPolicy() {
+    current = createPolicyWithHistory(personCount, historyDepth);
+  }
+
+  @Benchmark
+  public PolicyResponse modifyPolicy() {
+    return policyFacade.modifyPolicy(buildModificationRequest(current, historyDepth + 1));
+  }
+}
@@ -0,0 +1,125 @@
+package com.embea.policy.benchmark;
+
+import com.embea.policy.PolicyServiceApplication;
+import com.embea.policy.facade.PolicyFacade;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyModificationRequest;
+import com.embea.policy.model.PolicyResponse;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the application, without web layer unless asked for, against its own embedded H2 database
+ * and builds policies with a given number of insured persons and modification history.
+ */
+@State(Scope.Benchmark)
+public abstract class PolicyBenchmarkSupport {
+
+  protected static final LocalDate START_DATE = LocalDate.of(2030, 1, 1);
+  private static final BigDecimal PREMIUM = new BigDecimal("12.90");
+
+  protected ConfigurableApplicationContext context;
+  protected PolicyFacade policyFacade;
+  private long personSequence;
+
+  /**
+   * Start the application with the given properties, passed as command line arguments so they take
+   * precedence over application.yml.
+   *
+   * @param properties Properties in {@code key=value} form
+   */
+  protected void startContext(String... properties) {
+    startContext(WebApplicationType.NONE, properties);
+  }
+
+  /**
+   * Start the application with the given web application type and properties.
+   *
+   * @param webApplicationType Web application type, servlet to serve requests over HTTP
+   * @param properties Properties in {@code key=value} form
+   */
+  protected void startContext(WebApplicationType webApplicationType, String... properties) {
+    List<String> args = new ArrayList<>();
+    args.add("--spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID());
+    args.add("--logging.level.root=WARN");
+    for (String property : properties) {
+      args.add("--" + property);
+    }
+    context =
+        new SpringApplicationBuilder(PolicyServiceApplication.class)
+            .web(webApplicationType)
+            .run(args.toArray(new String[0]));
+    policyFacade = context.getBean(PolicyFacade.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopContext() {
+    context.close();
+  }
+
+  /**
+   * Create a policy and modify it once per day after its start date, each time replacing its oldest
+   * insured person by a new one. The person count stays constant while the mapping history grows by
+   * one removed and one added row per modification.
+   *
+   * @param personCount Number of insured persons at any time
+   * @param historyDepth Number of modifications
+   * @return Response of the last operation, with current insured persons and their ids
+   */
+  protected PolicyResponse createPolicyWithHistory(int personCount, int historyDepth) {
+    PolicyResponse policyResponse = policyFacade.createPolicy(buildCreationRequest(personCount));
+    for (int day = 1; day <= historyDepth; day++) {
+      policyResponse = policyFacade.modifyPolicy(buildModificationRequest(policyResponse, day));
+    }
+    return policyResponse;
+  }
+
+  protected PolicyCreationRequest buildCreationRequest(int personCount) {
+    List<InsuredPerson> insuredPersons = new ArrayList<>(personCount);
+    for (int i = 0; i < personCount; i++) {
+      insuredPersons.add(buildNewPerson());
+    }
+    return PolicyCreationRequest.builder()
+        .startDate(toDate(START_DATE))
+        .insuredPersons(insuredPersons)
+        .build();
+  }
+
+  protected PolicyModificationRequest buildModificationRequest(
+      PolicyResponse current, int daysAfterStart) {
+    List<InsuredPerson> insuredPersons = new ArrayList<>(current.getInsuredPersons());
+    insuredPersons.remove(0);
+    insuredPersons.add(buildNewPerson());
+    return PolicyModificationRequest.builder()
+        .policyId(current.getPolicyId())
+        .effectiveDate(toDate(START_DATE.plusDays(daysAfterStart)))
+        .insuredPersons(insuredPersons)
+        .build();
+  }
+
+  protected static Date toDate(LocalDate localDate) {
+    return Date.from(localDate.atStartOfDay(ZoneOffset.UTC).toInstant());
+  }
+
+  private InsuredPerson buildNewPerson() {
+    long sequence = personSequence++;
+    return InsuredPerson.builder()
+        .firstName("First" + sequence)
+        .secondName("Second" + sequence)
+        .premium(PREMIUM)
+        .build();
+  }
+}
@@ -0,0 +1,318 @@
+package com.embea.policy.load;
+
+import com.embea.policy.PolicyServiceApplication;
+import com.embea.policy.load.LoadProfile.Endpoint;
+import com.embea.policy.load.LoadReport.EndpointResult;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyFetchRequest;
+import com.embea.policy.model.PolicyModificationRequest;
+import com.embea.policy.model.PolicyResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * HTTP load generator for the policy endpoints, run by the {@code loadTest} Gradle task. Starts the
+ * application on a random port against its own in-memory database, seeds every client with
+ * policies, then runs closed-loop clients that each pick create, modify or fetch according to the
+ * traffic mix. Latencies after warm-up are recorded per endpoint in HdrHistograms, reported, and
+ * compared against the stored baseline; the run fails on errors or a regression past the tolerance.
+ */
+public class LoadGenerator {
+
+  private static final LocalDate START_DATE = LocalDate.of(2030, 1, 1);
+  private static final BigDecimal PREMIUM = new BigDecimal("12.90");
+
+  private final LoadProfile loadProfile;
+  private final ObjectMapper objectMapper;
+  private final HttpClient httpClient;
+  private final String baseUrl;
+
+  public LoadGenerator(LoadProfile loadProfile, ObjectMapper objectMapper, int port) {
+    this.loadProfile = loadProfile;
+    this.objectMapper = objectMapper;
+    this.httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    this.baseUrl = "http://localhost:" + port + "/v1/policy/";
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadProfile loadProfile = LoadProfile.fromSystemProperties();
+    Path baselinePath =
+        Paths.get(System.getProperty("load.baseline", "src/loadTest/baseline.json"));
+    Path reportPath =
+        Paths.get(System.getProperty("load.report", "build/reports/load/results.json"));
+    double tolerance = Double.parseDouble(System.getProperty("load.tolerance", "0.5"));
+
+    LoadReport loadReport;
+    try (ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(PolicyServiceApplication.class)
+            .web(WebApplicationType.SERVLET)
+            .run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + UUID.randomUUID(),
+                "--logging.level.root=WARN")) {
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      loadReport = new LoadGenerator(loadProfile, context.getBean(ObjectMapper.class), port).run();
+    }
+    loadReport.print(System.out);
+    loadReport.write(reportPath);
+
+    List<String> failures = new ArrayList<>();
+    loadReport
+        .getEndpoints()
+        .forEach(
+            (endpoint, result) -> {
+              if (result.getErrors() > 0) {
+                failures.add(String.format("%s failed %d requests", endpoint, result.getErrors()));
+              }
+            });
+    if (Boolean.getBoolean("load.updateBaseline")) {
+      loadReport.write(baselinePath);
+      System.out.printf("Baseline [%s] updated%n", baselinePath);
+    } else if (Files.exists(baselinePath)) {
+      failures.addAll(loadReport.regressionsAgainst(LoadReport.read(baselinePath), tolerance));
+    } else {
+      System.out.printf("No baseline [%s], latencies are not compared%n", baselinePath);
+    }
+    if (!failures.isEmpty()) {
+      failures.forEach(System.err::println);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Seed the clients, run them for warm-up and measured duration and merge their results.
+   *
+   * @return Report of the measured duration
+   * @throws Exception If a client fails other than by an error response
+   */
+  public LoadReport run() throws Exception {
+    List<Client> clients = new ArrayList<>(loadProfile.getConcurrency());
+    for (int i = 0; i < loadProfile.getConcurrency(); i++) {
+      clients.add(new Client(i));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(loadProfile.getConcurrency());
+    try {
+      invokeAll(executor, clients, Client::seed);
+      long measureFromNanos = System.nanoTime() + loadProfile.getWarmup().toNanos();
+      long measureToNanos = measureFromNanos + loadProfile.getDuration().toNanos();
+      invokeAll(executor, clients, client -> client.drive(measureFromNanos, measureToNanos));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    LoadReport loadReport = new LoadReport();
+    double seconds = loadProfile.getDuration().toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+    for (Endpoint endpoint : Endpoint.values()) {
+      Histogram histogram = new Histogram(3);
+      long errors = 0;
+      for (Client client : clients) {
+        histogram.add(client.histograms.get(endpoint));
+        errors += client.errors.get(endpoint);
+      }
+      if (histogram.getTotalCount() + errors == 0) {
+        continue;
+      }
+      loadReport
+          .getEndpoints()
+          .put(
+              endpoint.getName(),
+              EndpointResult.builder()
+                  .requests(histogram.getTotalCount() + errors)
+                  .errors(errors)
+                  .throughput(histogram.getTotalCount() / seconds)
+                  .p50Millis(toMillis(histogram.getValueAtPercentile(50)))
+                  .p99Millis(toMillis(histogram.getValueAtPercentile(99)))
+                  .p999Millis(toMillis(histogram.getValueAtPercentile(99.9)))
+                  .build());
+    }
+    return loadReport;
+  }
+
+  private void invokeAll(ExecutorService executor, List<Client> clients, ClientTask task)
+      throws Exception {
+    List<Callable<Void>> callables = new ArrayList<>(clients.size());
+    for (Client client : clients) {
+      callables.add(
+          () -> {
+            task.run(client);
+            return null;
+          });
+    }
+    for (Future<Void> future : executor.invokeAll(callables)) {
+      future.get();
+    }
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  private static Date toDate(LocalDate localDate) {
+    return Date.from(localDate.atStartOfDay(ZoneOffset.UTC).toInstant());
+  }
+
+  private interface ClientTask {
+    void run(Client client) throws Exception;
+  }
+
+  /** Policy created by a client, with its current insured persons and days modified. */
+  private static class ClientPolicy {
+    private final String policyId;
+    private List<InsuredPerson> insuredPersons;
+    private int days;
+
+    private ClientPolicy(PolicyResponse policyResponse) {
+      this.policyId = policyResponse.getPolicyId();
+      this.insuredPersons = policyResponse.getInsuredPersons();
+    }
+  }
+
+  /**
+   * Client sending one request at a time. It only modifies and fetches policies it created itself,
+   * so its modifications never conflict with those of other clients.
+   */
+  private class Client {
+    private final int clientId;
+    private final Random random;
+    private final List<ClientPolicy> policies = new ArrayList<>();
+    private final Map<Endpoint, Histogram> histograms = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Long> errors = new EnumMap<>(Endpoint.class);
+    private long personSequence;
+
+    private Client(int clientId) {
+      this.clientId = clientId;
+      this.random = new Random(clientId);
+      for (Endpoint endpoint : Endpoint.values()) {
+        histograms.put(endpoint, new Histogram(3));
+        errors.put(endpoint, 0L);
+      }
+    }
+
+    private void seed() throws IOException, InterruptedException {
+      for (int i = 0; i < loadProfile.getSeedPolicies(); i++) {
+        HttpResponse<String> response = send(Endpoint.CREATE);
+        if (response.statusCode() / 100 != 2) {
+          throw new IllegalStateException(
+              String.format("Seeding failed with status %d", response.statusCode()));
+        }
+      }
+    }
+
+    private void drive(long measureFromNanos, long measureToNanos)
+        throws IOException, InterruptedException {
+      long startNanos = System.nanoTime();
+      while (startNanos < measureToNanos) {
+        Endpoint endpoint = loadProfile.getMix().next(random);
+        HttpResponse<String> response = send(endpoint);
+        long endNanos = System.nanoTime();
+        if (startNanos >= measureFromNanos) {
+          if (response.statusCode() / 100 == 2) {
+            histograms.get(endpoint).recordValue(endNanos - startNanos);
+          } else {
+            errors.merge(endpoint, 1L, Long::sum);
+          }
+        }
+        startNanos = endNanos;
+      }
+    }
+
+    private HttpResponse<String> send(Endpoint endpoint) throws IOException, InterruptedException {
+      ClientPolicy policy =
+          endpoint == Endpoint.CREATE ? null : policies.get(random.nextInt(policies.size()));
+      Object body;
+      switch (endpoint) {
+        case CREATE:
+          body = buildCreationRequest();
+          break;
+        case MODIFY:
+          body = buildModificationRequest(policy);
+          break;
+        default:
+          body =
+              PolicyFetchRequest.builder()
+                  .policyId(policy.policyId)
+                  .requestDate(toDate(START_DATE.plusDays(random.nextInt(policy.days + 1))))
+                  .build();
+      }
+      HttpRequest request =
+          HttpRequest.newBuilder(URI.create(baseUrl + endpoint.getName()))
+              .header("Content-Type", "application/json")
+              .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+              .build();
+      HttpResponse<String> response =
+          httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+      if (response.statusCode() / 100 == 2 && endpoint != Endpoint.FETCH) {
+        PolicyResponse policyResponse =
+            objectMapper.readValue(response.body(), PolicyResponse.class);
+        if (endpoint == Endpoint.CREATE) {
+          policies.add(new ClientPolicy(policyResponse));
+        } else {
+          policy.insuredPersons = policyResponse.getInsuredPersons();
+          policy.days++;
+        }
+      }
+      return response;
+    }
+
+    private PolicyCreationRequest buildCreationRequest() {
+      int personCount = loadProfile.getPolicySizes().next(random);
+      List<InsuredPerson> insuredPersons = new ArrayList<>(personCount);
+      for (int i = 0; i < personCount; i++) {
+        insuredPersons.add(buildNewPerson());
+      }
+      return PolicyCreationRequest.builder()
+          .startDate(toDate(START_DATE))
+          .insuredPersons(insuredPersons)
+          .build();
+    }
+
+    /** Replace the oldest insured person by a new one, one day after the last modification. */
+    private PolicyModificationRequest buildModificationRequest(ClientPolicy policy) {
+      List<InsuredPerson> insuredPersons = new ArrayList<>(policy.insuredPersons);
+      insuredPersons.remove(0);
+      insuredPersons.add(buildNewPerson());
+      return PolicyModificationRequest.builder()
+          .policyId(policy.policyId)
+          .effectiveDate(toDate(START_DATE.plusDays(policy.days + 1)))
+          .insuredPersons(insuredPersons)
+          .build();
+    }
+
+    private InsuredPerson buildNewPerson() {
+      long sequence = personSequence++;
+      return InsuredPerson.builder()
+          .firstName("First" + clientId + "-" + sequence)
+          .secondName("Second" + clientId + "-" + sequence)
+          .premium(PREMIUM)
+          .build();
+    }
+  }
+}
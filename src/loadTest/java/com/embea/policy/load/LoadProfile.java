@@ -0,0 +1,105 @@
+package com.embea.policy.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Function;
+import lombok.Value;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Shape of a load run, read from {@code load.*} system properties: traffic mix over the endpoints,
+ * number of concurrent clients, warm-up and measured duration, and distribution of the insured
+ * person count of created policies.
+ */
+@Value
+public class LoadProfile {
+
+  Weighted<Endpoint> mix;
+  Weighted<Integer> policySizes;
+  int concurrency;
+  int seedPolicies;
+  Duration warmup;
+  Duration duration;
+
+  /** Endpoint driven by the load generator, under {@code /v1/policy}. */
+  public enum Endpoint {
+    CREATE,
+    MODIFY,
+    FETCH;
+
+    public String getName() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  /**
+   * Read the profile from system properties, with defaults for those not set.
+   *
+   * @return Load profile
+   */
+  public static LoadProfile fromSystemProperties() {
+    return new LoadProfile(
+        Weighted.parse(
+            System.getProperty("load.mix", "create:10,modify:20,fetch:70"),
+            name -> Endpoint.valueOf(name.toUpperCase(Locale.ROOT))),
+        Weighted.parse(System.getProperty("load.policySizes", "1:50,5:35,50:15"), Integer::valueOf),
+        Integer.getInteger("load.concurrency", 16),
+        Integer.getInteger("load.seedPolicies", 20),
+        DurationStyle.detectAndParse(System.getProperty("load.warmup", "10s")),
+        DurationStyle.detectAndParse(System.getProperty("load.duration", "30s")));
+  }
+
+  /**
+   * Values drawn at random in proportion to their weights.
+   *
+   * @param <T> Type of the values
+   */
+  @Value
+  public static class Weighted<T> {
+    List<T> values;
+    int[] cumulativeWeights;
+
+    /**
+     * Parse a comma separated list of {@code value:weight} entries.
+     *
+     * @param specification Entries, e.g. {@code create:10,fetch:90}
+     * @param parser Parser of the value of an entry
+     * @param <T> Type of the values
+     * @return Weighted values
+     * @throws IllegalArgumentException If an entry is malformed or no weight is positive
+     */
+    static <T> Weighted<T> parse(String specification, Function<String, T> parser) {
+      String[] entries = specification.split(",");
+      List<T> values = new ArrayList<>(entries.length);
+      int[] cumulativeWeights = new int[entries.length];
+      int total = 0;
+      for (int i = 0; i < entries.length; i++) {
+        String[] parts = entries[i].trim().split(":");
+        if (parts.length != 2 || Integer.parseInt(parts[1].trim()) < 0) {
+          throw new IllegalArgumentException(
+              String.format("Invalid entry [%s], expected value:weight", entries[i]));
+        }
+        values.add(parser.apply(parts[0].trim()));
+        total += Integer.parseInt(parts[1].trim());
+        cumulativeWeights[i] = total;
+      }
+      if (total == 0) {
+        throw new IllegalArgumentException(
+            String.format("No positive weight in [%s]", specification));
+      }
+      return new Weighted<>(values, cumulativeWeights);
+    }
+
+    public T next(Random random) {
+      int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+      int index = 0;
+      while (draw >= cumulativeWeights[index]) {
+        index++;
+      }
+      return values.get(index);
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package com.embea.policy.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Throughput and latency percentiles per endpoint of a load run. Stored as JSON, both as report of
+ * the last run and as baseline later runs are compared against.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadReport {
+
+  private static final ObjectMapper OBJECT_MAPPER =
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+  private Map<String, EndpointResult> endpoints = new LinkedHashMap<>();
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class EndpointResult {
+    private long requests;
+    private long errors;
+    private double throughput;
+    private double p50Millis;
+    private double p99Millis;
+    private double p999Millis;
+  }
+
+  public static LoadReport read(Path path) throws IOException {
+    return OBJECT_MAPPER.readValue(path.toFile(), LoadReport.class);
+  }
+
+  public void write(Path path) throws IOException {
+    Files.createDirectories(path.toAbsolutePath().getParent());
+    OBJECT_MAPPER.writeValue(path.toFile(), this);
+  }
+
+  public void print(PrintStream out) {
+    out.printf(
+        "%-8s %10s %8s %12s %10s %10s %10s%n",
+        "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms");
+    endpoints.forEach(
+        (endpoint, result) ->
+            out.printf(
+                "%-8s %10d %8d %12.1f %10.2f %10.2f %10.2f%n",
+                endpoint,
+                result.getRequests(),
+                result.getErrors(),
+                result.getThroughput(),
+                result.getP50Millis(),
+                result.getP99Millis(),
+                result.getP999Millis()));
+  }
+
+  /**
+   * Compare this run against a baseline. An endpoint regresses if a percentile is more than the
+   * tolerance above, or its throughput more than the tolerance below its baseline. Endpoints not in
+   * both reports are not compared.
+   *
+   * @param baseline Report of the baseline run
+   * @param tolerance Allowed relative deviation, e.g. 0.25 for 25%
+   * @return Description of every regression, empty if there is none
+   */
+  public List<String> regressionsAgainst(LoadReport baseline, double tolerance) {
+    List<String> regressions = new ArrayList<>();
+    endpoints.forEach(
+        (endpoint, result) -> {
+          EndpointResult baselineResult = baseline.getEndpoints().get(endpoint);
+          if (baselineResult == null) {
+            return;
+          }
+          checkLatency(
+              regressions, endpoint, "p50", result.p50Millis, baselineResult.p50Millis, tolerance);
+          checkLatency(
+              regressions, endpoint, "p99", result.p99Millis, baselineResult.p99Millis, tolerance);
+          checkLatency(
+              regressions,
+              endpoint,
+              "p99.9",
+              result.p999Millis,
+              baselineResult.p999Millis,
+              tolerance);
+          if (result.throughput < baselineResult.throughput * (1 - tolerance)) {
+            regressions.add(
+                String.format(
+                    "%s throughput %.1f req/s is below baseline %.1f req/s",
+                    endpoint, result.throughput, baselineResult.throughput));
+          }
+        });
+    return regressions;
+  }
+
+  private void checkLatency(
+      List<String> regressions,
+      String endpoint,
+      String percentile,
+      double millis,
+      double baselineMillis,
+      double tolerance) {
+    if (millis > baselineMillis * (1 + tolerance)) {
+      regressions.add(
+          String.format(
+              "%s %s latency %.2f ms is above baseline %.2f ms",
+              endpoint, percentile, millis, baselineMillis));
+    }
+  }
+}
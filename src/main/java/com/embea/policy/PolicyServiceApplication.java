@@ -1,12 +1,14 @@
-package com.embea.policy;
-
-import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
-
-@SpringBootApplication
-public class PolicyServiceApplication {
-
-  public static void main(String[] args) {
-    SpringApplication.run(PolicyServiceApplication.class, args);
-  }
-}
+package com.embea.policy;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+@SpringBootApplication
+@ConfigurationPropertiesScan
+public class PolicyServiceApplication {
+
+  public static void main(String[] args) {
+    SpringApplication.run(PolicyServiceApplication.class, args);
+  }
+}
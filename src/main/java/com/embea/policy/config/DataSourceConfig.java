@@ -0,0 +1,167 @@
+package com.embea.policy.config;
+
+import com.embea.policy.sharding.ShardedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.PlatformTransactionManagerCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Data source used by JPA, Flyway and the rest of the application. The primary pool is configured
+ * from {@code spring.datasource} as before. With {@code policy.read-replica.enabled} read-only
+ * transactions are routed to a separate replica pool, everything else to the primary. Connections
+ * are only fetched on the first statement of a transaction, once it is known whether the
+ * transaction is read-only, and not at all by transactions that never reach the database. With
+ * {@code policy.sharding.enabled} connections are routed to the shard of the policy the transaction
+ * accesses instead, the primary being shard 0.
+ */
+@Configuration
+public class DataSourceConfig {
+
+  private static final String PRIMARY = "primary";
+  private static final String REPLICA = "replica";
+  private static final String SHARD = "shard-";
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+    return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "policy.read-replica", name = "enabled", havingValue = "true")
+  public HikariDataSource replicaDataSource(PolicyProperties policyProperties) {
+    PolicyProperties.ReadReplica readReplica = policyProperties.getReadReplica();
+    HikariDataSource replicaDataSource =
+        DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .url(readReplica.getUrl())
+            .username(readReplica.getUsername())
+            .password(readReplica.getPassword())
+            .build();
+    replicaDataSource.setPoolName(REPLICA);
+    replicaDataSource.setMaximumPoolSize(readReplica.getMaximumPoolSize());
+    replicaDataSource.setReadOnly(true);
+    return replicaDataSource;
+  }
+
+  /**
+   * Data source routing to the primary and the additional shard pools. Features keeping state
+   * across policies in a single database are not supported together with sharding.
+   *
+   * @param primaryDataSource Primary pool, shard 0
+   * @param policyProperties Policy properties with the sharding settings
+   * @return Sharded data source
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "policy.sharding", name = "enabled", havingValue = "true")
+  public ShardedDataSource shardedDataSource(
+      @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+      PolicyProperties policyProperties) {
+    if (policyProperties.getReadReplica().isEnabled()
+        || policyProperties.getJournal().isEnabled()
+        || policyProperties.getPersonIdentity().isEnabled()
+        || policyProperties.getWriteBehind().isEnabled()) {
+      throw new IllegalStateException(
+          "Sharding cannot be combined with read replica, policy journal, person identity or"
+              + " write-behind");
+    }
+    PolicyProperties.Sharding sharding = policyProperties.getSharding();
+    List<DataSource> shards = new ArrayList<>();
+    shards.add(primaryDataSource);
+    for (String url : sharding.getUrls()) {
+      HikariDataSource shardDataSource =
+          DataSourceBuilder.create()
+              .type(HikariDataSource.class)
+              .url(url)
+              .username(sharding.getUsername())
+              .password(sharding.getPassword())
+              .build();
+      shardDataSource.setPoolName(SHARD + shards.size());
+      shardDataSource.setMaximumPoolSize(sharding.getMaximumPoolSize());
+      shards.add(shardDataSource);
+    }
+    return new ShardedDataSource(shards);
+  }
+
+  /**
+   * Migrates the schema of every shard, not only the primary.
+   *
+   * @param shardedDataSource Sharded data source
+   * @return Flyway migration strategy
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "policy.sharding", name = "enabled", havingValue = "true")
+  public FlywayMigrationStrategy shardedFlywayMigrationStrategy(
+      ShardedDataSource shardedDataSource) {
+    return flyway -> {
+      for (DataSource shard : shardedDataSource.getShards()) {
+        Flyway.configure()
+            .configuration(flyway.getConfiguration())
+            .dataSource(shard)
+            .load()
+            .migrate();
+      }
+    };
+  }
+
+  /**
+   * Leaves the rollback of a transaction to the code that started it when a method taking part in
+   * it fails. The write-behind writer rolls a failed modification back to its savepoint and commits
+   * the rest of its batch, which a transaction marked rollback-only by the failure would not allow.
+   *
+   * @return Transaction manager customizer
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "policy.write-behind", name = "enabled", havingValue = "true")
+  public PlatformTransactionManagerCustomizer<AbstractPlatformTransactionManager>
+      writeBehindTransactionManagerCustomizer() {
+    return transactionManager -> transactionManager.setGlobalRollbackOnParticipationFailure(false);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+      @Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replicaDataSource,
+      ObjectProvider<ShardedDataSource> shardedDataSource) {
+    ShardedDataSource sharded = shardedDataSource.getIfAvailable();
+    if (sharded != null) {
+      return new LazyConnectionDataSourceProxy(sharded);
+    }
+    HikariDataSource replica = replicaDataSource.getIfAvailable();
+    if (replica == null) {
+      return new LazyConnectionDataSourceProxy(primaryDataSource);
+    }
+    AbstractRoutingDataSource routingDataSource =
+        new AbstractRoutingDataSource() {
+          @Override
+          protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                ? REPLICA
+                : PRIMARY;
+          }
+        };
+    routingDataSource.setTargetDataSources(Map.of(PRIMARY, primaryDataSource, REPLICA, replica));
+    routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+    routingDataSource.afterPropertiesSet();
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+}
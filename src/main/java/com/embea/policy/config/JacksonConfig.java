@@ -0,0 +1,37 @@
+package com.embea.policy.config;
+
+import com.embea.policy.json.PolicyDateModule;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the JSON codec modules with the application object mapper of both the servlet and the
+ * reactive stack, unless {@code policy.json-codec.enabled} is false.
+ */
+@Configuration
+@ConditionalOnProperty(
+    prefix = "policy.json-codec",
+    name = "enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class JacksonConfig {
+
+  @Bean
+  public Module policyDateModule() {
+    return new PolicyDateModule();
+  }
+
+  /**
+   * Replaces reflective getter, setter and constructor calls of the bean serializers and
+   * deserializers with generated lambdas.
+   *
+   * @return Blackbird module
+   */
+  @Bean
+  public Module blackbirdModule() {
+    return new BlackbirdModule();
+  }
+}
@@ -0,0 +1,21 @@
+package com.embea.policy.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+  /**
+   * Aspect timing methods annotated with {@code @Timed}, tagged with their class and method.
+   *
+   * @param meterRegistry Registry the timers are registered with
+   * @return Timed aspect
+   */
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+    return new TimedAspect(meterRegistry);
+  }
+}
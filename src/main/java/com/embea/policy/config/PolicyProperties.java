@@ -0,0 +1,221 @@
+package com.embea.policy.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.validation.Valid;
+import javax.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+/** Application specific settings, bound from the {@code policy} prefix. */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "policy")
+public class PolicyProperties {
+
+  @Valid private Bulk bulk = new Bulk();
+
+  private MembershipIndex membershipIndex = new MembershipIndex();
+
+  private FetchCache fetchCache = new FetchCache();
+
+  private Execution execution = new Execution();
+
+  private Journal journal = new Journal();
+
+  private Snapshot snapshot = new Snapshot();
+
+  private ReadReplica readReplica = new ReadReplica();
+
+  private Idempotency idempotency = new Idempotency();
+
+  private PersonIdentity personIdentity = new PersonIdentity();
+
+  private JsonCodec jsonCodec = new JsonCodec();
+
+  private HttpCache httpCache = new HttpCache();
+
+  private Sharding sharding = new Sharding();
+
+  private WriteBehind writeBehind = new WriteBehind();
+
+  @Data
+  public static class Bulk {
+    /** Number of creation requests inserted and committed in one transaction. */
+    @Positive(message = "Bulk chunk size must be positive")
+    private int chunkSize = 100;
+  }
+
+  @Data
+  public static class MembershipIndex {
+    /** Whether fetches are answered from the in-memory membership index. */
+    private boolean enabled = true;
+
+    /** Maximum number of policies held in the index before least recently used ones are evicted. */
+    private int maxPolicies = 100000;
+  }
+
+  @Data
+  public static class FetchCache {
+    /** Whether fetch responses are cached for the range of days they are valid for. */
+    private boolean enabled = true;
+
+    /** Maximum number of cached responses before least recently used ones are evicted. */
+    private int maxEntries = 10000;
+  }
+
+  @Data
+  public static class Execution {
+    /** Threads requests and facade work run on, virtual threads require a Java 21 runtime. */
+    private ExecutionMode mode = ExecutionMode.PLATFORM;
+
+    private Limiter limiter = new Limiter();
+  }
+
+  @Data
+  public static class Limiter {
+    /**
+     * Whether concurrent database bound operations are limited. If not set, they are limited in
+     * virtual thread mode only, platform threads are already bounded by the request thread pool.
+     */
+    private Boolean enabled;
+
+    /** Maximum concurrent database bound operations, the connection pool size if not positive. */
+    private int maxConcurrency;
+
+    /** Maximum time an operation waits for a permit before it is rejected. */
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+  }
+
+  @Data
+  public static class Journal {
+    /** Whether policy mapping changes are appended to the journal and applied asynchronously. */
+    private boolean enabled = false;
+
+    /** Directory holding the memory-mapped journal segments. */
+    private String directory = "journal";
+
+    /** Size of one journal segment file, fixed once segments are written. */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /** Maximum number of journal events applied to database in one transaction. */
+    private int applyBatchSize = 1000;
+
+    /** Time the applier sleeps when there are no new journal events. */
+    private Duration applyInterval = Duration.ofMillis(10);
+
+    /** Maximum time a read waits for pending journal events of its policy to be applied. */
+    private Duration applyTimeout = Duration.ofSeconds(5);
+
+    /** Whether segments whose events are all applied are kept as audit history, not deleted. */
+    private boolean retainAppliedSegments = false;
+  }
+
+  @Data
+  public static class Snapshot {
+    /** Whether the membership index is written on shutdown and restored on startup. */
+    private boolean enabled = false;
+
+    /** File holding the snapshot of the membership index. */
+    private String path = "data/policy-snapshot.bin";
+  }
+
+  @Data
+  public static class ReadReplica {
+    /** Whether read-only transactions are routed to the replica instead of the primary. */
+    private boolean enabled = false;
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    /** Maximum size of the replica connection pool. */
+    private int maximumPoolSize = 10;
+  }
+
+  @Data
+  public static class Idempotency {
+    /** Whether create and modify requests with an Idempotency-Key header are run only once. */
+    private boolean enabled = true;
+
+    /** Maximum number of stored idempotency keys. */
+    private int maxEntries = 10000;
+
+    /** Time an idempotency key and its response are kept. */
+    private Duration timeToLive = Duration.ofHours(24);
+
+    /** Maximum time a duplicate request waits for the first execution to finish. */
+    private Duration waitTimeout = Duration.ofSeconds(10);
+  }
+
+  @Data
+  public static class PersonIdentity {
+    /**
+     * Whether added persons are resolved to an existing person of the same normalized name instead
+     * of always inserting a new one.
+     */
+    private boolean enabled = false;
+  }
+
+  @Data
+  public static class JsonCodec {
+    /** Whether API dates and beans are read and written with the optimized JSON codec modules. */
+    private boolean enabled = true;
+  }
+
+  @Data
+  public static class HttpCache {
+    /** Time HTTP caches may keep fetched policies of past dates, whose answers no longer change. */
+    private Duration historicalMaxAge = Duration.ofDays(365);
+  }
+
+  @Data
+  public static class Sharding {
+    /**
+     * Whether policies with their mappings, premium changes and persons are spread over the primary
+     * and the additional shard databases by a hash of the policy id.
+     */
+    private boolean enabled = false;
+
+    /**
+     * JDBC urls of the additional shards, the primary data source is shard 0. The shards must not
+     * change once policies are stored.
+     */
+    private List<String> urls = new ArrayList<>();
+
+    private String username;
+
+    private String password;
+
+    /** Maximum size of the connection pool of each additional shard. */
+    private int maximumPoolSize = 10;
+  }
+
+  @Data
+  public static class WriteBehind {
+    /**
+     * Whether the writes of policy modifications are queued and committed by a single writer in
+     * group-committed batches instead of in the transaction of each request.
+     */
+    private boolean enabled = false;
+
+    /** Maximum number of modifications waiting to be written. */
+    private int queueCapacity = 10000;
+
+    /** Maximum number of modifications written in one transaction. */
+    private int batchSize = 500;
+
+    /** Maximum time a modification waits for a place in the queue and then for its writer. */
+    private Duration timeout = Duration.ofSeconds(5);
+  }
+
+  public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL
+  }
+}
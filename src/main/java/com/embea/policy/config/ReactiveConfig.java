@@ -0,0 +1,54 @@
+package com.embea.policy.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import javax.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+
+/**
+ * R2DBC access for the reactive stack, active when {@code spring.main.web-application-type} is
+ * {@code reactive}. The connection factory, built from {@code spring.r2dbc}, and its transaction
+ * manager are deliberately not beans: a connection factory bean makes the JDBC data source back
+ * off, which Flyway still needs, and a second transaction manager bean makes {@code @Transactional}
+ * ambiguous.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveConfig {
+
+  private final ConnectionFactory connectionFactory;
+
+  public ReactiveConfig(R2dbcProperties r2dbcProperties) {
+    this.connectionFactory =
+        ConnectionFactoryBuilder.withUrl(r2dbcProperties.getUrl())
+            .username(r2dbcProperties.getUsername())
+            .password(r2dbcProperties.getPassword())
+            .build();
+  }
+
+  @Bean
+  public DatabaseClient databaseClient() {
+    return DatabaseClient.create(connectionFactory);
+  }
+
+  @Bean
+  public TransactionalOperator reactiveTransactionalOperator() {
+    return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+  }
+
+  @PreDestroy
+  public void closeConnectionFactory() {
+    if (connectionFactory instanceof Disposable) {
+      ((Disposable) connectionFactory).dispose();
+    }
+  }
+}
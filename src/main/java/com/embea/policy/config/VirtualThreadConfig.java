@@ -0,0 +1,49 @@
+package com.embea.policy.config;
+
+import com.embea.policy.utils.ThreadUtils;
+import java.util.concurrent.ExecutorService;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Runs request handling, and with it the facade work, on virtual threads instead of the Tomcat
+ * thread pool when {@code policy.execution.mode} is {@code virtual}. Concurrency towards the
+ * database is then bounded by the connection limiter instead of the thread pool size.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "policy.execution", name = "mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService virtualThreadExecutor() {
+    return ThreadUtils.newVirtualThreadPerTaskExecutor();
+  }
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(
+      ExecutorService virtualThreadExecutor) {
+    return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+  }
+
+  /**
+   * Streaming responses, such as bulk creation, are written on virtual threads as well.
+   *
+   * @param virtualThreadExecutor Virtual thread per task executor
+   * @return Web MVC configuration of async request processing
+   */
+  @Bean
+  public WebMvcConfigurer virtualThreadAsyncConfigurer(ExecutorService virtualThreadExecutor) {
+    return new WebMvcConfigurer() {
+      @Override
+      public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+      }
+    };
+  }
+}
@@ -1,118 +1,386 @@
-package com.embea.policy.controllers;
-
-import com.embea.policy.facade.PolicyFacade;
-import com.embea.policy.model.*;
-import io.swagger.v3.oas.annotations.Operation;
-import io.swagger.v3.oas.annotations.media.Content;
-import io.swagger.v3.oas.annotations.media.Schema;
-import io.swagger.v3.oas.annotations.responses.ApiResponse;
-import io.swagger.v3.oas.annotations.responses.ApiResponses;
-import javax.validation.Valid;
-import lombok.AllArgsConstructor;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
-
-@RestController
-@RequestMapping("/v1/policy")
-@AllArgsConstructor
-public class PolicyController {
-
-  private final PolicyFacade policyFacade;
-
-  @Operation(summary = "Create Policy")
-  @ApiResponses(
-      value = {
-        @ApiResponse(
-            responseCode = "200",
-            description = "Policy Created",
-            content = {
-              @Content(
-                  mediaType = "application/json",
-                  schema = @Schema(implementation = PolicyCreationResponse.class))
-            }),
-        @ApiResponse(
-            responseCode = "400",
-            description = "Invalid input provided",
-            content = {
-              @Content(
-                  mediaType = "application/json",
-                  schema = @Schema(implementation = ErrorResponse.class))
-            })
-      })
-  @PostMapping("/create")
-  public ResponseEntity<PolicyResponse> createPolicy(
-      @Valid @RequestBody PolicyCreationRequest policyCreationRequest) {
-    return ResponseEntity.ok(policyFacade.createPolicy(policyCreationRequest));
-  }
-
-  @Operation(summary = "Modify Policy")
-  @ApiResponses(
-      value = {
-        @ApiResponse(
-            responseCode = "200",
-            description = "Policy Modified",
-            content = {
-              @Content(
-                  mediaType = "application/json",
-                  schema = @Schema(implementation = PolicyModificationResponse.class))
-            }),
-        @ApiResponse(
-            responseCode = "400",
-            description = "Invalid input provided",
-            content = {
-              @Content(
-                  mediaType = "application/json",
-                  schema = @Schema(implementation = ErrorResponse.class))
-            }),
-        @ApiResponse(
-            responseCode = "404",
-            description = "Policy Id Not Found",
-            content = {
-              @Content(
-                  mediaType = "application/json",
-                  schema = @Schema(implementation = ErrorResponse.class))
-            })
-      })
-  @PostMapping("/modify")
-  public ResponseEntity<PolicyResponse> modifyPolicy(
-      @Valid @RequestBody PolicyModificationRequest policyModificationRequest) {
-    return ResponseEntity.ok(policyFacade.modifyPolicy(policyModificationRequest));
-  }
-
-  @Operation(summary = "Fetch Policy")
-  @ApiResponses(
-      value = {
-        @ApiResponse(
-            responseCode = "200",
-            description = "Policy Fetched",
-            content = {
-              @Content(
-                  mediaType = "application/json",
-                  schema = @Schema(implementation = PolicyFetchResponse.class))
-            }),
-        @ApiResponse(
-            responseCode = "400",
-            description = "Invalid input provided",
-            content = {
-              @Content(
-                  mediaType = "application/json",
-                  schema = @Schema(implementation = ErrorResponse.class))
-            }),
-        @ApiResponse(
-            responseCode = "404",
-            description = "Policy Id Not Found",
-            content = {
-              @Content(
-                  mediaType = "application/json",
-                  schema = @Schema(implementation = ErrorResponse.class))
-            })
-      })
-  @PostMapping("/fetch")
-  public ResponseEntity<PolicyResponse> fetchPolicy(
-      @Valid @RequestBody PolicyFetchRequest policyFetchRequest) {
-    return ResponseEntity.ok(policyFacade.fetchPolicy(policyFetchRequest));
-  }
-}
+package com.embea.policy.controllers;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.exception.InvalidRequestException;
+import com.embea.policy.facade.BulkPolicyFacade;
+import com.embea.policy.facade.PolicyFacade;
+import com.embea.policy.facade.WriteBehindPolicyFacade;
+import com.embea.policy.idempotency.IdempotencyStore;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.model.*;
+import com.embea.policy.utils.DateUtils;
+import com.embea.policy.utils.PolicyIdUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import javax.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/v1/policy")
+@AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PolicyController {
+
+  private static final String APPLICATION_NDJSON = "application/x-ndjson";
+  private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+  private static final String IDEMPOTENCY_KEY_DESCRIPTION =
+      "Client chosen key of the request. A retry with the same key and request returns the response"
+          + " of the first execution instead of running it again.";
+
+  private final PolicyFacade policyFacade;
+  private final BulkPolicyFacade bulkPolicyFacade;
+  private final WriteBehindPolicyFacade writeBehindPolicyFacade;
+  private final IdempotencyStore idempotencyStore;
+  private final PolicyProperties policyProperties;
+
+  @Operation(summary = "Create Policy")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Policy Created",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = PolicyCreationResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid input provided",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "422",
+            description = "Idempotency Key Used With Different Request",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            })
+      })
+  @PostMapping("/create")
+  public ResponseEntity<PolicyResponse> createPolicy(
+      @Parameter(description = IDEMPOTENCY_KEY_DESCRIPTION)
+          @RequestHeader(value = IDEMPOTENCY_KEY, required = false)
+          String idempotencyKey,
+      @Valid @RequestBody PolicyCreationRequest policyCreationRequest) {
+    return ResponseEntity.ok(
+        idempotencyStore.execute(
+            PolicyMetrics.OPERATION_CREATE,
+            idempotencyKey,
+            policyCreationRequest,
+            () -> policyFacade.createPolicy(policyCreationRequest)));
+  }
+
+  @Operation(summary = "Create Policies in Bulk")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "One Policy Creation Response or Error Response per request line, streamed as"
+                    + " chunks are committed",
+            content = {
+              @Content(
+                  mediaType = APPLICATION_NDJSON,
+                  schema = @Schema(implementation = PolicyCreationResponse.class))
+            })
+      })
+  @PostMapping(value = "/create/bulk", consumes = APPLICATION_NDJSON, produces = APPLICATION_NDJSON)
+  public ResponseEntity<StreamingResponseBody> createPolicies(InputStream requestBody) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+        .body(outputStream -> bulkPolicyFacade.createPolicies(requestBody, outputStream));
+  }
+
+  @Operation(summary = "Modify Policy")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Policy Modified",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = PolicyModificationResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid input provided",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Policy Id Not Found",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "422",
+            description = "Idempotency Key Used With Different Request",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            })
+      })
+  @PostMapping("/modify")
+  public ResponseEntity<PolicyResponse> modifyPolicy(
+      @Parameter(description = IDEMPOTENCY_KEY_DESCRIPTION)
+          @RequestHeader(value = IDEMPOTENCY_KEY, required = false)
+          String idempotencyKey,
+      @Valid @RequestBody PolicyModificationRequest policyModificationRequest) {
+    return ResponseEntity.ok(
+        idempotencyStore.execute(
+            PolicyMetrics.OPERATION_MODIFY,
+            idempotencyKey,
+            policyModificationRequest,
+            () -> writeBehindPolicyFacade.modifyPolicy(policyModificationRequest)));
+  }
+
+  @Operation(summary = "Fetch Policy")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Policy Fetched",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = PolicyFetchResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid input provided",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Policy Id Not Found",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            })
+      })
+  @PostMapping("/fetch")
+  public ResponseEntity<PolicyResponse> fetchPolicy(
+      @Valid @RequestBody PolicyFetchRequest policyFetchRequest) {
+    return ResponseEntity.ok(policyFacade.fetchPolicy(policyFetchRequest));
+  }
+
+  @Operation(
+      summary = "Get Policy",
+      description =
+          "Cacheable fetch of a policy. The ETag changes with the insured persons on the request"
+              + " date, and policies of past dates may be cached as they no longer change.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Policy Fetched",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = PolicyFetchResponse.class))
+            }),
+        @ApiResponse(responseCode = "304", description = "Policy Not Modified Since ETag"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid input provided",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Policy Id Not Found",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            })
+      })
+  @GetMapping("/{policyId}")
+  public ResponseEntity<PolicyResponse> getPolicy(
+      @PathVariable String policyId,
+      @Parameter(description = "Request date as dd.MM.yyyy, today if not given")
+          @RequestParam(value = "date", required = false)
+          String date) {
+    if (!policyId.matches(PolicyIdUtils.POLICY_ID_PATTERN)) {
+      throw new InvalidRequestException("Policy Id is invalid");
+    }
+    Date requestDate = date != null ? parseRequestDate(date) : new Date();
+    PolicyResponse policyResponse =
+        policyFacade.fetchPolicy(
+            PolicyFetchRequest.builder().policyId(policyId).requestDate(requestDate).build());
+    boolean historical = DateUtils.toEpochDay(requestDate) < DateUtils.toEpochDay(new Date());
+    return ResponseEntity.ok()
+        .eTag(membershipVersion(policyResponse, requestDate))
+        .cacheControl(
+            historical
+                ? CacheControl.maxAge(policyProperties.getHttpCache().getHistoricalMaxAge())
+                    .cachePublic()
+                : CacheControl.noCache())
+        .body(policyResponse);
+  }
+
+  @Operation(summary = "Fetch Policy Premium")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Policy Premium Fetched",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = PolicyPremiumResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid input provided",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Policy Id Not Found",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            })
+      })
+  @PostMapping("/premium")
+  public ResponseEntity<PolicyPremiumResponse> fetchPremium(
+      @Valid @RequestBody PolicyFetchRequest policyFetchRequest) {
+    return ResponseEntity.ok(policyFacade.fetchPremium(policyFetchRequest));
+  }
+
+  @Operation(summary = "Fetch Policy Timeline")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Policy Timeline Fetched",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = PolicyTimelineResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid input provided",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Policy Id Not Found",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            })
+      })
+  @PostMapping("/timeline")
+  public ResponseEntity<PolicyTimelineResponse> fetchPolicyTimeline(
+      @Valid @RequestBody PolicyTimelineRequest policyTimelineRequest) {
+    return ResponseEntity.ok(policyFacade.fetchPolicyTimeline(policyTimelineRequest));
+  }
+
+  @Operation(summary = "Fetch Policies in Batch")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Policies Fetched",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = PolicyBatchFetchResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid input provided",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ErrorResponse.class))
+            })
+      })
+  @PostMapping("/fetch/batch")
+  public ResponseEntity<PolicyBatchFetchResponse> fetchPolicies(
+      @Valid @RequestBody PolicyBatchFetchRequest policyBatchFetchRequest) {
+    return ResponseEntity.ok(policyFacade.fetchPolicies(policyBatchFetchRequest));
+  }
+
+  private static Date parseRequestDate(String date) {
+    try {
+      return DateUtils.fromEpochDay(DateUtils.parseEpochDay(date.toCharArray(), 0, date.length()));
+    } catch (IllegalArgumentException e) {
+      throw new InvalidRequestException("date must be a valid date in dd.MM.yyyy format");
+    }
+  }
+
+  /**
+   * Digest of the insured persons of a policy on the request day, the version of its membership the
+   * response shows. Spring answers a matching If-None-Match with 304 without writing the body.
+   */
+  private static String membershipVersion(PolicyResponse policyResponse, Date requestDate) {
+    StringBuilder membership =
+        new StringBuilder(policyResponse.getPolicyId())
+            .append('|')
+            .append(DateUtils.toEpochDay(requestDate));
+    for (InsuredPerson insuredPerson : policyResponse.getInsuredPersons()) {
+      membership
+          .append('|')
+          .append(insuredPerson.getId())
+          .append(',')
+          .append(insuredPerson.getPremium())
+          .append(',')
+          .append(insuredPerson.getFirstName())
+          .append(',')
+          .append(insuredPerson.getSecondName());
+    }
+    membership.append('|').append(policyResponse.getTotalPremium());
+    return DigestUtils.md5DigestAsHex(membership.toString().getBytes(StandardCharsets.UTF_8));
+  }
+}
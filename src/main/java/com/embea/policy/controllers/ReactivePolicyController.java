@@ -0,0 +1,52 @@
+package com.embea.policy.controllers;
+
+import com.embea.policy.facade.ReactivePolicyFacade;
+import com.embea.policy.model.*;
+import io.swagger.v3.oas.annotations.Operation;
+import javax.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link PolicyController} with the same paths, request and response
+ * models, served when {@code spring.main.web-application-type} is {@code reactive}.
+ */
+@RestController
+@RequestMapping("/v1/policy")
+@AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePolicyController {
+
+  private final ReactivePolicyFacade reactivePolicyFacade;
+
+  @Operation(summary = "Create Policy")
+  @PostMapping("/create")
+  public Mono<ResponseEntity<PolicyResponse>> createPolicy(
+      @Valid @RequestBody Mono<PolicyCreationRequest> policyCreationRequest) {
+    return policyCreationRequest
+        .flatMap(reactivePolicyFacade::createPolicy)
+        .map(ResponseEntity::ok);
+  }
+
+  @Operation(summary = "Modify Policy")
+  @PostMapping("/modify")
+  public Mono<ResponseEntity<PolicyResponse>> modifyPolicy(
+      @Valid @RequestBody Mono<PolicyModificationRequest> policyModificationRequest) {
+    return policyModificationRequest
+        .flatMap(reactivePolicyFacade::modifyPolicy)
+        .map(ResponseEntity::ok);
+  }
+
+  @Operation(summary = "Fetch Policy")
+  @PostMapping("/fetch")
+  public Mono<ResponseEntity<PolicyResponse>> fetchPolicy(
+      @Valid @RequestBody Mono<PolicyFetchRequest> policyFetchRequest) {
+    return policyFetchRequest.flatMap(reactivePolicyFacade::fetchPolicy).map(ResponseEntity::ok);
+  }
+}
@@ -1,27 +1,28 @@
-package com.embea.policy.dto;
-
-import javax.persistence.*;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-@Builder
-@Entity
-@Table(name = "person")
-public class Person {
-
-  @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
-  @Column(name = "id", updatable = false, nullable = false)
-  private Long personId;
-
-  @Column(name = "first_name")
-  private String firstName;
-
-  @Column(name = "second_name")
-  private String secondName;
-}
+package com.embea.policy.dto;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "person")
+public class Person {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+  @SequenceGenerator(name = "person_seq", sequenceName = "person_seq", allocationSize = 50)
+  @Column(name = "id", updatable = false, nullable = false)
+  private Long personId;
+
+  @Column(name = "first_name")
+  private String firstName;
+
+  @Column(name = "second_name")
+  private String secondName;
+}
@@ -1,30 +1,33 @@
-package com.embea.policy.dto;
-
-import com.embea.policy.utils.Constants;
-import com.fasterxml.jackson.annotation.JsonFormat;
-import java.util.Date;
-import javax.persistence.*;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-@Builder
-@Entity
-@Table(name = "policy")
-public class Policy {
-
-  @Id
-  @GeneratedValue(generator = "uuid")
-  @GenericGenerator(name = "uuid", strategy = "uuid2")
-  @Column(name = "id", updatable = false, nullable = false)
-  private String policyId;
-
-  @Column(name = "start_date")
-  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
-  private Date startDate;
-}
+package com.embea.policy.dto;
+
+import com.embea.policy.sharding.PolicyShardKey;
+import com.embea.policy.utils.Constants;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.util.Date;
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Type;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "policy")
+public class Policy implements PolicyShardKey {
+
+  @Id
+  @GeneratedValue(generator = "policy_id")
+  @GenericGenerator(name = "policy_id", strategy = PolicyIdGenerator.STRATEGY)
+  @Type(type = PolicyIdType.NAME)
+  @Column(name = "id", updatable = false, nullable = false)
+  private String policyId;
+
+  @Column(name = "start_date")
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
+  private Date startDate;
+}
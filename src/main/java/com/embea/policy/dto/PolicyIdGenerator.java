@@ -0,0 +1,22 @@
+package com.embea.policy.dto;
+
+import com.embea.policy.sharding.ShardContext;
+import com.embea.policy.utils.PolicyIdUtils;
+import java.io.Serializable;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Assigns new policies a time-ordered id from {@link PolicyIdUtils#generate()}, on the shard the
+ * transaction is bound to when policies are sharded.
+ */
+public class PolicyIdGenerator implements IdentifierGenerator {
+
+  /** Generator strategy to use in {@code @GenericGenerator} on the policy id. */
+  public static final String STRATEGY = "com.embea.policy.dto.PolicyIdGenerator";
+
+  @Override
+  public Serializable generate(SharedSessionContractImplementor session, Object object) {
+    return ShardContext.generatePolicyId();
+  }
+}
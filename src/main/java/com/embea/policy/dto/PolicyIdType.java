@@ -0,0 +1,76 @@
+package com.embea.policy.dto;
+
+import com.embea.policy.utils.PolicyIdUtils;
+import org.hibernate.type.AbstractSingleColumnStandardBasicType;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.AbstractTypeDescriptor;
+import org.hibernate.type.descriptor.java.ImmutableMutabilityPlan;
+import org.hibernate.type.descriptor.sql.BinaryTypeDescriptor;
+
+/**
+ * Hibernate type of policy id columns. Policy ids stay strings in the entities and queries, and are
+ * stored as the 16 bytes of {@link PolicyIdUtils#toBytes(String)} in {@code binary(16)} columns.
+ */
+public class PolicyIdType extends AbstractSingleColumnStandardBasicType<String> {
+
+  /** Type name to use in {@code @Type} on policy id attributes. */
+  public static final String NAME = "com.embea.policy.dto.PolicyIdType";
+
+  public PolicyIdType() {
+    super(BinaryTypeDescriptor.INSTANCE, PolicyIdTypeDescriptor.INSTANCE);
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  private static class PolicyIdTypeDescriptor extends AbstractTypeDescriptor<String> {
+
+    private static final PolicyIdTypeDescriptor INSTANCE = new PolicyIdTypeDescriptor();
+
+    @SuppressWarnings("unchecked")
+    private PolicyIdTypeDescriptor() {
+      super(String.class, ImmutableMutabilityPlan.INSTANCE);
+    }
+
+    @Override
+    public String toString(String value) {
+      return value;
+    }
+
+    @Override
+    public String fromString(String string) {
+      return string;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <X> X unwrap(String value, Class<X> type, WrapperOptions options) {
+      if (value == null) {
+        return null;
+      }
+      if (byte[].class.isAssignableFrom(type)) {
+        return (X) PolicyIdUtils.toBytes(value);
+      }
+      if (String.class.isAssignableFrom(type)) {
+        return (X) value;
+      }
+      throw unknownUnwrap(type);
+    }
+
+    @Override
+    public <X> String wrap(X value, WrapperOptions options) {
+      if (value == null) {
+        return null;
+      }
+      if (value instanceof byte[]) {
+        return PolicyIdUtils.fromBytes((byte[]) value);
+      }
+      if (value instanceof String) {
+        return (String) value;
+      }
+      throw unknownWrap(value.getClass());
+    }
+  }
+}
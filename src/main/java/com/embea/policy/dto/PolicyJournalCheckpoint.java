@@ -0,0 +1,27 @@
+package com.embea.policy.dto;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Journal position up to which policy events have been applied to the database. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "policy_journal_checkpoint")
+public class PolicyJournalCheckpoint {
+
+  /** Id of the single checkpoint row. */
+  public static final int CHECKPOINT_ID = 1;
+
+  @Id
+  @Column(name = "id", updatable = false, nullable = false)
+  private Integer id;
+
+  @Column(name = "applied_position")
+  private Long appliedPosition;
+}
@@ -0,0 +1,24 @@
+package com.embea.policy.dto;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Journal position range of the policy events of one committed transaction. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "policy_journal_commit")
+public class PolicyJournalCommit {
+
+  @Id
+  @Column(name = "from_position", updatable = false, nullable = false)
+  private Long fromPosition;
+
+  @Column(name = "to_position")
+  private Long toPosition;
+}
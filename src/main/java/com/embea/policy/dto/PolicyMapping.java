@@ -1,44 +1,51 @@
-package com.embea.policy.dto;
-
-import com.embea.policy.utils.Constants;
-import com.fasterxml.jackson.annotation.JsonFormat;
-import java.math.BigDecimal;
-import java.util.Date;
-import javax.persistence.*;
-import javax.validation.constraints.Digits;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-@Builder
-@Entity
-@Table(name = "policy_mapping")
-public class PolicyMapping {
-
-  @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
-  @Column(name = "id", updatable = false, nullable = false)
-  private Long id;
-
-  @Column(name = "policy_id")
-  private String policyId;
-
-  @Column(name = "person_id")
-  private Long personId;
-
-  @Column(name = "premium")
-  @Digits(integer = 10, fraction = 2)
-  private BigDecimal premium;
-
-  @Column(name = "addition_date")
-  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
-  private Date additionDate;
-
-  @Column(name = "removal_date")
-  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
-  private Date removalDate;
-}
+package com.embea.policy.dto;
+
+import com.embea.policy.sharding.PolicyShardKey;
+import com.embea.policy.utils.Constants;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.math.BigDecimal;
+import java.util.Date;
+import javax.persistence.*;
+import javax.validation.constraints.Digits;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "policy_mapping")
+public class PolicyMapping implements PolicyShardKey {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "policy_mapping_seq")
+  @SequenceGenerator(
+      name = "policy_mapping_seq",
+      sequenceName = "policy_mapping_seq",
+      allocationSize = 50)
+  @Column(name = "id", updatable = false, nullable = false)
+  private Long id;
+
+  @Type(type = PolicyIdType.NAME)
+  @Column(name = "policy_id")
+  private String policyId;
+
+  @Column(name = "person_id")
+  private Long personId;
+
+  @Column(name = "premium")
+  @Digits(integer = 10, fraction = 2)
+  private BigDecimal premium;
+
+  @Column(name = "addition_date")
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
+  private Date additionDate;
+
+  @Column(name = "removal_date")
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
+  private Date removalDate;
+}
@@ -0,0 +1,19 @@
+package com.embea.policy.dto;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Read-only projection of a policy joined with one of its insured persons. Person columns are null
+ * when the policy has no insured person on the requested date.
+ */
+@Data
+@AllArgsConstructor
+public class PolicyMember {
+  private String policyId;
+  private Long personId;
+  private String firstName;
+  private String secondName;
+  private BigDecimal premium;
+}
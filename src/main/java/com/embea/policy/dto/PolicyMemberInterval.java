@@ -0,0 +1,23 @@
+package com.embea.policy.dto;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Read-only projection of a policy joined with one of its mappings over the whole policy history.
+ * Mapping and person columns are null when the policy never had an insured person.
+ */
+@Data
+@AllArgsConstructor
+public class PolicyMemberInterval {
+  private String policyId;
+  private Date startDate;
+  private Long personId;
+  private String firstName;
+  private String secondName;
+  private BigDecimal premium;
+  private Date additionDate;
+  private Date removalDate;
+}
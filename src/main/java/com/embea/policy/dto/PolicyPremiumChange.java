@@ -0,0 +1,48 @@
+package com.embea.policy.dto;
+
+import com.embea.policy.sharding.PolicyShardKey;
+import com.embea.policy.utils.Constants;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.math.BigDecimal;
+import java.util.Date;
+import javax.persistence.*;
+import javax.validation.constraints.Digits;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+/**
+ * Change of the total premium of a policy from a date on. Summing the deltas of a policy up to a
+ * date gives its total premium on that date.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "policy_premium_change")
+public class PolicyPremiumChange implements PolicyShardKey {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "policy_premium_change_seq")
+  @SequenceGenerator(
+      name = "policy_premium_change_seq",
+      sequenceName = "policy_premium_change_seq",
+      allocationSize = 50)
+  @Column(name = "id", updatable = false, nullable = false)
+  private Long id;
+
+  @Type(type = PolicyIdType.NAME)
+  @Column(name = "policy_id")
+  private String policyId;
+
+  @Column(name = "change_date")
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
+  private Date changeDate;
+
+  @Column(name = "premium_delta")
+  @Digits(integer = 10, fraction = 2)
+  private BigDecimal premiumDelta;
+}
@@ -0,0 +1,27 @@
+package com.embea.policy.dto;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Id of the policy snapshot which matches the database, if any. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "policy_snapshot_marker")
+public class PolicySnapshotMarker {
+
+  /** Id of the single marker row. */
+  public static final int MARKER_ID = 1;
+
+  @Id
+  @Column(name = "id", updatable = false, nullable = false)
+  private Integer id;
+
+  @Column(name = "snapshot_id")
+  private Long snapshotId;
+}
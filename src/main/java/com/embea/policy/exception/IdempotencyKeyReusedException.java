@@ -0,0 +1,9 @@
+package com.embea.policy.exception;
+
+/** Exception thrown when an idempotency key is sent again with a different request. */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+  public IdempotencyKeyReusedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,9 @@
+package com.embea.policy.exception;
+
+/** Exception thrown when request parameters outside a validated request body are invalid. */
+public class InvalidRequestException extends RuntimeException {
+
+  public InvalidRequestException(String message) {
+    super(message);
+  }
+}
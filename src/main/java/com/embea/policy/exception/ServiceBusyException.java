@@ -0,0 +1,9 @@
+package com.embea.policy.exception;
+
+/** Exception thrown when an operation cannot get a database permit in time. */
+public class ServiceBusyException extends RuntimeException {
+
+  public ServiceBusyException(String message) {
+    super(message);
+  }
+}
@@ -1,60 +1,137 @@
-package com.embea.policy.exception.handlers;
-
-import com.embea.policy.exception.PolicyNotFoundException;
-import com.embea.policy.model.ErrorResponse;
-import java.util.Date;
-import org.springframework.context.support.DefaultMessageSourceResolvable;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.MethodArgumentNotValidException;
-import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.ResponseBody;
-import org.springframework.web.bind.annotation.RestControllerAdvice;
-import org.springframework.web.context.request.WebRequest;
-import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
-
-@RestControllerAdvice
-public class ControllerExceptionHandler extends ResponseEntityExceptionHandler {
-
-  @Override
-  protected ResponseEntity<Object> handleMethodArgumentNotValid(
-      MethodArgumentNotValidException notValidException,
-      HttpHeaders headers,
-      HttpStatus status,
-      WebRequest request) {
-    ErrorResponse errorResponse =
-        new ErrorResponse(
-            new Date(),
-            notValidException.getBindingResult().getFieldErrors().stream()
-                .map(DefaultMessageSourceResolvable::getDefaultMessage)
-                .findFirst()
-                .orElse("Unknown error"),
-            "Invalid input provided. Look at message for specific fields which are invalid.");
-    return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
-  }
-
-  /**
-   * Exception handler for PolicyNotFoundException
-   *
-   * @param ex Exception thrown
-   * @param request WebRequest
-   * @return Error response in the required format
-   */
-  @ResponseBody
-  @ExceptionHandler(PolicyNotFoundException.class)
-  public ResponseEntity<ErrorResponse> handleMessagePublishFailedException(
-      PolicyNotFoundException ex, WebRequest request) {
-    ErrorResponse errorResponse =
-        new ErrorResponse(new Date(), "Policy not found.", ex.getMessage());
-    return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
-  }
-
-  @ResponseBody
-  @ExceptionHandler(Exception.class)
-  public ResponseEntity<ErrorResponse> handleAllExceptions(Exception ex, WebRequest request) {
-    ErrorResponse errorResponse =
-        new ErrorResponse(new Date(), ex.getMessage(), request.getDescription(false));
-    return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
-  }
-}
+package com.embea.policy.exception.handlers;
+
+import com.embea.policy.exception.IdempotencyKeyReusedException;
+import com.embea.policy.exception.InvalidRequestException;
+import com.embea.policy.exception.PolicyNotFoundException;
+import com.embea.policy.exception.ServiceBusyException;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.model.ErrorResponse;
+import java.util.Date;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+@RestControllerAdvice
+@AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ControllerExceptionHandler extends ResponseEntityExceptionHandler {
+
+  public static final String SERVICE_BUSY_MESSAGE = "Service busy, retry later.";
+  public static final String INTERNAL_ERROR_MESSAGE = "Internal error, request not processed.";
+
+  private final PolicyMetrics policyMetrics;
+
+  @Override
+  protected ResponseEntity<Object> handleMethodArgumentNotValid(
+      MethodArgumentNotValidException notValidException,
+      HttpHeaders headers,
+      HttpStatus status,
+      WebRequest request) {
+    policyMetrics.recordError(notValidException);
+    ErrorResponse errorResponse =
+        new ErrorResponse(
+            new Date(),
+            notValidException.getBindingResult().getFieldErrors().stream()
+                .map(DefaultMessageSourceResolvable::getDefaultMessage)
+                .findFirst()
+                .orElse("Unknown error"),
+            "Invalid input provided. Look at message for specific fields which are invalid.");
+    return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+  }
+
+  @Override
+  protected ResponseEntity<Object> handleExceptionInternal(
+      Exception ex, Object body, HttpHeaders headers, HttpStatus status, WebRequest request) {
+    policyMetrics.recordError(ex);
+    return super.handleExceptionInternal(ex, body, headers, status, request);
+  }
+
+  /**
+   * Exception handler for InvalidRequestException
+   *
+   * @param ex Exception thrown
+   * @param request WebRequest
+   * @return Error response in the required format
+   */
+  @ResponseBody
+  @ExceptionHandler(InvalidRequestException.class)
+  public ResponseEntity<ErrorResponse> handleInvalidRequestException(
+      InvalidRequestException ex, WebRequest request) {
+    policyMetrics.recordError(ex);
+    ErrorResponse errorResponse =
+        new ErrorResponse(
+            new Date(),
+            ex.getMessage(),
+            "Invalid input provided. Look at message for specific fields which are invalid.");
+    return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+  }
+
+  /**
+   * Exception handler for PolicyNotFoundException
+   *
+   * @param ex Exception thrown
+   * @param request WebRequest
+   * @return Error response in the required format
+   */
+  @ResponseBody
+  @ExceptionHandler(PolicyNotFoundException.class)
+  public ResponseEntity<ErrorResponse> handleMessagePublishFailedException(
+      PolicyNotFoundException ex, WebRequest request) {
+    policyMetrics.recordError(ex);
+    ErrorResponse errorResponse =
+        new ErrorResponse(new Date(), "Policy not found.", ex.getMessage());
+    return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+  }
+
+  /**
+   * Exception handler for ServiceBusyException
+   *
+   * @param ex Exception thrown
+   * @param request WebRequest
+   * @return Error response in the required format
+   */
+  @ResponseBody
+  @ExceptionHandler(ServiceBusyException.class)
+  public ResponseEntity<ErrorResponse> handleServiceBusyException(
+      ServiceBusyException ex, WebRequest request) {
+    policyMetrics.recordError(ex);
+    ErrorResponse errorResponse =
+        new ErrorResponse(new Date(), SERVICE_BUSY_MESSAGE, ex.getMessage());
+    return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  /**
+   * Exception handler for IdempotencyKeyReusedException
+   *
+   * @param ex Exception thrown
+   * @param request WebRequest
+   * @return Error response in the required format
+   */
+  @ResponseBody
+  @ExceptionHandler(IdempotencyKeyReusedException.class)
+  public ResponseEntity<ErrorResponse> handleIdempotencyKeyReusedException(
+      IdempotencyKeyReusedException ex, WebRequest request) {
+    policyMetrics.recordError(ex);
+    ErrorResponse errorResponse =
+        new ErrorResponse(new Date(), "Idempotency key reused.", ex.getMessage());
+    return new ResponseEntity<>(errorResponse, HttpStatus.UNPROCESSABLE_ENTITY);
+  }
+
+  @ResponseBody
+  @ExceptionHandler(Exception.class)
+  public ResponseEntity<ErrorResponse> handleAllExceptions(Exception ex, WebRequest request) {
+    policyMetrics.recordError(ex);
+    ErrorResponse errorResponse =
+        new ErrorResponse(new Date(), ex.getMessage(), request.getDescription(false));
+    return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+  }
+}
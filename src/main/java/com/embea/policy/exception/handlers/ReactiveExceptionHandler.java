@@ -0,0 +1,67 @@
+package com.embea.policy.exception.handlers;
+
+import com.embea.policy.exception.PolicyNotFoundException;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.model.ErrorResponse;
+import java.util.Date;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+
+/** Reactive counterpart of {@link ControllerExceptionHandler}, with the same error responses. */
+@RestControllerAdvice
+@AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+  private final PolicyMetrics policyMetrics;
+
+  @ExceptionHandler(WebExchangeBindException.class)
+  public ResponseEntity<ErrorResponse> handleWebExchangeBindException(WebExchangeBindException ex) {
+    policyMetrics.recordError(ex);
+    ErrorResponse errorResponse =
+        new ErrorResponse(
+            new Date(),
+            ex.getFieldErrors().stream()
+                .map(DefaultMessageSourceResolvable::getDefaultMessage)
+                .findFirst()
+                .orElse("Unknown error"),
+            "Invalid input provided. Look at message for specific fields which are invalid.");
+    return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(PolicyNotFoundException.class)
+  public ResponseEntity<ErrorResponse> handlePolicyNotFoundException(PolicyNotFoundException ex) {
+    policyMetrics.recordError(ex);
+    ErrorResponse errorResponse =
+        new ErrorResponse(new Date(), "Policy not found.", ex.getMessage());
+    return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+  }
+
+  /**
+   * Exception handler for errors the framework maps to a status, such as unreadable bodies or
+   * unsupported media types.
+   *
+   * @param ex Exception thrown
+   * @return Error response with the status of the exception
+   */
+  @ExceptionHandler(ResponseStatusException.class)
+  public ResponseEntity<ErrorResponse> handleResponseStatusException(ResponseStatusException ex) {
+    policyMetrics.recordError(ex);
+    ErrorResponse errorResponse = new ErrorResponse(new Date(), ex.getReason(), ex.getMessage());
+    return new ResponseEntity<>(errorResponse, ex.getStatus());
+  }
+
+  @ExceptionHandler(Exception.class)
+  public ResponseEntity<ErrorResponse> handleAllExceptions(Exception ex) {
+    policyMetrics.recordError(ex);
+    ErrorResponse errorResponse = new ErrorResponse(new Date(), ex.getMessage(), null);
+    return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+  }
+}
@@ -0,0 +1,155 @@
+package com.embea.policy.facade;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.exception.InvalidRequestException;
+import com.embea.policy.exception.ServiceBusyException;
+import com.embea.policy.exception.handlers.ControllerExceptionHandler;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.model.ErrorResponse;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+@Service
+@Log4j2
+@AllArgsConstructor
+public class BulkPolicyFacade {
+
+  private static final byte NEW_LINE = '\n';
+
+  private final PolicyFacade policyFacade;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+  private final PolicyProperties policyProperties;
+
+  /**
+   * API to create policies from a stream of newline delimited JSON creation requests. Requests are
+   * created in chunks, each chunk in its own transaction. After a chunk is committed, one line per
+   * request is written to the output in input order. A created request gets a policy creation
+   * response line. An invalid request or a request of a failed chunk gets an error response line.
+   * Only one chunk is held in memory at a time.
+   *
+   * @param inputStream Newline delimited policy creation requests
+   * @param outputStream Stream to which newline delimited responses are written
+   * @throws IOException If the input cannot be read or the output cannot be written
+   */
+  @Timed(PolicyMetrics.FACADE_TIMER)
+  public void createPolicies(InputStream inputStream, OutputStream outputStream)
+      throws IOException {
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    int chunkSize = policyProperties.getBulk().getChunkSize();
+    List<BulkLine> chunk = new ArrayList<>(chunkSize);
+    int lineNumber = 0;
+    int created = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (line.isBlank()) {
+        continue;
+      }
+      chunk.add(parseLine(line, lineNumber));
+      if (chunk.size() == chunkSize) {
+        created += processChunk(chunk, outputStream);
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      created += processChunk(chunk, outputStream);
+    }
+    log.info("Bulk creation completed with [{}] policies from [{}] lines", created, lineNumber);
+  }
+
+  private BulkLine parseLine(String line, int lineNumber) {
+    PolicyCreationRequest policyCreationRequest;
+    try {
+      policyCreationRequest = objectMapper.readValue(line, PolicyCreationRequest.class);
+    } catch (JsonProcessingException e) {
+      return BulkLine.failed(lineNumber, "Invalid JSON provided.");
+    }
+    Set<ConstraintViolation<PolicyCreationRequest>> violations =
+        validator.validate(policyCreationRequest);
+    if (!violations.isEmpty()) {
+      return BulkLine.failed(lineNumber, violations.iterator().next().getMessage());
+    }
+    return new BulkLine(lineNumber, policyCreationRequest, null);
+  }
+
+  private int processChunk(List<BulkLine> chunk, OutputStream outputStream) throws IOException {
+    List<PolicyCreationRequest> policyCreationRequests = new ArrayList<>(chunk.size());
+    for (BulkLine bulkLine : chunk) {
+      if (bulkLine.request != null) {
+        policyCreationRequests.add(bulkLine.request);
+      }
+    }
+    List<PolicyResponse> policyResponses = List.of();
+    String chunkError = null;
+    if (!policyCreationRequests.isEmpty()) {
+      try {
+        policyResponses = policyFacade.createPolicies(policyCreationRequests);
+      } catch (RuntimeException e) {
+        log.error("Bulk creation chunk starting at line [{}] failed", chunk.get(0).number, e);
+        chunkError = chunkErrorMessage(e);
+      }
+    }
+    int created = 0;
+    for (BulkLine bulkLine : chunk) {
+      if (bulkLine.request == null) {
+        writeLine(outputStream, errorResponse(bulkLine.error, bulkLine.number));
+      } else if (chunkError != null) {
+        writeLine(outputStream, errorResponse(chunkError, bulkLine.number));
+      } else {
+        writeLine(outputStream, policyResponses.get(created++));
+      }
+    }
+    outputStream.flush();
+    return created;
+  }
+
+  /**
+   * Message of the error lines of a failed chunk, the one {@link ControllerExceptionHandler}
+   * responds with to the exception. Details of unexpected exceptions are only logged.
+   */
+  private String chunkErrorMessage(RuntimeException e) {
+    if (e instanceof InvalidRequestException) {
+      return e.getMessage();
+    }
+    if (e instanceof ServiceBusyException) {
+      return ControllerExceptionHandler.SERVICE_BUSY_MESSAGE;
+    }
+    return ControllerExceptionHandler.INTERNAL_ERROR_MESSAGE;
+  }
+
+  private void writeLine(OutputStream outputStream, Object value) throws IOException {
+    outputStream.write(objectMapper.writeValueAsBytes(value));
+    outputStream.write(NEW_LINE);
+  }
+
+  private ErrorResponse errorResponse(String message, int lineNumber) {
+    return new ErrorResponse(new Date(), message, "Line " + lineNumber);
+  }
+
+  @AllArgsConstructor
+  private static class BulkLine {
+    private final int number;
+    private final PolicyCreationRequest request;
+    private final String error;
+
+    private static BulkLine failed(int number, String error) {
+      return new BulkLine(number, null, error);
+    }
+  }
+}
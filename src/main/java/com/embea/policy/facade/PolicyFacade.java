@@ -1,210 +1,486 @@
-package com.embea.policy.facade;
-
-import com.embea.policy.dto.Person;
-import com.embea.policy.dto.Policy;
-import com.embea.policy.dto.PolicyMapping;
-import com.embea.policy.exception.PolicyNotFoundException;
-import com.embea.policy.model.*;
-import com.embea.policy.services.PersonService;
-import com.embea.policy.services.PolicyMappingService;
-import com.embea.policy.services.PolicyService;
-import java.math.BigDecimal;
-import java.time.Instant;
-import java.util.*;
-import lombok.AllArgsConstructor;
-import lombok.extern.log4j.Log4j2;
-import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-@Service
-@Log4j2
-@AllArgsConstructor
-public class PolicyFacade {
-
-  private final PolicyService policyService;
-  private final PersonService personService;
-  private final PolicyMappingService policyMappingService;
-
-  /**
-   * API to create policies.
-   *
-   * @param policyCreationRequest Policy creation request with start date and insured persons
-   * @return Policy creation response with created policy id and insured person ids
-   */
-  @Transactional
-  public PolicyResponse createPolicy(PolicyCreationRequest policyCreationRequest) {
-    log.info("Going to create policy with start date [{}]", policyCreationRequest.getStartDate());
-    Policy createdPolicy = policyService.insertPolicy(policyCreationRequest);
-    PolicyCreationResponse policyResponse =
-        insertPersonAndMapping(policyCreationRequest, createdPolicy);
-    policyService.savePolicy(createdPolicy);
-
-    return policyResponse.toBuilder()
-        .policyId(createdPolicy.getPolicyId())
-        .startDate(createdPolicy.getStartDate())
-        .build();
-  }
-
-  /**
-   * API to modify policies. Throws PolicyNotFoundException if policy is not found for the provided
-   * effective date. If insured person present in request without id, that person will be added. If
-   * any old insured person not part of current request, that person will be removed from policy
-   *
-   * @param policyModificationRequest Policy modification request with to be updated information and
-   *     effective date
-   * @return Policy modification response with effective data
-   */
-  @Transactional
-  public PolicyResponse modifyPolicy(PolicyModificationRequest policyModificationRequest) {
-    log.info(
-        "Going to modify policy with effective date [{}]",
-        policyModificationRequest.getEffectiveDate());
-    String policyId = policyModificationRequest.getPolicyId();
-    Date effectiveDate = policyModificationRequest.getEffectiveDate();
-    Policy savedPolicy = policyService.getPolicy(policyId, effectiveDate);
-    if (savedPolicy == null) {
-      throw new PolicyNotFoundException(
-          String.format(
-              "No policy found with id - %s on effective date %s",
-              policyModificationRequest.getPolicyId(), effectiveDate));
-    } else {
-      List<InsuredPerson> insuredPersons = new ArrayList<>();
-      List<Long> idsPresent = new ArrayList<>();
-      BigDecimal totalPremium = new BigDecimal("0.0");
-      for (InsuredPerson insuredPerson : policyModificationRequest.getInsuredPersons()) {
-        if (insuredPerson.getId() == null) {
-          Person storePersonEntry = personService.storePersonEntry(insuredPerson);
-          log.debug(
-              "Created person details for [{}] with id [{}]",
-              insuredPerson.getFirstName(),
-              storePersonEntry.getPersonId());
-          insuredPerson.setId(storePersonEntry.getPersonId());
-          policyMappingService.storePolicyMapping(policyId, insuredPerson, effectiveDate);
-          log.debug(
-              "Created policy mapping for policy [{}] person [{}]",
-              policyId,
-              storePersonEntry.getPersonId());
-        }
-        insuredPersons.add(insuredPerson);
-        idsPresent.add(insuredPerson.getId());
-        totalPremium = totalPremium.add(insuredPerson.getPremium());
-      }
-      List<PolicyMapping> policyMappings = policyMappingService.findPersonsForPolicy(policyId);
-      List<Long> idsToRemove = new ArrayList<>();
-      for (PolicyMapping policyMapping : policyMappings) {
-        if (!idsPresent.contains(policyMapping.getPersonId())) {
-          idsToRemove.add(policyMapping.getPersonId());
-        }
-      }
-      policyMappingService.removePersonsFromPolicy(idsToRemove, policyId, effectiveDate);
-      log.debug("Removed [{}] person mappings from policy [{}]", idsToRemove.size(), policyId);
-      return buildPolicyModificationResponse(
-          policyModificationRequest, insuredPersons, totalPremium);
-    }
-  }
-
-  /**
-   * API to fetch policies as on request date. If no policy found for that policy id and request
-   * date, PolicyNotFoundException is thrown. If no date is passed, then current date is considered
-   * as request date.
-   *
-   * @param policyFetchRequest Policy fetch request with policy Id and optional request date
-   * @return Policy fetch response with policy details as on request date
-   */
-  public PolicyResponse fetchPolicy(PolicyFetchRequest policyFetchRequest) {
-    Date requestDate =
-        policyFetchRequest.getRequestDate() != null
-            ? policyFetchRequest.getRequestDate()
-            : new Date(Instant.now().toEpochMilli());
-    log.info("Going to fetch policy with request date [{}]", requestDate);
-    Policy fetchedPolicy = policyService.getPolicy(policyFetchRequest.getPolicyId(), requestDate);
-    if (fetchedPolicy == null) {
-      throw new PolicyNotFoundException(
-          String.format(
-              "No policy found with id - %s on request date %s",
-              policyFetchRequest.getPolicyId(), requestDate));
-    } else {
-      List<PolicyMapping> policyMappings =
-          policyMappingService.findPersonsForPolicyAndRequestDate(
-              fetchedPolicy.getPolicyId(), requestDate);
-      List<InsuredPerson> insuredPersons = new ArrayList<>();
-      BigDecimal totalPremium = populatePersonDetails(policyMappings, insuredPersons);
-      return buildPolicyFetchResponse(fetchedPolicy, insuredPersons, totalPremium, requestDate);
-    }
-  }
-
-  private PolicyCreationResponse insertPersonAndMapping(
-      PolicyCreationRequest policyCreationRequest, Policy createdPolicy) {
-    BigDecimal totalPremium = new BigDecimal("0.0");
-    for (InsuredPerson insuredPerson : policyCreationRequest.getInsuredPersons()) {
-      Person storedPerson = personService.storePersonEntry(insuredPerson);
-      log.debug(
-          "Created  person details for [{}] with id [{}]",
-          insuredPerson.getFirstName(),
-          storedPerson.getPersonId());
-      insuredPerson.setId(storedPerson.getPersonId());
-      totalPremium = totalPremium.add(insuredPerson.getPremium());
-      policyMappingService.storePolicyMapping(
-          createdPolicy.getPolicyId(), insuredPerson, createdPolicy.getStartDate());
-      log.debug(
-          "Created policy mapping for policy [{}] person [{}]",
-          createdPolicy.getPolicyId(),
-          storedPerson.getPersonId());
-    }
-    return PolicyCreationResponse.builder()
-        .insuredPersons(policyCreationRequest.getInsuredPersons())
-        .totalPremium(totalPremium)
-        .build();
-  }
-
-  private BigDecimal populatePersonDetails(
-      List<PolicyMapping> policyMappings, List<InsuredPerson> insuredPersons) {
-    BigDecimal totalPremium = new BigDecimal("0.0");
-    for (PolicyMapping policyMapping : policyMappings) {
-      Person person = personService.getPerson(policyMapping.getPersonId());
-      if (person != null) {
-        log.debug(
-            "Found mapping person [{}] for policy [{}]",
-            policyMapping.getPersonId(),
-            policyMapping.getPolicyId());
-        insuredPersons.add(getInsuredPerson(policyMapping, person));
-        totalPremium = totalPremium.add(policyMapping.getPremium());
-      }
-    }
-    return totalPremium;
-  }
-
-  private InsuredPerson getInsuredPerson(PolicyMapping policyMapping, Person person) {
-    return InsuredPerson.builder()
-        .id(person.getPersonId())
-        .firstName(person.getFirstName())
-        .secondName(person.getSecondName())
-        .premium(policyMapping.getPremium())
-        .build();
-  }
-
-  private PolicyModificationResponse buildPolicyModificationResponse(
-      PolicyModificationRequest policyModificationRequest,
-      List<InsuredPerson> insuredPersons,
-      BigDecimal totalPremium) {
-    return PolicyModificationResponse.builder()
-        .policyId(policyModificationRequest.getPolicyId())
-        .insuredPersons(insuredPersons)
-        .effectiveDate(policyModificationRequest.getEffectiveDate())
-        .totalPremium(totalPremium)
-        .build();
-  }
-
-  private PolicyFetchResponse buildPolicyFetchResponse(
-      Policy fetchedPolicy,
-      List<InsuredPerson> insuredPersons,
-      BigDecimal totalPremium,
-      Date requestDate) {
-    return PolicyFetchResponse.builder()
-        .policyId(fetchedPolicy.getPolicyId())
-        .insuredPersons(insuredPersons)
-        .totalPremium(totalPremium)
-        .requestDate(requestDate)
-        .build();
-  }
-}
+package com.embea.policy.facade;
+
+import com.embea.policy.dto.Person;
+import com.embea.policy.dto.Policy;
+import com.embea.policy.dto.PolicyMapping;
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.dto.PolicyMemberInterval;
+import com.embea.policy.exception.PolicyNotFoundException;
+import com.embea.policy.limiter.ConnectionLimited;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.model.*;
+import com.embea.policy.services.PersonService;
+import com.embea.policy.services.PolicyFetchCache;
+import com.embea.policy.services.PolicyMappingService;
+import com.embea.policy.services.PolicyMembershipIndex;
+import com.embea.policy.services.PolicyPremiumService;
+import com.embea.policy.services.PolicyService;
+import com.embea.policy.utils.DateUtils;
+import io.micrometer.core.annotation.Timed;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@Log4j2
+@AllArgsConstructor
+public class PolicyFacade {
+
+  private final PolicyService policyService;
+  private final PersonService personService;
+  private final PolicyMappingService policyMappingService;
+  private final PolicyMembershipIndex policyMembershipIndex;
+  private final PolicyFetchCache policyFetchCache;
+  private final PolicyPremiumService policyPremiumService;
+  private final PolicyMetrics policyMetrics;
+
+  /**
+   * API to create policies.
+   *
+   * @param policyCreationRequest Policy creation request with start date and insured persons
+   * @return Policy creation response with created policy id and insured person ids
+   */
+  @Timed(PolicyMetrics.FACADE_TIMER)
+  @ConnectionLimited
+  @Transactional
+  public PolicyResponse createPolicy(PolicyCreationRequest policyCreationRequest) {
+    log.info("Going to create policy with start date [{}]", policyCreationRequest.getStartDate());
+    return insertPolicyWithPersons(policyCreationRequest);
+  }
+
+  /**
+   * API to create a chunk of policies in a single transaction. Either all policies of the chunk are
+   * created or none of them. The policies are created without going through {@link
+   * #createPolicy(PolicyCreationRequest)}, so the chunk is timed and limited once as a whole, under
+   * its own method tag of the facade timer.
+   *
+   * @param policyCreationRequests Policy creation requests with start date and insured persons
+   * @return Policy creation responses, in the same order as the requests
+   */
+  @Timed(PolicyMetrics.FACADE_TIMER)
+  @ConnectionLimited
+  @Transactional
+  public List<PolicyResponse> createPolicies(List<PolicyCreationRequest> policyCreationRequests) {
+    log.info("Going to create chunk of [{}] policies", policyCreationRequests.size());
+    List<PolicyResponse> policyResponses = new ArrayList<>(policyCreationRequests.size());
+    for (PolicyCreationRequest policyCreationRequest : policyCreationRequests) {
+      policyResponses.add(insertPolicyWithPersons(policyCreationRequest));
+    }
+    return policyResponses;
+  }
+
+  /**
+   * API to modify policies. Throws PolicyNotFoundException if policy is not found for the provided
+   * effective date. If insured person present in request without id, that person will be added. If
+   * any person insured on effective date is not part of current request, that person will be
+   * removed from policy. Joins the transaction of the caller if there is one, as the write-behind
+   * writer does for the modifications it commits together.
+   *
+   * @param policyModificationRequest Policy modification request with to be updated information and
+   *     effective date
+   * @return Policy modification response with effective data
+   */
+  @Timed(PolicyMetrics.FACADE_TIMER)
+  @ConnectionLimited
+  @Transactional
+  public PolicyResponse modifyPolicy(PolicyModificationRequest policyModificationRequest) {
+    log.info(
+        "Going to modify policy with effective date [{}]",
+        policyModificationRequest.getEffectiveDate());
+    String policyId = policyModificationRequest.getPolicyId();
+    Date effectiveDate = policyModificationRequest.getEffectiveDate();
+    Policy savedPolicy = policyService.getPolicy(policyId, effectiveDate);
+    if (savedPolicy == null) {
+      throw new PolicyNotFoundException(
+          String.format(
+              "No policy found with id - %s on effective date %s",
+              policyModificationRequest.getPolicyId(), effectiveDate));
+    } else {
+      Set<Long> activePersonIds = policyMappingService.findActivePersonIds(policyId, effectiveDate);
+      List<InsuredPerson> insuredPersons =
+          new ArrayList<>(policyModificationRequest.getInsuredPersons().size());
+      List<InsuredPerson> addedPersons = new ArrayList<>();
+      Set<Long> idsPresent = new HashSet<>();
+      BigDecimal totalPremium = new BigDecimal("0.0");
+      for (InsuredPerson insuredPerson : policyModificationRequest.getInsuredPersons()) {
+        if (insuredPerson.getId() == null) {
+          addedPersons.add(insuredPerson);
+        } else {
+          idsPresent.add(insuredPerson.getId());
+        }
+        insuredPersons.add(insuredPerson);
+        totalPremium = totalPremium.add(insuredPerson.getPremium());
+      }
+      addPersonsToPolicy(policyId, addedPersons, activePersonIds, effectiveDate);
+      List<Long> idsToRemove = new ArrayList<>();
+      for (Long activePersonId : activePersonIds) {
+        if (!idsPresent.contains(activePersonId)) {
+          idsToRemove.add(activePersonId);
+        }
+      }
+      List<PolicyMapping> removedMappings = List.of();
+      if (!idsToRemove.isEmpty()) {
+        removedMappings =
+            policyMappingService.findActivePolicyMappings(idsToRemove, policyId, effectiveDate);
+        policyMappingService.removePersonsFromPolicy(idsToRemove, policyId, effectiveDate);
+        log.debug("Removed [{}] person mappings from policy [{}]", idsToRemove.size(), policyId);
+      }
+      policyPremiumService.policyModified(policyId, effectiveDate, addedPersons, removedMappings);
+      policyMembershipIndex.policyModified(policyId, effectiveDate, addedPersons, idsToRemove);
+      policyFetchCache.policyModified(policyId, effectiveDate);
+      policyMetrics.recordInsuredPersons(PolicyMetrics.OPERATION_MODIFY, insuredPersons.size());
+      return buildPolicyModificationResponse(
+          policyModificationRequest, insuredPersons, totalPremium);
+    }
+  }
+
+  /**
+   * API to fetch policies as on request date. If no policy found for that policy id and request
+   * date, PolicyNotFoundException is thrown. If no date is passed, then current date is considered
+   * as request date. Responses are cached for the range of days they stay valid, misses are served
+   * from the membership index, which reads a policy with a single joined query on first use. Runs
+   * in one read-only transaction, routed to the read replica if configured, without Hibernate flush
+   * or dirty checking; a connection is only taken on a miss.
+   *
+   * @param policyFetchRequest Policy fetch request with policy Id and optional request date
+   * @return Policy fetch response with policy details as on request date
+   */
+  @Timed(PolicyMetrics.FACADE_TIMER)
+  @Transactional(readOnly = true)
+  public PolicyResponse fetchPolicy(PolicyFetchRequest policyFetchRequest) {
+    Date requestDate =
+        policyFetchRequest.getRequestDate() != null
+            ? policyFetchRequest.getRequestDate()
+            : new Date(Instant.now().toEpochMilli());
+    log.info("Going to fetch policy with request date [{}]", requestDate);
+    String policyId = policyFetchRequest.getPolicyId();
+    PolicyResponse policyResponse =
+        policyFetchCache.get(policyId, requestDate, () -> loadPolicy(policyId, requestDate));
+    policyMetrics.recordInsuredPersons(
+        PolicyMetrics.OPERATION_FETCH, policyResponse.getInsuredPersons().size());
+    return policyResponse;
+  }
+
+  /**
+   * API to fetch the total premium of a policy as on request date. It is summed from the premium
+   * changes of the policy by a single query, so neither insured persons nor the changes are loaded.
+   * If no policy found for that policy id and request date, PolicyNotFoundException is thrown. If
+   * no date is passed, then current date is considered as request date.
+   *
+   * @param policyFetchRequest Policy fetch request with policy Id and optional request date
+   * @return Policy premium response with total premium as on request date
+   */
+  @Timed(PolicyMetrics.FACADE_TIMER)
+  @ConnectionLimited
+  @Transactional(readOnly = true)
+  public PolicyPremiumResponse fetchPremium(PolicyFetchRequest policyFetchRequest) {
+    Date requestDate =
+        policyFetchRequest.getRequestDate() != null
+            ? policyFetchRequest.getRequestDate()
+            : new Date(Instant.now().toEpochMilli());
+    log.info("Going to fetch policy premium with request date [{}]", requestDate);
+    String policyId = policyFetchRequest.getPolicyId();
+    BigDecimal totalPremium = policyPremiumService.getTotalPremium(policyId, requestDate);
+    if (totalPremium == null) {
+      throw new PolicyNotFoundException(
+          String.format("No policy found with id - %s on request date %s", policyId, requestDate));
+    }
+    return PolicyPremiumResponse.builder()
+        .policyId(policyId)
+        .totalPremium(totalPremium)
+        .requestDate(requestDate)
+        .build();
+  }
+
+  /**
+   * API to fetch the history of a policy over a date range. Every day on which insured persons are
+   * added or removed starts a new period, each with the insured persons and total premium in effect
+   * over it. The policy history is read with a single query and swept once in date order. Days
+   * before the start of the policy are left out. If no policy found for that policy id within the
+   * date range, PolicyNotFoundException is thrown.
+   *
+   * @param policyTimelineRequest Policy timeline request with policy Id and inclusive date range
+   * @return Policy timeline response with consecutive periods covering the date range
+   */
+  @Timed(PolicyMetrics.FACADE_TIMER)
+  @ConnectionLimited
+  @Transactional(readOnly = true)
+  public PolicyTimelineResponse fetchPolicyTimeline(PolicyTimelineRequest policyTimelineRequest) {
+    String policyId = policyTimelineRequest.getPolicyId();
+    log.info(
+        "Going to fetch policy timeline from [{}] to [{}]",
+        policyTimelineRequest.getFromDate(),
+        policyTimelineRequest.getToDate());
+    List<PolicyMemberInterval> memberIntervals = policyService.getPolicyMemberIntervals(policyId);
+    long toDay = DateUtils.toEpochDay(policyTimelineRequest.getToDate());
+    long fromDay =
+        memberIntervals.isEmpty()
+            ? toDay + 1
+            : Math.max(
+                DateUtils.toEpochDay(policyTimelineRequest.getFromDate()),
+                DateUtils.toEpochDay(memberIntervals.get(0).getStartDate()));
+    if (fromDay > toDay) {
+      throw new PolicyNotFoundException(
+          String.format(
+              "No policy found with id - %s between %s and %s",
+              policyId, policyTimelineRequest.getFromDate(), policyTimelineRequest.getToDate()));
+    }
+    List<PolicyMemberInterval> additions = new ArrayList<>(memberIntervals.size());
+    List<PolicyMemberInterval> removals = new ArrayList<>(memberIntervals.size());
+    for (PolicyMemberInterval memberInterval : memberIntervals) {
+      if (memberInterval.getPersonId() != null
+          && additionDay(memberInterval) < removalDay(memberInterval)) {
+        additions.add(memberInterval);
+        if (memberInterval.getRemovalDate() != null) {
+          removals.add(memberInterval);
+        }
+      }
+    }
+    additions.sort(Comparator.comparingLong(PolicyFacade::additionDay));
+    removals.sort(Comparator.comparingLong(PolicyFacade::removalDay));
+
+    List<PolicyTimelinePeriod> periods = new ArrayList<>();
+    Map<Long, InsuredPerson> insuredPersonsById = new TreeMap<>();
+    BigDecimal totalPremium = new BigDecimal("0.0");
+    int nextAddition = 0;
+    int nextRemoval = 0;
+    long periodStartDay = fromDay;
+    while (periodStartDay <= toDay) {
+      // Removals first, a person removed and added again on the same day stays insured
+      for (; nextRemoval < removals.size(); nextRemoval++) {
+        PolicyMemberInterval removal = removals.get(nextRemoval);
+        if (removalDay(removal) > periodStartDay) {
+          break;
+        }
+        insuredPersonsById.remove(removal.getPersonId());
+        totalPremium = totalPremium.subtract(removal.getPremium());
+      }
+      for (; nextAddition < additions.size(); nextAddition++) {
+        PolicyMemberInterval addition = additions.get(nextAddition);
+        if (additionDay(addition) > periodStartDay) {
+          break;
+        }
+        insuredPersonsById.put(addition.getPersonId(), getInsuredPerson(addition));
+        totalPremium = totalPremium.add(addition.getPremium());
+      }
+      long nextChangeDay = toDay + 1;
+      if (nextAddition < additions.size()) {
+        nextChangeDay = Math.min(nextChangeDay, additionDay(additions.get(nextAddition)));
+      }
+      if (nextRemoval < removals.size()) {
+        nextChangeDay = Math.min(nextChangeDay, removalDay(removals.get(nextRemoval)));
+      }
+      periods.add(
+          PolicyTimelinePeriod.builder()
+              .fromDate(DateUtils.fromEpochDay(periodStartDay))
+              .toDate(DateUtils.fromEpochDay(nextChangeDay - 1))
+              .insuredPersons(new ArrayList<>(insuredPersonsById.values()))
+              .totalPremium(totalPremium)
+              .build());
+      periodStartDay = nextChangeDay;
+    }
+    return PolicyTimelineResponse.builder()
+        .policyId(policyId)
+        .fromDate(policyTimelineRequest.getFromDate())
+        .toDate(policyTimelineRequest.getToDate())
+        .periods(periods)
+        .build();
+  }
+
+  /**
+   * API to fetch multiple policies as on request date. Policies are read with set-based queries
+   * instead of one query per policy id. Policy ids with no policy on that date are returned as not
+   * found instead of failing the whole request. If no date is passed, then current date is
+   * considered as request date.
+   *
+   * @param policyBatchFetchRequest Policy batch fetch request with policy Ids and optional request
+   *     date
+   * @return Policy batch fetch response with found policies in request order and not found ids
+   */
+  @Timed(PolicyMetrics.FACADE_TIMER)
+  @ConnectionLimited
+  @Transactional(readOnly = true)
+  public PolicyBatchFetchResponse fetchPolicies(PolicyBatchFetchRequest policyBatchFetchRequest) {
+    Date requestDate =
+        policyBatchFetchRequest.getRequestDate() != null
+            ? policyBatchFetchRequest.getRequestDate()
+            : new Date(Instant.now().toEpochMilli());
+    List<String> policyIds =
+        new ArrayList<>(new LinkedHashSet<>(policyBatchFetchRequest.getPolicyIds()));
+    log.info("Going to fetch [{}] policies with request date [{}]", policyIds.size(), requestDate);
+    Map<String, List<PolicyMember>> policyMembersById = new HashMap<>();
+    for (PolicyMember policyMember : policyService.getPolicyMembers(policyIds, requestDate)) {
+      policyMembersById
+          .computeIfAbsent(policyMember.getPolicyId(), policyId -> new ArrayList<>())
+          .add(policyMember);
+    }
+    List<PolicyFetchResponse> policies = new ArrayList<>(policyMembersById.size());
+    List<String> notFoundPolicyIds = new ArrayList<>();
+    for (String policyId : policyIds) {
+      List<PolicyMember> policyMembers = policyMembersById.get(policyId);
+      if (policyMembers == null) {
+        notFoundPolicyIds.add(policyId);
+      } else {
+        List<InsuredPerson> insuredPersons = new ArrayList<>(policyMembers.size());
+        BigDecimal totalPremium = populatePersonDetails(policyMembers, insuredPersons);
+        policyMetrics.recordInsuredPersons(
+            PolicyMetrics.OPERATION_BATCH_FETCH, insuredPersons.size());
+        policies.add(buildPolicyFetchResponse(policyId, insuredPersons, totalPremium, requestDate));
+      }
+    }
+    return PolicyBatchFetchResponse.builder()
+        .requestDate(requestDate)
+        .policies(policies)
+        .notFoundPolicyIds(notFoundPolicyIds)
+        .build();
+  }
+
+  private void addPersonsToPolicy(
+      String policyId,
+      List<InsuredPerson> addedPersons,
+      Set<Long> activePersonIds,
+      Date effectiveDate) {
+    if (addedPersons.isEmpty()) {
+      return;
+    }
+    // A reused person must not overlap a mapping of its own, also not one starting later
+    Set<Long> excludedPersonIds =
+        personService.isReusingPersons()
+            ? policyMappingService.findInsuredPersonIdsFrom(policyId, effectiveDate)
+            : activePersonIds;
+    List<Person> storedPersons = personService.storePersonEntries(addedPersons, excludedPersonIds);
+    for (int i = 0; i < addedPersons.size(); i++) {
+      addedPersons.get(i).setId(storedPersons.get(i).getPersonId());
+    }
+    policyMappingService.storePolicyMappings(policyId, addedPersons, effectiveDate);
+    log.debug("Added [{}] persons to policy [{}]", addedPersons.size(), policyId);
+  }
+
+  private PolicyFetchResponse loadPolicy(String policyId, Date requestDate) {
+    List<PolicyMember> policyMembers =
+        policyMembershipIndex.getPolicyMembers(policyId, requestDate);
+    if (policyMembers.isEmpty()) {
+      throw new PolicyNotFoundException(
+          String.format("No policy found with id - %s on request date %s", policyId, requestDate));
+    } else {
+      List<InsuredPerson> insuredPersons = new ArrayList<>(policyMembers.size());
+      BigDecimal totalPremium = populatePersonDetails(policyMembers, insuredPersons);
+      return buildPolicyFetchResponse(policyId, insuredPersons, totalPremium, requestDate);
+    }
+  }
+
+  private PolicyResponse insertPolicyWithPersons(PolicyCreationRequest policyCreationRequest) {
+    Policy createdPolicy = policyService.insertPolicy(policyCreationRequest);
+    PolicyCreationResponse policyResponse =
+        insertPersonAndMapping(policyCreationRequest, createdPolicy);
+    policyPremiumService.policyCreated(
+        createdPolicy.getPolicyId(),
+        createdPolicy.getStartDate(),
+        policyResponse.getInsuredPersons());
+    policyMembershipIndex.policyCreated(
+        createdPolicy.getPolicyId(),
+        createdPolicy.getStartDate(),
+        policyResponse.getInsuredPersons());
+    policyMetrics.recordInsuredPersons(
+        PolicyMetrics.OPERATION_CREATE, policyResponse.getInsuredPersons().size());
+
+    return policyResponse.toBuilder()
+        .policyId(createdPolicy.getPolicyId())
+        .startDate(createdPolicy.getStartDate())
+        .build();
+  }
+
+  private PolicyCreationResponse insertPersonAndMapping(
+      PolicyCreationRequest policyCreationRequest, Policy createdPolicy) {
+    List<InsuredPerson> insuredPersons = policyCreationRequest.getInsuredPersons();
+    List<Person> storedPersons = personService.storePersonEntries(insuredPersons);
+    BigDecimal totalPremium = new BigDecimal("0.0");
+    for (int i = 0; i < insuredPersons.size(); i++) {
+      InsuredPerson insuredPerson = insuredPersons.get(i);
+      insuredPerson.setId(storedPersons.get(i).getPersonId());
+      totalPremium = totalPremium.add(insuredPerson.getPremium());
+    }
+    log.debug(
+        "Created [{}] persons for policy [{}]", storedPersons.size(), createdPolicy.getPolicyId());
+    policyMappingService.storePolicyMappings(
+        createdPolicy.getPolicyId(), insuredPersons, createdPolicy.getStartDate());
+    log.debug("Created policy mappings for policy [{}]", createdPolicy.getPolicyId());
+    return PolicyCreationResponse.builder()
+        .insuredPersons(insuredPersons)
+        .totalPremium(totalPremium)
+        .build();
+  }
+
+  private BigDecimal populatePersonDetails(
+      List<PolicyMember> policyMembers, List<InsuredPerson> insuredPersons) {
+    BigDecimal totalPremium = new BigDecimal("0.0");
+    for (PolicyMember policyMember : policyMembers) {
+      if (policyMember.getPersonId() != null) {
+        log.debug(
+            "Found mapping person [{}] for policy [{}]",
+            policyMember.getPersonId(),
+            policyMember.getPolicyId());
+        insuredPersons.add(getInsuredPerson(policyMember));
+        totalPremium = totalPremium.add(policyMember.getPremium());
+      }
+    }
+    return totalPremium;
+  }
+
+  private InsuredPerson getInsuredPerson(PolicyMemberInterval memberInterval) {
+    return InsuredPerson.builder()
+        .id(memberInterval.getPersonId())
+        .firstName(memberInterval.getFirstName())
+        .secondName(memberInterval.getSecondName())
+        .premium(memberInterval.getPremium())
+        .build();
+  }
+
+  private static long additionDay(PolicyMemberInterval memberInterval) {
+    return DateUtils.toEpochDay(memberInterval.getAdditionDate());
+  }
+
+  private static long removalDay(PolicyMemberInterval memberInterval) {
+    return memberInterval.getRemovalDate() != null
+        ? DateUtils.toEpochDay(memberInterval.getRemovalDate())
+        : Long.MAX_VALUE;
+  }
+
+  private InsuredPerson getInsuredPerson(PolicyMember policyMember) {
+    return InsuredPerson.builder()
+        .id(policyMember.getPersonId())
+        .firstName(policyMember.getFirstName())
+        .secondName(policyMember.getSecondName())
+        .premium(policyMember.getPremium())
+        .build();
+  }
+
+  private PolicyModificationResponse buildPolicyModificationResponse(
+      PolicyModificationRequest policyModificationRequest,
+      List<InsuredPerson> insuredPersons,
+      BigDecimal totalPremium) {
+    return PolicyModificationResponse.builder()
+        .policyId(policyModificationRequest.getPolicyId())
+        .insuredPersons(insuredPersons)
+        .effectiveDate(policyModificationRequest.getEffectiveDate())
+        .totalPremium(totalPremium)
+        .build();
+  }
+
+  private PolicyFetchResponse buildPolicyFetchResponse(
+      String policyId,
+      List<InsuredPerson> insuredPersons,
+      BigDecimal totalPremium,
+      Date requestDate) {
+    return PolicyFetchResponse.builder()
+        .policyId(policyId)
+        .insuredPersons(insuredPersons)
+        .totalPremium(totalPremium)
+        .requestDate(requestDate)
+        .build();
+  }
+}
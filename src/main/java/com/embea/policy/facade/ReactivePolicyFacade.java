@@ -0,0 +1,278 @@
+package com.embea.policy.facade;
+
+import com.embea.policy.dto.Person;
+import com.embea.policy.dto.Policy;
+import com.embea.policy.dto.PolicyMapping;
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.dto.PolicyPremiumChange;
+import com.embea.policy.exception.PolicyNotFoundException;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.model.*;
+import com.embea.policy.repository.ReactivePolicyRepo;
+import com.embea.policy.services.PolicyPremiumService;
+import com.embea.policy.utils.PolicyIdUtils;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link PolicyFacade} for the reactive stack, with the same semantics
+ * for create, modify and fetch. Fetches are read from database, the membership index and fetch
+ * cache of the servlet stack are not used.
+ */
+@Service
+@Log4j2
+@AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePolicyFacade {
+
+  private final ReactivePolicyRepo reactivePolicyRepo;
+  private final TransactionalOperator reactiveTransactionalOperator;
+  private final PolicyMetrics policyMetrics;
+
+  /**
+   * API to create policies.
+   *
+   * @param policyCreationRequest Policy creation request with start date and insured persons
+   * @return Policy creation response with created policy id and insured person ids
+   */
+  public Mono<PolicyResponse> createPolicy(PolicyCreationRequest policyCreationRequest) {
+    log.info("Going to create policy with start date [{}]", policyCreationRequest.getStartDate());
+    Policy policy =
+        Policy.builder()
+            .policyId(PolicyIdUtils.generate())
+            .startDate(policyCreationRequest.getStartDate())
+            .build();
+    List<InsuredPerson> insuredPersons = policyCreationRequest.getInsuredPersons();
+    return reactivePolicyRepo
+        .insertPolicy(policy)
+        .then(addPersonsToPolicy(policy.getPolicyId(), insuredPersons, policy.getStartDate()))
+        .then(
+            insertPolicyPremiumChanges(
+                PolicyPremiumService.buildCreationChanges(
+                    policy.getPolicyId(), policy.getStartDate(), insuredPersons)))
+        .then(
+            Mono.<PolicyResponse>fromSupplier(
+                () -> {
+                  policyMetrics.recordInsuredPersons(
+                      PolicyMetrics.OPERATION_CREATE, insuredPersons.size());
+                  return PolicyCreationResponse.builder()
+                      .policyId(policy.getPolicyId())
+                      .startDate(policy.getStartDate())
+                      .insuredPersons(insuredPersons)
+                      .totalPremium(sumPremiums(insuredPersons))
+                      .build();
+                }))
+        .as(reactiveTransactionalOperator::transactional);
+  }
+
+  /**
+   * API to modify policies. Emits PolicyNotFoundException if policy is not found for the provided
+   * effective date. If insured person present in request without id, that person will be added. If
+   * any person insured on effective date is not part of current request, that person will be
+   * removed from policy
+   *
+   * @param policyModificationRequest Policy modification request with to be updated information and
+   *     effective date
+   * @return Policy modification response with effective data
+   */
+  public Mono<PolicyResponse> modifyPolicy(PolicyModificationRequest policyModificationRequest) {
+    log.info(
+        "Going to modify policy with effective date [{}]",
+        policyModificationRequest.getEffectiveDate());
+    String policyId = policyModificationRequest.getPolicyId();
+    Date effectiveDate = policyModificationRequest.getEffectiveDate();
+    List<InsuredPerson> insuredPersons = policyModificationRequest.getInsuredPersons();
+    return reactivePolicyRepo
+        .getPolicy(policyId, effectiveDate)
+        .switchIfEmpty(
+            Mono.error(
+                () ->
+                    new PolicyNotFoundException(
+                        String.format(
+                            "No policy found with id - %s on effective date %s",
+                            policyId, effectiveDate))))
+        .flatMap(
+            savedPolicy ->
+                reactivePolicyRepo.findActivePolicyMappings(policyId, effectiveDate).collectList())
+        .flatMap(
+            activeMappings -> {
+              List<InsuredPerson> addedPersons = new ArrayList<>();
+              Set<Long> idsPresent = new HashSet<>();
+              for (InsuredPerson insuredPerson : insuredPersons) {
+                if (insuredPerson.getId() == null) {
+                  addedPersons.add(insuredPerson);
+                } else {
+                  idsPresent.add(insuredPerson.getId());
+                }
+              }
+              List<Long> idsToRemove = new ArrayList<>();
+              List<PolicyMapping> removedMappings = new ArrayList<>();
+              for (PolicyMapping activeMapping : activeMappings) {
+                if (!idsPresent.contains(activeMapping.getPersonId())) {
+                  idsToRemove.add(activeMapping.getPersonId());
+                  removedMappings.add(activeMapping);
+                }
+              }
+              return addPersonsToPolicy(policyId, addedPersons, effectiveDate)
+                  .then(removePersonsFromPolicy(policyId, idsToRemove, effectiveDate))
+                  .then(
+                      insertPolicyPremiumChanges(
+                          PolicyPremiumService.buildModificationChanges(
+                              policyId, effectiveDate, addedPersons, removedMappings)));
+            })
+        .then(
+            Mono.<PolicyResponse>fromSupplier(
+                () -> {
+                  policyMetrics.recordInsuredPersons(
+                      PolicyMetrics.OPERATION_MODIFY, insuredPersons.size());
+                  return PolicyModificationResponse.builder()
+                      .policyId(policyId)
+                      .insuredPersons(insuredPersons)
+                      .effectiveDate(effectiveDate)
+                      .totalPremium(sumPremiums(insuredPersons))
+                      .build();
+                }))
+        .as(reactiveTransactionalOperator::transactional);
+  }
+
+  /**
+   * API to fetch policies as on request date. If no policy found for that policy id and request
+   * date, PolicyNotFoundException is emitted. If no date is passed, then current date is considered
+   * as request date.
+   *
+   * @param policyFetchRequest Policy fetch request with policy Id and optional request date
+   * @return Policy fetch response with policy details as on request date
+   */
+  public Mono<PolicyResponse> fetchPolicy(PolicyFetchRequest policyFetchRequest) {
+    Date requestDate =
+        policyFetchRequest.getRequestDate() != null
+            ? policyFetchRequest.getRequestDate()
+            : new Date(Instant.now().toEpochMilli());
+    log.info("Going to fetch policy with request date [{}]", requestDate);
+    String policyId = policyFetchRequest.getPolicyId();
+    return reactivePolicyRepo
+        .findPolicyMembers(policyId, requestDate)
+        .collectList()
+        .flatMap(
+            policyMembers -> {
+              if (policyMembers.isEmpty()) {
+                return Mono.error(
+                    new PolicyNotFoundException(
+                        String.format(
+                            "No policy found with id - %s on request date %s",
+                            policyId, requestDate)));
+              }
+              List<InsuredPerson> insuredPersons = new ArrayList<>(policyMembers.size());
+              for (PolicyMember policyMember : policyMembers) {
+                if (policyMember.getPersonId() != null) {
+                  insuredPersons.add(getInsuredPerson(policyMember));
+                }
+              }
+              policyMetrics.recordInsuredPersons(
+                  PolicyMetrics.OPERATION_FETCH, insuredPersons.size());
+              return Mono.just(
+                  PolicyFetchResponse.builder()
+                      .policyId(policyId)
+                      .insuredPersons(insuredPersons)
+                      .totalPremium(sumPremiums(insuredPersons))
+                      .requestDate(requestDate)
+                      .build());
+            });
+  }
+
+  private Mono<Void> addPersonsToPolicy(
+      String policyId, List<InsuredPerson> addedPersons, Date effectiveDate) {
+    if (addedPersons.isEmpty()) {
+      return Mono.empty();
+    }
+    return reactivePolicyRepo
+        .allocatePersonIds(addedPersons.size())
+        .flatMap(
+            personIds -> {
+              List<Person> persons = new ArrayList<>(addedPersons.size());
+              for (int i = 0; i < addedPersons.size(); i++) {
+                InsuredPerson insuredPerson = addedPersons.get(i);
+                insuredPerson.setId(personIds.get(i));
+                persons.add(
+                    Person.builder()
+                        .personId(insuredPerson.getId())
+                        .firstName(insuredPerson.getFirstName())
+                        .secondName(insuredPerson.getSecondName())
+                        .build());
+              }
+              return reactivePolicyRepo.insertPersons(persons);
+            })
+        .then(reactivePolicyRepo.allocatePolicyMappingIds(addedPersons.size()))
+        .flatMap(
+            policyMappingIds -> {
+              List<PolicyMapping> policyMappings = new ArrayList<>(addedPersons.size());
+              for (int i = 0; i < addedPersons.size(); i++) {
+                InsuredPerson insuredPerson = addedPersons.get(i);
+                policyMappings.add(
+                    PolicyMapping.builder()
+                        .id(policyMappingIds.get(i))
+                        .policyId(policyId)
+                        .personId(insuredPerson.getId())
+                        .premium(insuredPerson.getPremium())
+                        .additionDate(effectiveDate)
+                        .build());
+              }
+              return reactivePolicyRepo.insertPolicyMappings(policyMappings);
+            })
+        .doOnSuccess(
+            ignored ->
+                log.debug("Added [{}] persons to policy [{}]", addedPersons.size(), policyId));
+  }
+
+  private Mono<Void> removePersonsFromPolicy(
+      String policyId, List<Long> idsToRemove, Date effectiveDate) {
+    if (idsToRemove.isEmpty()) {
+      return Mono.empty();
+    }
+    return reactivePolicyRepo
+        .setRemovalDate(idsToRemove, policyId, effectiveDate)
+        .doOnNext(
+            removed ->
+                log.debug("Removed [{}] person mappings from policy [{}]", removed, policyId))
+        .then();
+  }
+
+  private Mono<Void> insertPolicyPremiumChanges(List<PolicyPremiumChange> policyPremiumChanges) {
+    if (policyPremiumChanges.isEmpty()) {
+      return Mono.empty();
+    }
+    return reactivePolicyRepo
+        .allocatePolicyPremiumChangeIds(policyPremiumChanges.size())
+        .flatMap(
+            policyPremiumChangeIds -> {
+              for (int i = 0; i < policyPremiumChanges.size(); i++) {
+                policyPremiumChanges.get(i).setId(policyPremiumChangeIds.get(i));
+              }
+              return reactivePolicyRepo.insertPolicyPremiumChanges(policyPremiumChanges);
+            });
+  }
+
+  private BigDecimal sumPremiums(List<InsuredPerson> insuredPersons) {
+    BigDecimal totalPremium = new BigDecimal("0.0");
+    for (InsuredPerson insuredPerson : insuredPersons) {
+      totalPremium = totalPremium.add(insuredPerson.getPremium());
+    }
+    return totalPremium;
+  }
+
+  private InsuredPerson getInsuredPerson(PolicyMember policyMember) {
+    return InsuredPerson.builder()
+        .id(policyMember.getPersonId())
+        .firstName(policyMember.getFirstName())
+        .secondName(policyMember.getSecondName())
+        .premium(policyMember.getPremium())
+        .build();
+  }
+}
@@ -0,0 +1,57 @@
+package com.embea.policy.facade;
+
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyModificationRequest;
+import com.embea.policy.model.PolicyResponse;
+import com.embea.policy.writebehind.PolicyWriteBehind;
+import io.micrometer.core.annotation.Timed;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+@Service
+@AllArgsConstructor
+public class WriteBehindPolicyFacade {
+
+  private final PolicyFacade policyFacade;
+  private final PolicyWriteBehind policyWriteBehind;
+
+  /**
+   * API to modify policies through the write-behind writer. With write-behind disabled the
+   * modification runs in a transaction of its own as with {@link
+   * PolicyFacade#modifyPolicy(PolicyModificationRequest)}. Otherwise the whole modification, reads
+   * included, is queued without holding a connection or a database permit, and runs in the
+   * transaction of the writer together with other modifications. Index and cache updates of the
+   * modification happen once the writer has committed it. The writer may run a modification more
+   * than once, so each run works on a copy of the request and its persons.
+   *
+   * @param policyModificationRequest Policy modification request with to be updated information and
+   *     effective date
+   * @return Policy modification response with effective data
+   */
+  @Timed(PolicyMetrics.FACADE_TIMER)
+  public PolicyResponse modifyPolicy(PolicyModificationRequest policyModificationRequest) {
+    if (!policyWriteBehind.isEnabled()) {
+      return policyFacade.modifyPolicy(policyModificationRequest);
+    }
+    return policyWriteBehind.write(
+        policyModificationRequest.getPolicyId(),
+        () -> policyFacade.modifyPolicy(copyOf(policyModificationRequest)));
+  }
+
+  /**
+   * Copy of a modification request. Modifying a policy sets the ids and names of the request
+   * persons, which must not be seen by a later run after the run setting them was rolled back.
+   */
+  private static PolicyModificationRequest copyOf(
+      PolicyModificationRequest policyModificationRequest) {
+    List<InsuredPerson> insuredPersons =
+        new ArrayList<>(policyModificationRequest.getInsuredPersons().size());
+    for (InsuredPerson insuredPerson : policyModificationRequest.getInsuredPersons()) {
+      insuredPersons.add(insuredPerson.toBuilder().build());
+    }
+    return policyModificationRequest.toBuilder().insuredPersons(insuredPersons).build();
+  }
+}
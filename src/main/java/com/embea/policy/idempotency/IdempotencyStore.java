@@ -0,0 +1,172 @@
+package com.embea.policy.idempotency;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.exception.IdempotencyKeyReusedException;
+import com.embea.policy.exception.ServiceBusyException;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+/**
+ * Bounded store of idempotency keys and the responses of the requests that carried them. A retry
+ * with a known key gets the stored response instead of running the operation again, and a duplicate
+ * arriving while the first execution is still running waits for its outcome. Failed executions are
+ * not stored, so they can be retried. Keys expire after the configured time to live, and the oldest
+ * finished entries are evicted once the configured size is exceeded.
+ *
+ * <p>Requests are matched by the SHA-256 digest of their JSON, so a retry has to send an equal
+ * request and a different request sent with the same key is rejected.
+ */
+@Service
+@Log4j2
+public class IdempotencyStore {
+
+  private final PolicyProperties policyProperties;
+  private final PolicyMetrics policyMetrics;
+  private final ObjectMapper objectMapper;
+  private final LinkedHashMap<StoreKey, StoreEntry> entries = new LinkedHashMap<>();
+
+  public IdempotencyStore(
+      PolicyProperties policyProperties, PolicyMetrics policyMetrics, ObjectMapper objectMapper) {
+    this.policyProperties = policyProperties;
+    this.policyMetrics = policyMetrics;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Run an operation once per idempotency key. The operation should commit before it returns, so
+   * that only committed responses are replayed.
+   *
+   * @param operation Policy operation, one of the operation constants of {@link PolicyMetrics}
+   * @param idempotencyKey Key sent by the client, or null to always run the operation
+   * @param request Request of the operation, a retry must send an equal one
+   * @param action Runs the operation
+   * @param <T> Type of the response
+   * @return Response of the operation, stored or fresh
+   * @throws IdempotencyKeyReusedException If the key was sent with a different request
+   * @throws ServiceBusyException If the first execution does not finish within the wait timeout
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T execute(
+      String operation, String idempotencyKey, Object request, Supplier<T> action) {
+    PolicyProperties.Idempotency idempotency = policyProperties.getIdempotency();
+    if (idempotencyKey == null || !idempotency.isEnabled()) {
+      return action.get();
+    }
+    StoreKey key = new StoreKey(operation, idempotencyKey);
+    // Digested before the operation runs, as it may fill in ids on the request
+    StoreEntry entry =
+        new StoreEntry(digest(request), new CompletableFuture<>(), System.nanoTime());
+    StoreEntry existing;
+    synchronized (this) {
+      removeExpiredAndEldest(entry.getCreatedNanos());
+      existing = entries.putIfAbsent(key, entry);
+    }
+    if (existing != null) {
+      if (!Arrays.equals(existing.getRequestDigest(), entry.getRequestDigest())) {
+        throw new IdempotencyKeyReusedException(
+            String.format(
+                "Idempotency key [%s] was already used with a different %s request",
+                idempotencyKey, operation));
+      }
+      log.info("Replaying {} response for idempotency key [{}]", operation, idempotencyKey);
+      policyMetrics.recordIdempotentReplay(operation);
+      return (T) await(existing, idempotencyKey, idempotency.getWaitTimeout().toNanos());
+    }
+    try {
+      T response = action.get();
+      entry.getResponse().complete(response);
+      return response;
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        entries.remove(key);
+      }
+      entry.getResponse().completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Number of idempotency keys currently stored, including those still executing.
+   *
+   * @return Stored keys
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private byte[] digest(Object request) {
+    try {
+      return MessageDigest.getInstance("SHA-256")
+          .digest(
+              objectMapper
+                  .writer()
+                  .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                  .writeValueAsBytes(request));
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Failed to digest idempotent request", e);
+    }
+  }
+
+  private Object await(StoreEntry entry, String idempotencyKey, long waitTimeoutNanos) {
+    try {
+      return entry.getResponse().get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (TimeoutException e) {
+      throw new ServiceBusyException(
+          String.format("Request with idempotency key [%s] is still running", idempotencyKey));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceBusyException(
+          String.format("Interrupted waiting for idempotency key [%s]", idempotencyKey));
+    }
+  }
+
+  /** Remove finished entries, oldest first, while they are expired or the store is over size. */
+  private void removeExpiredAndEldest(long nowNanos) {
+    PolicyProperties.Idempotency idempotency = policyProperties.getIdempotency();
+    long timeToLiveNanos = idempotency.getTimeToLive().toNanos();
+    Iterator<StoreEntry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      StoreEntry entry = iterator.next();
+      boolean expired = nowNanos - entry.getCreatedNanos() > timeToLiveNanos;
+      if (!expired && entries.size() < idempotency.getMaxEntries()) {
+        return;
+      }
+      if (entry.getResponse().isDone()) {
+        iterator.remove();
+      }
+    }
+  }
+
+  @Value
+  private static class StoreKey {
+    String operation;
+    String idempotencyKey;
+  }
+
+  @Value
+  private static class StoreEntry {
+    byte[] requestDigest;
+    CompletableFuture<Object> response;
+    long createdNanos;
+  }
+}
@@ -0,0 +1,319 @@
+package com.embea.policy.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Append-only log of {@link PolicyEvent}s in fixed size, memory-mapped segment files. Appends only
+ * copy the encoded event into the mapping, durability is requested separately with {@link
+ * #awaitDurable(long)}, where one caller forces the pages of everything appended so far on behalf
+ * of all callers waiting behind it.
+ *
+ * <p>Positions are byte offsets over the whole journal, segment files are named after the position
+ * they start at. Every entry is its payload length and CRC32 followed by the payload, a zero length
+ * or a segment too short for the next entry continues at the next segment. On open the end of the
+ * journal is found by scanning the last segment up to its first invalid entry, so a torn write at
+ * the tail is overwritten by the next append.
+ *
+ * <p>Segments whose entries are no longer needed are released with {@link #releaseBefore(long,
+ * boolean)}, which drops their mappings and optionally deletes their files. The journal then starts
+ * at its oldest remaining segment.
+ */
+@Log4j2
+public class MappedJournal implements Closeable {
+
+  private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+  private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d{20})\\.journal");
+
+  private final Path directory;
+  private final int segmentSize;
+  private final Map<Long, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+  private final Object forceLock = new Object();
+  private volatile long startPosition;
+  private volatile long endPosition;
+  private volatile long durablePosition;
+
+  /**
+   * Open the journal in the directory, creating it if needed, and find its end.
+   *
+   * @param directory Directory holding the segment files
+   * @param segmentSize Size of one segment file
+   * @throws IOException If the directory or a segment cannot be read
+   */
+  public MappedJournal(Path directory, int segmentSize) throws IOException {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    Files.createDirectories(directory);
+    long firstSegment = Long.MAX_VALUE;
+    long lastSegment = -1;
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        if (matcher.matches()) {
+          long startPosition = Long.parseLong(matcher.group(1));
+          if (startPosition % segmentSize != 0) {
+            throw new IllegalStateException(
+                String.format(
+                    "Journal segment %s does not match segment size %d", file, segmentSize));
+          }
+          firstSegment = Math.min(firstSegment, startPosition / segmentSize);
+          lastSegment = Math.max(lastSegment, startPosition / segmentSize);
+        }
+      }
+    }
+    this.startPosition = lastSegment < 0 ? 0 : firstSegment * segmentSize;
+    this.endPosition = lastSegment < 0 ? 0 : scanSegment(lastSegment);
+    this.durablePosition = endPosition;
+    log.info(
+        "Opened policy journal [{}] from position [{}] to [{}]",
+        directory,
+        startPosition,
+        endPosition);
+  }
+
+  /**
+   * Start of the oldest segment not deleted, entries before it can no longer be read.
+   *
+   * @return Start position of the journal
+   */
+  public long getStartPosition() {
+    return startPosition;
+  }
+
+  /**
+   * Position after the last appended entry.
+   *
+   * @return End position of the journal
+   */
+  public long getEndPosition() {
+    return endPosition;
+  }
+
+  /**
+   * Position up to which appended entries are forced to storage.
+   *
+   * @return Durable position of the journal
+   */
+  public long getDurablePosition() {
+    return durablePosition;
+  }
+
+  /**
+   * Append events in order. They are readable once durable.
+   *
+   * @param events Events to append
+   * @return End position of each appended event
+   */
+  public synchronized long[] append(List<PolicyEvent> events) {
+    long[] eventEndPositions = new long[events.size()];
+    long position = endPosition;
+    for (int i = 0; i < events.size(); i++) {
+      PolicyEvent event = events.get(i);
+      int length = event.encodedSize();
+      if (HEADER_SIZE + length > segmentSize) {
+        throw new IllegalArgumentException(
+            String.format("Policy event of %d bytes exceeds journal segment size", length));
+      }
+      int offset = offset(position);
+      if (offset + HEADER_SIZE + length > segmentSize) {
+        if (offset + Integer.BYTES <= segmentSize) {
+          segment(segmentIndex(position)).putInt(offset, 0);
+        }
+        position = (segmentIndex(position) + 1) * segmentSize;
+        offset = 0;
+      }
+      MappedByteBuffer segment = segment(segmentIndex(position));
+      ByteBuffer payload = segment.duplicate();
+      payload.position(offset + HEADER_SIZE);
+      event.writeTo(payload);
+      payload.flip().position(offset + HEADER_SIZE);
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      segment.putInt(offset, length);
+      segment.putInt(offset + Integer.BYTES, (int) crc.getValue());
+      position += HEADER_SIZE + length;
+      eventEndPositions[i] = position;
+    }
+    endPosition = position;
+    return eventEndPositions;
+  }
+
+  /**
+   * Wait until the journal is durable up to the position. If no other caller is forcing, this
+   * caller forces everything appended so far, otherwise it waits for the running force and checks
+   * again, so concurrent appenders share one force.
+   *
+   * @param position Position which has to be durable
+   */
+  public void awaitDurable(long position) {
+    if (durablePosition >= position) {
+      return;
+    }
+    synchronized (forceLock) {
+      if (durablePosition >= position) {
+        return;
+      }
+      long target = endPosition;
+      for (long index = segmentIndex(durablePosition); index <= segmentIndex(target - 1); index++) {
+        segment(index).force();
+      }
+      durablePosition = target;
+    }
+  }
+
+  /**
+   * Read durable events from a position on. Entries of deleted segments are skipped.
+   *
+   * @param fromPosition Position of the first entry to read, the start or end of an entry
+   * @param maxEvents Maximum number of events to read
+   * @return Read records in journal order, empty if there are no durable events after the position
+   */
+  public List<JournalRecord> read(long fromPosition, int maxEvents) {
+    List<JournalRecord> records = new ArrayList<>();
+    long limit = durablePosition;
+    long position = Math.max(fromPosition, startPosition);
+    while (position < limit && records.size() < maxEvents) {
+      MappedByteBuffer segment = segment(segmentIndex(position));
+      int offset = offset(position);
+      int length = offset + HEADER_SIZE <= segmentSize ? segment.getInt(offset) : 0;
+      if (length == 0) {
+        position = (segmentIndex(position) + 1) * segmentSize;
+        continue;
+      }
+      ByteBuffer payload = payload(segment, offset, length);
+      if (payload == null) {
+        throw new IllegalStateException(
+            String.format("Corrupt journal entry at position %d", position));
+      }
+      long nextPosition = position + HEADER_SIZE + length;
+      records.add(new JournalRecord(position, nextPosition, PolicyEvent.readFrom(payload)));
+      position = nextPosition;
+    }
+    return records;
+  }
+
+  /**
+   * Release the segments wholly before a position, their entries are no longer needed. The segment
+   * of the last entry is always kept, so the end of the journal is still found on open. Released
+   * segments are unmapped once no reader holds them anymore; kept files are mapped again when read.
+   *
+   * @param position Position before which entries are no longer needed
+   * @param delete Whether the segment files are deleted as well
+   */
+  public synchronized void releaseBefore(long position, boolean delete) {
+    long endIndex = Math.min(segmentIndex(position), segmentIndex(Math.max(endPosition - 1, 0)));
+    if (!delete) {
+      segments.keySet().removeIf(index -> index < endIndex);
+      return;
+    }
+    long deleted = 0;
+    for (long index = segmentIndex(startPosition); index < endIndex; index++) {
+      // Moved first, so concurrent reads no longer map the segment again
+      startPosition = (index + 1) * segmentSize;
+      segments.remove(index);
+      try {
+        Files.deleteIfExists(segmentFile(index));
+        deleted++;
+      } catch (IOException e) {
+        log.warn("Failed to delete policy journal segment [{}]", segmentFile(index), e);
+      }
+    }
+    if (deleted > 0) {
+      log.info(
+          "Deleted [{}] policy journal segments, journal starts at position [{}]",
+          deleted,
+          startPosition);
+    }
+  }
+
+  /** Force everything appended and release the segments. */
+  @Override
+  public void close() {
+    awaitDurable(endPosition);
+    segments.clear();
+  }
+
+  private long scanSegment(long index) {
+    MappedByteBuffer segment = segment(index);
+    int offset = 0;
+    while (offset + HEADER_SIZE <= segmentSize) {
+      int length = segment.getInt(offset);
+      if (length <= 0 || payload(segment, offset, length) == null) {
+        break;
+      }
+      offset += HEADER_SIZE + length;
+    }
+    return index * segmentSize + offset;
+  }
+
+  /** Payload of the entry at the offset, or null if the entry is torn or does not fit. */
+  private ByteBuffer payload(MappedByteBuffer segment, int offset, int length) {
+    if (length > segmentSize - offset - HEADER_SIZE) {
+      return null;
+    }
+    ByteBuffer payload = segment.duplicate();
+    payload.limit(offset + HEADER_SIZE + length).position(offset + HEADER_SIZE);
+    CRC32 crc = new CRC32();
+    crc.update(payload.duplicate());
+    return (int) crc.getValue() == segment.getInt(offset + Integer.BYTES) ? payload : null;
+  }
+
+  private MappedByteBuffer segment(long index) {
+    if (index < segmentIndex(startPosition)) {
+      throw new IllegalStateException(
+          String.format("Journal segment at position %d is deleted", index * segmentSize));
+    }
+    return segments.computeIfAbsent(index, this::mapSegment);
+  }
+
+  private MappedByteBuffer mapSegment(long index) {
+    Path file = segmentFile(index);
+    try (FileChannel channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      long size = channel.size();
+      if (size != 0 && size != segmentSize) {
+        throw new IllegalStateException(
+            String.format("Journal segment %s has size %d, expected %d", file, size, segmentSize));
+      }
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Path segmentFile(long index) {
+    return directory.resolve(String.format("%020d.journal", index * segmentSize));
+  }
+
+  private long segmentIndex(long position) {
+    return position / segmentSize;
+  }
+
+  private int offset(long position) {
+    return (int) (position % segmentSize);
+  }
+
+  /** Event read from the journal together with its position. */
+  @Value
+  public static class JournalRecord {
+    long position;
+    long nextPosition;
+    PolicyEvent event;
+  }
+}
@@ -0,0 +1,118 @@
+package com.embea.policy.journal;
+
+import com.embea.policy.utils.PolicyIdUtils;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Change of a policy as recorded in the journal. Person events carry the person id, additions also
+ * the premium, all events the date they take effect on. An abort marks the events of a transaction
+ * which were appended before its commit failed, by the range of positions they were appended at.
+ */
+@Value
+@Builder
+public class PolicyEvent {
+
+  Type type;
+  String policyId;
+  Long personId;
+  BigDecimal premium;
+  Date date;
+  Long abortedFrom;
+  Long abortedTo;
+
+  /** Kind of policy change, with the code it is stored under. */
+  public enum Type {
+    POLICY_CREATED(1),
+    PERSON_ADDED(2),
+    PERSON_REMOVED(3),
+    TRANSACTION_ABORTED(4);
+
+    private final byte code;
+
+    Type(int code) {
+      this.code = (byte) code;
+    }
+
+    private static Type of(byte code) {
+      for (Type type : values()) {
+        if (type.code == code) {
+          return type;
+        }
+      }
+      throw new IllegalArgumentException("Unknown policy event type " + code);
+    }
+  }
+
+  /**
+   * Number of bytes {@link #writeTo(ByteBuffer)} writes.
+   *
+   * @return Encoded size of this event
+   */
+  public int encodedSize() {
+    int size = Byte.BYTES + Long.BYTES + PolicyIdUtils.POLICY_ID_BYTES;
+    if (type == Type.PERSON_ADDED || type == Type.PERSON_REMOVED) {
+      size += Long.BYTES;
+    }
+    if (type == Type.PERSON_ADDED) {
+      size += Integer.BYTES + Long.BYTES;
+    }
+    if (type == Type.TRANSACTION_ABORTED) {
+      size += Long.BYTES + Long.BYTES;
+    }
+    return size;
+  }
+
+  /**
+   * Write this event at the position of the buffer, advancing it.
+   *
+   * @param buffer Buffer with at least {@link #encodedSize()} bytes remaining
+   */
+  public void writeTo(ByteBuffer buffer) {
+    buffer.put(type.code);
+    buffer.putLong(date.getTime());
+    buffer.put(PolicyIdUtils.toBytes(policyId));
+    if (type == Type.PERSON_ADDED || type == Type.PERSON_REMOVED) {
+      buffer.putLong(personId);
+    }
+    if (type == Type.PERSON_ADDED) {
+      buffer.putInt(premium.scale());
+      buffer.putLong(premium.unscaledValue().longValueExact());
+    }
+    if (type == Type.TRANSACTION_ABORTED) {
+      buffer.putLong(abortedFrom);
+      buffer.putLong(abortedTo);
+    }
+  }
+
+  /**
+   * Read an event written by {@link #writeTo(ByteBuffer)} at the position of the buffer, advancing
+   * it.
+   *
+   * @param buffer Buffer positioned at an encoded event
+   * @return Decoded event
+   */
+  public static PolicyEvent readFrom(ByteBuffer buffer) {
+    PolicyEventBuilder builder = PolicyEvent.builder();
+    Type type = Type.of(buffer.get());
+    builder.type(type).date(new Date(buffer.getLong()));
+    byte[] policyIdBytes = new byte[PolicyIdUtils.POLICY_ID_BYTES];
+    buffer.get(policyIdBytes);
+    builder.policyId(PolicyIdUtils.fromBytes(policyIdBytes));
+    if (type == Type.PERSON_ADDED || type == Type.PERSON_REMOVED) {
+      builder.personId(buffer.getLong());
+    }
+    if (type == Type.PERSON_ADDED) {
+      int scale = buffer.getInt();
+      builder.premium(new BigDecimal(BigInteger.valueOf(buffer.getLong()), scale));
+    }
+    if (type == Type.TRANSACTION_ABORTED) {
+      builder.abortedFrom(buffer.getLong()).abortedTo(buffer.getLong());
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,515 @@
+package com.embea.policy.journal;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.dto.PolicyJournalCheckpoint;
+import com.embea.policy.dto.PolicyJournalCommit;
+import com.embea.policy.dto.PolicyMapping;
+import com.embea.policy.exception.ServiceBusyException;
+import com.embea.policy.journal.MappedJournal.JournalRecord;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.repository.PolicyJournalCheckpointRepo;
+import com.embea.policy.repository.PolicyJournalCommitRepo;
+import com.embea.policy.repository.PolicyMappingRepo;
+import com.embea.policy.utils.BatchUtils;
+import com.embea.policy.utils.Constants;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Optional write path for policy mappings through an append-only {@link MappedJournal}. Instead of
+ * inserting mappings and updating removal dates in place, the events of a transaction are appended
+ * right before it commits and made durable with group commit, so a journal failure rolls the
+ * transaction back. Their position range is then inserted into {@link PolicyJournalCommitRepo} in
+ * the same transaction, which marks them as committed. A single applier thread then writes them to
+ * {@link PolicyMappingRepo} in batches, each batch in one transaction together with the journal
+ * checkpoint, so every event is applied exactly once.
+ *
+ * <p>The applier does not pass the events of a transaction until it completes. If its commit fails
+ * after the events are appended, an abort is appended for them and they are skipped.
+ *
+ * <p>Reads of policy mappings first wait until the pending events of their policy are applied. On
+ * startup the journal is replayed from the checkpoint, which is the recovery after a crash between
+ * appending and applying. Replayed events without a commit range belong to a transaction which did
+ * not commit before the crash and are skipped. Segments before the checkpoint are released after
+ * each batch and deleted unless they are retained.
+ */
+@Service
+@Log4j2
+public class PolicyJournal {
+
+  /** Delay before a batch which failed to apply is retried. */
+  private static final long RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final PolicyProperties policyProperties;
+  private final PolicyMappingRepo policyMappingRepo;
+  private final PolicyJournalCheckpointRepo policyJournalCheckpointRepo;
+  private final PolicyJournalCommitRepo policyJournalCommitRepo;
+  private final TransactionTemplate transactionTemplate;
+  /** End position of the last appended event of each policy with events not yet applied. */
+  private final Map<String, Long> pendingPositions = new ConcurrentHashMap<>();
+  /** Start positions of the events of transactions appended but not yet completed. */
+  private final NavigableSet<Long> inFlightPositions = new TreeSet<>();
+  /**
+   * Position ranges of events whose transaction was aborted or not committed, by start position.
+   */
+  private final NavigableMap<Long, Long> abortedPositions = new ConcurrentSkipListMap<>();
+
+  private final Object appendLock = new Object();
+  private final Object appliedLock = new Object();
+  private MappedJournal mappedJournal;
+  private Thread applier;
+  private volatile long appliedPosition;
+  private volatile boolean running;
+
+  public PolicyJournal(
+      PolicyProperties policyProperties,
+      PolicyMappingRepo policyMappingRepo,
+      PolicyJournalCheckpointRepo policyJournalCheckpointRepo,
+      PolicyJournalCommitRepo policyJournalCommitRepo,
+      PlatformTransactionManager transactionManager) {
+    this.policyProperties = policyProperties;
+    this.policyMappingRepo = policyMappingRepo;
+    this.policyJournalCheckpointRepo = policyJournalCheckpointRepo;
+    this.policyJournalCommitRepo = policyJournalCommitRepo;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Whether policy mapping changes go through the journal.
+   *
+   * @return True if the journal is enabled
+   */
+  public boolean isEnabled() {
+    return policyProperties.getJournal().isEnabled();
+  }
+
+  /**
+   * Open the journal and replay the events after the checkpoint, then keep applying new events.
+   *
+   * @throws IOException If the journal cannot be opened
+   */
+  @PostConstruct
+  public void start() throws IOException {
+    if (!isEnabled()) {
+      return;
+    }
+    PolicyProperties.Journal journal = policyProperties.getJournal();
+    mappedJournal =
+        new MappedJournal(
+            Paths.get(journal.getDirectory()), (int) journal.getSegmentSize().toBytes());
+    appliedPosition =
+        policyJournalCheckpointRepo
+            .findById(PolicyJournalCheckpoint.CHECKPOINT_ID)
+            .map(PolicyJournalCheckpoint::getAppliedPosition)
+            .orElse(0L);
+    if (appliedPosition > mappedJournal.getEndPosition()) {
+      throw new IllegalStateException(
+          String.format(
+              "Policy journal ends at position %d before its checkpoint %d",
+              mappedJournal.getEndPosition(), appliedPosition));
+    }
+    NavigableMap<Long, Long> committedPositions = new TreeMap<>();
+    for (PolicyJournalCommit policyJournalCommit :
+        policyJournalCommitRepo.findByToPositionGreaterThan(appliedPosition)) {
+      committedPositions.put(
+          policyJournalCommit.getFromPosition(), policyJournalCommit.getToPosition());
+    }
+    // Reads of policies with events after the checkpoint wait for them like for new events
+    List<JournalRecord> unapplied = mappedJournal.read(appliedPosition, Integer.MAX_VALUE);
+    int uncommitted = 0;
+    for (JournalRecord record : unapplied) {
+      PolicyEvent event = record.getEvent();
+      pendingPositions.put(event.getPolicyId(), record.getNextPosition());
+      if (event.getType() == PolicyEvent.Type.TRANSACTION_ABORTED) {
+        abortedPositions.put(event.getAbortedFrom(), event.getAbortedTo());
+      } else if (!isWithin(committedPositions, record.getPosition())) {
+        // Durable before a crash, but the transaction of the event never committed
+        abortedPositions.put(record.getPosition(), record.getNextPosition());
+        uncommitted++;
+      }
+    }
+    log.info(
+        "Replaying [{}] policy journal events from position [{}], skipping [{}] not committed",
+        unapplied.size(),
+        appliedPosition,
+        uncommitted);
+    running = true;
+    applier = new Thread(this::applyLoop, "policy-journal-applier");
+    applier.setDaemon(true);
+    applier.start();
+  }
+
+  /** Stop applying, events not applied yet are replayed on the next start. */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    if (applier == null) {
+      return;
+    }
+    running = false;
+    LockSupport.unpark(applier);
+    applier.join(policyProperties.getJournal().getApplyTimeout().toMillis());
+    mappedJournal.close();
+  }
+
+  /**
+   * Record a newly created policy when the current transaction commits.
+   *
+   * @param policyId Policy Id
+   * @param startDate Start date of the policy
+   */
+  public void policyCreated(String policyId, Date startDate) {
+    record(
+        List.of(
+            PolicyEvent.builder()
+                .type(PolicyEvent.Type.POLICY_CREATED)
+                .policyId(policyId)
+                .date(startDate)
+                .build()));
+  }
+
+  /**
+   * Record persons added to a policy when the current transaction commits.
+   *
+   * @param policyId Policy Id
+   * @param insuredPersons Added persons with their person ids populated
+   * @param additionDate Date from which the persons are insured
+   */
+  public void personsAdded(String policyId, List<InsuredPerson> insuredPersons, Date additionDate) {
+    List<PolicyEvent> events = new ArrayList<>(insuredPersons.size());
+    for (InsuredPerson insuredPerson : insuredPersons) {
+      events.add(
+          PolicyEvent.builder()
+              .type(PolicyEvent.Type.PERSON_ADDED)
+              .policyId(policyId)
+              .personId(insuredPerson.getId())
+              .premium(insuredPerson.getPremium())
+              .date(additionDate)
+              .build());
+    }
+    record(events);
+  }
+
+  /**
+   * Record persons removed from a policy when the current transaction commits.
+   *
+   * @param policyId Policy Id
+   * @param personIds Ids of removed persons
+   * @param removalDate Date from which the persons are no longer insured
+   */
+  public void personsRemoved(String policyId, List<Long> personIds, Date removalDate) {
+    List<PolicyEvent> events = new ArrayList<>(personIds.size());
+    for (Long personId : personIds) {
+      events.add(
+          PolicyEvent.builder()
+              .type(PolicyEvent.Type.PERSON_REMOVED)
+              .policyId(policyId)
+              .personId(personId)
+              .date(removalDate)
+              .build());
+    }
+    record(events);
+  }
+
+  /**
+   * Wait until all journaled events of a policy are applied to the database. Returns at once if the
+   * journal is disabled or the policy has no pending events.
+   *
+   * @param policyId Policy Id
+   */
+  public void awaitApplied(String policyId) {
+    Long pendingPosition = pendingPositions.get(policyId);
+    if (pendingPosition != null) {
+      awaitAppliedPosition(pendingPosition);
+    }
+  }
+
+  /**
+   * Wait until all journaled events of the policies are applied to the database.
+   *
+   * @param policyIds Policy Ids
+   */
+  public void awaitApplied(Collection<String> policyIds) {
+    if (pendingPositions.isEmpty()) {
+      return;
+    }
+    long pendingPosition = 0;
+    for (String policyId : policyIds) {
+      pendingPosition = Math.max(pendingPosition, pendingPositions.getOrDefault(policyId, 0L));
+    }
+    awaitAppliedPosition(pendingPosition);
+  }
+
+  /**
+   * Read journaled events from a position on, for audit or inspection. Events of deleted segments
+   * are skipped.
+   *
+   * @param fromPosition Position of the first event, zero for the start of the journal
+   * @param maxEvents Maximum number of events to read
+   * @return Durable events with their positions, in journal order
+   */
+  public List<JournalRecord> read(long fromPosition, int maxEvents) {
+    return mappedJournal.read(fromPosition, maxEvents);
+  }
+
+  private void record(List<PolicyEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      // Without a transaction to join the events are committed in one of their own
+      long[] appendedPositions = append(events, true);
+      int status = TransactionSynchronization.STATUS_ROLLED_BACK;
+      try {
+        mappedJournal.awaitDurable(appendedPositions[1]);
+        transactionTemplate.executeWithoutResult(
+            transactionStatus ->
+                policyJournalCommitRepo.insertCommit(appendedPositions[0], appendedPositions[1]));
+        status = TransactionSynchronization.STATUS_COMMITTED;
+      } finally {
+        completed(events, appendedPositions, status);
+      }
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    List<PolicyEvent> transactionEvents =
+        (List<PolicyEvent>) TransactionSynchronizationManager.getResource(this);
+    if (transactionEvents == null) {
+      List<PolicyEvent> newTransactionEvents = new ArrayList<>();
+      TransactionSynchronizationManager.bindResource(this, newTransactionEvents);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            private long[] appendedPositions;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+              appendedPositions = append(newTransactionEvents, true);
+              mappedJournal.awaitDurable(appendedPositions[1]);
+              policyJournalCommitRepo.insertCommit(appendedPositions[0], appendedPositions[1]);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(PolicyJournal.this);
+              if (appendedPositions != null) {
+                completed(newTransactionEvents, appendedPositions, status);
+              }
+            }
+          });
+      transactionEvents = newTransactionEvents;
+    }
+    transactionEvents.addAll(events);
+  }
+
+  /**
+   * Append events, they are readable once durable.
+   *
+   * @param events Events to append
+   * @param inFlight Whether the applier has to wait for the completion of the transaction
+   * @return Start position of the first and end position of the last event
+   */
+  private long[] append(List<PolicyEvent> events, boolean inFlight) {
+    long from;
+    long[] eventEndPositions;
+    synchronized (appendLock) {
+      from = mappedJournal.getEndPosition();
+      eventEndPositions = mappedJournal.append(events);
+      if (inFlight) {
+        inFlightPositions.add(from);
+      }
+    }
+    for (int i = 0; i < events.size(); i++) {
+      pendingPositions.merge(events.get(i).getPolicyId(), eventEndPositions[i], Math::max);
+    }
+    return new long[] {from, eventEndPositions[eventEndPositions.length - 1]};
+  }
+
+  /** Let the applier pass the events of a completed transaction, skipping them if it aborted. */
+  private void completed(List<PolicyEvent> events, long[] appendedPositions, int status) {
+    long from = appendedPositions[0];
+    long to = appendedPositions[1];
+    if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+      abortedPositions.put(from, to);
+      try {
+        long[] abortPositions =
+            append(
+                List.of(
+                    PolicyEvent.builder()
+                        .type(PolicyEvent.Type.TRANSACTION_ABORTED)
+                        .policyId(events.get(0).getPolicyId())
+                        .date(new Date())
+                        .abortedFrom(from)
+                        .abortedTo(to)
+                        .build()),
+                false);
+        mappedJournal.awaitDurable(abortPositions[1]);
+      } catch (RuntimeException e) {
+        log.error("Failed to journal abort of policy events from position [{}]", from, e);
+      }
+    }
+    synchronized (appendLock) {
+      inFlightPositions.remove(from);
+    }
+    LockSupport.unpark(applier);
+  }
+
+  /** Position up to which events belong to completed transactions only. */
+  private long completedPosition() {
+    synchronized (appendLock) {
+      return inFlightPositions.isEmpty()
+          ? mappedJournal.getEndPosition()
+          : inFlightPositions.first();
+    }
+  }
+
+  private void awaitAppliedPosition(long position) {
+    long deadline = System.nanoTime() + policyProperties.getJournal().getApplyTimeout().toNanos();
+    synchronized (appliedLock) {
+      while (appliedPosition < position) {
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+          throw new ServiceBusyException(
+              String.format(
+                  "Policy journal not applied up to position %d within timeout, applied up to %d",
+                  position, appliedPosition));
+        }
+        try {
+          TimeUnit.NANOSECONDS.timedWait(appliedLock, remainingNanos);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new ServiceBusyException("Interrupted while waiting for policy journal");
+        }
+      }
+    }
+  }
+
+  private void applyLoop() {
+    PolicyProperties.Journal journal = policyProperties.getJournal();
+    while (running) {
+      try {
+        long completedPosition = completedPosition();
+        List<JournalRecord> records = new ArrayList<>();
+        for (JournalRecord record :
+            mappedJournal.read(appliedPosition, journal.getApplyBatchSize())) {
+          if (record.getPosition() >= completedPosition) {
+            break;
+          }
+          records.add(record);
+        }
+        if (records.isEmpty()) {
+          LockSupport.parkNanos(journal.getApplyInterval().toNanos());
+        } else {
+          apply(records);
+        }
+      } catch (RuntimeException e) {
+        log.error("Failed to apply policy journal from position [{}]", appliedPosition, e);
+        LockSupport.parkNanos(RETRY_DELAY_NANOS);
+      }
+    }
+  }
+
+  private void apply(List<JournalRecord> records) {
+    long nextPosition = records.get(records.size() - 1).getNextPosition();
+    List<JournalRecord> committedRecords = new ArrayList<>(records.size());
+    for (JournalRecord record : records) {
+      if (!isAborted(record.getPosition())) {
+        committedRecords.add(record);
+      }
+    }
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          // Runs are applied in journal order, a removal may close a mapping added before it
+          int next = 0;
+          while (next < committedRecords.size()) {
+            PolicyEvent.Type type = committedRecords.get(next).getEvent().getType();
+            if (type == PolicyEvent.Type.PERSON_ADDED) {
+              next = applyAdditions(committedRecords, next);
+            } else if (type == PolicyEvent.Type.PERSON_REMOVED) {
+              next = applyRemovals(committedRecords, next);
+            } else {
+              next++;
+            }
+          }
+          policyJournalCheckpointRepo.setAppliedPosition(nextPosition);
+          policyJournalCommitRepo.deleteUpToPosition(nextPosition);
+        });
+    synchronized (appliedLock) {
+      appliedPosition = nextPosition;
+      appliedLock.notifyAll();
+    }
+    for (JournalRecord record : records) {
+      pendingPositions.remove(record.getEvent().getPolicyId(), record.getNextPosition());
+    }
+    abortedPositions.headMap(nextPosition).values().removeIf(to -> to <= nextPosition);
+    mappedJournal.releaseBefore(
+        nextPosition, !policyProperties.getJournal().isRetainAppliedSegments());
+    log.debug("Applied [{}] policy journal events up to [{}]", records.size(), nextPosition);
+  }
+
+  private boolean isAborted(long position) {
+    return isWithin(abortedPositions, position);
+  }
+
+  /** Whether the position lies within one of the position ranges, keyed by start position. */
+  private static boolean isWithin(NavigableMap<Long, Long> positionRanges, long position) {
+    Map.Entry<Long, Long> positionRange = positionRanges.floorEntry(position);
+    return positionRange != null && position < positionRange.getValue();
+  }
+
+  /** Insert the mappings of consecutive additions, returns the index after them. */
+  private int applyAdditions(List<JournalRecord> records, int first) {
+    List<PolicyMapping> policyMappings = new ArrayList<>();
+    int next = first;
+    for (; next < records.size(); next++) {
+      PolicyEvent event = records.get(next).getEvent();
+      if (event.getType() != PolicyEvent.Type.PERSON_ADDED) {
+        break;
+      }
+      policyMappings.add(
+          PolicyMapping.builder()
+              .policyId(event.getPolicyId())
+              .personId(event.getPersonId())
+              .premium(event.getPremium())
+              .additionDate(event.getDate())
+              .build());
+    }
+    policyMappingRepo.saveAll(policyMappings);
+    return next;
+  }
+
+  /**
+   * Close mappings of consecutive removals from one policy on one date, returns the index after.
+   */
+  private int applyRemovals(List<JournalRecord> records, int first) {
+    PolicyEvent firstEvent = records.get(first).getEvent();
+    List<Long> personIds = new ArrayList<>();
+    int next = first;
+    for (; next < records.size(); next++) {
+      PolicyEvent event = records.get(next).getEvent();
+      if (event.getType() != PolicyEvent.Type.PERSON_REMOVED
+          || !event.getPolicyId().equals(firstEvent.getPolicyId())
+          || !event.getDate().equals(firstEvent.getDate())) {
+        break;
+      }
+      personIds.add(event.getPersonId());
+    }
+    for (List<Long> personIdChunk :
+        BatchUtils.partition(personIds, Constants.IN_CLAUSE_CHUNK_SIZE)) {
+      policyMappingRepo.setRemovalDateByPolicyIdAndPersonIds(
+          personIdChunk, firstEvent.getPolicyId(), firstEvent.getDate());
+    }
+    return next;
+  }
+}
@@ -0,0 +1,116 @@
+package com.embea.policy.json;
+
+import com.embea.policy.utils.Constants;
+import com.embea.policy.utils.DateUtils;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.DateDeserializers;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.DateSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Jackson module reading and writing the {@code dd.MM.yyyy} dates of the API without {@link
+ * java.text.SimpleDateFormat}. Days are parsed straight from the parser's character buffer and
+ * written from a cache of formatted days, both in UTC like the default codec. Properties with a
+ * different pattern, a time zone or a numeric shape keep Jackson's own date codec.
+ */
+public class PolicyDateModule extends SimpleModule {
+
+  public PolicyDateModule() {
+    super(PolicyDateModule.class.getSimpleName());
+    addSerializer(Date.class, new DaySerializer());
+    addDeserializer(Date.class, new DayDeserializer());
+  }
+
+  private static boolean isDayFormat(JsonFormat.Value format) {
+    return !format.getShape().isNumeric()
+        && !format.hasTimeZone()
+        && !format.hasLocale()
+        && (!format.hasPattern() || Constants.DATE_FORMAT.equals(format.getPattern()));
+  }
+
+  static class DaySerializer extends StdScalarSerializer<Date> implements ContextualSerializer {
+
+    DaySerializer() {
+      super(Date.class);
+    }
+
+    @Override
+    public void serialize(Date value, JsonGenerator generator, SerializerProvider provider)
+        throws IOException {
+      generator.writeString(DateUtils.formatDate(value));
+    }
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+        throws JsonMappingException {
+      JsonFormat.Value format = findFormatOverrides(provider, property, handledType());
+      return isDayFormat(format)
+          ? this
+          : DateSerializer.instance.createContextual(provider, property);
+    }
+  }
+
+  static class DayDeserializer extends StdScalarDeserializer<Date>
+      implements ContextualDeserializer {
+
+    DayDeserializer() {
+      super(Date.class);
+    }
+
+    @Override
+    public Date deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+      if (parser.hasToken(JsonToken.VALUE_STRING)) {
+        int length = parser.getTextLength();
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        if (isBlank(chars, offset, length)) {
+          return null;
+        }
+        try {
+          return DateUtils.fromEpochDay(DateUtils.parseEpochDay(chars, offset, length));
+        } catch (IllegalArgumentException e) {
+          return (Date)
+              context.handleWeirdStringValue(
+                  Date.class, parser.getText(), "expected format \"%s\"", Constants.DATE_FORMAT);
+        }
+      }
+      if (parser.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+        return new Date(parser.getLongValue());
+      }
+      return (Date) context.handleUnexpectedToken(Date.class, parser);
+    }
+
+    @Override
+    public JsonDeserializer<?> createContextual(
+        DeserializationContext context, BeanProperty property) throws JsonMappingException {
+      JsonFormat.Value format = findFormatOverrides(context, property, handledType());
+      return isDayFormat(format)
+          ? this
+          : DateDeserializers.DateDeserializer.instance.createContextual(context, property);
+    }
+
+    private static boolean isBlank(char[] chars, int offset, int length) {
+      for (int position = offset; position < offset + length; position++) {
+        if (!Character.isWhitespace(chars[position])) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.embea.policy.limiter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an operation which holds a database connection for most of its duration. Concurrent calls
+ * of such operations are limited by {@link ConnectionLimiter}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConnectionLimited {}
@@ -0,0 +1,89 @@
+package com.embea.policy.limiter;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.exception.ServiceBusyException;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.writebehind.PolicyWriteBehind;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import lombok.extern.log4j.Log4j2;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits concurrent {@link ConnectionLimited} operations to the size of the connection pool, so
+ * that many in-flight requests, as with virtual threads, queue here in arrival order instead of
+ * piling up on the pool. An operation that does not get a permit within the acquire timeout is
+ * rejected with {@link ServiceBusyException}. Unless configured otherwise it is only enabled in
+ * virtual thread mode. Runs before the transaction is opened, so waiting operations do not hold a
+ * connection. Operations run by the write-behind writer use the connection of its transaction and
+ * are not limited again.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Log4j2
+public class ConnectionLimiter {
+
+  private static final int DEFAULT_POOL_SIZE = 10;
+
+  private final boolean enabled;
+  private final long acquireTimeoutNanos;
+  private final Semaphore permits;
+
+  public ConnectionLimiter(
+      PolicyProperties policyProperties, DataSource dataSource, PolicyMetrics policyMetrics) {
+    PolicyProperties.Limiter limiter = policyProperties.getExecution().getLimiter();
+    int maxConcurrency =
+        limiter.getMaxConcurrency() > 0 ? limiter.getMaxConcurrency() : poolSize(dataSource);
+    if (limiter.getMaxConcurrency() <= 0
+        && (policyProperties.getJournal().isEnabled()
+            || policyProperties.getWriteBehind().isEnabled())) {
+      // Operations may wait for the journal applier or the write-behind writer, which need a
+      // connection of their own
+      maxConcurrency = Math.max(1, maxConcurrency - 1);
+    }
+    this.enabled =
+        limiter.getEnabled() != null
+            ? limiter.getEnabled()
+            : policyProperties.getExecution().getMode() == PolicyProperties.ExecutionMode.VIRTUAL;
+    this.acquireTimeoutNanos = limiter.getAcquireTimeout().toNanos();
+    this.permits = new Semaphore(maxConcurrency, true);
+    if (enabled) {
+      log.info("Limiting database bound operations to [{}] concurrent calls", maxConcurrency);
+      policyMetrics.registerLimiter(permits);
+    }
+  }
+
+  @Around("@annotation(com.embea.policy.limiter.ConnectionLimited)")
+  public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+    if (!enabled || PolicyWriteBehind.isWriting()) {
+      return joinPoint.proceed();
+    }
+    if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+      throw new ServiceBusyException(
+          String.format(
+              "No database permit available for %s, [%d] calls waiting",
+              joinPoint.getSignature().getName(), permits.getQueueLength()));
+    }
+    try {
+      return joinPoint.proceed();
+    } finally {
+      permits.release();
+    }
+  }
+
+  private static int poolSize(DataSource dataSource) {
+    HikariDataSource hikariDataSource =
+        DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class);
+    return hikariDataSource != null ? hikariDataSource.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+  }
+}
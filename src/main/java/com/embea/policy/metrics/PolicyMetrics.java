@@ -0,0 +1,114 @@
+package com.embea.policy.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Business metrics of the policy pipeline. Facade latencies are recorded through {@code @Timed}
+ * under {@link #FACADE_TIMER} and repository latencies by Spring Data repository metrics, so
+ * together with the http server timer database time can be told apart from the rest of a request.
+ */
+@Component
+@AllArgsConstructor
+public class PolicyMetrics {
+
+  public static final String FACADE_TIMER = "policy.facade";
+  public static final String INSURED_PERSONS = "policy.insured.persons";
+  public static final String ERRORS = "policy.errors";
+  public static final String LIMITER_PERMITS = "policy.limiter.permits";
+  public static final String LIMITER_QUEUE = "policy.limiter.queue";
+  public static final String IDEMPOTENT_REPLAYS = "policy.idempotency.replays";
+  public static final String WRITE_BEHIND_QUEUE = "policy.write.behind.queue";
+  public static final String WRITE_BEHIND_BATCH = "policy.write.behind.batch";
+
+  public static final String OPERATION_CREATE = "create";
+  public static final String OPERATION_MODIFY = "modify";
+  public static final String OPERATION_FETCH = "fetch";
+  public static final String OPERATION_BATCH_FETCH = "batch_fetch";
+
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Records the number of insured persons handled for one policy.
+   *
+   * @param operation Policy operation, one of the operation constants
+   * @param insuredPersonCount Number of insured persons of the policy
+   */
+  public void recordInsuredPersons(String operation, int insuredPersonCount) {
+    DistributionSummary.builder(INSURED_PERSONS)
+        .description("Insured persons per policy handled by an operation")
+        .tag("operation", operation)
+        .register(meterRegistry)
+        .record(insuredPersonCount);
+  }
+
+  /**
+   * Counts an error returned to a client, tagged with the type of the exception.
+   *
+   * @param exception Exception which was handled
+   */
+  public void recordError(Exception exception) {
+    Counter.builder(ERRORS)
+        .description("Errors returned to clients by exception type")
+        .tag("exception", exception.getClass().getSimpleName())
+        .register(meterRegistry)
+        .increment();
+  }
+
+  /**
+   * Counts a request answered with the response of an earlier request with the same idempotency
+   * key.
+   *
+   * @param operation Policy operation, one of the operation constants
+   */
+  public void recordIdempotentReplay(String operation) {
+    Counter.builder(IDEMPOTENT_REPLAYS)
+        .description("Requests answered with the stored response of their idempotency key")
+        .tag("operation", operation)
+        .register(meterRegistry)
+        .increment();
+  }
+
+  /**
+   * Exposes available permits and waiting calls of the connection limiter.
+   *
+   * @param permits Semaphore of the connection limiter
+   */
+  public void registerLimiter(Semaphore permits) {
+    Gauge.builder(LIMITER_PERMITS, permits, Semaphore::availablePermits)
+        .description("Available permits for database bound operations")
+        .register(meterRegistry);
+    Gauge.builder(LIMITER_QUEUE, permits, Semaphore::getQueueLength)
+        .description("Database bound operations waiting for a permit")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Exposes the modifications waiting for the write-behind writer.
+   *
+   * @param queue Queue of the write-behind writer
+   */
+  public void registerWriteBehind(BlockingQueue<?> queue) {
+    Gauge.builder(WRITE_BEHIND_QUEUE, queue, BlockingQueue::size)
+        .description("Policy modifications waiting to be written")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Records the number of modifications committed together by the write-behind writer.
+   *
+   * @param batchSize Number of modifications in the committed batch
+   */
+  public void recordWriteBehindBatch(int batchSize) {
+    DistributionSummary.builder(WRITE_BEHIND_BATCH)
+        .description("Policy modifications committed in one write-behind transaction")
+        .register(meterRegistry)
+        .record(batchSize);
+  }
+}
@@ -0,0 +1,31 @@
+package com.embea.policy.model;
+
+import com.embea.policy.utils.Constants;
+import com.embea.policy.utils.PolicyIdUtils;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.util.Date;
+import java.util.List;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PolicyBatchFetchRequest {
+
+  @NotEmpty(message = "Atleast 1 policy Id should be present")
+  @Size(
+      max = Constants.MAX_BATCH_FETCH_SIZE,
+      message = "Atmost " + Constants.MAX_BATCH_FETCH_SIZE + " policy Ids can be fetched at once")
+  private List<
+          @NotBlank(message = "Policy Id is mandatory")
+          @Pattern(regexp = PolicyIdUtils.POLICY_ID_PATTERN, message = "Policy Id is invalid")
+          String>
+      policyIds;
+
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
+  private Date requestDate;
+}
@@ -0,0 +1,20 @@
+package com.embea.policy.model;
+
+import com.embea.policy.utils.Constants;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.util.Date;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PolicyBatchFetchResponse {
+
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
+  private Date requestDate;
+
+  private List<PolicyFetchResponse> policies;
+
+  private List<String> notFoundPolicyIds;
+}
@@ -1,19 +1,19 @@
-package com.embea.policy.model;
-
-import com.embea.policy.utils.Constants;
-import com.fasterxml.jackson.annotation.JsonFormat;
-import java.util.Date;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
-import lombok.experimental.SuperBuilder;
-
-@Data
-@EqualsAndHashCode(callSuper = true)
-@SuperBuilder(toBuilder = true)
-@NoArgsConstructor
-public class PolicyCreationResponse extends PolicyResponse {
-
-  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
-  private Date startDate;
-}
+package com.embea.policy.model;
+
+import com.embea.policy.utils.Constants;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.util.Date;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@SuperBuilder(toBuilder = true)
+@NoArgsConstructor
+public class PolicyCreationResponse extends PolicyResponse {
+
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
+  private Date startDate;
+}
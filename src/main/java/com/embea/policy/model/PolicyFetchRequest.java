@@ -1,19 +1,22 @@
-package com.embea.policy.model;
-
-import com.embea.policy.utils.Constants;
-import com.fasterxml.jackson.annotation.JsonFormat;
-import java.util.Date;
-import javax.validation.constraints.NotBlank;
-import lombok.Builder;
-import lombok.Data;
-
-@Data
-@Builder
-public class PolicyFetchRequest {
-
-  @NotBlank(message = "Policy Id is mandatory")
-  private String policyId;
-
-  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
-  private Date requestDate;
-}
+package com.embea.policy.model;
+
+import com.embea.policy.utils.Constants;
+import com.embea.policy.utils.PolicyIdUtils;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.util.Date;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Pattern;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PolicyFetchRequest {
+
+  @NotBlank(message = "Policy Id is mandatory")
+  @Pattern(regexp = PolicyIdUtils.POLICY_ID_PATTERN, message = "Policy Id is invalid")
+  private String policyId;
+
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
+  private Date requestDate;
+}
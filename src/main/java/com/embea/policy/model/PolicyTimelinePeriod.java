@@ -0,0 +1,30 @@
+package com.embea.policy.model;
+
+import com.embea.policy.utils.Constants;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Days of a policy over which its insured persons, and so its total premium, stay the same. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PolicyTimelinePeriod {
+
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
+  private Date fromDate;
+
+  /** Last day of the period, inclusive. */
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
+  private Date toDate;
+
+  private List<InsuredPerson> insuredPersons;
+
+  private BigDecimal totalPremium;
+}
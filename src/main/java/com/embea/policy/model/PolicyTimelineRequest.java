@@ -0,0 +1,36 @@
+package com.embea.policy.model;
+
+import com.embea.policy.utils.Constants;
+import com.embea.policy.utils.PolicyIdUtils;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.Date;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PolicyTimelineRequest {
+
+  @NotBlank(message = "Policy Id is mandatory")
+  @Pattern(regexp = PolicyIdUtils.POLICY_ID_PATTERN, message = "Policy Id is invalid")
+  private String policyId;
+
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
+  @NotNull(message = "fromDate must not be null")
+  private Date fromDate;
+
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = Constants.DATE_FORMAT)
+  @NotNull(message = "toDate must not be null")
+  private Date toDate;
+
+  @JsonIgnore
+  @AssertTrue(message = "toDate must not be before fromDate")
+  public boolean isDateRangeValid() {
+    return fromDate == null || toDate == null || !toDate.before(fromDate);
+  }
+}
@@ -1,8 +1,8 @@
-package com.embea.policy.repository;
-
-import com.embea.policy.dto.Person;
-import org.springframework.data.repository.CrudRepository;
-import org.springframework.stereotype.Repository;
-
-@Repository
-public interface PersonRepo extends CrudRepository<Person, Long> {}
+package com.embea.policy.repository;
+
+import com.embea.policy.dto.Person;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PersonRepo extends CrudRepository<Person, Long> {}
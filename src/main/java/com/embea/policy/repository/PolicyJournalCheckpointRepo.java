@@ -0,0 +1,19 @@
+package com.embea.policy.repository;
+
+import com.embea.policy.dto.PolicyJournalCheckpoint;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PolicyJournalCheckpointRepo
+    extends CrudRepository<PolicyJournalCheckpoint, Integer> {
+
+  @Modifying
+  @Query(
+      "update PolicyJournalCheckpoint pjc set pjc.appliedPosition = :appliedPosition where pjc.id ="
+          + " "
+          + PolicyJournalCheckpoint.CHECKPOINT_ID)
+  int setAppliedPosition(long appliedPosition);
+}
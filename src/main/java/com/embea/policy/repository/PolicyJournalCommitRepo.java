@@ -0,0 +1,26 @@
+package com.embea.policy.repository;
+
+import com.embea.policy.dto.PolicyJournalCommit;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PolicyJournalCommitRepo extends CrudRepository<PolicyJournalCommit, Long> {
+
+  @Modifying
+  @Query(
+      value =
+          "insert into policy_journal_commit (from_position, to_position)"
+              + " values (:fromPosition, :toPosition)",
+      nativeQuery = true)
+  int insertCommit(long fromPosition, long toPosition);
+
+  List<PolicyJournalCommit> findByToPositionGreaterThan(long position);
+
+  @Modifying
+  @Query("delete from PolicyJournalCommit pjc where pjc.toPosition <= :position")
+  int deleteUpToPosition(long position);
+}
@@ -0,0 +1,17 @@
+package com.embea.policy.repository;
+
+import com.embea.policy.dto.PolicyPremiumChange;
+import java.math.BigDecimal;
+import java.util.Date;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PolicyPremiumChangeRepo extends CrudRepository<PolicyPremiumChange, Long> {
+
+  @Query(
+      "select sum(pc.premiumDelta) from PolicyPremiumChange as pc where pc.policyId = :policyId"
+          + " and pc.changeDate < :beforeDate")
+  BigDecimal sumPremiumDeltasByPolicyIdAndChangeDateBefore(String policyId, Date beforeDate);
+}
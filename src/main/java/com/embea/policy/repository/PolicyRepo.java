@@ -1,15 +1,43 @@
-package com.embea.policy.repository;
-
-import com.embea.policy.dto.Policy;
-import java.util.Date;
-import java.util.Optional;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.CrudRepository;
-import org.springframework.stereotype.Repository;
-
-@Repository
-public interface PolicyRepo extends CrudRepository<Policy, String> {
-
-  @Query("select a from Policy as a where policyId = :policyId and startDate <= :effectiveDate")
-  Optional<Policy> getPolicyByPolicyIdAndEffectiveDateBefore(String policyId, Date effectiveDate);
-}
+package com.embea.policy.repository;
+
+import com.embea.policy.dto.Policy;
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.dto.PolicyMemberInterval;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PolicyRepo extends CrudRepository<Policy, String> {
+
+  @Query("select a from Policy as a where policyId = :policyId and startDate <= :effectiveDate")
+  Optional<Policy> getPolicyByPolicyIdAndEffectiveDateBefore(String policyId, Date effectiveDate);
+
+  @Query(
+      "select new com.embea.policy.dto.PolicyMember(po.policyId, pe.personId, pe.firstName,"
+          + " pe.secondName, pm.premium) from Policy as po left join PolicyMapping as pm on"
+          + " pm.policyId = po.policyId and pm.additionDate <= :requestDate and (pm.removalDate >"
+          + " :requestDate or pm.removalDate is null) left join Person as pe on pe.personId ="
+          + " pm.personId where po.policyId = :policyId and po.startDate <= :requestDate")
+  List<PolicyMember> findPolicyMembersByPolicyIdAndRequestDate(String policyId, Date requestDate);
+
+  @Query(
+      "select new com.embea.policy.dto.PolicyMember(po.policyId, pe.personId, pe.firstName,"
+          + " pe.secondName, pm.premium) from Policy as po left join PolicyMapping as pm on"
+          + " pm.policyId = po.policyId and pm.additionDate <= :requestDate and (pm.removalDate >"
+          + " :requestDate or pm.removalDate is null) left join Person as pe on pe.personId ="
+          + " pm.personId where po.policyId in :policyIds and po.startDate <= :requestDate")
+  List<PolicyMember> findPolicyMembersByPolicyIdsAndRequestDate(
+      Collection<String> policyIds, Date requestDate);
+
+  @Query(
+      "select new com.embea.policy.dto.PolicyMemberInterval(po.policyId, po.startDate, pe.personId,"
+          + " pe.firstName, pe.secondName, pm.premium, pm.additionDate, pm.removalDate) from Policy"
+          + " as po left join PolicyMapping as pm on pm.policyId = po.policyId left join Person as"
+          + " pe on pe.personId = pm.personId where po.policyId = :policyId")
+  List<PolicyMemberInterval> findPolicyMemberIntervalsByPolicyId(String policyId);
+}
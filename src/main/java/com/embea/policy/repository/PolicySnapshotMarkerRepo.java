@@ -0,0 +1,19 @@
+package com.embea.policy.repository;
+
+import com.embea.policy.dto.PolicySnapshotMarker;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface PolicySnapshotMarkerRepo extends CrudRepository<PolicySnapshotMarker, Integer> {
+
+  @Transactional
+  @Modifying
+  @Query(
+      "update PolicySnapshotMarker psm set psm.snapshotId = :snapshotId where psm.id = "
+          + PolicySnapshotMarker.MARKER_ID)
+  int setSnapshotId(Long snapshotId);
+}
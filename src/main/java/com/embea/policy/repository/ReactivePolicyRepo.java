@@ -0,0 +1,257 @@
+package com.embea.policy.repository;
+
+import com.embea.policy.dto.Person;
+import com.embea.policy.dto.Policy;
+import com.embea.policy.dto.PolicyMapping;
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.dto.PolicyPremiumChange;
+import com.embea.policy.utils.BatchUtils;
+import com.embea.policy.utils.Constants;
+import com.embea.policy.utils.DateUtils;
+import com.embea.policy.utils.PolicyIdUtils;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.StringJoiner;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking access to the policy tables for the reactive stack. Runs the same statements as the
+ * JPA repositories. Person, mapping and premium change ids are taken from the same sequences with
+ * the same pooled allocation of 50 ids per sequence value, so ids never collide with ids handed out
+ * by Hibernate.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@AllArgsConstructor
+public class ReactivePolicyRepo {
+
+  private static final int ALLOCATION_SIZE = 50;
+  private static final int INSERT_CHUNK_SIZE = 50;
+
+  private final DatabaseClient databaseClient;
+
+  public Mono<Void> insertPolicy(Policy policy) {
+    return databaseClient
+        .sql("insert into policy (id, start_date) values (:policyId, :startDate)")
+        .bind("policyId", PolicyIdUtils.toBytes(policy.getPolicyId()))
+        .bind("startDate", DateUtils.toUtcDateTime(policy.getStartDate()))
+        .then();
+  }
+
+  public Mono<Policy> getPolicy(String policyId, Date effectiveDate) {
+    return databaseClient
+        .sql(
+            "select id, start_date from policy where id = :policyId and start_date <="
+                + " :effectiveDate")
+        .bind("policyId", PolicyIdUtils.toBytes(policyId))
+        .bind("effectiveDate", DateUtils.toUtcDateTime(effectiveDate))
+        .map(
+            row ->
+                Policy.builder()
+                    .policyId(PolicyIdUtils.fromBytes(row.get("id", byte[].class)))
+                    .startDate(
+                        DateUtils.fromUtcDateTime(row.get("start_date", LocalDateTime.class)))
+                    .build())
+        .one();
+  }
+
+  public Mono<List<Long>> allocatePersonIds(int count) {
+    return allocateIds("person_seq", count);
+  }
+
+  public Mono<List<Long>> allocatePolicyMappingIds(int count) {
+    return allocateIds("policy_mapping_seq", count);
+  }
+
+  public Mono<List<Long>> allocatePolicyPremiumChangeIds(int count) {
+    return allocateIds("policy_premium_change_seq", count);
+  }
+
+  public Mono<Void> insertPersons(List<Person> persons) {
+    return insertRows(
+        "insert into person (id, first_name, second_name) values ",
+        3,
+        persons,
+        (spec, index, person) ->
+            spec.bind(index, person.getPersonId())
+                .bind(index + 1, person.getFirstName())
+                .bind(index + 2, person.getSecondName()));
+  }
+
+  public Mono<Void> insertPolicyMappings(List<PolicyMapping> policyMappings) {
+    return insertRows(
+        "insert into policy_mapping (id, policy_id, person_id, premium, addition_date,"
+            + " removal_date) values ",
+        6,
+        policyMappings,
+        (spec, index, policyMapping) ->
+            spec.bind(index, policyMapping.getId())
+                .bind(index + 1, PolicyIdUtils.toBytes(policyMapping.getPolicyId()))
+                .bind(index + 2, policyMapping.getPersonId())
+                .bind(index + 3, policyMapping.getPremium())
+                .bind(index + 4, DateUtils.toUtcDateTime(policyMapping.getAdditionDate()))
+                .bindNull(index + 5, LocalDateTime.class));
+  }
+
+  public Mono<Void> insertPolicyPremiumChanges(List<PolicyPremiumChange> policyPremiumChanges) {
+    return insertRows(
+        "insert into policy_premium_change (id, policy_id, change_date, premium_delta) values ",
+        4,
+        policyPremiumChanges,
+        (spec, index, policyPremiumChange) ->
+            spec.bind(index, policyPremiumChange.getId())
+                .bind(index + 1, PolicyIdUtils.toBytes(policyPremiumChange.getPolicyId()))
+                .bind(index + 2, DateUtils.toUtcDateTime(policyPremiumChange.getChangeDate()))
+                .bind(index + 3, policyPremiumChange.getPremiumDelta()));
+  }
+
+  /**
+   * Fetch the mappings of a policy active on the effective date, with the columns a modification
+   * needs: person, premium and removal date.
+   *
+   * @param policyId Policy Id
+   * @param effectiveDate Effective date
+   * @return Active policy mappings
+   */
+  public Flux<PolicyMapping> findActivePolicyMappings(String policyId, Date effectiveDate) {
+    return databaseClient
+        .sql(
+            "select person_id, premium, removal_date from policy_mapping where policy_id ="
+                + " :policyId and addition_date <= :effectiveDate and (removal_date >"
+                + " :effectiveDate or removal_date is null)")
+        .bind("policyId", PolicyIdUtils.toBytes(policyId))
+        .bind("effectiveDate", DateUtils.toUtcDateTime(effectiveDate))
+        .map(
+            row ->
+                PolicyMapping.builder()
+                    .policyId(policyId)
+                    .personId(row.get("person_id", Long.class))
+                    .premium(row.get("premium", BigDecimal.class))
+                    .removalDate(
+                        DateUtils.fromUtcDateTime(row.get("removal_date", LocalDateTime.class)))
+                    .build())
+        .all();
+  }
+
+  /**
+   * Set the removal date of mappings still active on the effective date, in chunks of ids.
+   *
+   * @param personIds Person Ids to remove
+   * @param policyId Policy Id
+   * @param effectiveDate Effective date of the removal
+   * @return Number of updated mappings
+   */
+  public Mono<Integer> setRemovalDate(List<Long> personIds, String policyId, Date effectiveDate) {
+    LocalDateTime effectiveDateTime = DateUtils.toUtcDateTime(effectiveDate);
+    return Flux.fromIterable(BatchUtils.partition(personIds, Constants.IN_CLAUSE_CHUNK_SIZE))
+        .concatMap(
+            chunk ->
+                databaseClient
+                    .sql(
+                        "update policy_mapping set removal_date = :effectiveDate where policy_id ="
+                            + " :policyId and person_id in (:personIds) and addition_date <="
+                            + " :effectiveDate and (removal_date > :effectiveDate or removal_date"
+                            + " is null)")
+                    .bind("effectiveDate", effectiveDateTime)
+                    .bind("policyId", PolicyIdUtils.toBytes(policyId))
+                    .bind("personIds", chunk)
+                    .fetch()
+                    .rowsUpdated())
+        .reduce(0, Integer::sum);
+  }
+
+  /**
+   * Fetch policy members as on request date, in the same shape as {@link
+   * PolicyRepo#findPolicyMembersByPolicyIdAndRequestDate(String, Date)}.
+   *
+   * @param policyId Policy Id
+   * @param requestDate Request date
+   * @return Policy members ordered by person id
+   */
+  public Flux<PolicyMember> findPolicyMembers(String policyId, Date requestDate) {
+    return databaseClient
+        .sql(
+            "select po.id as policy_id, pe.id as person_id, pe.first_name, pe.second_name,"
+                + " pm.premium from policy po left join policy_mapping pm on pm.policy_id = po.id"
+                + " and pm.addition_date <= :requestDate and (pm.removal_date > :requestDate or"
+                + " pm.removal_date is null) left join person pe on pe.id = pm.person_id where"
+                + " po.id = :policyId and po.start_date <= :requestDate order by pe.id")
+        .bind("policyId", PolicyIdUtils.toBytes(policyId))
+        .bind("requestDate", DateUtils.toUtcDateTime(requestDate))
+        .map(
+            row ->
+                new PolicyMember(
+                    PolicyIdUtils.fromBytes(row.get("policy_id", byte[].class)),
+                    row.get("person_id", Long.class),
+                    row.get("first_name", String.class),
+                    row.get("second_name", String.class),
+                    row.get("premium", BigDecimal.class)))
+        .all();
+  }
+
+  private Mono<List<Long>> allocateIds(String sequenceName, int count) {
+    if (count == 0) {
+      return Mono.just(List.of());
+    }
+    return databaseClient
+        .sql("select next value for " + sequenceName)
+        .map(row -> row.get(0, Long.class))
+        .one()
+        .flatMapIterable(ReactivePolicyRepo::allocatedIds)
+        .repeat()
+        .take(count)
+        .collectList();
+  }
+
+  /**
+   * Ids of a pooled allocation, where a sequence value is the highest id of its block. Ids below 1
+   * of the first block are skipped.
+   */
+  private static List<Long> allocatedIds(long highestId) {
+    List<Long> ids = new ArrayList<>(ALLOCATION_SIZE);
+    for (long id = Math.max(1, highestId - ALLOCATION_SIZE + 1); id <= highestId; id++) {
+      ids.add(id);
+    }
+    return ids;
+  }
+
+  /**
+   * Insert rows with one multi-row insert per chunk of {@link #INSERT_CHUNK_SIZE} rows, the R2DBC
+   * counterpart of JDBC batching.
+   */
+  private <T> Mono<Void> insertRows(
+      String insertPrefix, int columnCount, List<T> rows, RowBinder<T> rowBinder) {
+    return Flux.fromIterable(BatchUtils.partition(rows, INSERT_CHUNK_SIZE))
+        .concatMap(
+            chunk -> {
+              StringJoiner values = new StringJoiner(", ", insertPrefix, "");
+              for (int row = 0; row < chunk.size(); row++) {
+                StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+                for (int column = 1; column <= columnCount; column++) {
+                  placeholders.add("$" + (row * columnCount + column));
+                }
+                values.add(placeholders.toString());
+              }
+              GenericExecuteSpec spec = databaseClient.sql(values.toString());
+              for (int row = 0; row < chunk.size(); row++) {
+                spec = rowBinder.bind(spec, row * columnCount, chunk.get(row));
+              }
+              return spec.then();
+            })
+        .then();
+  }
+
+  @FunctionalInterface
+  private interface RowBinder<T> {
+    GenericExecuteSpec bind(GenericExecuteSpec spec, int index, T row);
+  }
+}
@@ -0,0 +1,143 @@
+package com.embea.policy.services;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.dto.Person;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.repository.PersonRepo;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory hash index of the stored persons by their normalized identity, so an added person can
+ * be resolved to an existing person row without a database lookup. Names are compared after Unicode
+ * compatibility normalization, trimming, collapsing whitespace and lower casing; fields added to
+ * {@link PersonIdentity} become part of the identity.
+ *
+ * <p>The index is loaded from the person table on startup and persons created later are added once
+ * their transaction commits, so it only ever points at committed rows. Concurrent creations of the
+ * same person may still insert it twice, the first one indexed is reused from then on. The reactive
+ * stack inserts persons without the index, so it is not loaded there.
+ */
+@Service
+@Log4j2
+public class PersonIdentityIndex {
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private final PersonRepo personRepo;
+  private final boolean enabled;
+  private final Map<PersonIdentity, Person> persons = new ConcurrentHashMap<>();
+
+  public PersonIdentityIndex(
+      PersonRepo personRepo,
+      PolicyProperties policyProperties,
+      ApplicationContext applicationContext) {
+    this.personRepo = personRepo;
+    this.enabled =
+        policyProperties.getPersonIdentity().isEnabled()
+            && !(applicationContext instanceof ReactiveWebApplicationContext);
+  }
+
+  /** Load the stored persons into the index. */
+  @PostConstruct
+  public void load() {
+    if (!enabled) {
+      return;
+    }
+    long startNanos = System.nanoTime();
+    for (Person person : personRepo.findAll()) {
+      persons.putIfAbsent(identityOf(person.getFirstName(), person.getSecondName()), person);
+    }
+    log.info(
+        "Loaded [{}] person identities in [{}] ms",
+        persons.size(),
+        (System.nanoTime() - startNanos) / 1_000_000);
+  }
+
+  /**
+   * Whether added persons are resolved through this index.
+   *
+   * @return True if person identity resolution is enabled
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Find the stored person with the same identity as an insured person.
+   *
+   * @param insuredPerson Insured person
+   * @return Stored person, or null if there is none
+   */
+  public Person find(InsuredPerson insuredPerson) {
+    return persons.get(identityOf(insuredPerson.getFirstName(), insuredPerson.getSecondName()));
+  }
+
+  /**
+   * Add created persons to the index once the current transaction commits.
+   *
+   * @param createdPersons Persons inserted in the current transaction
+   */
+  public void personsCreated(List<Person> createdPersons) {
+    if (!enabled || createdPersons.isEmpty()) {
+      return;
+    }
+    Runnable action =
+        () -> {
+          for (Person person : createdPersons) {
+            persons.putIfAbsent(identityOf(person.getFirstName(), person.getSecondName()), person);
+          }
+        };
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+
+  /**
+   * Number of indexed identities.
+   *
+   * @return Indexed identities
+   */
+  public int size() {
+    return persons.size();
+  }
+
+  static PersonIdentity identityOf(String firstName, String secondName) {
+    return new PersonIdentity(normalize(firstName), normalize(secondName));
+  }
+
+  private static String normalize(String name) {
+    if (name == null) {
+      return null;
+    }
+    String normalized = Normalizer.normalize(name, Normalizer.Form.NFKC).trim();
+    return WHITESPACE.matcher(normalized).replaceAll(" ").toLowerCase(Locale.ROOT);
+  }
+
+  /** Normalized identifying fields of a person. */
+  @Value
+  static class PersonIdentity {
+    String firstName;
+    String secondName;
+  }
+}
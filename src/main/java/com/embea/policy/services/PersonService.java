@@ -1,45 +1,99 @@
-package com.embea.policy.services;
-
-import com.embea.policy.dto.Person;
-import com.embea.policy.model.InsuredPerson;
-import com.embea.policy.repository.PersonRepo;
-import lombok.AllArgsConstructor;
-import lombok.extern.log4j.Log4j2;
-import org.springframework.stereotype.Service;
-
-@Service
-@Log4j2
-@AllArgsConstructor
-public class PersonService {
-
-  private final PersonRepo personRepo;
-
-  /**
-   * Store person details to database
-   *
-   * @param insuredPerson Insured person
-   * @return Created person object
-   */
-  public Person storePersonEntry(InsuredPerson insuredPerson) {
-    Person createdPerson = personRepo.save(createPersonObject(insuredPerson));
-    log.debug("Person created with Id {}", createdPerson.getPersonId());
-    return createdPerson;
-  }
-
-  /**
-   * Find person using person id
-   *
-   * @param personId Person id
-   * @return Fetched person object
-   */
-  public Person getPerson(Long personId) {
-    return personRepo.findById(personId).orElse(null);
-  }
-
-  private Person createPersonObject(InsuredPerson insuredPerson) {
-    return Person.builder()
-        .firstName(insuredPerson.getFirstName())
-        .secondName(insuredPerson.getSecondName())
-        .build();
-  }
-}
+package com.embea.policy.services;
+
+import com.embea.policy.dto.Person;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.repository.PersonRepo;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+@Service
+@Log4j2
+@AllArgsConstructor
+public class PersonService {
+
+  private final PersonRepo personRepo;
+  private final PersonIdentityIndex personIdentityIndex;
+
+  /**
+   * Whether added persons with the identity of a stored person reuse it.
+   *
+   * @return True if person identity resolution is enabled
+   */
+  public boolean isReusingPersons() {
+    return personIdentityIndex.isEnabled();
+  }
+
+  /**
+   * Store details of multiple persons to database. Ids are allocated from the pooled person
+   * sequence, so the inserts are written as JDBC batches when the transaction flushes.
+   *
+   * @param insuredPersons Insured persons
+   * @return Created person objects, in the same order as the insured persons
+   */
+  public List<Person> storePersonEntries(List<InsuredPerson> insuredPersons) {
+    return storePersonEntries(insuredPersons, Set.of());
+  }
+
+  /**
+   * Store details of multiple persons to database, as {@link #storePersonEntries(List)}. With
+   * person identity resolution enabled, a person with the same identity as a stored person reuses
+   * that person instead, unless its id is excluded or already reused for an earlier insured person
+   * of the list, so a policy never holds the same person twice. Reused persons keep their stored
+   * names, which are copied to the insured person.
+   *
+   * @param insuredPersons Insured persons
+   * @param excludedPersonIds Ids of persons that must not be reused, like those already insured
+   * @return Created or reused person objects, in the same order as the insured persons
+   */
+  public List<Person> storePersonEntries(
+      List<InsuredPerson> insuredPersons, Set<Long> excludedPersonIds) {
+    Person[] persons = new Person[insuredPersons.size()];
+    List<Integer> newPersonIndexes = new ArrayList<>(insuredPersons.size());
+    List<Person> newPersons = new ArrayList<>(insuredPersons.size());
+    Set<Long> usedPersonIds = new HashSet<>(excludedPersonIds);
+    for (int i = 0; i < insuredPersons.size(); i++) {
+      InsuredPerson insuredPerson = insuredPersons.get(i);
+      Person storedPerson =
+          personIdentityIndex.isEnabled() ? personIdentityIndex.find(insuredPerson) : null;
+      if (storedPerson != null && usedPersonIds.add(storedPerson.getPersonId())) {
+        insuredPerson.setFirstName(storedPerson.getFirstName());
+        insuredPerson.setSecondName(storedPerson.getSecondName());
+        persons[i] =
+            Person.builder()
+                .personId(storedPerson.getPersonId())
+                .firstName(storedPerson.getFirstName())
+                .secondName(storedPerson.getSecondName())
+                .build();
+      } else {
+        newPersonIndexes.add(i);
+        newPersons.add(createPersonObject(insuredPerson));
+      }
+    }
+    List<Person> createdPersons = new ArrayList<>(newPersons.size());
+    if (!newPersons.isEmpty()) {
+      personRepo.saveAll(newPersons).forEach(createdPersons::add);
+    }
+    for (int i = 0; i < createdPersons.size(); i++) {
+      persons[newPersonIndexes.get(i)] = createdPersons.get(i);
+    }
+    personIdentityIndex.personsCreated(createdPersons);
+    log.debug(
+        "[{}] persons created, [{}] reused",
+        createdPersons.size(),
+        insuredPersons.size() - createdPersons.size());
+    return Arrays.asList(persons);
+  }
+
+  private Person createPersonObject(InsuredPerson insuredPerson) {
+    return Person.builder()
+        .firstName(insuredPerson.getFirstName())
+        .secondName(insuredPerson.getSecondName())
+        .build();
+  }
+}
@@ -0,0 +1,191 @@
+package com.embea.policy.services;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.model.PolicyFetchResponse;
+import com.embea.policy.utils.DateUtils;
+import com.embea.policy.utils.DayRange;
+import java.util.*;
+import java.util.function.Supplier;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded cache of fetch responses. Each entry records the range of days its answer is valid for,
+ * so every request date inside that range is a hit instead of one entry per requested day. Least
+ * recently used entries are evicted once the configured size is exceeded.
+ *
+ * <p>With a read replica responses are only kept if they are answered by the membership index,
+ * which loads from the primary. Responses read from a lagging replica would otherwise stay cached
+ * without the latest modifications.
+ */
+@Service
+@Log4j2
+public class PolicyFetchCache {
+
+  private final PolicyMembershipIndex policyMembershipIndex;
+  private final PolicyProperties policyProperties;
+  private final Map<String, NavigableMap<Long, CacheEntry>> entriesByPolicy = new HashMap<>();
+  private final LinkedHashMap<CacheKey, CacheEntry> leastRecentlyUsed =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private long invalidations;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  public PolicyFetchCache(
+      PolicyMembershipIndex policyMembershipIndex, PolicyProperties policyProperties) {
+    this.policyMembershipIndex = policyMembershipIndex;
+    this.policyProperties = policyProperties;
+  }
+
+  /**
+   * Fetch a policy response as on request date from cache, or load and cache it on a miss. Loader
+   * exceptions are not cached.
+   *
+   * @param policyId Policy Id
+   * @param requestDate Request date
+   * @param loader Loads the response on a miss
+   * @return Policy fetch response with the given request date
+   */
+  public PolicyFetchResponse get(
+      String policyId, Date requestDate, Supplier<PolicyFetchResponse> loader) {
+    if (!policyProperties.getFetchCache().isEnabled()
+        || (policyProperties.getReadReplica().isEnabled()
+            && !policyProperties.getMembershipIndex().isEnabled())) {
+      return loader.get();
+    }
+    long requestDay = DateUtils.toEpochDay(requestDate);
+    long stamp;
+    synchronized (this) {
+      CacheEntry entry = findEntry(policyId, requestDay);
+      if (entry != null) {
+        hits++;
+        leastRecentlyUsed.get(new CacheKey(policyId, entry.getValidity().getFromDay()));
+        return entry.getResponse().toBuilder().requestDate(requestDate).build();
+      }
+      misses++;
+      stamp = invalidations;
+    }
+    PolicyFetchResponse response = loader.get();
+    DayRange validity = policyMembershipIndex.getValidity(policyId, requestDate);
+    synchronized (this) {
+      // A modification committed during the load may have changed the answer or its validity
+      if (stamp == invalidations && findEntry(policyId, requestDay) == null) {
+        store(policyId, new CacheEntry(validity, response));
+      }
+    }
+    return response;
+  }
+
+  /**
+   * Invalidate cached responses of a policy from the effective date onwards, once the current
+   * transaction commits. Responses valid before the effective date are kept, truncated to end on
+   * it.
+   *
+   * @param policyId Policy Id
+   * @param effectiveDate Effective date of the modification
+   */
+  public void policyModified(String policyId, Date effectiveDate) {
+    if (!policyProperties.getFetchCache().isEnabled()) {
+      return;
+    }
+    long effectiveDay = DateUtils.toEpochDay(effectiveDate);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              invalidate(policyId, effectiveDay);
+            }
+          });
+    } else {
+      invalidate(policyId, effectiveDay);
+    }
+  }
+
+  /**
+   * Current cache statistics.
+   *
+   * @return Hits, misses, evictions and number of cached entries
+   */
+  public synchronized CacheStatistics getStatistics() {
+    return new CacheStatistics(hits, misses, evictions, leastRecentlyUsed.size());
+  }
+
+  private synchronized void invalidate(String policyId, long effectiveDay) {
+    invalidations++;
+    NavigableMap<Long, CacheEntry> entries = entriesByPolicy.get(policyId);
+    if (entries == null) {
+      return;
+    }
+    Iterator<CacheEntry> iterator = entries.tailMap(effectiveDay, true).values().iterator();
+    while (iterator.hasNext()) {
+      leastRecentlyUsed.remove(new CacheKey(policyId, iterator.next().getValidity().getFromDay()));
+      iterator.remove();
+    }
+    Map.Entry<Long, CacheEntry> lower = entries.lowerEntry(effectiveDay);
+    if (lower != null && lower.getValue().getValidity().getToDay() > effectiveDay) {
+      CacheEntry truncated =
+          new CacheEntry(
+              new DayRange(lower.getKey(), effectiveDay), lower.getValue().getResponse());
+      entries.put(lower.getKey(), truncated);
+      leastRecentlyUsed.replace(new CacheKey(policyId, lower.getKey()), truncated);
+    }
+    if (entries.isEmpty()) {
+      entriesByPolicy.remove(policyId);
+    }
+    log.debug("Invalidated cached responses of policy [{}] from day [{}]", policyId, effectiveDay);
+  }
+
+  private CacheEntry findEntry(String policyId, long requestDay) {
+    NavigableMap<Long, CacheEntry> entries = entriesByPolicy.get(policyId);
+    if (entries == null) {
+      return null;
+    }
+    Map.Entry<Long, CacheEntry> floor = entries.floorEntry(requestDay);
+    return floor != null && floor.getValue().getValidity().contains(requestDay)
+        ? floor.getValue()
+        : null;
+  }
+
+  private void store(String policyId, CacheEntry entry) {
+    long fromDay = entry.getValidity().getFromDay();
+    entriesByPolicy.computeIfAbsent(policyId, id -> new TreeMap<>()).put(fromDay, entry);
+    leastRecentlyUsed.put(new CacheKey(policyId, fromDay), entry);
+    Iterator<Map.Entry<CacheKey, CacheEntry>> eldest = leastRecentlyUsed.entrySet().iterator();
+    while (leastRecentlyUsed.size() > policyProperties.getFetchCache().getMaxEntries()) {
+      CacheKey evicted = eldest.next().getKey();
+      eldest.remove();
+      NavigableMap<Long, CacheEntry> entries = entriesByPolicy.get(evicted.getPolicyId());
+      entries.remove(evicted.getFromDay());
+      if (entries.isEmpty()) {
+        entriesByPolicy.remove(evicted.getPolicyId());
+      }
+      evictions++;
+    }
+  }
+
+  @Value
+  private static class CacheKey {
+    String policyId;
+    long fromDay;
+  }
+
+  @Value
+  private static class CacheEntry {
+    DayRange validity;
+    PolicyFetchResponse response;
+  }
+
+  /** Snapshot of the cache counters. */
+  @Value
+  public static class CacheStatistics {
+    long hits;
+    long misses;
+    long evictions;
+    long size;
+  }
+}
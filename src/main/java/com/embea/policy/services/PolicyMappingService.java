@@ -1,79 +1,137 @@
-package com.embea.policy.services;
-
-import com.embea.policy.dto.PolicyMapping;
-import com.embea.policy.model.InsuredPerson;
-import com.embea.policy.repository.PolicyMappingRepo;
-import java.util.Date;
-import java.util.List;
-import lombok.AllArgsConstructor;
-import lombok.extern.log4j.Log4j2;
-import org.springframework.stereotype.Service;
-
-@Service
-@Log4j2
-@AllArgsConstructor
-public class PolicyMappingService {
-
-  private final PolicyMappingRepo policyMappingRepo;
-
-  /**
-   * API to store policy mapping
-   *
-   * @param policyId Policy Id
-   * @param insuredPerson Person to be mapped with policy
-   * @param additionDate Date on which policy is active
-   * @return PolicyMapping Object
-   */
-  public PolicyMapping storePolicyMapping(
-      String policyId, InsuredPerson insuredPerson, Date additionDate) {
-    PolicyMapping insertedPolicyMapping =
-        policyMappingRepo.save(createPolicyMapping(policyId, insuredPerson, additionDate));
-    log.debug("PolicyMapping created with Id {}", insertedPolicyMapping.getId());
-    return insertedPolicyMapping;
-  }
-
-  /**
-   * Find all persons related to a policy
-   *
-   * @param policyId Policy Id
-   * @return List of PolicyMapping Object
-   */
-  public List<PolicyMapping> findPersonsForPolicy(String policyId) {
-    return policyMappingRepo.findByPolicyId(policyId);
-  }
-
-  /**
-   * Find all persons related to a policy from request date
-   *
-   * @param policyId Policy Id
-   * @param requestDate Request date
-   * @return List of PolicyMapping Object
-   */
-  public List<PolicyMapping> findPersonsForPolicyAndRequestDate(String policyId, Date requestDate) {
-    return policyMappingRepo.findByPolicyIdAndRequestDate(policyId, requestDate);
-  }
-
-  /**
-   * Remove mapping between person and policy from effective date
-   *
-   * @param personIds Ids of persons to remove
-   * @param policyId Policy Id
-   * @param effectiveDate Effective date
-   * @return Number of persons removed
-   */
-  public Integer removePersonsFromPolicy(
-      List<Long> personIds, String policyId, Date effectiveDate) {
-    return policyMappingRepo.setRemovalDateByPolicyIdAndPersonIds(
-        personIds, policyId, effectiveDate);
-  }
-
-  private PolicyMapping createPolicyMapping(
-      String policyId, InsuredPerson insuredPerson, Date additionDate) {
-    return PolicyMapping.builder()
-        .policyId(policyId)
-        .personId(insuredPerson.getId())
-        .premium(insuredPerson.getPremium())
-        .additionDate(additionDate)
-        .build();
-  }
-}
+package com.embea.policy.services;
+
+import com.embea.policy.dto.PolicyMapping;
+import com.embea.policy.journal.PolicyJournal;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.repository.PolicyMappingRepo;
+import com.embea.policy.utils.BatchUtils;
+import com.embea.policy.utils.Constants;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+@Service
+@Log4j2
+@AllArgsConstructor
+public class PolicyMappingService {
+
+  private final PolicyMappingRepo policyMappingRepo;
+  private final PolicyJournal policyJournal;
+
+  /**
+   * API to store policy mappings of multiple persons. Ids are allocated from the pooled mapping
+   * sequence, so the inserts are written as JDBC batches when the transaction flushes. With the
+   * journal enabled the additions are journaled instead and the returned mappings have no id yet.
+   *
+   * @param policyId Policy Id
+   * @param insuredPersons Persons to be mapped with policy, with their person ids populated
+   * @param additionDate Date on which policy is active
+   * @return List of PolicyMapping Object
+   */
+  public List<PolicyMapping> storePolicyMappings(
+      String policyId, List<InsuredPerson> insuredPersons, Date additionDate) {
+    List<PolicyMapping> policyMappings = new ArrayList<>(insuredPersons.size());
+    for (InsuredPerson insuredPerson : insuredPersons) {
+      policyMappings.add(createPolicyMapping(policyId, insuredPerson, additionDate));
+    }
+    if (policyJournal.isEnabled()) {
+      policyJournal.personsAdded(policyId, insuredPersons, additionDate);
+      return policyMappings;
+    }
+    List<PolicyMapping> insertedPolicyMappings = new ArrayList<>(insuredPersons.size());
+    policyMappingRepo.saveAll(policyMappings).forEach(insertedPolicyMappings::add);
+    log.debug(
+        "[{}] policy mappings created for policy [{}]", insertedPolicyMappings.size(), policyId);
+    return insertedPolicyMappings;
+  }
+
+  /**
+   * Find ids of persons insured by a policy on effective date
+   *
+   * @param policyId Policy Id
+   * @param effectiveDate Effective date
+   * @return Set of person ids
+   */
+  public Set<Long> findActivePersonIds(String policyId, Date effectiveDate) {
+    policyJournal.awaitApplied(policyId);
+    return new HashSet<>(
+        policyMappingRepo.findActivePersonIdsByPolicyIdAndEffectiveDate(policyId, effectiveDate));
+  }
+
+  /**
+   * Find ids of persons insured by a policy on or after a date, including persons added later.
+   *
+   * @param policyId Policy Id
+   * @param fromDate Date from which persons are insured
+   * @return Set of person ids
+   */
+  public Set<Long> findInsuredPersonIdsFrom(String policyId, Date fromDate) {
+    policyJournal.awaitApplied(policyId);
+    return new HashSet<>(
+        policyMappingRepo.findInsuredPersonIdsByPolicyIdFromDate(policyId, fromDate));
+  }
+
+  /**
+   * Find the mappings of persons still active on effective date, the ones a removal on that date
+   * closes. Person ids are queried in chunks, like the removal itself.
+   *
+   * @param personIds Ids of persons
+   * @param policyId Policy Id
+   * @param effectiveDate Effective date
+   * @return List of PolicyMapping Object
+   */
+  public List<PolicyMapping> findActivePolicyMappings(
+      List<Long> personIds, String policyId, Date effectiveDate) {
+    policyJournal.awaitApplied(policyId);
+    List<PolicyMapping> policyMappings = new ArrayList<>(personIds.size());
+    for (List<Long> personIdChunk :
+        BatchUtils.partition(personIds, Constants.IN_CLAUSE_CHUNK_SIZE)) {
+      policyMappings.addAll(
+          policyMappingRepo.findActiveByPolicyIdAndPersonIds(
+              personIdChunk, policyId, effectiveDate));
+    }
+    return policyMappings;
+  }
+
+  /**
+   * Remove mapping between person and policy from effective date. Only mappings still active on
+   * effective date are closed, earlier removals are kept. Person ids are updated in chunks, so a
+   * large removal does not produce an oversized IN list. With the journal enabled the removals are
+   * journaled instead and all requested persons are counted.
+   *
+   * @param personIds Ids of persons to remove
+   * @param policyId Policy Id
+   * @param effectiveDate Effective date
+   * @return Number of persons removed
+   */
+  public Integer removePersonsFromPolicy(
+      List<Long> personIds, String policyId, Date effectiveDate) {
+    if (policyJournal.isEnabled()) {
+      policyJournal.personsRemoved(policyId, personIds, effectiveDate);
+      return personIds.size();
+    }
+    int removedCount = 0;
+    for (List<Long> personIdChunk :
+        BatchUtils.partition(personIds, Constants.IN_CLAUSE_CHUNK_SIZE)) {
+      removedCount +=
+          policyMappingRepo.setRemovalDateByPolicyIdAndPersonIds(
+              personIdChunk, policyId, effectiveDate);
+    }
+    return removedCount;
+  }
+
+  private PolicyMapping createPolicyMapping(
+      String policyId, InsuredPerson insuredPerson, Date additionDate) {
+    return PolicyMapping.builder()
+        .policyId(policyId)
+        .personId(insuredPerson.getId())
+        .premium(insuredPerson.getPremium())
+        .additionDate(additionDate)
+        .build();
+  }
+}
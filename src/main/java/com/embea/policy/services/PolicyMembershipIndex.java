@@ -0,0 +1,353 @@
+package com.embea.policy.services;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.dto.PolicyMemberInterval;
+import com.embea.policy.limiter.ConnectionLimited;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.utils.DateUtils;
+import com.embea.policy.utils.DayRange;
+import com.embea.policy.utils.IntervalTree;
+import com.embea.policy.utils.IntervalTree.Interval;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory index of policy membership over time. Each policy is held as its start day and the
+ * addition/removal interval of every insured person, keyed by epoch day, so "who is insured on date
+ * D" is answered from an interval tree without touching the database.
+ *
+ * <p>Policies are loaded lazily on first fetch and kept up to date by the facade once its
+ * transaction commits. A load racing with a commit is not kept, the next fetch loads again. With a
+ * read replica policies are still loaded from the primary, in a transaction of their own, as a
+ * lagging replica would leave them without the latest modifications until evicted. Least recently
+ * used policies are evicted once the configured maximum is exceeded, and are loaded again on their
+ * next fetch. The indexed policies can be exported and restored as a whole, to warm the index from
+ * a snapshot.
+ */
+@Service
+@Log4j2
+public class PolicyMembershipIndex {
+
+  /** Scale of the premium column, applied so indexed premiums compare like stored ones. */
+  private static final int PREMIUM_SCALE = 2;
+
+  private final PolicyService policyService;
+  private final PolicyProperties policyProperties;
+  private final Map<String, PolicyTimeline> timelines =
+      Collections.synchronizedMap(
+          new LinkedHashMap<String, PolicyTimeline>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PolicyTimeline> eldest) {
+              return size() > policyProperties.getMembershipIndex().getMaxPolicies();
+            }
+          });
+  private final AtomicLong writeStamp = new AtomicLong();
+  private final TransactionTemplate primaryTransactionTemplate;
+
+  public PolicyMembershipIndex(
+      PolicyService policyService,
+      PolicyProperties policyProperties,
+      PlatformTransactionManager transactionManager) {
+    this.policyService = policyService;
+    this.policyProperties = policyProperties;
+    this.primaryTransactionTemplate = new TransactionTemplate(transactionManager);
+    primaryTransactionTemplate.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * Fetch policy members as on request date, in the same shape as {@link
+   * PolicyService#getPolicyMembers(String, Date)}: empty if there is no policy on that date and a
+   * single row without person if the policy has no insured person on that date.
+   *
+   * @param policyId Policy Id
+   * @param requestDate Request date
+   * @return List of policy members ordered by person id
+   */
+  @ConnectionLimited
+  public List<PolicyMember> getPolicyMembers(String policyId, Date requestDate) {
+    if (!policyProperties.getMembershipIndex().isEnabled()) {
+      return policyService.getPolicyMembers(policyId, requestDate);
+    }
+    PolicyTimeline timeline = timelines.get(policyId);
+    if (timeline == null) {
+      timeline = load(policyId);
+    }
+    long requestDay = DateUtils.toEpochDay(requestDate);
+    if (timeline == null || requestDay < timeline.startDay) {
+      return List.of();
+    }
+    List<PolicyMember> policyMembers = timeline.tree.query(requestDay);
+    if (policyMembers.isEmpty()) {
+      return List.of(new PolicyMember(policyId, null, null, null, null));
+    }
+    policyMembers.sort(Comparator.comparing(PolicyMember::getPersonId));
+    return policyMembers;
+  }
+
+  /**
+   * Find the range of days around the request date over which the policy members stay the same as
+   * on the request date. Without the policy in the index only the request day itself is known.
+   *
+   * @param policyId Policy Id
+   * @param requestDate Request date
+   * @return Range of days with the same members as the request date
+   */
+  public DayRange getValidity(String policyId, Date requestDate) {
+    long requestDay = DateUtils.toEpochDay(requestDate);
+    PolicyTimeline timeline =
+        policyProperties.getMembershipIndex().isEnabled() ? timelines.get(policyId) : null;
+    if (timeline == null || requestDay < timeline.startDay) {
+      return new DayRange(requestDay, requestDay + 1);
+    }
+    int next = upperBound(timeline.changeDays, requestDay);
+    long toDay = next < timeline.changeDays.length ? timeline.changeDays[next] : Long.MAX_VALUE;
+    return new DayRange(timeline.changeDays[next - 1], toDay);
+  }
+
+  /**
+   * Record a newly created policy once the current transaction commits.
+   *
+   * @param policyId Policy Id
+   * @param startDate Start date of the policy
+   * @param insuredPersons Insured persons with their ids populated
+   */
+  public void policyCreated(String policyId, Date startDate, List<InsuredPerson> insuredPersons) {
+    if (!policyProperties.getMembershipIndex().isEnabled()) {
+      return;
+    }
+    long startDay = DateUtils.toEpochDay(startDate);
+    List<Interval<PolicyMember>> intervals = new ArrayList<>(insuredPersons.size());
+    for (InsuredPerson insuredPerson : insuredPersons) {
+      intervals.add(
+          new Interval<>(startDay, Long.MAX_VALUE, toPolicyMember(policyId, insuredPerson)));
+    }
+    PolicyTimeline timeline = new PolicyTimeline(startDay, intervals);
+    afterCommit(
+        () -> {
+          writeStamp.incrementAndGet();
+          timelines.put(policyId, timeline);
+        });
+  }
+
+  /**
+   * Record a policy modification once the current transaction commits. Mirrors the database update:
+   * added persons get an interval starting on the effective date and intervals of removed persons
+   * still active on the effective date end on it. Policies not in the index are left to the next
+   * load.
+   *
+   * @param policyId Policy Id
+   * @param effectiveDate Effective date of the modification
+   * @param addedPersons Persons added to the policy with their ids populated
+   * @param removedPersonIds Ids of persons removed from the policy
+   */
+  public void policyModified(
+      String policyId,
+      Date effectiveDate,
+      List<InsuredPerson> addedPersons,
+      Collection<Long> removedPersonIds) {
+    if (!policyProperties.getMembershipIndex().isEnabled()) {
+      return;
+    }
+    long effectiveDay = DateUtils.toEpochDay(effectiveDate);
+    List<PolicyMember> addedMembers = new ArrayList<>(addedPersons.size());
+    for (InsuredPerson addedPerson : addedPersons) {
+      addedMembers.add(toPolicyMember(policyId, addedPerson));
+    }
+    Set<Long> removedIds = new HashSet<>(removedPersonIds);
+    afterCommit(
+        () -> {
+          writeStamp.incrementAndGet();
+          timelines.computeIfPresent(
+              policyId, (id, timeline) -> timeline.modify(effectiveDay, addedMembers, removedIds));
+        });
+  }
+
+  /**
+   * Copy of every policy held in the index, for writing a snapshot.
+   *
+   * @return Indexed policies in no particular order
+   */
+  public List<IndexedPolicy> getIndexedPolicies() {
+    List<IndexedPolicy> indexedPolicies = new ArrayList<>(timelines.size());
+    timelines.forEach(
+        (policyId, timeline) ->
+            indexedPolicies.add(
+                new IndexedPolicy(policyId, timeline.startDay, timeline.intervals)));
+    return indexedPolicies;
+  }
+
+  /**
+   * Add policies read from a snapshot, up to the maximum number of indexed policies. Policies
+   * already in the index are kept.
+   *
+   * @param indexedPolicies Policies with their membership intervals
+   * @return Number of policies added
+   */
+  public int restore(List<IndexedPolicy> indexedPolicies) {
+    int restored = 0;
+    for (IndexedPolicy indexedPolicy : indexedPolicies) {
+      if (!hasCapacity()) {
+        break;
+      }
+      PolicyTimeline timeline =
+          new PolicyTimeline(indexedPolicy.getStartDay(), indexedPolicy.getIntervals());
+      if (timelines.putIfAbsent(indexedPolicy.getPolicyId(), timeline) == null) {
+        restored++;
+      }
+    }
+    return restored;
+  }
+
+  private PolicyTimeline load(String policyId) {
+    long stamp = writeStamp.get();
+    List<PolicyMemberInterval> memberIntervals =
+        policyProperties.getReadReplica().isEnabled()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+            ? primaryTransactionTemplate.execute(
+                status -> policyService.getPolicyMemberIntervals(policyId))
+            : policyService.getPolicyMemberIntervals(policyId);
+    if (memberIntervals.isEmpty()) {
+      return null;
+    }
+    long startDay = DateUtils.toEpochDay(memberIntervals.get(0).getStartDate());
+    List<Interval<PolicyMember>> intervals = new ArrayList<>(memberIntervals.size());
+    for (PolicyMemberInterval memberInterval : memberIntervals) {
+      if (memberInterval.getPersonId() != null) {
+        intervals.add(toInterval(memberInterval));
+      }
+    }
+    PolicyTimeline loaded = new PolicyTimeline(startDay, intervals);
+    // Keep the load only if no write committed since it started, a concurrent write would be lost
+    PolicyTimeline kept =
+        timelines.compute(
+            policyId,
+            (id, existing) -> {
+              if (existing != null) {
+                return existing;
+              }
+              return writeStamp.get() == stamp ? loaded : null;
+            });
+    log.debug("Loaded [{}] membership intervals of policy [{}]", intervals.size(), policyId);
+    return kept != null ? kept : loaded;
+  }
+
+  private boolean hasCapacity() {
+    return timelines.size() < policyProperties.getMembershipIndex().getMaxPolicies();
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+
+  private static int upperBound(long[] sortedDays, long day) {
+    int index = Arrays.binarySearch(sortedDays, day);
+    return index >= 0 ? index + 1 : -index - 1;
+  }
+
+  private static Interval<PolicyMember> toInterval(PolicyMemberInterval memberInterval) {
+    long end =
+        memberInterval.getRemovalDate() != null
+            ? DateUtils.toEpochDay(memberInterval.getRemovalDate())
+            : Long.MAX_VALUE;
+    return new Interval<>(
+        DateUtils.toEpochDay(memberInterval.getAdditionDate()),
+        end,
+        new PolicyMember(
+            memberInterval.getPolicyId(),
+            memberInterval.getPersonId(),
+            memberInterval.getFirstName(),
+            memberInterval.getSecondName(),
+            memberInterval.getPremium()));
+  }
+
+  private static PolicyMember toPolicyMember(String policyId, InsuredPerson insuredPerson) {
+    return new PolicyMember(
+        policyId,
+        insuredPerson.getId(),
+        insuredPerson.getFirstName(),
+        insuredPerson.getSecondName(),
+        insuredPerson.getPremium().setScale(PREMIUM_SCALE, RoundingMode.HALF_UP));
+  }
+
+  /** Membership history of one indexed policy, keyed by epoch day like the index itself. */
+  @Value
+  public static class IndexedPolicy {
+    String policyId;
+    long startDay;
+    List<Interval<PolicyMember>> intervals;
+  }
+
+  /** Immutable membership history of one policy, replaced as a whole on modification. */
+  private static final class PolicyTimeline {
+    private final long startDay;
+    private final List<Interval<PolicyMember>> intervals;
+    private final IntervalTree<PolicyMember> tree;
+    /** Sorted days on which the members change, starting with the policy start day. */
+    private final long[] changeDays;
+
+    private PolicyTimeline(long startDay, List<Interval<PolicyMember>> intervals) {
+      this.startDay = startDay;
+      this.intervals = intervals;
+      this.tree = new IntervalTree<>(intervals);
+      TreeSet<Long> days = new TreeSet<>();
+      days.add(startDay);
+      for (Interval<PolicyMember> interval : intervals) {
+        if (interval.getStart() > startDay) {
+          days.add(interval.getStart());
+        }
+        if (interval.getEnd() > startDay && interval.getEnd() != Long.MAX_VALUE) {
+          days.add(interval.getEnd());
+        }
+      }
+      this.changeDays = days.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private PolicyTimeline modify(
+        long effectiveDay, List<PolicyMember> addedMembers, Set<Long> removedIds) {
+      List<Interval<PolicyMember>> modified =
+          new ArrayList<>(intervals.size() + addedMembers.size());
+      Set<Long> startingOnEffectiveDay = new HashSet<>();
+      for (Interval<PolicyMember> interval : intervals) {
+        Long personId = interval.getValue().getPersonId();
+        if (removedIds.contains(personId)
+            && interval.getStart() <= effectiveDay
+            && interval.getEnd() > effectiveDay) {
+          modified.add(new Interval<>(interval.getStart(), effectiveDay, interval.getValue()));
+        } else {
+          modified.add(interval);
+        }
+        if (interval.getStart() == effectiveDay) {
+          startingOnEffectiveDay.add(personId);
+        }
+      }
+      // A load that already saw this modification must not get the added persons twice
+      for (PolicyMember addedMember : addedMembers) {
+        if (!startingOnEffectiveDay.contains(addedMember.getPersonId())) {
+          modified.add(new Interval<>(effectiveDay, Long.MAX_VALUE, addedMember));
+        }
+      }
+      return new PolicyTimeline(startDay, modified);
+    }
+  }
+}
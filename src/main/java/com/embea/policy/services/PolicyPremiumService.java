@@ -0,0 +1,138 @@
+package com.embea.policy.services;
+
+import com.embea.policy.dto.PolicyMapping;
+import com.embea.policy.dto.PolicyPremiumChange;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.repository.PolicyPremiumChangeRepo;
+import com.embea.policy.utils.DateUtils;
+import java.math.BigDecimal;
+import java.util.*;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains the premium timeline of each policy, stored as premium changes next to the mappings
+ * they are derived from, so the total premium on a date is read without loading the insured
+ * persons.
+ */
+@Service
+@Log4j2
+@AllArgsConstructor
+public class PolicyPremiumService {
+
+  private final PolicyPremiumChangeRepo policyPremiumChangeRepo;
+
+  /**
+   * Record the premium of a newly created policy. A change is stored on the start date even if the
+   * premium is zero, so the timeline always starts with the policy.
+   *
+   * @param policyId Policy Id
+   * @param startDate Start date of the policy
+   * @param insuredPersons Insured persons of the policy
+   */
+  public void policyCreated(String policyId, Date startDate, List<InsuredPerson> insuredPersons) {
+    policyPremiumChangeRepo.saveAll(buildCreationChanges(policyId, startDate, insuredPersons));
+  }
+
+  /**
+   * Record the premium changes of a policy modification. Added persons raise the premium from the
+   * effective date on. Removed mappings lower it from the effective date on and, if they were
+   * already ending on a later date, no longer lower it on that date.
+   *
+   * @param policyId Policy Id
+   * @param effectiveDate Effective date of the modification
+   * @param addedPersons Persons added to the policy
+   * @param removedMappings Mappings closed on the effective date, as they were before the removal
+   */
+  public void policyModified(
+      String policyId,
+      Date effectiveDate,
+      List<InsuredPerson> addedPersons,
+      List<PolicyMapping> removedMappings) {
+    List<PolicyPremiumChange> policyPremiumChanges =
+        buildModificationChanges(policyId, effectiveDate, addedPersons, removedMappings);
+    if (!policyPremiumChanges.isEmpty()) {
+      policyPremiumChangeRepo.saveAll(policyPremiumChanges);
+      log.debug(
+          "[{}] premium changes recorded for policy [{}]", policyPremiumChanges.size(), policyId);
+    }
+  }
+
+  /**
+   * Fetch the total premium of a policy on the day of request date, summed by the database from the
+   * premium changes up to that day, so the changes themselves are not loaded.
+   *
+   * @param policyId Policy Id
+   * @param requestDate Request date
+   * @return Total premium, null if policy is not found or starts after the request day
+   */
+  public BigDecimal getTotalPremium(String policyId, Date requestDate) {
+    return policyPremiumChangeRepo.sumPremiumDeltasByPolicyIdAndChangeDateBefore(
+        policyId, DateUtils.fromEpochDay(DateUtils.toEpochDay(requestDate) + 1));
+  }
+
+  /**
+   * Build the premium change of a newly created policy, without id.
+   *
+   * @param policyId Policy Id
+   * @param startDate Start date of the policy
+   * @param insuredPersons Insured persons of the policy
+   * @return Single premium change on the start date
+   */
+  public static List<PolicyPremiumChange> buildCreationChanges(
+      String policyId, Date startDate, List<InsuredPerson> insuredPersons) {
+    BigDecimal totalPremium = BigDecimal.ZERO;
+    for (InsuredPerson insuredPerson : insuredPersons) {
+      totalPremium = totalPremium.add(insuredPerson.getPremium());
+    }
+    return List.of(buildPolicyPremiumChange(policyId, startDate, totalPremium));
+  }
+
+  /**
+   * Build the premium changes of a policy modification, without ids. Deltas falling on the same
+   * date are combined and dates on which they cancel out are left out.
+   *
+   * @param policyId Policy Id
+   * @param effectiveDate Effective date of the modification
+   * @param addedPersons Persons added to the policy
+   * @param removedMappings Mappings closed on the effective date, as they were before the removal
+   * @return Premium changes ordered by date
+   */
+  public static List<PolicyPremiumChange> buildModificationChanges(
+      String policyId,
+      Date effectiveDate,
+      List<InsuredPerson> addedPersons,
+      List<PolicyMapping> removedMappings) {
+    SortedMap<Date, BigDecimal> deltasByDate = new TreeMap<>();
+    for (InsuredPerson addedPerson : addedPersons) {
+      deltasByDate.merge(effectiveDate, addedPerson.getPremium(), BigDecimal::add);
+    }
+    for (PolicyMapping removedMapping : removedMappings) {
+      deltasByDate.merge(effectiveDate, removedMapping.getPremium().negate(), BigDecimal::add);
+      if (removedMapping.getRemovalDate() != null) {
+        deltasByDate.merge(
+            new Date(removedMapping.getRemovalDate().getTime()),
+            removedMapping.getPremium(),
+            BigDecimal::add);
+      }
+    }
+    List<PolicyPremiumChange> policyPremiumChanges = new ArrayList<>(deltasByDate.size());
+    for (Map.Entry<Date, BigDecimal> delta : deltasByDate.entrySet()) {
+      if (delta.getValue().signum() != 0) {
+        policyPremiumChanges.add(
+            buildPolicyPremiumChange(policyId, delta.getKey(), delta.getValue()));
+      }
+    }
+    return policyPremiumChanges;
+  }
+
+  private static PolicyPremiumChange buildPolicyPremiumChange(
+      String policyId, Date changeDate, BigDecimal premiumDelta) {
+    return PolicyPremiumChange.builder()
+        .policyId(policyId)
+        .changeDate(changeDate)
+        .premiumDelta(premiumDelta)
+        .build();
+  }
+}
@@ -1,66 +1,112 @@
-package com.embea.policy.services;
-
-import com.embea.policy.dto.Policy;
-import com.embea.policy.model.PolicyCreationRequest;
-import com.embea.policy.repository.PolicyRepo;
-import java.util.Date;
-import lombok.AllArgsConstructor;
-import lombok.extern.log4j.Log4j2;
-import org.springframework.stereotype.Service;
-
-@Service
-@Log4j2
-@AllArgsConstructor
-public class PolicyService {
-
-  private final PolicyRepo policyRepo;
-
-  /**
-   * Insert new policy to database
-   *
-   * @param policyCreationRequest Policy creation request with insured persons and start date
-   * @return Newly created policy object
-   */
-  public Policy insertPolicy(PolicyCreationRequest policyCreationRequest) {
-    Policy createdPolicy = policyRepo.save(buildPolicyObject(policyCreationRequest));
-    log.debug("Policy created with policy Id {}", createdPolicy.getPolicyId());
-    return createdPolicy;
-  }
-
-  /**
-   * Update policy with latest information
-   *
-   * @param policy Policy Object
-   * @return Updated policy object
-   */
-  public Policy savePolicy(Policy policy) {
-    return policyRepo.save(policy);
-  }
-
-  /**
-   * Fetch policy using policy id
-   *
-   * @param policyId Policy Id
-   * @return Fetched policy object
-   */
-  public Policy getPolicy(String policyId) {
-    return policyRepo.findById(policyId).orElse(null);
-  }
-
-  /**
-   * Fetch policy using policy id and effective date
-   *
-   * @param policyId Policy Id
-   * @param effectiveDate Effective date
-   * @return Fetched policy object
-   */
-  public Policy getPolicy(String policyId, Date effectiveDate) {
-    return policyRepo
-        .getPolicyByPolicyIdAndEffectiveDateBefore(policyId, effectiveDate)
-        .orElse(null);
-  }
-
-  private Policy buildPolicyObject(PolicyCreationRequest policyCreationRequest) {
-    return Policy.builder().startDate(policyCreationRequest.getStartDate()).build();
-  }
-}
+package com.embea.policy.services;
+
+import com.embea.policy.dto.Policy;
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.dto.PolicyMemberInterval;
+import com.embea.policy.journal.PolicyJournal;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.repository.PolicyRepo;
+import com.embea.policy.utils.BatchUtils;
+import com.embea.policy.utils.Constants;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+@Service
+@Log4j2
+@AllArgsConstructor
+public class PolicyService {
+
+  private final PolicyRepo policyRepo;
+  private final PolicyJournal policyJournal;
+
+  /**
+   * Insert new policy to database
+   *
+   * @param policyCreationRequest Policy creation request with insured persons and start date
+   * @return Newly created policy object
+   */
+  public Policy insertPolicy(PolicyCreationRequest policyCreationRequest) {
+    Policy createdPolicy = policyRepo.save(buildPolicyObject(policyCreationRequest));
+    if (policyJournal.isEnabled()) {
+      policyJournal.policyCreated(createdPolicy.getPolicyId(), createdPolicy.getStartDate());
+    }
+    log.debug("Policy created with policy Id {}", createdPolicy.getPolicyId());
+    return createdPolicy;
+  }
+
+  /**
+   * Fetch policy using policy id
+   *
+   * @param policyId Policy Id
+   * @return Fetched policy object
+   */
+  public Policy getPolicy(String policyId) {
+    return policyRepo.findById(policyId).orElse(null);
+  }
+
+  /**
+   * Fetch policy using policy id and effective date
+   *
+   * @param policyId Policy Id
+   * @param effectiveDate Effective date
+   * @return Fetched policy object
+   */
+  public Policy getPolicy(String policyId, Date effectiveDate) {
+    return policyRepo
+        .getPolicyByPolicyIdAndEffectiveDateBefore(policyId, effectiveDate)
+        .orElse(null);
+  }
+
+  /**
+   * Fetch policy together with its insured persons as on request date, using a single joined query.
+   * Returns an empty list if no policy is active on that date, and a single row with empty person
+   * details if the policy has no insured person on that date.
+   *
+   * @param policyId Policy Id
+   * @param requestDate Request date
+   * @return List of policy members
+   */
+  public List<PolicyMember> getPolicyMembers(String policyId, Date requestDate) {
+    policyJournal.awaitApplied(policyId);
+    return policyRepo.findPolicyMembersByPolicyIdAndRequestDate(policyId, requestDate);
+  }
+
+  /**
+   * Fetch multiple policies together with their insured persons as on request date. Policy ids are
+   * queried in chunks, so a large batch does not produce an oversized IN list. Policies not active
+   * on that date are absent from the result.
+   *
+   * @param policyIds Policy Ids
+   * @param requestDate Request date
+   * @return List of policy members of all found policies
+   */
+  public List<PolicyMember> getPolicyMembers(List<String> policyIds, Date requestDate) {
+    policyJournal.awaitApplied(policyIds);
+    List<PolicyMember> policyMembers = new ArrayList<>();
+    for (List<String> policyIdChunk :
+        BatchUtils.partition(policyIds, Constants.IN_CLAUSE_CHUNK_SIZE)) {
+      policyMembers.addAll(
+          policyRepo.findPolicyMembersByPolicyIdsAndRequestDate(policyIdChunk, requestDate));
+    }
+    return policyMembers;
+  }
+
+  /**
+   * Fetch a policy together with the addition and removal dates of every person ever insured.
+   *
+   * @param policyId Policy Id
+   * @return List of policy member intervals, empty if policy is not found
+   */
+  public List<PolicyMemberInterval> getPolicyMemberIntervals(String policyId) {
+    policyJournal.awaitApplied(policyId);
+    return policyRepo.findPolicyMemberIntervalsByPolicyId(policyId);
+  }
+
+  private Policy buildPolicyObject(PolicyCreationRequest policyCreationRequest) {
+    return Policy.builder().startDate(policyCreationRequest.getStartDate()).build();
+  }
+}
@@ -0,0 +1,7 @@
+package com.embea.policy.sharding;
+
+/** Entity stored on the shard of the policy it belongs to. */
+public interface PolicyShardKey {
+
+  String getPolicyId();
+}
@@ -0,0 +1,162 @@
+package com.embea.policy.sharding;
+
+import com.embea.policy.config.PolicyProperties;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.extern.log4j.Log4j2;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Routes calls of the policy, policy mapping and premium change repositories to the shard of the
+ * policies they access, by binding it in {@link ShardContext} before the call runs. A policy saved
+ * without id binds its shard once the id is generated, before it is flushed. Reads of policy ids
+ * spanning shards are fanned out, one read-only transaction per shard, and their results
+ * concatenated; writes spanning shards are rejected.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "policy.sharding", name = "enabled", havingValue = "true")
+@Log4j2
+public class PolicyShardRouter {
+
+  private final int shardCount;
+  private final TransactionTemplate fanOutTransactionTemplate;
+
+  public PolicyShardRouter(
+      PolicyProperties policyProperties, PlatformTransactionManager transactionManager) {
+    this.shardCount = 1 + policyProperties.getSharding().getUrls().size();
+    this.fanOutTransactionTemplate = new TransactionTemplate(transactionManager);
+    fanOutTransactionTemplate.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    fanOutTransactionTemplate.setReadOnly(true);
+    log.info("Routing policies to [{}] shards", shardCount);
+  }
+
+  @Around(
+      "target(com.embea.policy.repository.PolicyRepo)"
+          + " || target(com.embea.policy.repository.PolicyMappingRepo)"
+          + " || target(com.embea.policy.repository.PolicyPremiumChangeRepo)")
+  public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+    Object[] args = joinPoint.getArgs();
+    Map<Integer, List<String>> policyIdsByShard = new TreeMap<>();
+    int fanOutArg = -1;
+    for (int i = 0; i < args.length; i++) {
+      collectPolicyIds(args[i], policyIdsByShard);
+      if (isPolicyIds(args[i])) {
+        fanOutArg = i;
+      }
+    }
+    if (policyIdsByShard.size() > 1) {
+      if (fanOutArg < 0 || !isFanOutRead(joinPoint)) {
+        throw new IllegalStateException(
+            String.format(
+                "%s accesses policies of shards %s at once",
+                joinPoint.getSignature().toShortString(), policyIdsByShard.keySet()));
+      }
+      return fanOut(joinPoint, fanOutArg, policyIdsByShard);
+    }
+    if (policyIdsByShard.size() == 1) {
+      return proceedOnShard(joinPoint, args, policyIdsByShard.keySet().iterator().next());
+    }
+    Object result = joinPoint.proceed();
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      collectPolicyIds(result, policyIdsByShard);
+      if (policyIdsByShard.size() == 1) {
+        ShardContext.bind(
+            new ShardContext.Shard(policyIdsByShard.keySet().iterator().next(), shardCount));
+      }
+    }
+    return result;
+  }
+
+  private Object proceedOnShard(ProceedingJoinPoint joinPoint, Object[] args, int shard)
+      throws Throwable {
+    boolean unbind = ShardContext.bind(new ShardContext.Shard(shard, shardCount));
+    try {
+      return joinPoint.proceed(args);
+    } finally {
+      if (unbind) {
+        ShardContext.unbind();
+      }
+    }
+  }
+
+  private List<Object> fanOut(
+      ProceedingJoinPoint joinPoint, int fanOutArg, Map<Integer, List<String>> policyIdsByShard) {
+    ShardContext.Shard suspendedShard = ShardContext.suspend();
+    try {
+      List<Object> results = new ArrayList<>();
+      for (Map.Entry<Integer, List<String>> shardPolicyIds : policyIdsByShard.entrySet()) {
+        Object[] args = joinPoint.getArgs().clone();
+        args[fanOutArg] = shardPolicyIds.getValue();
+        Iterable<?> shardResults =
+            fanOutTransactionTemplate.execute(
+                status -> {
+                  try {
+                    return (Iterable<?>) proceedOnShard(joinPoint, args, shardPolicyIds.getKey());
+                  } catch (RuntimeException | Error e) {
+                    throw e;
+                  } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e);
+                  }
+                });
+        if (shardResults != null) {
+          shardResults.forEach(results::add);
+        }
+      }
+      return results;
+    } finally {
+      ShardContext.resume(suspendedShard);
+    }
+  }
+
+  private void collectPolicyIds(Object value, Map<Integer, List<String>> policyIdsByShard) {
+    if (value instanceof Iterable) {
+      for (Object element : (Iterable<?>) value) {
+        collectPolicyId(element, policyIdsByShard);
+      }
+    } else {
+      collectPolicyId(value, policyIdsByShard);
+    }
+  }
+
+  private void collectPolicyId(Object value, Map<Integer, List<String>> policyIdsByShard) {
+    String policyId = null;
+    if (value instanceof String) {
+      policyId = (String) value;
+    } else if (value instanceof PolicyShardKey) {
+      policyId = ((PolicyShardKey) value).getPolicyId();
+    }
+    if (policyId != null) {
+      policyIdsByShard
+          .computeIfAbsent(ShardContext.shardOf(policyId, shardCount), shard -> new ArrayList<>())
+          .add(policyId);
+    }
+  }
+
+  private static boolean isPolicyIds(Object value) {
+    if (!(value instanceof Iterable)) {
+      return false;
+    }
+    Iterator<?> iterator = ((Iterable<?>) value).iterator();
+    return iterator.hasNext() && iterator.next() instanceof String;
+  }
+
+  private static boolean isFanOutRead(ProceedingJoinPoint joinPoint) {
+    Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+    return returnType.isAssignableFrom(List.class);
+  }
+}
@@ -0,0 +1,141 @@
+package com.embea.policy.sharding;
+
+import com.embea.policy.utils.PolicyIdUtils;
+import java.util.UUID;
+import lombok.Value;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Shard the current transaction runs on. A transaction is bound to a shard by the first policy it
+ * touches and stays on it until it completes, so all its statements use one connection. Outside a
+ * transaction a shard is only bound for a single repository call. Connections are fetched from the
+ * bound shard, or from the home shard when none is bound.
+ */
+public final class ShardContext {
+
+  /** Shard of the primary data source, holding the tables that are not sharded. */
+  public static final int HOME_SHARD = 0;
+
+  private static final ThreadLocal<Shard> BOUND_SHARD = new ThreadLocal<>();
+
+  private ShardContext() {}
+
+  /**
+   * Shard a policy is stored on, from the random low bits of its id rather than the leading
+   * timestamp, so consecutive policies spread evenly.
+   *
+   * @param policyId Policy Id
+   * @param shardCount Number of shards
+   * @return Shard index of the policy
+   */
+  public static int shardOf(String policyId, int shardCount) {
+    return Math.floorMod(UUID.fromString(policyId).getLeastSignificantBits(), shardCount);
+  }
+
+  /**
+   * Generate a policy id. When a shard is bound the id is generated again until it belongs to that
+   * shard, so policies created in one transaction are still found by the hash of their id.
+   *
+   * @return Generated policy id
+   */
+  public static String generatePolicyId() {
+    Shard shard = BOUND_SHARD.get();
+    String policyId = PolicyIdUtils.generate();
+    while (shard != null && shardOf(policyId, shard.getCount()) != shard.getIndex()) {
+      policyId = PolicyIdUtils.generate();
+    }
+    return policyId;
+  }
+
+  /**
+   * Shard bound to the current transaction or repository call.
+   *
+   * @return Bound shard, null if none is bound
+   */
+  public static Shard getBoundShard() {
+    return BOUND_SHARD.get();
+  }
+
+  /**
+   * Bind a shard to the current transaction until it completes, or to the current thread when no
+   * transaction is active.
+   *
+   * @param shard Shard to bind
+   * @return True if the shard was bound outside a transaction and must be unbound by the caller
+   * @throws IllegalStateException If another shard is already bound
+   */
+  static boolean bind(Shard shard) {
+    Shard boundShard = BOUND_SHARD.get();
+    if (boundShard != null) {
+      if (boundShard.getIndex() != shard.getIndex()) {
+        throw new IllegalStateException(
+            String.format(
+                "Transaction runs on shard [%d] and cannot access shard [%d]",
+                boundShard.getIndex(), shard.getIndex()));
+      }
+      return false;
+    }
+    BOUND_SHARD.set(shard);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return true;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            BOUND_SHARD.remove();
+          }
+        });
+    return false;
+  }
+
+  static void unbind() {
+    BOUND_SHARD.remove();
+  }
+
+  /**
+   * Unbind the current shard so other transactions can be started on other shards.
+   *
+   * @return Unbound shard to resume afterwards, null if none was bound
+   */
+  static Shard suspend() {
+    Shard shard = BOUND_SHARD.get();
+    BOUND_SHARD.remove();
+    return shard;
+  }
+
+  static void resume(Shard shard) {
+    if (shard != null) {
+      BOUND_SHARD.set(shard);
+    } else {
+      BOUND_SHARD.remove();
+    }
+  }
+
+  /**
+   * Shard a connection is fetched from. A transaction fetching its connection before touching a
+   * policy is bound to the home shard, so touching a policy of another shard later fails instead of
+   * using the wrong database.
+   *
+   * @param shardCount Number of shards
+   * @return Shard index to fetch the connection from
+   */
+  static int connectionShard(int shardCount) {
+    Shard shard = BOUND_SHARD.get();
+    if (shard != null) {
+      return shard.getIndex();
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      bind(new Shard(HOME_SHARD, shardCount));
+    }
+    return HOME_SHARD;
+  }
+
+  /** Shard index together with the number of shards it was computed for. */
+  @Value
+  public static class Shard {
+    int index;
+    int count;
+  }
+}
@@ -0,0 +1,53 @@
+package com.embea.policy.sharding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Routes connections to the data source of the shard bound in {@link ShardContext}. Shard 0, the
+ * home shard, is the primary data source; the other shards are owned and closed by this data
+ * source.
+ */
+public class ShardedDataSource extends AbstractRoutingDataSource implements Closeable {
+
+  private final List<DataSource> shards;
+
+  public ShardedDataSource(List<DataSource> shards) {
+    this.shards = List.copyOf(shards);
+    Map<Object, Object> targetDataSources = new HashMap<>();
+    for (int shard = 0; shard < shards.size(); shard++) {
+      targetDataSources.put(shard, shards.get(shard));
+    }
+    setTargetDataSources(targetDataSources);
+    setDefaultTargetDataSource(shards.get(ShardContext.HOME_SHARD));
+    afterPropertiesSet();
+  }
+
+  /**
+   * Data sources of all shards, indexed by shard.
+   *
+   * @return Shard data sources
+   */
+  public List<DataSource> getShards() {
+    return shards;
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return ShardContext.connectionShard(shards.size());
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (DataSource shard : shards.subList(1, shards.size())) {
+      if (shard instanceof Closeable) {
+        ((Closeable) shard).close();
+      }
+    }
+  }
+}
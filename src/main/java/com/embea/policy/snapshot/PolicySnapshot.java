@@ -0,0 +1,145 @@
+package com.embea.policy.snapshot;
+
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.services.PolicyMembershipIndex.IndexedPolicy;
+import com.embea.policy.utils.IntervalTree.Interval;
+import com.embea.policy.utils.PolicyIdUtils;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Value;
+
+/**
+ * Compact binary snapshot of the membership index. The file is a header with the snapshot id
+ * followed by every policy with its start day and membership intervals, persons inlined. Names are
+ * written with their length, a length of -1 stands for a missing name. It is written to a temporary
+ * file and moved into place, and read back by memory-mapping it.
+ */
+@Value
+public class PolicySnapshot {
+
+  private static final int MAGIC = 0x504f4c53;
+  private static final int VERSION = 3;
+
+  /** Random id, recorded in the database once the snapshot is complete. */
+  long snapshotId;
+
+  List<IndexedPolicy> policies;
+
+  /**
+   * Write the snapshot, replacing the file only once it is completely on disk.
+   *
+   * @param path Snapshot file
+   * @throws IOException If the snapshot cannot be written
+   */
+  public void write(Path path) throws IOException {
+    Path directory = path.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+        DataOutputStream output =
+            new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeLong(snapshotId);
+      output.writeInt(policies.size());
+      for (IndexedPolicy policy : policies) {
+        output.write(PolicyIdUtils.toBytes(policy.getPolicyId()));
+        output.writeLong(policy.getStartDay());
+        output.writeInt(policy.getIntervals().size());
+        for (Interval<PolicyMember> interval : policy.getIntervals()) {
+          PolicyMember policyMember = interval.getValue();
+          output.writeLong(interval.getStart());
+          output.writeLong(interval.getEnd());
+          output.writeLong(policyMember.getPersonId());
+          writeString(output, policyMember.getFirstName());
+          writeString(output, policyMember.getSecondName());
+          output.writeInt(policyMember.getPremium().scale());
+          output.writeLong(policyMember.getPremium().unscaledValue().longValueExact());
+        }
+      }
+      output.flush();
+      channel.force(true);
+    }
+    Files.move(
+        temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Read a snapshot by memory-mapping its file.
+   *
+   * @param path Snapshot file
+   * @return Snapshot read from the file
+   * @throws IOException If the file cannot be read
+   * @throws IllegalStateException If the file is not a snapshot of this version
+   */
+  public static PolicySnapshot read(Path path) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.remaining() < Integer.BYTES * 2
+        || buffer.getInt() != MAGIC
+        || buffer.getInt() != VERSION) {
+      throw new IllegalStateException(String.format("%s is not a policy snapshot", path));
+    }
+    long snapshotId = buffer.getLong();
+    int policyCount = buffer.getInt();
+    List<IndexedPolicy> policies = new ArrayList<>(policyCount);
+    for (int i = 0; i < policyCount; i++) {
+      byte[] policyIdBytes = new byte[PolicyIdUtils.POLICY_ID_BYTES];
+      buffer.get(policyIdBytes);
+      String policyId = PolicyIdUtils.fromBytes(policyIdBytes);
+      long startDay = buffer.getLong();
+      int intervalCount = buffer.getInt();
+      List<Interval<PolicyMember>> intervals = new ArrayList<>(intervalCount);
+      for (int j = 0; j < intervalCount; j++) {
+        long start = buffer.getLong();
+        long end = buffer.getLong();
+        long personId = buffer.getLong();
+        String firstName = readString(buffer);
+        String secondName = readString(buffer);
+        int scale = buffer.getInt();
+        BigDecimal premium = new BigDecimal(BigInteger.valueOf(buffer.getLong()), scale);
+        intervals.add(
+            new Interval<>(
+                start, end, new PolicyMember(policyId, personId, firstName, secondName, premium)));
+      }
+      policies.add(new IndexedPolicy(policyId, startDay, intervals));
+    }
+    return new PolicySnapshot(snapshotId, policies);
+  }
+
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    if (value == null) {
+      output.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
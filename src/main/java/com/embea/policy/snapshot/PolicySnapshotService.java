@@ -0,0 +1,103 @@
+package com.embea.policy.snapshot;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.dto.PolicySnapshotMarker;
+import com.embea.policy.repository.PolicySnapshotMarkerRepo;
+import com.embea.policy.services.PolicyMembershipIndex;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Service;
+
+/**
+ * Warm restart of the membership index. On shutdown the index is written as a {@link
+ * PolicySnapshot} and its id recorded in the database, on startup the snapshot is restored if the
+ * recorded id matches, before any request is served. The recorded id is cleared on every startup,
+ * so after a crash, or a run in which the index was not maintained, the snapshot is ignored and the
+ * index is loaded on demand as usual.
+ */
+@Service
+@Log4j2
+public class PolicySnapshotService {
+
+  private final PolicyProperties policyProperties;
+  private final PolicyMembershipIndex policyMembershipIndex;
+  private final PolicySnapshotMarkerRepo policySnapshotMarkerRepo;
+  private final boolean indexMaintained;
+
+  public PolicySnapshotService(
+      PolicyProperties policyProperties,
+      PolicyMembershipIndex policyMembershipIndex,
+      PolicySnapshotMarkerRepo policySnapshotMarkerRepo,
+      ApplicationContext applicationContext) {
+    this.policyProperties = policyProperties;
+    this.policyMembershipIndex = policyMembershipIndex;
+    this.policySnapshotMarkerRepo = policySnapshotMarkerRepo;
+    // The reactive stack writes without updating the index
+    this.indexMaintained =
+        policyProperties.getMembershipIndex().isEnabled()
+            && !(applicationContext instanceof ReactiveWebApplicationContext);
+  }
+
+  /** Restore the membership index from the snapshot of the last clean shutdown, if there is one. */
+  @PostConstruct
+  public void restore() {
+    if (!policyProperties.getSnapshot().isEnabled()) {
+      return;
+    }
+    Long recordedSnapshotId =
+        policySnapshotMarkerRepo
+            .findById(PolicySnapshotMarker.MARKER_ID)
+            .map(PolicySnapshotMarker::getSnapshotId)
+            .orElse(null);
+    policySnapshotMarkerRepo.setSnapshotId(null);
+    Path path = Paths.get(policyProperties.getSnapshot().getPath());
+    if (!indexMaintained || recordedSnapshotId == null || !Files.exists(path)) {
+      log.info("No policy snapshot to restore, membership index is loaded on demand");
+      return;
+    }
+    long startNanos = System.nanoTime();
+    try {
+      PolicySnapshot policySnapshot = PolicySnapshot.read(path);
+      if (policySnapshot.getSnapshotId() != recordedSnapshotId) {
+        log.warn("Policy snapshot [{}] does not match the database, it is ignored", path);
+        return;
+      }
+      int restored = policyMembershipIndex.restore(policySnapshot.getPolicies());
+      log.info(
+          "Restored [{}] policies from snapshot [{}] in [{}] ms",
+          restored,
+          path,
+          (System.nanoTime() - startNanos) / 1_000_000);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to restore policy snapshot [{}], it is ignored", path, e);
+    }
+  }
+
+  /**
+   * Write the membership index as snapshot and record it in the database. Runs once requests are no
+   * longer served.
+   *
+   * @throws IOException If the snapshot cannot be written
+   */
+  @PreDestroy
+  public void write() throws IOException {
+    if (!policyProperties.getSnapshot().isEnabled() || !indexMaintained) {
+      return;
+    }
+    Path path = Paths.get(policyProperties.getSnapshot().getPath());
+    PolicySnapshot policySnapshot =
+        new PolicySnapshot(
+            ThreadLocalRandom.current().nextLong(), policyMembershipIndex.getIndexedPolicies());
+    policySnapshot.write(path);
+    policySnapshotMarkerRepo.setSnapshotId(policySnapshot.getSnapshotId());
+    log.info("Wrote [{}] policies to snapshot [{}]", policySnapshot.getPolicies().size(), path);
+  }
+}
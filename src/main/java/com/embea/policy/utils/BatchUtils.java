@@ -0,0 +1,25 @@
+package com.embea.policy.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchUtils {
+
+  private BatchUtils() {}
+
+  /**
+   * Split a list into consecutive sub lists of at most the given size. Sub lists are views of the
+   * original list.
+   *
+   * @param list List to split
+   * @param size Maximum size of a sub list
+   * @return List of sub lists, empty if the list is empty
+   */
+  public static <T> List<List<T>> partition(List<T> list, int size) {
+    List<List<T>> partitions = new ArrayList<>((list.size() + size - 1) / size);
+    for (int from = 0; from < list.size(); from += size) {
+      partitions.add(list.subList(from, Math.min(from + size, list.size())));
+    }
+    return partitions;
+  }
+}
@@ -1,8 +1,12 @@
-package com.embea.policy.utils;
-
-public class Constants {
-
-  private Constants() {}
-
-  public static final String DATE_FORMAT = "dd.MM.yyyy";
-}
+package com.embea.policy.utils;
+
+public class Constants {
+
+  private Constants() {}
+
+  public static final String DATE_FORMAT = "dd.MM.yyyy";
+
+  public static final int MAX_BATCH_FETCH_SIZE = 1000;
+
+  public static final int IN_CLAUSE_CHUNK_SIZE = 500;
+}
@@ -0,0 +1,188 @@
+package com.embea.policy.utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+public class DateUtils {
+
+  private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+  /** Epoch days of 01.01.1970 and 31.12.2099, the days whose formatted form is cached. */
+  private static final int FIRST_CACHED_DAY = 0;
+
+  private static final int LAST_CACHED_DAY = 47481;
+
+  private static final String[] FORMATTED_DAYS = new String[LAST_CACHED_DAY - FIRST_CACHED_DAY + 1];
+
+  private DateUtils() {}
+
+  /**
+   * Convert a date to the number of days since 01.01.1970, in UTC like the stored dates.
+   *
+   * @param date Date to convert
+   * @return Epoch day of the date
+   */
+  public static long toEpochDay(Date date) {
+    return Math.floorDiv(date.getTime(), MILLIS_PER_DAY);
+  }
+
+  /**
+   * Convert a number of days since 01.01.1970 back to the date at the start of that day in UTC.
+   *
+   * @param epochDay Epoch day to convert
+   * @return Date of the epoch day
+   */
+  public static Date fromEpochDay(long epochDay) {
+    return new Date(epochDay * MILLIS_PER_DAY);
+  }
+
+  /**
+   * Convert a date to the UTC local date time it is stored as, for drivers binding local values.
+   *
+   * @param date Date to convert, may be null
+   * @return UTC local date time of the date, null if the date is null
+   */
+  public static LocalDateTime toUtcDateTime(Date date) {
+    return date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneOffset.UTC) : null;
+  }
+
+  /**
+   * Convert a stored UTC local date time back to a date.
+   *
+   * @param dateTime UTC local date time, may be null
+   * @return Date of the local date time, null if the local date time is null
+   */
+  public static Date fromUtcDateTime(LocalDateTime dateTime) {
+    return dateTime != null ? Date.from(dateTime.toInstant(ZoneOffset.UTC)) : null;
+  }
+
+  /**
+   * Format the UTC day of a date as {@code dd.MM.yyyy}. Days between 1970 and 2099 are formatted
+   * once and then served from a cache, so formatting them does not allocate.
+   *
+   * @param date Date to format
+   * @return Formatted day of the date
+   */
+  public static String formatDate(Date date) {
+    long epochDay = toEpochDay(date);
+    if (epochDay < FIRST_CACHED_DAY || epochDay > LAST_CACHED_DAY) {
+      return formatEpochDay(epochDay);
+    }
+    int index = (int) epochDay - FIRST_CACHED_DAY;
+    String formatted = FORMATTED_DAYS[index];
+    if (formatted == null) {
+      formatted = formatEpochDay(epochDay);
+      FORMATTED_DAYS[index] = formatted;
+    }
+    return formatted;
+  }
+
+  /**
+   * Parse a day formatted as {@code dd.MM.yyyy} directly from a character buffer. Day and month may
+   * have one or two digits, surrounding whitespace is ignored and days that do not exist in their
+   * month are rejected instead of rolling over into the next month.
+   *
+   * @param chars Buffer holding the text
+   * @param offset Offset of the text in the buffer
+   * @param length Length of the text
+   * @return Epoch day of the parsed day
+   * @throws IllegalArgumentException If the text is not a valid day
+   */
+  public static long parseEpochDay(char[] chars, int offset, int length) {
+    int position = offset;
+    int end = offset + length;
+    while (position < end && Character.isWhitespace(chars[position])) {
+      position++;
+    }
+    while (end > position && Character.isWhitespace(chars[end - 1])) {
+      end--;
+    }
+    int dayEnd = indexOfDot(chars, position, end);
+    int day = parseDigits(chars, position, dayEnd, 1, 2);
+    int monthEnd = indexOfDot(chars, dayEnd + 1, end);
+    int month = parseDigits(chars, dayEnd + 1, monthEnd, 1, 2);
+    int year = parseDigits(chars, monthEnd + 1, end, 4, 4);
+    if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+      throw new IllegalArgumentException("Invalid date " + new String(chars, offset, length));
+    }
+    return daysFromCivil(year, month, day);
+  }
+
+  private static String formatEpochDay(long epochDay) {
+    // Civil from days, H. Hinnant, with eras of 400 years starting on 01.03.0000
+    long days = epochDay + 719468;
+    long era = Math.floorDiv(days, 146097);
+    long dayOfEra = days - era * 146097;
+    long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    long shiftedMonth = (5 * dayOfYear + 2) / 153;
+    int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+    int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+    long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+    if (year < 0 || year > 9999) {
+      return String.format("%02d.%02d.%04d", day, month, year);
+    }
+    char[] chars = new char[10];
+    chars[0] = (char) ('0' + day / 10);
+    chars[1] = (char) ('0' + day % 10);
+    chars[2] = '.';
+    chars[3] = (char) ('0' + month / 10);
+    chars[4] = (char) ('0' + month % 10);
+    chars[5] = '.';
+    chars[6] = (char) ('0' + year / 1000);
+    chars[7] = (char) ('0' + year / 100 % 10);
+    chars[8] = (char) ('0' + year / 10 % 10);
+    chars[9] = (char) ('0' + year % 10);
+    return new String(chars);
+  }
+
+  private static long daysFromCivil(int year, int month, int day) {
+    long shiftedYear = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv(shiftedYear, 400);
+    long yearOfEra = shiftedYear - era * 400;
+    long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+    switch (month) {
+      case 2:
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  private static int indexOfDot(char[] chars, int from, int end) {
+    for (int position = from; position < end; position++) {
+      if (chars[position] == '.') {
+        return position;
+      }
+    }
+    throw new IllegalArgumentException("Invalid date, expected dd.MM.yyyy");
+  }
+
+  private static int parseDigits(char[] chars, int from, int to, int minDigits, int maxDigits) {
+    int digits = to - from;
+    if (digits < minDigits || digits > maxDigits) {
+      throw new IllegalArgumentException("Invalid date, expected dd.MM.yyyy");
+    }
+    int value = 0;
+    for (int position = from; position < to; position++) {
+      char c = chars[position];
+      if (c < '0' || c > '9') {
+        throw new IllegalArgumentException("Invalid date, expected dd.MM.yyyy");
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+}
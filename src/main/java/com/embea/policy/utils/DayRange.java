@@ -0,0 +1,14 @@
+package com.embea.policy.utils;
+
+import lombok.Value;
+
+/** Half-open range of epoch days {@code [fromDay, toDay)}. */
+@Value
+public class DayRange {
+  long fromDay;
+  long toDay;
+
+  public boolean contains(long day) {
+    return fromDay <= day && day < toDay;
+  }
+}
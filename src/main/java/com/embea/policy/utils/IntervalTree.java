@@ -0,0 +1,101 @@
+package com.embea.policy.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import lombok.Value;
+
+/**
+ * Immutable centered interval tree over half-open {@code [start, end)} intervals. Finding all
+ * intervals containing a point takes O(log n + k) for k matches.
+ *
+ * @param <T> Type of the value attached to each interval
+ */
+public class IntervalTree<T> {
+
+  private final Node<T> root;
+
+  public IntervalTree(List<Interval<T>> intervals) {
+    List<Interval<T>> nonEmptyIntervals = new ArrayList<>(intervals.size());
+    for (Interval<T> interval : intervals) {
+      if (interval.getStart() < interval.getEnd()) {
+        nonEmptyIntervals.add(interval);
+      }
+    }
+    this.root = build(nonEmptyIntervals);
+  }
+
+  /**
+   * Find the values of all intervals containing the point.
+   *
+   * @param point Point to look up
+   * @return Values of matching intervals, in no particular order
+   */
+  public List<T> query(long point) {
+    List<T> values = new ArrayList<>();
+    Node<T> node = root;
+    while (node != null) {
+      if (point < node.center) {
+        for (Interval<T> interval : node.byStart) {
+          if (interval.getStart() > point) {
+            break;
+          }
+          values.add(interval.getValue());
+        }
+        node = node.left;
+      } else if (point > node.center) {
+        for (Interval<T> interval : node.byEndDescending) {
+          if (interval.getEnd() <= point) {
+            break;
+          }
+          values.add(interval.getValue());
+        }
+        node = node.right;
+      } else {
+        node.byStart.forEach(interval -> values.add(interval.getValue()));
+        node = null;
+      }
+    }
+    return values;
+  }
+
+  private static <T> Node<T> build(List<Interval<T>> intervals) {
+    if (intervals.isEmpty()) {
+      return null;
+    }
+    intervals.sort(Comparator.comparingLong(Interval::getStart));
+    long center = intervals.get(intervals.size() / 2).getStart();
+    List<Interval<T>> left = new ArrayList<>();
+    List<Interval<T>> right = new ArrayList<>();
+    List<Interval<T>> overlapping = new ArrayList<>();
+    for (Interval<T> interval : intervals) {
+      if (interval.getEnd() <= center) {
+        left.add(interval);
+      } else if (interval.getStart() > center) {
+        right.add(interval);
+      } else {
+        overlapping.add(interval);
+      }
+    }
+    List<Interval<T>> byEndDescending = new ArrayList<>(overlapping);
+    byEndDescending.sort(Comparator.comparingLong(Interval<T>::getEnd).reversed());
+    return new Node<>(center, overlapping, byEndDescending, build(left), build(right));
+  }
+
+  /** Half-open interval {@code [start, end)} with an attached value. */
+  @Value
+  public static class Interval<T> {
+    long start;
+    long end;
+    T value;
+  }
+
+  @Value
+  private static class Node<T> {
+    long center;
+    List<Interval<T>> byStart;
+    List<Interval<T>> byEndDescending;
+    Node<T> left;
+    Node<T> right;
+  }
+}
@@ -0,0 +1,75 @@
+package com.embea.policy.utils;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Policy ids are time-ordered UUIDs in the layout of UUID version 7: 48 bits of Unix epoch
+ * milliseconds followed by random bits. They are stored as 16 bytes with the timestamp first, so
+ * new policies are appended at the end of the indexes on them, and exchanged in the API in their
+ * canonical lower case string form.
+ */
+public class PolicyIdUtils {
+
+  /** Canonical string form of a policy id, as accepted by the API. */
+  public static final String POLICY_ID_PATTERN =
+      "^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$";
+
+  public static final int POLICY_ID_BYTES = 16;
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private PolicyIdUtils() {}
+
+  /**
+   * Generate a new policy id from the current time and random bits.
+   *
+   * @return Policy id in its string form
+   */
+  public static String generate() {
+    return generate(System.currentTimeMillis()).toString();
+  }
+
+  /**
+   * Generate a UUID version 7 for a timestamp: 48 bits timestamp, version, 12 random bits, variant
+   * and 62 random bits.
+   *
+   * @param epochMillis Unix epoch milliseconds
+   * @return Time-ordered UUID
+   */
+  static UUID generate(long epochMillis) {
+    byte[] random = new byte[Long.BYTES * 2];
+    RANDOM.nextBytes(random);
+    ByteBuffer randomBits = ByteBuffer.wrap(random);
+    long mostSigBits = (epochMillis << 16) | 0x7000L | (randomBits.getLong() & 0x0fffL);
+    long leastSigBits = (randomBits.getLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+    return new UUID(mostSigBits, leastSigBits);
+  }
+
+  /**
+   * Convert a policy id to the bytes it is stored as.
+   *
+   * @param policyId Policy id in its string form
+   * @return 16 bytes, most significant first
+   * @throws IllegalArgumentException If the policy id is not a UUID
+   */
+  public static byte[] toBytes(String policyId) {
+    UUID uuid = UUID.fromString(policyId);
+    return ByteBuffer.allocate(POLICY_ID_BYTES)
+        .putLong(uuid.getMostSignificantBits())
+        .putLong(uuid.getLeastSignificantBits())
+        .array();
+  }
+
+  /**
+   * Convert the stored bytes of a policy id back to its string form.
+   *
+   * @param bytes 16 bytes, most significant first
+   * @return Policy id in its string form
+   */
+  public static String fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new UUID(buffer.getLong(), buffer.getLong()).toString();
+  }
+}
@@ -0,0 +1,28 @@
+package com.embea.policy.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ThreadUtils {
+
+  private ThreadUtils() {}
+
+  /**
+   * Create an executor starting a new virtual thread per task. The project compiles against Java
+   * 11, so the factory is looked up at runtime and fails if the runtime does not support virtual
+   * threads.
+   *
+   * @return Virtual thread per task executor
+   * @throws IllegalStateException If the runtime has no virtual threads
+   */
+  public static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException(
+          "Virtual threads are not supported by Java " + Runtime.version().feature(), e);
+    }
+  }
+}
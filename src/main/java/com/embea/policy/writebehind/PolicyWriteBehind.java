@@ -0,0 +1,331 @@
+package com.embea.policy.writebehind;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.exception.ServiceBusyException;
+import com.embea.policy.metrics.PolicyMetrics;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Optional write path with group commit for policy modifications. Instead of every request reading
+ * and writing its policy in a transaction of its own, the modification of a request is put on a
+ * bounded queue and a single writer thread runs the modifications of many requests in one
+ * transaction. Waiting requests hold neither a connection nor a database permit. A request returns
+ * once the transaction holding its modification is committed.
+ *
+ * <p>Each modification of a batch runs behind a savepoint. A failing modification is rolled back to
+ * its savepoint and fails on its own while the rest of the batch is committed. Failures that cannot
+ * be undone that way, as they marked the transaction rollback-only or registered work to run on
+ * commit, fail the whole batch, whose modifications are then committed again one request at a time.
+ * Modifications may therefore run more than once and must not depend on changes made to their input
+ * by an earlier run.
+ *
+ * <p>Each modification carries the key of the policy it modifies. Modifications of one policy are
+ * never committed in the same batch, so each reads the policy as committed by the one before it.
+ *
+ * <p>A request that finds the queue full, or whose writes are not taken by the writer within the
+ * timeout, is rejected with {@link ServiceBusyException} and none of its writes are made.
+ * Modifications already taken by the writer are always waited for, as their outcome is only known
+ * once their batch completes.
+ */
+@Service
+@Log4j2
+public class PolicyWriteBehind {
+
+  /** Time the writer waits for new writes before checking whether it is stopped. */
+  private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /** Set on the writer thread while it runs the transaction of a batch. */
+  private static final ThreadLocal<Boolean> WRITING = ThreadLocal.withInitial(() -> false);
+
+  private final PolicyProperties policyProperties;
+  private final TransactionTemplate transactionTemplate;
+  private final EntityManager entityManager;
+  private final PolicyMetrics policyMetrics;
+  private BlockingQueue<PendingWrite> queue;
+  private Thread writer;
+  private volatile boolean running;
+
+  public PolicyWriteBehind(
+      PolicyProperties policyProperties,
+      PlatformTransactionManager transactionManager,
+      EntityManager entityManager,
+      PolicyMetrics policyMetrics) {
+    this.policyProperties = policyProperties;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.entityManager = entityManager;
+    this.policyMetrics = policyMetrics;
+  }
+
+  /**
+   * Whether the writes of policy modifications are group-committed by the writer.
+   *
+   * @return True if write-behind is enabled
+   */
+  public boolean isEnabled() {
+    return policyProperties.getWriteBehind().isEnabled();
+  }
+
+  /**
+   * Whether the current thread is the writer running the transaction of a batch. Its modifications
+   * use the connection of that transaction.
+   *
+   * @return True on the writer within the transaction of a batch
+   */
+  public static boolean isWriting() {
+    return WRITING.get();
+  }
+
+  /** Start the writer. */
+  @PostConstruct
+  public void start() {
+    if (!isEnabled()) {
+      return;
+    }
+    queue = new ArrayBlockingQueue<>(policyProperties.getWriteBehind().getQueueCapacity());
+    policyMetrics.registerWriteBehind(queue);
+    running = true;
+    writer = new Thread(this::writeLoop, "policy-write-behind");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /** Stop the writer once the writes already queued are committed. */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    if (writer == null) {
+      return;
+    }
+    running = false;
+    writer.join(policyProperties.getWriteBehind().getTimeout().toMillis());
+  }
+
+  /**
+   * Run the modification of a request. With write-behind enabled it is queued for the writer and
+   * this returns once it is committed, otherwise it is run directly in the current transaction.
+   *
+   * @param key Key of the modified policy, modifications with equal keys are committed one by one
+   * @param writes Modification of the request, run in a transaction of the writer
+   * @param <T> Type of the result
+   * @return Result of the modification
+   * @throws ServiceBusyException If the modification is not taken by the writer within the timeout
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T write(String key, Supplier<T> writes) {
+    if (!running) {
+      return writes.get();
+    }
+    PendingWrite pendingWrite = new PendingWrite(key, writes);
+    long timeoutNanos = policyProperties.getWriteBehind().getTimeout().toNanos();
+    long deadline = System.nanoTime() + timeoutNanos;
+    try {
+      if (!queue.offer(pendingWrite, timeoutNanos, TimeUnit.NANOSECONDS)) {
+        throw new ServiceBusyException(
+            String.format("Write-behind queue full, [%d] writes waiting", queue.size()));
+      }
+      return (T) pendingWrite.committed.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException | InterruptedException e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      if (pendingWrite.take()) {
+        throw new ServiceBusyException(
+            String.format(
+                "Writes not taken by the writer within timeout, [%d] waiting", queue.size()));
+      }
+      try {
+        return (T) pendingWrite.committed.join();
+      } catch (CompletionException completionException) {
+        throw rethrow(completionException.getCause());
+      }
+    } catch (ExecutionException e) {
+      throw rethrow(e.getCause());
+    }
+  }
+
+  private void writeLoop() {
+    int batchSize = policyProperties.getWriteBehind().getBatchSize();
+    List<PendingWrite> polled = new ArrayList<>(batchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingWrite first = queue.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+        if (first == null) {
+          continue;
+        }
+        polled.add(first);
+        queue.drainTo(polled, batchSize - 1);
+        List<PendingWrite> batch = new ArrayList<>(polled.size());
+        Set<String> batchKeys = new HashSet<>();
+        for (PendingWrite pendingWrite : polled) {
+          // Writes whose caller gave up waiting are skipped
+          if (!pendingWrite.take()) {
+            continue;
+          }
+          if (!batchKeys.add(pendingWrite.key)) {
+            flush(batch);
+            batch = new ArrayList<>(polled.size());
+            batchKeys.clear();
+            batchKeys.add(pendingWrite.key);
+          }
+          batch.add(pendingWrite);
+        }
+        polled.clear();
+        if (!batch.isEmpty()) {
+          flush(batch);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void flush(List<PendingWrite> batch) {
+    List<Object> results;
+    try {
+      results = commit(batch);
+    } catch (RuntimeException | Error e) {
+      if (batch.size() == 1) {
+        batch.get(0).committed.completeExceptionally(e);
+        return;
+      }
+      log.warn(
+          "Failed to commit [{}] writes together, committing them one by one", batch.size(), e);
+      for (PendingWrite pendingWrite : batch) {
+        Object result;
+        try {
+          result = commit(List.of(pendingWrite)).get(0);
+        } catch (RuntimeException | Error writeException) {
+          pendingWrite.committed.completeExceptionally(writeException);
+          continue;
+        }
+        pendingWrite.committed.complete(result);
+      }
+      return;
+    }
+    policyMetrics.recordWriteBehindBatch(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      Object result = results.get(i);
+      if (result instanceof FailedWrite) {
+        batch.get(i).committed.completeExceptionally(((FailedWrite) result).cause);
+      } else {
+        batch.get(i).committed.complete(result);
+      }
+    }
+    log.debug("Committed [{}] writes together", batch.size());
+  }
+
+  private List<Object> commit(List<PendingWrite> batch) {
+    WRITING.set(true);
+    try {
+      return transactionTemplate.execute(
+          status -> {
+            List<Object> results = new ArrayList<>(batch.size());
+            for (PendingWrite pendingWrite : batch) {
+              results.add(
+                  batch.size() == 1 ? pendingWrite.writes.get() : write(pendingWrite, status));
+            }
+            return results;
+          });
+    } finally {
+      WRITING.set(false);
+    }
+  }
+
+  /**
+   * Run a modification of a batch behind a savepoint.
+   *
+   * @param pendingWrite Modification to run
+   * @param status Status of the transaction of the batch
+   * @return Result of the modification, or the failure of a modification rolled back to its
+   *     savepoint
+   */
+  private Object write(PendingWrite pendingWrite, TransactionStatus status) {
+    Session session = entityManager.unwrap(Session.class);
+    Savepoint savepoint = session.doReturningWork(Connection::setSavepoint);
+    List<TransactionSynchronization> synchronizations = synchronizations();
+    try {
+      Object result = pendingWrite.writes.get();
+      entityManager.flush();
+      session.doWork(connection -> connection.releaseSavepoint(savepoint));
+      return result;
+    } catch (RuntimeException e) {
+      if (status.isRollbackOnly() || !synchronizations.equals(synchronizations())) {
+        throw e;
+      }
+      session.doWork(connection -> connection.rollback(savepoint));
+      // Entities of the modification are gone with the savepoint, the others are flushed already
+      entityManager.clear();
+      return new FailedWrite(e);
+    }
+  }
+
+  private static List<TransactionSynchronization> synchronizations() {
+    return TransactionSynchronizationManager.isSynchronizationActive()
+        ? TransactionSynchronizationManager.getSynchronizations()
+        : List.of();
+  }
+
+  private static RuntimeException rethrow(Throwable cause) {
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return cause instanceof RuntimeException
+        ? (RuntimeException) cause
+        : new IllegalStateException(cause);
+  }
+
+  /** Failure of a modification rolled back to its savepoint. */
+  private static class FailedWrite {
+
+    private final RuntimeException cause;
+
+    FailedWrite(RuntimeException cause) {
+      this.cause = cause;
+    }
+  }
+
+  /**
+   * Modification of one request, taken either by the writer or, on timeout, back by the request.
+   */
+  private static class PendingWrite {
+
+    private final String key;
+    private final Supplier<?> writes;
+    private final AtomicBoolean taken = new AtomicBoolean();
+    private final CompletableFuture<Object> committed = new CompletableFuture<>();
+
+    PendingWrite(String key, Supplier<?> writes) {
+      this.key = key;
+      this.writes = writes;
+    }
+
+    boolean take() {
+      return taken.compareAndSet(false, true);
+    }
+  }
+}
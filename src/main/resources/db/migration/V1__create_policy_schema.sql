@@ -0,0 +1,26 @@
+create sequence person_seq start with 1 increment by 50;
+
+create sequence policy_mapping_seq start with 1 increment by 50;
+
+create table policy (
+    id varchar(255) not null,
+    start_date timestamp,
+    primary key (id)
+);
+
+create table person (
+    id bigint not null,
+    first_name varchar(255),
+    second_name varchar(255),
+    primary key (id)
+);
+
+create table policy_mapping (
+    id bigint not null,
+    policy_id varchar(255),
+    person_id bigint,
+    premium numeric(19, 2),
+    addition_date timestamp,
+    removal_date timestamp,
+    primary key (id)
+);
@@ -0,0 +1,9 @@
+-- Point-in-time reads filter on policy and addition date and read removal date, person and premium.
+-- Holding all of them makes the index covering, so the mapping rows themselves are never visited.
+-- Its policy_id prefix also serves the reads of a policy's whole history.
+create index idx_policy_mapping_policy_addition
+    on policy_mapping (policy_id, addition_date, removal_date, person_id, premium);
+
+-- Removing persons from a policy updates the mappings of a policy and a set of persons.
+create index idx_policy_mapping_policy_person
+    on policy_mapping (policy_id, person_id);
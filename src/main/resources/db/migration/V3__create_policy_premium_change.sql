@@ -0,0 +1,30 @@
+-- Premium timeline of each policy, held as the dates on which its total premium changes and by how much.
+-- The total on a date is the sum of the deltas up to it, without reading the mappings or persons.
+create sequence policy_premium_change_seq start with 1 increment by 50;
+
+create table policy_premium_change (
+    id bigint not null,
+    policy_id varchar(255),
+    change_date timestamp,
+    premium_delta numeric(19, 2),
+    primary key (id)
+);
+
+create index idx_policy_premium_change_policy
+    on policy_premium_change (policy_id, change_date, premium_delta);
+
+-- Existing policies get a zero change on their start date and one change per date their mappings were
+-- added or removed on.
+insert into policy_premium_change (id, policy_id, change_date, premium_delta)
+select next value for policy_premium_change_seq, changes.policy_id, changes.change_date, changes.premium_delta
+from (
+    select policy_id, change_date, sum(premium_delta) as premium_delta
+    from (
+        select id as policy_id, start_date as change_date, 0 as premium_delta from policy
+        union all
+        select policy_id, addition_date, premium from policy_mapping
+        union all
+        select policy_id, removal_date, -premium from policy_mapping where removal_date is not null
+    ) deltas
+    group by policy_id, change_date
+) changes;
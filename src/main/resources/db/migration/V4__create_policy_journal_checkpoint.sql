@@ -0,0 +1,10 @@
+-- Position up to which the policy journal has been applied to policy_mapping. It is updated in the same
+-- transaction as the applied mappings, so replaying the journal from it after a restart applies every
+-- event exactly once.
+create table policy_journal_checkpoint (
+    id int not null,
+    applied_position bigint not null,
+    primary key (id)
+);
+
+insert into policy_journal_checkpoint (id, applied_position) values (1, 0);
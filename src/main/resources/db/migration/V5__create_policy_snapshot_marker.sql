@@ -0,0 +1,9 @@
+-- Id of the policy snapshot written on the last clean shutdown. It is cleared on startup, so a snapshot is only
+-- restored if no write can have happened since it was taken.
+create table policy_snapshot_marker (
+    id int not null,
+    snapshot_id bigint,
+    primary key (id)
+);
+
+insert into policy_snapshot_marker (id, snapshot_id) values (1, null);
@@ -0,0 +1,29 @@
+-- Policy ids are time-ordered UUIDs stored as their 16 bytes, timestamp first, instead of 36 character strings. New
+-- policies then land at the end of the policy id indexes, and the mapping and premium change rows and their indexes
+-- repeating the id shrink. Existing ids are converted from their string form.
+alter table policy add column id_bytes binary(16);
+update policy set id_bytes = cast(cast(id as uuid) as binary(16));
+alter table policy drop primary key;
+alter table policy drop column id;
+alter table policy alter column id_bytes rename to id;
+alter table policy alter column id set not null;
+alter table policy add primary key (id);
+
+drop index idx_policy_mapping_policy_addition;
+drop index idx_policy_mapping_policy_person;
+alter table policy_mapping add column policy_id_bytes binary(16);
+update policy_mapping set policy_id_bytes = cast(cast(policy_id as uuid) as binary(16));
+alter table policy_mapping drop column policy_id;
+alter table policy_mapping alter column policy_id_bytes rename to policy_id;
+create index idx_policy_mapping_policy_addition
+    on policy_mapping (policy_id, addition_date, removal_date, person_id, premium);
+create index idx_policy_mapping_policy_person
+    on policy_mapping (policy_id, person_id);
+
+drop index idx_policy_premium_change_policy;
+alter table policy_premium_change add column policy_id_bytes binary(16);
+update policy_premium_change set policy_id_bytes = cast(cast(policy_id as uuid) as binary(16));
+alter table policy_premium_change drop column policy_id;
+alter table policy_premium_change alter column policy_id_bytes rename to policy_id;
+create index idx_policy_premium_change_policy
+    on policy_premium_change (policy_id, change_date, premium_delta);
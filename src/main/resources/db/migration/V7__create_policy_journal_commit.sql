@@ -0,0 +1,11 @@
+-- Journal position ranges of the policy events of committed transactions. A range is inserted in the transaction
+-- of its events once they are durable, so events replayed after a crash without a range here belong to a
+-- transaction which never committed and are skipped. Ranges are deleted together with the checkpoint update which
+-- applies them.
+create table policy_journal_commit (
+    from_position bigint not null,
+    to_position bigint not null,
+    primary key (from_position)
+);
+
+create index idx_policy_journal_commit_to on policy_journal_commit (to_position);
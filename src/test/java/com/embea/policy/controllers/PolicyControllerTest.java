@@ -1,181 +1,369 @@
-package com.embea.policy.controllers;
-
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.verify;
-
-import com.embea.policy.facade.PolicyFacade;
-import com.embea.policy.model.*;
-import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import java.util.UUID;
-import org.junit.jupiter.api.DisplayName;
-import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-
-@ExtendWith(MockitoExtension.class)
-class PolicyControllerTest {
-
-  private static final Date START_DATE = new Date();
-  private static final Date EFFECTIVE_DATE = new Date(START_DATE.getTime() + 86400000);
-  private static final String FIRST_NAME_1 = "Jane";
-  private static final String SECOND_NAME_1 = "Jackson";
-  private static final BigDecimal PREMIUM_1 = BigDecimal.valueOf(12.90);
-  private static final String FIRST_NAME_2 = "Jack";
-  private static final String SECOND_NAME_2 = "Doe";
-  private static final BigDecimal PREMIUM_2 = BigDecimal.valueOf(15.90);
-  private static final String FIRST_NAME_3 = "Will";
-  private static final String SECOND_NAME_3 = "Smith";
-  private static final BigDecimal PREMIUM_3 = BigDecimal.valueOf(12.90);
-  private static final BigDecimal TOTAL_PREMIUM = BigDecimal.valueOf(28.80);
-  private static final BigDecimal UPDATED_TOTAL_PREMIUM = BigDecimal.valueOf(25.80);
-  private static final String POLICY_ID = UUID.randomUUID().toString();
-  private static final Long PERSON_ID_1 = 1L;
-  private static final Long PERSON_ID_2 = 2L;
-
-  @Mock private PolicyFacade policyFacade;
-
-  @InjectMocks private PolicyController policyController;
-
-  @Test
-  @DisplayName(
-      "Given policy controller API is up "
-          + "When we make a create policy request with valid input "
-          + "Then it calls createPolicy API of PolicyFacade class "
-          + "And returns PolicyCreationResponse object.")
-  void testCreatePolicyWithValidInputs() {
-    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
-    PolicyCreationResponse policyCreationResponse = buildPolicyCreationResponse();
-    doReturn(policyCreationResponse).when(policyFacade).createPolicy(policyCreationRequest);
-
-    ResponseEntity<PolicyResponse> responseEntity =
-        policyController.createPolicy(policyCreationRequest);
-
-    assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-    assertEquals(policyCreationResponse, responseEntity.getBody());
-    verify(policyFacade).createPolicy(policyCreationRequest);
-  }
-
-  @Test
-  @DisplayName(
-      "Given policy controller API is up "
-          + "When we make a modify policy request with valid input "
-          + "Then it calls modifyPolicy API of PolicyFacade class "
-          + "And returns PolicyModificationResponse object.")
-  void testModifyPolicyWithValidInputs() {
-    PolicyModificationRequest policyModificationRequest = createPolicyModificationRequest();
-    PolicyModificationResponse policyModificationResponse = createPolicyModificationResponse();
-    doReturn(policyModificationResponse).when(policyFacade).modifyPolicy(policyModificationRequest);
-
-    ResponseEntity<PolicyResponse> responseEntity =
-        policyController.modifyPolicy(policyModificationRequest);
-
-    assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-    assertEquals(policyModificationResponse, responseEntity.getBody());
-    verify(policyFacade).modifyPolicy(policyModificationRequest);
-  }
-
-  @Test
-  @DisplayName(
-      "Given policy controller API is up "
-          + "When we make a fetch policy request with valid input "
-          + "Then it calls fetchPolicy API of PolicyFacade class "
-          + "And returns PolicyFetchResponse object.")
-  void testFetchPolicyWithValidInputs() {
-    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
-    PolicyFetchResponse policyFetchResponse = createPolicyFetchResponse();
-    doReturn(policyFetchResponse).when(policyFacade).fetchPolicy(policyFetchRequest);
-
-    ResponseEntity<PolicyResponse> responseEntity =
-        policyController.fetchPolicy(policyFetchRequest);
-
-    assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-    assertEquals(policyFetchResponse, responseEntity.getBody());
-    verify(policyFacade).fetchPolicy(policyFetchRequest);
-  }
-
-  private PolicyCreationRequest buildPolicyCreationRequest() {
-    return PolicyCreationRequest.builder()
-        .startDate(START_DATE)
-        .insuredPersons(getInsuredPersonList(false, false))
-        .build();
-  }
-
-  private PolicyCreationResponse buildPolicyCreationResponse() {
-    return PolicyCreationResponse.builder()
-        .policyId(POLICY_ID)
-        .totalPremium(TOTAL_PREMIUM)
-        .insuredPersons(getInsuredPersonList(true, false))
-        .startDate(START_DATE)
-        .build();
-  }
-
-  private PolicyModificationRequest createPolicyModificationRequest() {
-    return PolicyModificationRequest.builder()
-        .policyId(POLICY_ID)
-        .insuredPersons(getInsuredPersonList(true, true))
-        .effectiveDate(EFFECTIVE_DATE)
-        .build();
-  }
-
-  private PolicyModificationResponse createPolicyModificationResponse() {
-    return PolicyModificationResponse.builder()
-        .policyId(POLICY_ID)
-        .effectiveDate(START_DATE)
-        .insuredPersons(getInsuredPersonList(true, true))
-        .totalPremium(UPDATED_TOTAL_PREMIUM)
-        .build();
-  }
-
-  private PolicyFetchRequest createPolicyFetchRequest() {
-    return PolicyFetchRequest.builder().policyId(POLICY_ID).requestDate(START_DATE).build();
-  }
-
-  private PolicyFetchResponse createPolicyFetchResponse() {
-    return PolicyFetchResponse.builder()
-        .policyId(POLICY_ID)
-        .insuredPersons(getInsuredPersonList(true, false))
-        .requestDate(START_DATE)
-        .totalPremium(TOTAL_PREMIUM)
-        .build();
-  }
-
-  private List<InsuredPerson> getInsuredPersonList(boolean setIds, boolean isModify) {
-    InsuredPerson insuredPerson1 =
-        InsuredPerson.builder()
-            .firstName(FIRST_NAME_1)
-            .secondName(SECOND_NAME_1)
-            .premium(PREMIUM_1)
-            .build();
-    InsuredPerson insuredPerson2 =
-        InsuredPerson.builder()
-            .firstName(FIRST_NAME_2)
-            .secondName(SECOND_NAME_2)
-            .premium(PREMIUM_2)
-            .build();
-    if (setIds) {
-      insuredPerson1.setId(PERSON_ID_1);
-      insuredPerson2.setId(PERSON_ID_2);
-    }
-    List<InsuredPerson> insuredPersonList = new ArrayList<>();
-    insuredPersonList.add(insuredPerson1);
-    insuredPersonList.add(insuredPerson2);
-    if (isModify) {
-      InsuredPerson insuredPerson3 =
-          InsuredPerson.builder()
-              .firstName(FIRST_NAME_3)
-              .secondName(SECOND_NAME_3)
-              .premium(PREMIUM_3)
-              .build();
-      insuredPersonList.add(insuredPerson3);
-    }
-    return insuredPersonList;
-  }
-}
+package com.embea.policy.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.exception.InvalidRequestException;
+import com.embea.policy.facade.BulkPolicyFacade;
+import com.embea.policy.facade.PolicyFacade;
+import com.embea.policy.facade.WriteBehindPolicyFacade;
+import com.embea.policy.idempotency.IdempotencyStore;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.model.*;
+import com.embea.policy.utils.DateUtils;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@ExtendWith(MockitoExtension.class)
+class PolicyControllerTest {
+
+  private static final Date START_DATE = new Date();
+  private static final Date EFFECTIVE_DATE = new Date(START_DATE.getTime() + 86400000);
+  private static final String FIRST_NAME_1 = "Jane";
+  private static final String SECOND_NAME_1 = "Jackson";
+  private static final BigDecimal PREMIUM_1 = BigDecimal.valueOf(12.90);
+  private static final String FIRST_NAME_2 = "Jack";
+  private static final String SECOND_NAME_2 = "Doe";
+  private static final BigDecimal PREMIUM_2 = BigDecimal.valueOf(15.90);
+  private static final String FIRST_NAME_3 = "Will";
+  private static final String SECOND_NAME_3 = "Smith";
+  private static final BigDecimal PREMIUM_3 = BigDecimal.valueOf(12.90);
+  private static final BigDecimal TOTAL_PREMIUM = BigDecimal.valueOf(28.80);
+  private static final BigDecimal UPDATED_TOTAL_PREMIUM = BigDecimal.valueOf(25.80);
+  private static final String POLICY_ID = UUID.randomUUID().toString();
+  private static final Long PERSON_ID_1 = 1L;
+  private static final Long PERSON_ID_2 = 2L;
+  private static final String IDEMPOTENCY_KEY = UUID.randomUUID().toString();
+
+  @Mock private PolicyFacade policyFacade;
+
+  @Mock private BulkPolicyFacade bulkPolicyFacade;
+
+  @Mock private WriteBehindPolicyFacade writeBehindPolicyFacade;
+
+  @Mock private IdempotencyStore idempotencyStore;
+
+  @Spy private PolicyProperties policyProperties = new PolicyProperties();
+
+  @InjectMocks private PolicyController policyController;
+
+  @Test
+  @DisplayName(
+      "Given policy controller API is up "
+          + "When we make a create policy request with valid input "
+          + "Then it calls createPolicy API of PolicyFacade class "
+          + "And returns PolicyCreationResponse object.")
+  void testCreatePolicyWithValidInputs() {
+    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
+    PolicyCreationResponse policyCreationResponse = buildPolicyCreationResponse();
+    doReturn(policyCreationResponse).when(policyFacade).createPolicy(policyCreationRequest);
+    runThroughIdempotencyStore();
+
+    ResponseEntity<PolicyResponse> responseEntity =
+        policyController.createPolicy(IDEMPOTENCY_KEY, policyCreationRequest);
+
+    assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+    assertEquals(policyCreationResponse, responseEntity.getBody());
+    verify(idempotencyStore)
+        .execute(
+            eq(PolicyMetrics.OPERATION_CREATE),
+            eq(IDEMPOTENCY_KEY),
+            eq(policyCreationRequest),
+            any());
+    verify(policyFacade).createPolicy(policyCreationRequest);
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy controller API is up When we make a bulk create policy request Then it streams"
+          + " the request body through createPolicies API of BulkPolicyFacade class.")
+  void testCreatePoliciesInBulk() throws IOException {
+    InputStream requestBody = new ByteArrayInputStream(new byte[0]);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    ResponseEntity<StreamingResponseBody> responseEntity =
+        policyController.createPolicies(requestBody);
+    responseEntity.getBody().writeTo(outputStream);
+
+    assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+    verify(bulkPolicyFacade).createPolicies(requestBody, outputStream);
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy controller API is up "
+          + "When we make a modify policy request with valid input "
+          + "Then it calls modifyPolicy API of WriteBehindPolicyFacade class "
+          + "And returns PolicyModificationResponse object.")
+  void testModifyPolicyWithValidInputs() {
+    PolicyModificationRequest policyModificationRequest = createPolicyModificationRequest();
+    PolicyModificationResponse policyModificationResponse = createPolicyModificationResponse();
+    doReturn(policyModificationResponse)
+        .when(writeBehindPolicyFacade)
+        .modifyPolicy(policyModificationRequest);
+    runThroughIdempotencyStore();
+
+    ResponseEntity<PolicyResponse> responseEntity =
+        policyController.modifyPolicy(IDEMPOTENCY_KEY, policyModificationRequest);
+
+    assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+    assertEquals(policyModificationResponse, responseEntity.getBody());
+    verify(idempotencyStore)
+        .execute(
+            eq(PolicyMetrics.OPERATION_MODIFY),
+            eq(IDEMPOTENCY_KEY),
+            eq(policyModificationRequest),
+            any());
+    verify(writeBehindPolicyFacade).modifyPolicy(policyModificationRequest);
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy controller API is up "
+          + "When we make a fetch policy request with valid input "
+          + "Then it calls fetchPolicy API of PolicyFacade class "
+          + "And returns PolicyFetchResponse object.")
+  void testFetchPolicyWithValidInputs() {
+    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
+    PolicyFetchResponse policyFetchResponse = createPolicyFetchResponse();
+    doReturn(policyFetchResponse).when(policyFacade).fetchPolicy(policyFetchRequest);
+
+    ResponseEntity<PolicyResponse> responseEntity =
+        policyController.fetchPolicy(policyFetchRequest);
+
+    assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+    assertEquals(policyFetchResponse, responseEntity.getBody());
+    verify(policyFacade).fetchPolicy(policyFetchRequest);
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy controller API is up "
+          + "When we get a policy for a past date "
+          + "Then it fetches the policy at the start of that day "
+          + "And returns it with an ETag and a public max age.")
+  void testGetPolicyForPastDate() {
+    PolicyFetchResponse policyFetchResponse = createPolicyFetchResponse();
+    doReturn(policyFetchResponse).when(policyFacade).fetchPolicy(any(PolicyFetchRequest.class));
+
+    ResponseEntity<PolicyResponse> responseEntity =
+        policyController.getPolicy(POLICY_ID, "01.01.2020");
+
+    assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+    assertEquals(policyFetchResponse, responseEntity.getBody());
+    assertNotNull(responseEntity.getHeaders().getETag());
+    assertEquals("max-age=31536000, public", responseEntity.getHeaders().getCacheControl());
+    verify(policyFacade)
+        .fetchPolicy(
+            PolicyFetchRequest.builder()
+                .policyId(POLICY_ID)
+                .requestDate(DateUtils.fromEpochDay(LocalDate.of(2020, 1, 1).toEpochDay()))
+                .build());
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy controller API is up "
+          + "When we get a policy for today repeatedly while its premiums change "
+          + "Then it must be revalidated "
+          + "And the ETag only changes with the insured persons.")
+  void testGetPolicyETagFollowsMembership() {
+    PolicyFetchResponse modifiedResponse = createPolicyFetchResponse();
+    modifiedResponse.getInsuredPersons().get(0).setPremium(PREMIUM_2);
+    doReturn(createPolicyFetchResponse(), createPolicyFetchResponse(), modifiedResponse)
+        .when(policyFacade)
+        .fetchPolicy(any(PolicyFetchRequest.class));
+
+    ResponseEntity<PolicyResponse> first = policyController.getPolicy(POLICY_ID, null);
+    ResponseEntity<PolicyResponse> second = policyController.getPolicy(POLICY_ID, null);
+    ResponseEntity<PolicyResponse> modified = policyController.getPolicy(POLICY_ID, null);
+
+    assertEquals("no-cache", first.getHeaders().getCacheControl());
+    assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+    assertNotEquals(first.getHeaders().getETag(), modified.getHeaders().getETag());
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy controller API is up "
+          + "When we get a policy with an invalid policy id or date "
+          + "Then the request is rejected without fetching the policy.")
+  void testGetPolicyWithInvalidInputs() {
+    assertThrows(
+        InvalidRequestException.class,
+        () -> policyController.getPolicy("unknown-policy-id", "01.01.2020"));
+    assertThrows(
+        InvalidRequestException.class, () -> policyController.getPolicy(POLICY_ID, "31.02.2020"));
+    verifyNoInteractions(policyFacade);
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy controller API is up "
+          + "When we make a policy timeline request with valid input "
+          + "Then it calls fetchPolicyTimeline API of PolicyFacade class "
+          + "And returns PolicyTimelineResponse object.")
+  void testFetchPolicyTimelineWithValidInputs() {
+    PolicyTimelineRequest policyTimelineRequest =
+        PolicyTimelineRequest.builder()
+            .policyId(POLICY_ID)
+            .fromDate(START_DATE)
+            .toDate(START_DATE)
+            .build();
+    PolicyTimelineResponse policyTimelineResponse =
+        PolicyTimelineResponse.builder()
+            .policyId(POLICY_ID)
+            .fromDate(START_DATE)
+            .toDate(START_DATE)
+            .periods(List.of())
+            .build();
+    doReturn(policyTimelineResponse).when(policyFacade).fetchPolicyTimeline(policyTimelineRequest);
+
+    ResponseEntity<PolicyTimelineResponse> responseEntity =
+        policyController.fetchPolicyTimeline(policyTimelineRequest);
+
+    assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+    assertEquals(policyTimelineResponse, responseEntity.getBody());
+    verify(policyFacade).fetchPolicyTimeline(policyTimelineRequest);
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy controller API is up "
+          + "When we make a batch fetch policy request with valid input "
+          + "Then it calls fetchPolicies API of PolicyFacade class "
+          + "And returns PolicyBatchFetchResponse object.")
+  void testFetchPoliciesWithValidInputs() {
+    PolicyBatchFetchRequest policyBatchFetchRequest =
+        PolicyBatchFetchRequest.builder()
+            .policyIds(List.of(POLICY_ID))
+            .requestDate(START_DATE)
+            .build();
+    PolicyBatchFetchResponse policyBatchFetchResponse =
+        PolicyBatchFetchResponse.builder()
+            .requestDate(START_DATE)
+            .policies(List.of(createPolicyFetchResponse()))
+            .notFoundPolicyIds(List.of())
+            .build();
+    doReturn(policyBatchFetchResponse).when(policyFacade).fetchPolicies(policyBatchFetchRequest);
+
+    ResponseEntity<PolicyBatchFetchResponse> responseEntity =
+        policyController.fetchPolicies(policyBatchFetchRequest);
+
+    assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+    assertEquals(policyBatchFetchResponse, responseEntity.getBody());
+    verify(policyFacade).fetchPolicies(policyBatchFetchRequest);
+  }
+
+  private void runThroughIdempotencyStore() {
+    doAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get())
+        .when(idempotencyStore)
+        .execute(any(), any(), any(), any());
+  }
+
+  private PolicyCreationRequest buildPolicyCreationRequest() {
+    return PolicyCreationRequest.builder()
+        .startDate(START_DATE)
+        .insuredPersons(getInsuredPersonList(false, false))
+        .build();
+  }
+
+  private PolicyCreationResponse buildPolicyCreationResponse() {
+    return PolicyCreationResponse.builder()
+        .policyId(POLICY_ID)
+        .totalPremium(TOTAL_PREMIUM)
+        .insuredPersons(getInsuredPersonList(true, false))
+        .startDate(START_DATE)
+        .build();
+  }
+
+  private PolicyModificationRequest createPolicyModificationRequest() {
+    return PolicyModificationRequest.builder()
+        .policyId(POLICY_ID)
+        .insuredPersons(getInsuredPersonList(true, true))
+        .effectiveDate(EFFECTIVE_DATE)
+        .build();
+  }
+
+  private PolicyModificationResponse createPolicyModificationResponse() {
+    return PolicyModificationResponse.builder()
+        .policyId(POLICY_ID)
+        .effectiveDate(START_DATE)
+        .insuredPersons(getInsuredPersonList(true, true))
+        .totalPremium(UPDATED_TOTAL_PREMIUM)
+        .build();
+  }
+
+  private PolicyFetchRequest createPolicyFetchRequest() {
+    return PolicyFetchRequest.builder().policyId(POLICY_ID).requestDate(START_DATE).build();
+  }
+
+  private PolicyFetchResponse createPolicyFetchResponse() {
+    return PolicyFetchResponse.builder()
+        .policyId(POLICY_ID)
+        .insuredPersons(getInsuredPersonList(true, false))
+        .requestDate(START_DATE)
+        .totalPremium(TOTAL_PREMIUM)
+        .build();
+  }
+
+  private List<InsuredPerson> getInsuredPersonList(boolean setIds, boolean isModify) {
+    InsuredPerson insuredPerson1 =
+        InsuredPerson.builder()
+            .firstName(FIRST_NAME_1)
+            .secondName(SECOND_NAME_1)
+            .premium(PREMIUM_1)
+            .build();
+    InsuredPerson insuredPerson2 =
+        InsuredPerson.builder()
+            .firstName(FIRST_NAME_2)
+            .secondName(SECOND_NAME_2)
+            .premium(PREMIUM_2)
+            .build();
+    if (setIds) {
+      insuredPerson1.setId(PERSON_ID_1);
+      insuredPerson2.setId(PERSON_ID_2);
+    }
+    List<InsuredPerson> insuredPersonList = new ArrayList<>();
+    insuredPersonList.add(insuredPerson1);
+    insuredPersonList.add(insuredPerson2);
+    if (isModify) {
+      InsuredPerson insuredPerson3 =
+          InsuredPerson.builder()
+              .firstName(FIRST_NAME_3)
+              .secondName(SECOND_NAME_3)
+              .premium(PREMIUM_3)
+              .build();
+      insuredPersonList.add(insuredPerson3);
+    }
+    return insuredPersonList;
+  }
+}
@@ -0,0 +1,200 @@
+package com.embea.policy.facade;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.exception.ServiceBusyException;
+import com.embea.policy.exception.handlers.ControllerExceptionHandler;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyCreationResponse;
+import com.embea.policy.model.PolicyResponse;
+import com.embea.policy.utils.Constants;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@ExtendWith(MockitoExtension.class)
+class BulkPolicyFacadeTest {
+
+  private static final Date START_DATE = new Date(new Date().getTime() + 86400000);
+  private static final String VALID_LINE =
+      "{\"startDate\":\"%s\",\"insuredPersons\":"
+          + "[{\"firstName\":\"Jane\",\"secondName\":\"Jackson\",\"premium\":12.90}]}";
+  private static final String INVALID_LINE = "{\"startDate\":\"%s\",\"insuredPersons\":[]}";
+
+  @Mock private PolicyFacade policyFacade;
+
+  @Captor private ArgumentCaptor<List<PolicyCreationRequest>> requestsCaptor;
+
+  private final ObjectMapper objectMapper =
+      Jackson2ObjectMapperBuilder.json()
+          .modulesToInstall(new ParameterNamesModule())
+          .simpleDateFormat(Constants.DATE_FORMAT)
+          .build();
+
+  private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+  private BulkPolicyFacade bulkPolicyFacade;
+
+  private String startDate;
+
+  @BeforeEach
+  void setUp() {
+    PolicyProperties policyProperties = new PolicyProperties();
+    policyProperties.getBulk().setChunkSize(2);
+    bulkPolicyFacade =
+        new BulkPolicyFacade(policyFacade, objectMapper, validator, policyProperties);
+    SimpleDateFormat dateFormat = new SimpleDateFormat(Constants.DATE_FORMAT);
+    dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    startDate = dateFormat.format(START_DATE);
+  }
+
+  @Test
+  @DisplayName(
+      "Given three valid creation request lines and chunk size of two "
+          + "When we create policies in bulk "
+          + "Then policies are created in two chunks "
+          + "And one response line is written per request.")
+  void testCreatePoliciesInChunks() throws IOException {
+    doAnswer(invocation -> buildResponses(invocation.getArgument(0)))
+        .when(policyFacade)
+        .createPolicies(anyList());
+
+    List<JsonNode> responseLines =
+        createPolicies(validLine() + "\n" + validLine() + "\n\n" + validLine() + "\n");
+
+    verify(policyFacade, times(2)).createPolicies(requestsCaptor.capture());
+    assertEquals(2, requestsCaptor.getAllValues().get(0).size());
+    assertEquals(1, requestsCaptor.getAllValues().get(1).size());
+    assertEquals(3, responseLines.size());
+    responseLines.forEach(responseLine -> assertTrue(responseLine.hasNonNull("policyId")));
+  }
+
+  @Test
+  @DisplayName(
+      "Given an invalid creation request line between valid lines "
+          + "When we create policies in bulk "
+          + "Then only valid requests are created "
+          + "And an error line is written in place of the invalid request.")
+  void testCreatePoliciesWithInvalidLine() throws IOException {
+    doAnswer(invocation -> buildResponses(invocation.getArgument(0)))
+        .when(policyFacade)
+        .createPolicies(anyList());
+
+    List<JsonNode> responseLines =
+        createPolicies(
+            validLine() + "\n" + String.format(INVALID_LINE, startDate) + "\nnot-json\n");
+
+    verify(policyFacade).createPolicies(requestsCaptor.capture());
+    assertEquals(1, requestsCaptor.getValue().size());
+    assertEquals(3, responseLines.size());
+    assertTrue(responseLines.get(0).hasNonNull("policyId"));
+    assertEquals(
+        "Atleast 1 person should be present", responseLines.get(1).get("message").asText());
+    assertEquals("Line 2", responseLines.get(1).get("details").asText());
+    assertEquals("Line 3", responseLines.get(2).get("details").asText());
+  }
+
+  @Test
+  @DisplayName(
+      "Given valid creation request lines "
+          + "When we create policies in bulk "
+          + "And creation of a chunk fails "
+          + "Then an error line is written for every request of that chunk "
+          + "And the exception message is not exposed.")
+  void testCreatePoliciesWithFailedChunk() throws IOException {
+    doThrow(new IllegalStateException("Database unavailable"))
+        .when(policyFacade)
+        .createPolicies(anyList());
+
+    List<JsonNode> responseLines = createPolicies(validLine() + "\n" + validLine());
+
+    assertEquals(2, responseLines.size());
+    responseLines.forEach(
+        responseLine ->
+            assertEquals(
+                ControllerExceptionHandler.INTERNAL_ERROR_MESSAGE,
+                responseLine.get("message").asText()));
+  }
+
+  @Test
+  @DisplayName(
+      "Given valid creation request lines "
+          + "When we create policies in bulk "
+          + "And the service is too busy to create a chunk "
+          + "Then the error lines carry the service busy message of the controllers.")
+  void testCreatePoliciesWithBusyService() throws IOException {
+    doThrow(new ServiceBusyException("No database permit within 5000 ms"))
+        .when(policyFacade)
+        .createPolicies(anyList());
+
+    List<JsonNode> responseLines = createPolicies(validLine());
+
+    assertEquals(1, responseLines.size());
+    assertEquals(
+        ControllerExceptionHandler.SERVICE_BUSY_MESSAGE,
+        responseLines.get(0).get("message").asText());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a bulk chunk size which is not positive "
+          + "When the policy properties are validated "
+          + "Then the chunk size is rejected.")
+  void testChunkSizeMustBePositive() {
+    PolicyProperties policyProperties = new PolicyProperties();
+    policyProperties.getBulk().setChunkSize(0);
+
+    assertEquals(1, validator.validate(policyProperties).size());
+  }
+
+  private List<JsonNode> createPolicies(String body) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    bulkPolicyFacade.createPolicies(
+        new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), outputStream);
+    List<JsonNode> responseLines = new ArrayList<>();
+    for (String line : outputStream.toString(StandardCharsets.UTF_8).split("\n")) {
+      responseLines.add(objectMapper.readTree(line));
+    }
+    return responseLines;
+  }
+
+  private String validLine() {
+    return String.format(VALID_LINE, startDate);
+  }
+
+  private List<PolicyResponse> buildResponses(List<PolicyCreationRequest> requests) {
+    List<PolicyResponse> responses = new ArrayList<>();
+    for (PolicyCreationRequest request : requests) {
+      responses.add(
+          PolicyCreationResponse.builder()
+              .policyId(UUID.randomUUID().toString())
+              .insuredPersons(request.getInsuredPersons())
+              .build());
+    }
+    return responses;
+  }
+}
@@ -1,481 +1,784 @@
-package com.embea.policy.facade;
-
-import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.*;
-
-import com.embea.policy.dto.Person;
-import com.embea.policy.dto.Policy;
-import com.embea.policy.dto.PolicyMapping;
-import com.embea.policy.exception.PolicyNotFoundException;
-import com.embea.policy.model.*;
-import com.embea.policy.services.PersonService;
-import com.embea.policy.services.PolicyMappingService;
-import com.embea.policy.services.PolicyService;
-import java.math.BigDecimal;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.*;
-import org.junit.jupiter.api.DisplayName;
-import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
-
-@ExtendWith(MockitoExtension.class)
-class PolicyFacadeTest {
-
-  private static final Date CURRENT_DATE = new Date();
-  private static final Date OLD_DATE = new Date(CURRENT_DATE.getTime() - 432000000);
-  private static final Date START_DATE = new Date(CURRENT_DATE.getTime() + 86400000);
-  private static final Date UPDATED_DATE = new Date(START_DATE.getTime() + 432000000);
-  private static final String FIRST_NAME_1 = "Jane";
-  private static final String SECOND_NAME_1 = "Jackson";
-  private static final BigDecimal PREMIUM_1 = BigDecimal.valueOf(12.90);
-  private static final String FIRST_NAME_2 = "Jack";
-  private static final String SECOND_NAME_2 = "Doe";
-  private static final BigDecimal PREMIUM_2 = BigDecimal.valueOf(15.90);
-  private static final String FIRST_NAME_3 = "Will";
-  private static final String SECOND_NAME_3 = "Smith";
-  private static final BigDecimal PREMIUM_3 = BigDecimal.valueOf(12.90);
-  private static final BigDecimal TOTAL_PREMIUM = BigDecimal.valueOf(28.80);
-  private static final BigDecimal UPDATED_TOTAL_PREMIUM = BigDecimal.valueOf(25.80);
-  private static final String POLICY_ID = UUID.randomUUID().toString();
-  private static final Long PERSON_ID_1 = 1L;
-  private static final Long PERSON_ID_2 = 2L;
-  private static final Long PERSON_ID_3 = 3L;
-
-  @Mock private PolicyService policyService;
-
-  @Mock private PersonService personService;
-
-  @Mock private PolicyMappingService policyMappingService;
-
-  @InjectMocks private PolicyFacade policyFacade;
-
-  @Mock private Policy mockPolicy;
-
-  @Mock private PolicyMapping mockPolicyMapping;
-
-  @Captor private ArgumentCaptor<InsuredPerson> insuredPersonCaptor;
-
-  @Captor private ArgumentCaptor<Policy> policyArgumentCaptor;
-
-  @Test
-  @DisplayName(
-      "Given create policy request with valid inputs "
-          + "When we try to create policy "
-          + "Then it returns created Policy object"
-          + "And person objects with their newly generated ids.")
-  void createPolicySuccessScenario() {
-    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
-    Policy createdPolicy = Policy.builder().policyId(POLICY_ID).startDate(START_DATE).build();
-    doReturn(createdPolicy).when(policyService).insertPolicy(policyCreationRequest);
-    long id = 1L;
-    for (InsuredPerson insuredPerson : policyCreationRequest.getInsuredPersons()) {
-      Person storedPerson =
-          Person.builder()
-              .firstName(insuredPerson.getFirstName())
-              .secondName(insuredPerson.getSecondName())
-              .build();
-      storedPerson.setPersonId(id++);
-      doReturn(storedPerson).when(personService).storePersonEntry(insuredPerson);
-      lenient()
-          .doReturn(mockPolicyMapping)
-          .when(policyMappingService)
-          .storePolicyMapping(anyString(), any(InsuredPerson.class), any(Date.class));
-    }
-    doReturn(mockPolicy).when(policyService).savePolicy(any(Policy.class));
-
-    PolicyResponse policyResponse = policyFacade.createPolicy(policyCreationRequest);
-
-    validateCreatePolicyResponse(policyCreationRequest, policyResponse);
-  }
-
-  @Test
-  @DisplayName(
-      "Given create policy request with valid inputs "
-          + "When we try to create policy "
-          + "And policyService throws an exception "
-          + "Then throws exception back to the caller.")
-  void createPolicyFailureScenario() {
-    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
-
-    doThrow(IllegalArgumentException.class).when(policyService).insertPolicy(policyCreationRequest);
-
-    assertThrows(
-        IllegalArgumentException.class, () -> policyFacade.createPolicy(policyCreationRequest));
-
-    verify(policyService).insertPolicy(policyCreationRequest);
-    verify(personService, never()).storePersonEntry(any(InsuredPerson.class));
-    verify(policyMappingService, never())
-        .storePolicyMapping(anyString(), any(InsuredPerson.class), any(Date.class));
-  }
-
-  @Test
-  @DisplayName(
-      "Given modify policy request with valid policy Id and future effective date "
-          + "And one person added and one person removed "
-          + "When we try to modify policy "
-          + "Then policy details returned with correct person details and future effective date.")
-  void modifyPolicySuccessScenarioWithAdditionAndRemoval() {
-    PolicyModificationRequest policyModificationRequest = createPolicyModificationRequest();
-    policyModificationRequest.setEffectiveDate(UPDATED_DATE);
-
-    Policy createdPolicy = Policy.builder().policyId(POLICY_ID).startDate(START_DATE).build();
-    doReturn(createdPolicy).when(policyService).getPolicy(POLICY_ID, UPDATED_DATE);
-
-    InsuredPerson personToNewlyAdd =
-        InsuredPerson.builder().firstName(FIRST_NAME_3).secondName(SECOND_NAME_3).build();
-    Person personNewlyAdded =
-        Person.builder()
-            .personId(PERSON_ID_3)
-            .firstName(FIRST_NAME_3)
-            .secondName(SECOND_NAME_3)
-            .build();
-    doReturn(personNewlyAdded).when(personService).storePersonEntry(personToNewlyAdd);
-    doReturn(mockPolicyMapping)
-        .when(policyMappingService)
-        .storePolicyMapping(anyString(), any(InsuredPerson.class), any(Date.class));
-
-    PolicyMapping policyMapping1 =
-        PolicyMapping.builder()
-            .id(1L)
-            .policyId(POLICY_ID)
-            .personId(PERSON_ID_1)
-            .premium(PREMIUM_1)
-            .build();
-    PolicyMapping policyMapping2 =
-        PolicyMapping.builder()
-            .id(2L)
-            .policyId(POLICY_ID)
-            .personId(PERSON_ID_2)
-            .premium(PREMIUM_2)
-            .build();
-    PolicyMapping policyMapping3 =
-        PolicyMapping.builder()
-            .id(3L)
-            .policyId(POLICY_ID)
-            .personId(PERSON_ID_3)
-            .premium(PREMIUM_3)
-            .build();
-    List<PolicyMapping> policyMappingList = List.of(policyMapping1, policyMapping2, policyMapping3);
-    doReturn(policyMappingList).when(policyMappingService).findPersonsForPolicy(POLICY_ID);
-
-    doReturn(1)
-        .when(policyMappingService)
-        .removePersonsFromPolicy(anyList(), anyString(), any(Date.class));
-
-    PolicyResponse policyResponse = policyFacade.modifyPolicy(policyModificationRequest);
-
-    validatePolicyModificationResponse(policyResponse);
-  }
-
-  @Test
-  @DisplayName(
-      "Given modify policy request with valid policy Id "
-          + "When we try to modify policy "
-          + "And policyService throws an exception "
-          + "Then throws exception back to the caller.")
-  void modifyPolicyThrowsException() {
-    PolicyModificationRequest policyModificationRequest = createPolicyModificationRequest();
-
-    doThrow(IllegalArgumentException.class).when(policyService).getPolicy(POLICY_ID, START_DATE);
-
-    assertThrows(
-        IllegalArgumentException.class, () -> policyFacade.modifyPolicy(policyModificationRequest));
-  }
-
-  @Test
-  @DisplayName(
-      "Given modify policy request with invalid policy Id "
-          + "When we try to retrieve policy "
-          + "Then throws PolicyNotFoundException back to the caller.")
-  void modifyPolicyWithInvalidPolicyId() {
-    PolicyModificationRequest policyModificationRequest = createPolicyModificationRequest();
-
-    doReturn(null).when(policyService).getPolicy(POLICY_ID, START_DATE);
-
-    assertThrows(
-        PolicyNotFoundException.class, () -> policyFacade.modifyPolicy(policyModificationRequest));
-  }
-
-  @Test
-  @DisplayName(
-      "Given fetch policy request with valid policy Id and request date"
-          + "When we try to retrieve policy "
-          + "Then policy details returned.")
-  void testFetchPolicySuccessScenario() {
-    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
-    Policy fetchedPolicy = Policy.builder().policyId(POLICY_ID).startDate(START_DATE).build();
-    doReturn(fetchedPolicy).when(policyService).getPolicy(POLICY_ID, START_DATE);
-
-    PolicyMapping policyMapping1 =
-        PolicyMapping.builder()
-            .id(1L)
-            .policyId(POLICY_ID)
-            .personId(PERSON_ID_1)
-            .premium(PREMIUM_1)
-            .build();
-    PolicyMapping policyMapping2 =
-        PolicyMapping.builder()
-            .id(2L)
-            .policyId(POLICY_ID)
-            .personId(PERSON_ID_2)
-            .premium(PREMIUM_2)
-            .build();
-    List<PolicyMapping> policyMappingList = List.of(policyMapping1, policyMapping2);
-    doReturn(policyMappingList)
-        .when(policyMappingService)
-        .findPersonsForPolicyAndRequestDate(POLICY_ID, START_DATE);
-
-    Person person1 =
-        Person.builder()
-            .personId(PERSON_ID_1)
-            .firstName(FIRST_NAME_1)
-            .secondName(SECOND_NAME_1)
-            .build();
-    doReturn(person1).when(personService).getPerson(PERSON_ID_1);
-    Person person2 =
-        Person.builder()
-            .personId(PERSON_ID_2)
-            .firstName(FIRST_NAME_2)
-            .secondName(SECOND_NAME_2)
-            .build();
-    doReturn(person2).when(personService).getPerson(PERSON_ID_2);
-
-    PolicyResponse policyResponse = policyFacade.fetchPolicy(policyFetchRequest);
-
-    validatePolicyFetchResponse(policyResponse, START_DATE);
-  }
-
-  @Test
-  @DisplayName(
-      "Given fetch policy request with valid policy Id and no request date"
-          + "When we try to retrieve policy "
-          + "Then policy details returned with current date.")
-  void testFetchPolicySuccessScenarioWithNoRequestDate() {
-    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
-    policyFetchRequest.setRequestDate(null);
-    Policy fetchedPolicy = Policy.builder().policyId(POLICY_ID).startDate(CURRENT_DATE).build();
-    doReturn(fetchedPolicy).when(policyService).getPolicy(eq(POLICY_ID), any(Date.class));
-
-    PolicyMapping policyMapping1 =
-        PolicyMapping.builder()
-            .id(1L)
-            .policyId(POLICY_ID)
-            .personId(PERSON_ID_1)
-            .premium(PREMIUM_1)
-            .build();
-    PolicyMapping policyMapping2 =
-        PolicyMapping.builder()
-            .id(2L)
-            .policyId(POLICY_ID)
-            .personId(PERSON_ID_2)
-            .premium(PREMIUM_2)
-            .build();
-    List<PolicyMapping> policyMappingList = List.of(policyMapping1, policyMapping2);
-    doReturn(policyMappingList)
-        .when(policyMappingService)
-        .findPersonsForPolicyAndRequestDate(eq(POLICY_ID), any(Date.class));
-
-    Person person1 =
-        Person.builder()
-            .personId(PERSON_ID_1)
-            .firstName(FIRST_NAME_1)
-            .secondName(SECOND_NAME_1)
-            .build();
-    doReturn(person1).when(personService).getPerson(PERSON_ID_1);
-    Person person2 =
-        Person.builder()
-            .personId(PERSON_ID_2)
-            .firstName(FIRST_NAME_2)
-            .secondName(SECOND_NAME_2)
-            .build();
-    doReturn(person2).when(personService).getPerson(PERSON_ID_2);
-
-    PolicyResponse policyResponse = policyFacade.fetchPolicy(policyFetchRequest);
-
-    validatePolicyFetchResponse(policyResponse, CURRENT_DATE);
-  }
-
-  @Test
-  @DisplayName(
-      "Given fetch policy request with valid policy Id "
-          + "When we try to retrieve policy "
-          + "And policyService throws an exception "
-          + "Then throws exception back to the caller.")
-  void testFetchPolicyThrowsException() {
-    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
-
-    doThrow(IllegalArgumentException.class).when(policyService).getPolicy(POLICY_ID, START_DATE);
-
-    assertThrows(
-        IllegalArgumentException.class, () -> policyFacade.fetchPolicy(policyFetchRequest));
-  }
-
-  @Test
-  @DisplayName(
-      "Given fetch policy request with valid policy Id and old date"
-          + "When we try to retrieve policy "
-          + "Then throws PolicyNotFoundException back to the caller.")
-  void testFetchPolicyWithInvalidDate() {
-    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
-    policyFetchRequest.setRequestDate(OLD_DATE);
-
-    doReturn(null).when(policyService).getPolicy(POLICY_ID, OLD_DATE);
-
-    assertThrows(PolicyNotFoundException.class, () -> policyFacade.fetchPolicy(policyFetchRequest));
-  }
-
-  private PolicyCreationRequest buildPolicyCreationRequest() {
-    return PolicyCreationRequest.builder()
-        .startDate(START_DATE)
-        .insuredPersons(getInsuredPersonList(false, false))
-        .build();
-  }
-
-  private PolicyModificationRequest createPolicyModificationRequest() {
-    return PolicyModificationRequest.builder()
-        .policyId(POLICY_ID)
-        .insuredPersons(getInsuredPersonList(true, true))
-        .effectiveDate(START_DATE)
-        .build();
-  }
-
-  private PolicyFetchRequest createPolicyFetchRequest() {
-    return PolicyFetchRequest.builder().policyId(POLICY_ID).requestDate(START_DATE).build();
-  }
-
-  private List<InsuredPerson> getInsuredPersonList(boolean setIds, boolean isModify) {
-    List<InsuredPerson> insuredPersonList = new ArrayList<>();
-    InsuredPerson insuredPerson1 =
-        InsuredPerson.builder()
-            .firstName(FIRST_NAME_1)
-            .secondName(SECOND_NAME_1)
-            .premium(PREMIUM_1)
-            .build();
-    if (setIds) {
-      insuredPerson1.setId(PERSON_ID_1);
-    }
-    if (isModify) {
-      InsuredPerson insuredPerson3 =
-          InsuredPerson.builder()
-              .firstName(FIRST_NAME_3)
-              .secondName(SECOND_NAME_3)
-              .premium(PREMIUM_3)
-              .build();
-      insuredPersonList.add(insuredPerson3);
-      insuredPerson1.setId(PERSON_ID_1);
-    } else {
-      InsuredPerson insuredPerson2 =
-          InsuredPerson.builder()
-              .firstName(FIRST_NAME_2)
-              .secondName(SECOND_NAME_2)
-              .premium(PREMIUM_2)
-              .build();
-      if (setIds) {
-        insuredPerson2.setId(PERSON_ID_2);
-      }
-      insuredPersonList.add(insuredPerson2);
-    }
-    insuredPersonList.add(insuredPerson1);
-    return insuredPersonList;
-  }
-
-  private void validateCreatePolicyResponse(
-      PolicyCreationRequest policyCreationRequest, PolicyResponse policyResponse) {
-    assertNotNull(policyResponse);
-    assertTrue(policyResponse instanceof PolicyCreationResponse);
-    PolicyCreationResponse policyCreationResponse = (PolicyCreationResponse) policyResponse;
-    assertEquals(POLICY_ID, policyCreationResponse.getPolicyId());
-    assertEquals(TOTAL_PREMIUM, policyCreationResponse.getTotalPremium());
-    List<Long> personIdList = List.of(PERSON_ID_1, PERSON_ID_2);
-    for (InsuredPerson insuredPerson : policyCreationResponse.getInsuredPersons()) {
-      assertTrue(personIdList.contains(insuredPerson.getId()));
-    }
-    Instant instant1 = START_DATE.toInstant().truncatedTo(ChronoUnit.DAYS);
-    Instant instant2 =
-        policyCreationResponse.getStartDate().toInstant().truncatedTo(ChronoUnit.DAYS);
-    assertEquals(instant1, instant2);
-    verify(policyService).insertPolicy(policyCreationRequest);
-    verify(personService, times(2)).storePersonEntry(any(InsuredPerson.class));
-    verify(policyMappingService, times(2))
-        .storePolicyMapping(anyString(), any(InsuredPerson.class), any(Date.class));
-  }
-
-  private void validatePolicyModificationResponse(PolicyResponse policyResponse) {
-    assertNotNull(policyResponse);
-    assertTrue(policyResponse instanceof PolicyModificationResponse);
-    PolicyModificationResponse policyModificationResponse =
-        (PolicyModificationResponse) policyResponse;
-    assertEquals(UPDATED_TOTAL_PREMIUM, policyModificationResponse.getTotalPremium());
-    assertEquals(POLICY_ID, policyModificationResponse.getPolicyId());
-    Instant instant1 = UPDATED_DATE.toInstant().truncatedTo(ChronoUnit.DAYS);
-    Instant instant2 =
-        policyModificationResponse.getEffectiveDate().toInstant().truncatedTo(ChronoUnit.DAYS);
-    assertEquals(instant1, instant2);
-
-    InsuredPerson insuredPerson1 =
-        InsuredPerson.builder()
-            .id(PERSON_ID_1)
-            .firstName(FIRST_NAME_1)
-            .secondName(SECOND_NAME_1)
-            .premium(PREMIUM_1)
-            .build();
-    InsuredPerson insuredPerson3 =
-        InsuredPerson.builder()
-            .id(PERSON_ID_3)
-            .firstName(FIRST_NAME_3)
-            .secondName(SECOND_NAME_3)
-            .premium(PREMIUM_3)
-            .build();
-    Set<InsuredPerson> insuredPersonSet = Set.of(insuredPerson1, insuredPerson3);
-    for (InsuredPerson insuredPerson : policyModificationResponse.getInsuredPersons()) {
-      assertTrue(insuredPersonSet.contains(insuredPerson));
-    }
-    verify(policyService).getPolicy(POLICY_ID, UPDATED_DATE);
-    verify(personService).storePersonEntry(insuredPersonCaptor.capture());
-    InsuredPerson personCaptorValue = insuredPersonCaptor.getValue();
-    assertEquals(PERSON_ID_3, personCaptorValue.getId());
-    verify(policyMappingService)
-        .storePolicyMapping(anyString(), any(InsuredPerson.class), any(Date.class));
-    verify(policyMappingService).findPersonsForPolicy(POLICY_ID);
-    verify(policyMappingService).removePersonsFromPolicy(anyList(), anyString(), any(Date.class));
-  }
-
-  private void validatePolicyFetchResponse(PolicyResponse policyResponse, Date effectiveDate) {
-    assertNotNull(policyResponse);
-    assertTrue(policyResponse instanceof PolicyFetchResponse);
-    PolicyFetchResponse policyFetchResponse = (PolicyFetchResponse) policyResponse;
-    assertEquals(TOTAL_PREMIUM, policyFetchResponse.getTotalPremium());
-    assertEquals(POLICY_ID, policyFetchResponse.getPolicyId());
-
-    Instant instant1 = effectiveDate.toInstant().truncatedTo(ChronoUnit.DAYS);
-    Instant instant2 =
-        policyFetchResponse.getRequestDate().toInstant().truncatedTo(ChronoUnit.DAYS);
-    assertEquals(instant1, instant2);
-
-    InsuredPerson insuredPerson1 =
-        InsuredPerson.builder()
-            .id(PERSON_ID_1)
-            .firstName(FIRST_NAME_1)
-            .secondName(SECOND_NAME_1)
-            .premium(PREMIUM_1)
-            .build();
-    InsuredPerson insuredPerson2 =
-        InsuredPerson.builder()
-            .id(PERSON_ID_2)
-            .firstName(FIRST_NAME_2)
-            .secondName(SECOND_NAME_2)
-            .premium(PREMIUM_2)
-            .build();
-    Set<InsuredPerson> insuredPersonSet = Set.of(insuredPerson1, insuredPerson2);
-    for (InsuredPerson insuredPerson : policyFetchResponse.getInsuredPersons()) {
-      assertTrue(insuredPersonSet.contains(insuredPerson));
-    }
-  }
-}
+package com.embea.policy.facade;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.dto.Person;
+import com.embea.policy.dto.Policy;
+import com.embea.policy.dto.PolicyMapping;
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.dto.PolicyMemberInterval;
+import com.embea.policy.exception.PolicyNotFoundException;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.model.*;
+import com.embea.policy.services.PersonService;
+import com.embea.policy.services.PolicyFetchCache;
+import com.embea.policy.services.PolicyMappingService;
+import com.embea.policy.services.PolicyMembershipIndex;
+import com.embea.policy.services.PolicyPremiumService;
+import com.embea.policy.services.PolicyService;
+import com.embea.policy.utils.DateUtils;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PolicyFacadeTest {
+
+  private static final Date CURRENT_DATE = new Date();
+  private static final Date OLD_DATE = new Date(CURRENT_DATE.getTime() - 432000000);
+  private static final Date START_DATE = new Date(CURRENT_DATE.getTime() + 86400000);
+  private static final Date UPDATED_DATE = new Date(START_DATE.getTime() + 432000000);
+  private static final String FIRST_NAME_1 = "Jane";
+  private static final String SECOND_NAME_1 = "Jackson";
+  private static final BigDecimal PREMIUM_1 = BigDecimal.valueOf(12.90);
+  private static final String FIRST_NAME_2 = "Jack";
+  private static final String SECOND_NAME_2 = "Doe";
+  private static final BigDecimal PREMIUM_2 = BigDecimal.valueOf(15.90);
+  private static final String FIRST_NAME_3 = "Will";
+  private static final String SECOND_NAME_3 = "Smith";
+  private static final BigDecimal PREMIUM_3 = BigDecimal.valueOf(12.90);
+  private static final BigDecimal TOTAL_PREMIUM = BigDecimal.valueOf(28.80);
+  private static final BigDecimal UPDATED_TOTAL_PREMIUM = BigDecimal.valueOf(25.80);
+  private static final String POLICY_ID = UUID.randomUUID().toString();
+  private static final Long PERSON_ID_1 = 1L;
+  private static final Long PERSON_ID_2 = 2L;
+  private static final Long PERSON_ID_3 = 3L;
+
+  @Mock private PolicyService policyService;
+
+  @Mock private PersonService personService;
+
+  @Mock private PolicyMappingService policyMappingService;
+
+  @Mock private PolicyMembershipIndex policyMembershipIndex;
+
+  @Mock private PolicyFetchCache policyFetchCache;
+
+  @Mock private PolicyPremiumService policyPremiumService;
+
+  @Mock private PolicyMetrics policyMetrics;
+
+  @InjectMocks private PolicyFacade policyFacade;
+
+  @Mock private Policy mockPolicy;
+
+  @Mock private PolicyMapping mockPolicyMapping;
+
+  @Captor private ArgumentCaptor<List<InsuredPerson>> insuredPersonListCaptor;
+
+  @Captor private ArgumentCaptor<Policy> policyArgumentCaptor;
+
+  @Test
+  @DisplayName(
+      "Given create policy request with valid inputs "
+          + "When we try to create policy "
+          + "Then it returns created Policy object"
+          + "And person objects with their newly generated ids.")
+  void createPolicySuccessScenario() {
+    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
+    Policy createdPolicy = Policy.builder().policyId(POLICY_ID).startDate(START_DATE).build();
+    doReturn(createdPolicy).when(policyService).insertPolicy(policyCreationRequest);
+    long id = 1L;
+    List<Person> storedPersons = new ArrayList<>();
+    for (InsuredPerson insuredPerson : policyCreationRequest.getInsuredPersons()) {
+      storedPersons.add(
+          Person.builder()
+              .personId(id++)
+              .firstName(insuredPerson.getFirstName())
+              .secondName(insuredPerson.getSecondName())
+              .build());
+    }
+    doReturn(storedPersons)
+        .when(personService)
+        .storePersonEntries(policyCreationRequest.getInsuredPersons());
+    doReturn(List.of(mockPolicyMapping, mockPolicyMapping))
+        .when(policyMappingService)
+        .storePolicyMappings(anyString(), anyList(), any(Date.class));
+
+    PolicyResponse policyResponse = policyFacade.createPolicy(policyCreationRequest);
+
+    validateCreatePolicyResponse(policyCreationRequest, policyResponse);
+    verify(policyMembershipIndex)
+        .policyCreated(POLICY_ID, START_DATE, policyResponse.getInsuredPersons());
+    verify(policyPremiumService)
+        .policyCreated(POLICY_ID, START_DATE, policyResponse.getInsuredPersons());
+    verify(policyMetrics).recordInsuredPersons(PolicyMetrics.OPERATION_CREATE, 2);
+  }
+
+  @Test
+  @DisplayName(
+      "Given create policy request with valid inputs "
+          + "When we try to create policy "
+          + "And policyService throws an exception "
+          + "Then throws exception back to the caller.")
+  void createPolicyFailureScenario() {
+    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
+
+    doThrow(IllegalArgumentException.class).when(policyService).insertPolicy(policyCreationRequest);
+
+    assertThrows(
+        IllegalArgumentException.class, () -> policyFacade.createPolicy(policyCreationRequest));
+
+    verify(policyService).insertPolicy(policyCreationRequest);
+    verify(personService, never()).storePersonEntries(anyList());
+    verify(policyMappingService, never())
+        .storePolicyMappings(anyString(), anyList(), any(Date.class));
+  }
+
+  @Test
+  @DisplayName(
+      "Given modify policy request with valid policy Id and future effective date "
+          + "And one person added and one person removed "
+          + "When we try to modify policy "
+          + "Then policy details returned with correct person details and future effective date.")
+  void modifyPolicySuccessScenarioWithAdditionAndRemoval() {
+    PolicyModificationRequest policyModificationRequest = createPolicyModificationRequest();
+    policyModificationRequest.setEffectiveDate(UPDATED_DATE);
+
+    Policy createdPolicy = Policy.builder().policyId(POLICY_ID).startDate(START_DATE).build();
+    doReturn(createdPolicy).when(policyService).getPolicy(POLICY_ID, UPDATED_DATE);
+
+    Person personNewlyAdded =
+        Person.builder()
+            .personId(PERSON_ID_3)
+            .firstName(FIRST_NAME_3)
+            .secondName(SECOND_NAME_3)
+            .build();
+    doReturn(List.of(personNewlyAdded))
+        .when(personService)
+        .storePersonEntries(anyList(), eq(Set.of(PERSON_ID_1, PERSON_ID_2)));
+    doReturn(List.of(mockPolicyMapping))
+        .when(policyMappingService)
+        .storePolicyMappings(anyString(), anyList(), any(Date.class));
+    doReturn(Set.of(PERSON_ID_1, PERSON_ID_2))
+        .when(policyMappingService)
+        .findActivePersonIds(POLICY_ID, UPDATED_DATE);
+    PolicyMapping removedMapping =
+        PolicyMapping.builder()
+            .policyId(POLICY_ID)
+            .personId(PERSON_ID_2)
+            .premium(PREMIUM_2)
+            .build();
+    doReturn(List.of(removedMapping))
+        .when(policyMappingService)
+        .findActivePolicyMappings(List.of(PERSON_ID_2), POLICY_ID, UPDATED_DATE);
+
+    doReturn(1)
+        .when(policyMappingService)
+        .removePersonsFromPolicy(anyList(), anyString(), any(Date.class));
+
+    PolicyResponse policyResponse = policyFacade.modifyPolicy(policyModificationRequest);
+
+    validatePolicyModificationResponse(policyResponse);
+    InsuredPerson addedPerson =
+        InsuredPerson.builder()
+            .id(PERSON_ID_3)
+            .firstName(FIRST_NAME_3)
+            .secondName(SECOND_NAME_3)
+            .premium(PREMIUM_3)
+            .build();
+    verify(policyMembershipIndex)
+        .policyModified(POLICY_ID, UPDATED_DATE, List.of(addedPerson), List.of(PERSON_ID_2));
+    verify(policyFetchCache).policyModified(POLICY_ID, UPDATED_DATE);
+    verify(policyPremiumService)
+        .policyModified(POLICY_ID, UPDATED_DATE, List.of(addedPerson), List.of(removedMapping));
+  }
+
+  @Test
+  @DisplayName(
+      "Given person identity resolution enabled "
+          + "And a person added to the policy after the effective date "
+          + "When we add a person to the policy "
+          + "Then persons insured on or after the effective date are not reused.")
+  void modifyPolicyExcludesPersonsInsuredLater() {
+    PolicyModificationRequest policyModificationRequest = createPolicyModificationRequest();
+    policyModificationRequest.setEffectiveDate(UPDATED_DATE);
+    Policy createdPolicy = Policy.builder().policyId(POLICY_ID).startDate(START_DATE).build();
+    doReturn(createdPolicy).when(policyService).getPolicy(POLICY_ID, UPDATED_DATE);
+    doReturn(Set.of(PERSON_ID_1, PERSON_ID_2))
+        .when(policyMappingService)
+        .findActivePersonIds(POLICY_ID, UPDATED_DATE);
+    doReturn(Set.of(PERSON_ID_1, PERSON_ID_2, 4L))
+        .when(policyMappingService)
+        .findInsuredPersonIdsFrom(POLICY_ID, UPDATED_DATE);
+    doReturn(true).when(personService).isReusingPersons();
+    doReturn(
+            List.of(
+                Person.builder()
+                    .personId(PERSON_ID_3)
+                    .firstName(FIRST_NAME_3)
+                    .secondName(SECOND_NAME_3)
+                    .build()))
+        .when(personService)
+        .storePersonEntries(anyList(), anySet());
+
+    policyFacade.modifyPolicy(policyModificationRequest);
+
+    verify(personService).storePersonEntries(anyList(), eq(Set.of(PERSON_ID_1, PERSON_ID_2, 4L)));
+  }
+
+  @Test
+  @DisplayName(
+      "Given modify policy request with valid policy Id "
+          + "And all insured persons kept "
+          + "When we try to modify policy "
+          + "Then no person is stored or removed.")
+  void modifyPolicyWithoutChanges() {
+    PolicyModificationRequest policyModificationRequest =
+        PolicyModificationRequest.builder()
+            .policyId(POLICY_ID)
+            .insuredPersons(getInsuredPersonList(true, false))
+            .effectiveDate(UPDATED_DATE)
+            .build();
+    Policy createdPolicy = Policy.builder().policyId(POLICY_ID).startDate(START_DATE).build();
+    doReturn(createdPolicy).when(policyService).getPolicy(POLICY_ID, UPDATED_DATE);
+    doReturn(Set.of(PERSON_ID_1, PERSON_ID_2))
+        .when(policyMappingService)
+        .findActivePersonIds(POLICY_ID, UPDATED_DATE);
+
+    PolicyResponse policyResponse = policyFacade.modifyPolicy(policyModificationRequest);
+
+    assertEquals(2, policyResponse.getInsuredPersons().size());
+    verifyNoInteractions(personService);
+    verify(policyMappingService, never())
+        .storePolicyMappings(anyString(), anyList(), any(Date.class));
+    verify(policyMappingService, never())
+        .removePersonsFromPolicy(anyList(), anyString(), any(Date.class));
+    verify(policyPremiumService).policyModified(POLICY_ID, UPDATED_DATE, List.of(), List.of());
+  }
+
+  @Test
+  @DisplayName(
+      "Given modify policy request with valid policy Id "
+          + "When we try to modify policy "
+          + "And policyService throws an exception "
+          + "Then throws exception back to the caller.")
+  void modifyPolicyThrowsException() {
+    PolicyModificationRequest policyModificationRequest = createPolicyModificationRequest();
+
+    doThrow(IllegalArgumentException.class).when(policyService).getPolicy(POLICY_ID, START_DATE);
+
+    assertThrows(
+        IllegalArgumentException.class, () -> policyFacade.modifyPolicy(policyModificationRequest));
+  }
+
+  @Test
+  @DisplayName(
+      "Given modify policy request with invalid policy Id "
+          + "When we try to retrieve policy "
+          + "Then throws PolicyNotFoundException back to the caller.")
+  void modifyPolicyWithInvalidPolicyId() {
+    PolicyModificationRequest policyModificationRequest = createPolicyModificationRequest();
+
+    doReturn(null).when(policyService).getPolicy(POLICY_ID, START_DATE);
+
+    assertThrows(
+        PolicyNotFoundException.class, () -> policyFacade.modifyPolicy(policyModificationRequest));
+  }
+
+  @Test
+  @DisplayName(
+      "Given fetch policy request with valid policy Id and request date"
+          + "When we try to retrieve policy "
+          + "Then policy details returned from the membership index.")
+  void testFetchPolicySuccessScenario() {
+    stubFetchCacheMiss();
+    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
+    doReturn(createPolicyMembers())
+        .when(policyMembershipIndex)
+        .getPolicyMembers(POLICY_ID, START_DATE);
+
+    PolicyResponse policyResponse = policyFacade.fetchPolicy(policyFetchRequest);
+
+    validatePolicyFetchResponse(policyResponse, START_DATE);
+    verify(policyMembershipIndex).getPolicyMembers(POLICY_ID, START_DATE);
+    verify(policyService, never()).getPolicy(anyString(), any(Date.class));
+    verifyNoInteractions(personService, policyMappingService);
+  }
+
+  @Test
+  @DisplayName(
+      "Given fetch policy request with valid policy Id and no request date"
+          + "When we try to retrieve policy "
+          + "Then policy details returned with current date.")
+  void testFetchPolicySuccessScenarioWithNoRequestDate() {
+    stubFetchCacheMiss();
+    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
+    policyFetchRequest.setRequestDate(null);
+    doReturn(createPolicyMembers())
+        .when(policyMembershipIndex)
+        .getPolicyMembers(eq(POLICY_ID), any(Date.class));
+
+    PolicyResponse policyResponse = policyFacade.fetchPolicy(policyFetchRequest);
+
+    validatePolicyFetchResponse(policyResponse, CURRENT_DATE);
+  }
+
+  @Test
+  @DisplayName(
+      "Given fetch policy request with valid policy Id "
+          + "And no insured person active on request date "
+          + "When we try to retrieve policy "
+          + "Then policy details returned without insured persons and zero premium.")
+  void testFetchPolicyWithoutInsuredPersons() {
+    stubFetchCacheMiss();
+    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
+    doReturn(List.of(new PolicyMember(POLICY_ID, null, null, null, null)))
+        .when(policyMembershipIndex)
+        .getPolicyMembers(POLICY_ID, START_DATE);
+
+    PolicyResponse policyResponse = policyFacade.fetchPolicy(policyFetchRequest);
+
+    assertEquals(POLICY_ID, policyResponse.getPolicyId());
+    assertTrue(policyResponse.getInsuredPersons().isEmpty());
+    assertEquals(0, BigDecimal.ZERO.compareTo(policyResponse.getTotalPremium()));
+  }
+
+  @Test
+  @DisplayName(
+      "Given fetch policy request with valid policy Id "
+          + "When we try to retrieve policy "
+          + "And policyMembershipIndex throws an exception "
+          + "Then throws exception back to the caller.")
+  void testFetchPolicyThrowsException() {
+    stubFetchCacheMiss();
+    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
+
+    doThrow(IllegalArgumentException.class)
+        .when(policyMembershipIndex)
+        .getPolicyMembers(POLICY_ID, START_DATE);
+
+    assertThrows(
+        IllegalArgumentException.class, () -> policyFacade.fetchPolicy(policyFetchRequest));
+  }
+
+  @Test
+  @DisplayName(
+      "Given fetch policy request with valid policy Id and old date"
+          + "When we try to retrieve policy "
+          + "Then throws PolicyNotFoundException back to the caller.")
+  void testFetchPolicyWithInvalidDate() {
+    stubFetchCacheMiss();
+    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
+    policyFetchRequest.setRequestDate(OLD_DATE);
+
+    doReturn(List.of()).when(policyMembershipIndex).getPolicyMembers(POLICY_ID, OLD_DATE);
+
+    assertThrows(PolicyNotFoundException.class, () -> policyFacade.fetchPolicy(policyFetchRequest));
+  }
+
+  @Test
+  @DisplayName(
+      "Given batch fetch request with found, duplicate and unknown policy Ids "
+          + "When we try to retrieve policies "
+          + "Then found policies returned in request order and unknown Ids reported as not found.")
+  void testFetchPoliciesSuccessScenario() {
+    String otherPolicyId = UUID.randomUUID().toString();
+    String unknownPolicyId = UUID.randomUUID().toString();
+    PolicyBatchFetchRequest policyBatchFetchRequest =
+        PolicyBatchFetchRequest.builder()
+            .policyIds(List.of(otherPolicyId, POLICY_ID, unknownPolicyId, POLICY_ID))
+            .requestDate(START_DATE)
+            .build();
+    List<PolicyMember> policyMembers = new ArrayList<>(createPolicyMembers());
+    policyMembers.add(new PolicyMember(otherPolicyId, null, null, null, null));
+    doReturn(policyMembers)
+        .when(policyService)
+        .getPolicyMembers(List.of(otherPolicyId, POLICY_ID, unknownPolicyId), START_DATE);
+
+    PolicyBatchFetchResponse policyBatchFetchResponse =
+        policyFacade.fetchPolicies(policyBatchFetchRequest);
+
+    assertEquals(START_DATE, policyBatchFetchResponse.getRequestDate());
+    assertEquals(2, policyBatchFetchResponse.getPolicies().size());
+    PolicyFetchResponse otherPolicy = policyBatchFetchResponse.getPolicies().get(0);
+    assertEquals(otherPolicyId, otherPolicy.getPolicyId());
+    assertTrue(otherPolicy.getInsuredPersons().isEmpty());
+    validatePolicyFetchResponse(policyBatchFetchResponse.getPolicies().get(1), START_DATE);
+    assertEquals(List.of(unknownPolicyId), policyBatchFetchResponse.getNotFoundPolicyIds());
+    verifyNoInteractions(personService, policyMappingService);
+  }
+
+  @Test
+  @DisplayName(
+      "Given batch fetch request with no request date "
+          + "When we try to retrieve policies "
+          + "Then policies are fetched with current date.")
+  void testFetchPoliciesWithNoRequestDate() {
+    PolicyBatchFetchRequest policyBatchFetchRequest =
+        PolicyBatchFetchRequest.builder().policyIds(List.of(POLICY_ID)).build();
+    doReturn(createPolicyMembers())
+        .when(policyService)
+        .getPolicyMembers(eq(List.of(POLICY_ID)), any(Date.class));
+
+    PolicyBatchFetchResponse policyBatchFetchResponse =
+        policyFacade.fetchPolicies(policyBatchFetchRequest);
+
+    validatePolicyFetchResponse(policyBatchFetchResponse.getPolicies().get(0), CURRENT_DATE);
+    assertTrue(policyBatchFetchResponse.getNotFoundPolicyIds().isEmpty());
+  }
+
+  @Test
+  @DisplayName(
+      "Given fetch policy request with valid policy Id and request date "
+          + "And a cached response valid on that date "
+          + "When we try to retrieve policy "
+          + "Then cached response returned without reading policy members.")
+  void testFetchPolicyServedFromCache() {
+    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
+    PolicyFetchResponse cachedResponse =
+        PolicyFetchResponse.builder()
+            .policyId(POLICY_ID)
+            .insuredPersons(List.of())
+            .requestDate(START_DATE)
+            .build();
+    doReturn(cachedResponse).when(policyFetchCache).get(eq(POLICY_ID), eq(START_DATE), any());
+
+    PolicyResponse policyResponse = policyFacade.fetchPolicy(policyFetchRequest);
+
+    assertSame(cachedResponse, policyResponse);
+    verifyNoInteractions(policyMembershipIndex);
+  }
+
+  @Test
+  @DisplayName(
+      "Given fetch premium request with valid policy Id and request date "
+          + "When we try to retrieve policy premium "
+          + "Then total premium returned from the premium changes without reading members.")
+  void testFetchPremiumSuccessScenario() {
+    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
+    doReturn(TOTAL_PREMIUM).when(policyPremiumService).getTotalPremium(POLICY_ID, START_DATE);
+
+    PolicyPremiumResponse policyPremiumResponse = policyFacade.fetchPremium(policyFetchRequest);
+
+    assertEquals(POLICY_ID, policyPremiumResponse.getPolicyId());
+    assertEquals(0, TOTAL_PREMIUM.compareTo(policyPremiumResponse.getTotalPremium()));
+    assertEquals(START_DATE, policyPremiumResponse.getRequestDate());
+    verifyNoInteractions(policyMembershipIndex, policyFetchCache, policyService);
+  }
+
+  @Test
+  @DisplayName(
+      "Given fetch premium request with valid policy Id and date before policy start "
+          + "When we try to retrieve policy premium "
+          + "Then throws PolicyNotFoundException back to the caller.")
+  void testFetchPremiumWithInvalidDate() {
+    PolicyFetchRequest policyFetchRequest = createPolicyFetchRequest();
+    policyFetchRequest.setRequestDate(OLD_DATE);
+    doReturn(null).when(policyPremiumService).getTotalPremium(POLICY_ID, OLD_DATE);
+
+    assertThrows(
+        PolicyNotFoundException.class, () -> policyFacade.fetchPremium(policyFetchRequest));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy whose insured persons changed twice "
+          + "When we fetch its timeline over a range starting before the policy "
+          + "Then one period is returned per change from the policy start "
+          + "And each period holds the insured persons and total premium in effect.")
+  void testFetchPolicyTimeline() {
+    long startDay = DateUtils.toEpochDay(START_DATE);
+    Date policyStartDate = DateUtils.fromEpochDay(startDay);
+    doReturn(
+            List.of(
+                buildMemberInterval(
+                    policyStartDate, PERSON_ID_2, PREMIUM_2, startDay, startDay + 5),
+                buildMemberInterval(policyStartDate, PERSON_ID_1, PREMIUM_1, startDay, null),
+                buildMemberInterval(
+                    policyStartDate, PERSON_ID_3, PREMIUM_3, startDay + 5, startDay + 8),
+                buildMemberInterval(policyStartDate, 4L, PREMIUM_3, startDay + 3, startDay + 3)))
+        .when(policyService)
+        .getPolicyMemberIntervals(POLICY_ID);
+
+    PolicyTimelineResponse policyTimelineResponse =
+        policyFacade.fetchPolicyTimeline(
+            PolicyTimelineRequest.builder()
+                .policyId(POLICY_ID)
+                .fromDate(DateUtils.fromEpochDay(startDay - 2))
+                .toDate(DateUtils.fromEpochDay(startDay + 10))
+                .build());
+
+    List<PolicyTimelinePeriod> periods = policyTimelineResponse.getPeriods();
+    assertEquals(3, periods.size());
+    validateTimelinePeriod(
+        periods.get(0), startDay, startDay + 4, List.of(PERSON_ID_1, PERSON_ID_2), TOTAL_PREMIUM);
+    validateTimelinePeriod(
+        periods.get(1),
+        startDay + 5,
+        startDay + 7,
+        List.of(PERSON_ID_1, PERSON_ID_3),
+        PREMIUM_1.add(PREMIUM_3));
+    validateTimelinePeriod(
+        periods.get(2), startDay + 8, startDay + 10, List.of(PERSON_ID_1), PREMIUM_1);
+    verify(policyService).getPolicyMemberIntervals(POLICY_ID);
+    verifyNoInteractions(policyMembershipIndex, policyMappingService);
+  }
+
+  @Test
+  @DisplayName(
+      "Given a person removed from a policy and added again on the same day "
+          + "When we fetch its timeline "
+          + "Then the person stays insured from that day on.")
+  void testFetchPolicyTimelineWithRemovalAndAdditionOnSameDay() {
+    long startDay = DateUtils.toEpochDay(START_DATE);
+    Date policyStartDate = DateUtils.fromEpochDay(startDay);
+    doReturn(
+            List.of(
+                buildMemberInterval(policyStartDate, PERSON_ID_1, PREMIUM_1, startDay, null),
+                buildMemberInterval(
+                    policyStartDate, PERSON_ID_2, PREMIUM_2, startDay, startDay + 5),
+                buildMemberInterval(policyStartDate, PERSON_ID_2, PREMIUM_3, startDay + 5, null)))
+        .when(policyService)
+        .getPolicyMemberIntervals(POLICY_ID);
+
+    PolicyTimelineResponse policyTimelineResponse =
+        policyFacade.fetchPolicyTimeline(
+            PolicyTimelineRequest.builder()
+                .policyId(POLICY_ID)
+                .fromDate(DateUtils.fromEpochDay(startDay))
+                .toDate(DateUtils.fromEpochDay(startDay + 10))
+                .build());
+
+    List<PolicyTimelinePeriod> periods = policyTimelineResponse.getPeriods();
+    assertEquals(2, periods.size());
+    validateTimelinePeriod(
+        periods.get(0), startDay, startDay + 4, List.of(PERSON_ID_1, PERSON_ID_2), TOTAL_PREMIUM);
+    validateTimelinePeriod(
+        periods.get(1),
+        startDay + 5,
+        startDay + 10,
+        List.of(PERSON_ID_1, PERSON_ID_2),
+        PREMIUM_1.add(PREMIUM_3));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy and a timeline range ending before the policy start "
+          + "When we fetch its timeline "
+          + "Then throws PolicyNotFoundException back to the caller.")
+  void testFetchPolicyTimelineBeforePolicyStart() {
+    long startDay = DateUtils.toEpochDay(START_DATE);
+    doReturn(
+            List.of(
+                buildMemberInterval(
+                    DateUtils.fromEpochDay(startDay), PERSON_ID_1, PREMIUM_1, startDay, null)))
+        .when(policyService)
+        .getPolicyMemberIntervals(POLICY_ID);
+    PolicyTimelineRequest policyTimelineRequest =
+        PolicyTimelineRequest.builder()
+            .policyId(POLICY_ID)
+            .fromDate(DateUtils.fromEpochDay(startDay - 5))
+            .toDate(DateUtils.fromEpochDay(startDay - 1))
+            .build();
+
+    assertThrows(
+        PolicyNotFoundException.class,
+        () -> policyFacade.fetchPolicyTimeline(policyTimelineRequest));
+  }
+
+  private void validateTimelinePeriod(
+      PolicyTimelinePeriod period,
+      long fromDay,
+      long toDay,
+      List<Long> personIds,
+      BigDecimal totalPremium) {
+    assertEquals(DateUtils.fromEpochDay(fromDay), period.getFromDate());
+    assertEquals(DateUtils.fromEpochDay(toDay), period.getToDate());
+    List<Long> insuredPersonIds = new ArrayList<>();
+    for (InsuredPerson insuredPerson : period.getInsuredPersons()) {
+      insuredPersonIds.add(insuredPerson.getId());
+    }
+    assertEquals(personIds, insuredPersonIds);
+    assertEquals(0, totalPremium.compareTo(period.getTotalPremium()));
+  }
+
+  private PolicyMemberInterval buildMemberInterval(
+      Date startDate, Long personId, BigDecimal premium, long additionDay, Long removalDay) {
+    return new PolicyMemberInterval(
+        POLICY_ID,
+        startDate,
+        personId,
+        FIRST_NAME_1,
+        SECOND_NAME_1,
+        premium,
+        DateUtils.fromEpochDay(additionDay),
+        removalDay != null ? DateUtils.fromEpochDay(removalDay) : null);
+  }
+
+  private void stubFetchCacheMiss() {
+    doAnswer(invocation -> invocation.<Supplier<PolicyFetchResponse>>getArgument(2).get())
+        .when(policyFetchCache)
+        .get(anyString(), any(Date.class), any());
+  }
+
+  private List<PolicyMember> createPolicyMembers() {
+    return List.of(
+        new PolicyMember(POLICY_ID, PERSON_ID_1, FIRST_NAME_1, SECOND_NAME_1, PREMIUM_1),
+        new PolicyMember(POLICY_ID, PERSON_ID_2, FIRST_NAME_2, SECOND_NAME_2, PREMIUM_2));
+  }
+
+  private PolicyCreationRequest buildPolicyCreationRequest() {
+    return PolicyCreationRequest.builder()
+        .startDate(START_DATE)
+        .insuredPersons(getInsuredPersonList(false, false))
+        .build();
+  }
+
+  private PolicyModificationRequest createPolicyModificationRequest() {
+    return PolicyModificationRequest.builder()
+        .policyId(POLICY_ID)
+        .insuredPersons(getInsuredPersonList(true, true))
+        .effectiveDate(START_DATE)
+        .build();
+  }
+
+  private PolicyFetchRequest createPolicyFetchRequest() {
+    return PolicyFetchRequest.builder().policyId(POLICY_ID).requestDate(START_DATE).build();
+  }
+
+  private List<InsuredPerson> getInsuredPersonList(boolean setIds, boolean isModify) {
+    List<InsuredPerson> insuredPersonList = new ArrayList<>();
+    InsuredPerson insuredPerson1 =
+        InsuredPerson.builder()
+            .firstName(FIRST_NAME_1)
+            .secondName(SECOND_NAME_1)
+            .premium(PREMIUM_1)
+            .build();
+    if (setIds) {
+      insuredPerson1.setId(PERSON_ID_1);
+    }
+    if (isModify) {
+      InsuredPerson insuredPerson3 =
+          InsuredPerson.builder()
+              .firstName(FIRST_NAME_3)
+              .secondName(SECOND_NAME_3)
+              .premium(PREMIUM_3)
+              .build();
+      insuredPersonList.add(insuredPerson3);
+      insuredPerson1.setId(PERSON_ID_1);
+    } else {
+      InsuredPerson insuredPerson2 =
+          InsuredPerson.builder()
+              .firstName(FIRST_NAME_2)
+              .secondName(SECOND_NAME_2)
+              .premium(PREMIUM_2)
+              .build();
+      if (setIds) {
+        insuredPerson2.setId(PERSON_ID_2);
+      }
+      insuredPersonList.add(insuredPerson2);
+    }
+    insuredPersonList.add(insuredPerson1);
+    return insuredPersonList;
+  }
+
+  private void validateCreatePolicyResponse(
+      PolicyCreationRequest policyCreationRequest, PolicyResponse policyResponse) {
+    assertNotNull(policyResponse);
+    assertTrue(policyResponse instanceof PolicyCreationResponse);
+    PolicyCreationResponse policyCreationResponse = (PolicyCreationResponse) policyResponse;
+    assertEquals(POLICY_ID, policyCreationResponse.getPolicyId());
+    assertEquals(TOTAL_PREMIUM, policyCreationResponse.getTotalPremium());
+    List<Long> personIdList = List.of(PERSON_ID_1, PERSON_ID_2);
+    for (InsuredPerson insuredPerson : policyCreationResponse.getInsuredPersons()) {
+      assertTrue(personIdList.contains(insuredPerson.getId()));
+    }
+    Instant instant1 = START_DATE.toInstant().truncatedTo(ChronoUnit.DAYS);
+    Instant instant2 =
+        policyCreationResponse.getStartDate().toInstant().truncatedTo(ChronoUnit.DAYS);
+    assertEquals(instant1, instant2);
+    verify(policyService).insertPolicy(policyCreationRequest);
+    verify(personService).storePersonEntries(policyCreationRequest.getInsuredPersons());
+    verify(policyMappingService)
+        .storePolicyMappings(
+            eq(POLICY_ID), eq(policyCreationRequest.getInsuredPersons()), any(Date.class));
+  }
+
+  private void validatePolicyModificationResponse(PolicyResponse policyResponse) {
+    assertNotNull(policyResponse);
+    assertTrue(policyResponse instanceof PolicyModificationResponse);
+    PolicyModificationResponse policyModificationResponse =
+        (PolicyModificationResponse) policyResponse;
+    assertEquals(UPDATED_TOTAL_PREMIUM, policyModificationResponse.getTotalPremium());
+    assertEquals(POLICY_ID, policyModificationResponse.getPolicyId());
+    Instant instant1 = UPDATED_DATE.toInstant().truncatedTo(ChronoUnit.DAYS);
+    Instant instant2 =
+        policyModificationResponse.getEffectiveDate().toInstant().truncatedTo(ChronoUnit.DAYS);
+    assertEquals(instant1, instant2);
+
+    InsuredPerson insuredPerson1 =
+        InsuredPerson.builder()
+            .id(PERSON_ID_1)
+            .firstName(FIRST_NAME_1)
+            .secondName(SECOND_NAME_1)
+            .premium(PREMIUM_1)
+            .build();
+    InsuredPerson insuredPerson3 =
+        InsuredPerson.builder()
+            .id(PERSON_ID_3)
+            .firstName(FIRST_NAME_3)
+            .secondName(SECOND_NAME_3)
+            .premium(PREMIUM_3)
+            .build();
+    Set<InsuredPerson> insuredPersonSet = Set.of(insuredPerson1, insuredPerson3);
+    for (InsuredPerson insuredPerson : policyModificationResponse.getInsuredPersons()) {
+      assertTrue(insuredPersonSet.contains(insuredPerson));
+    }
+    verify(policyService).getPolicy(POLICY_ID, UPDATED_DATE);
+    verify(personService)
+        .storePersonEntries(
+            insuredPersonListCaptor.capture(), eq(Set.of(PERSON_ID_1, PERSON_ID_2)));
+    assertEquals(1, insuredPersonListCaptor.getValue().size());
+    assertEquals(PERSON_ID_3, insuredPersonListCaptor.getValue().get(0).getId());
+    verify(policyMappingService)
+        .storePolicyMappings(POLICY_ID, insuredPersonListCaptor.getValue(), UPDATED_DATE);
+    verify(policyMappingService).findActivePersonIds(POLICY_ID, UPDATED_DATE);
+    verify(policyMappingService)
+        .removePersonsFromPolicy(List.of(PERSON_ID_2), POLICY_ID, UPDATED_DATE);
+  }
+
+  private void validatePolicyFetchResponse(PolicyResponse policyResponse, Date effectiveDate) {
+    assertNotNull(policyResponse);
+    assertTrue(policyResponse instanceof PolicyFetchResponse);
+    PolicyFetchResponse policyFetchResponse = (PolicyFetchResponse) policyResponse;
+    assertEquals(TOTAL_PREMIUM, policyFetchResponse.getTotalPremium());
+    assertEquals(POLICY_ID, policyFetchResponse.getPolicyId());
+
+    Instant instant1 = effectiveDate.toInstant().truncatedTo(ChronoUnit.DAYS);
+    Instant instant2 =
+        policyFetchResponse.getRequestDate().toInstant().truncatedTo(ChronoUnit.DAYS);
+    assertEquals(instant1, instant2);
+
+    InsuredPerson insuredPerson1 =
+        InsuredPerson.builder()
+            .id(PERSON_ID_1)
+            .firstName(FIRST_NAME_1)
+            .secondName(SECOND_NAME_1)
+            .premium(PREMIUM_1)
+            .build();
+    InsuredPerson insuredPerson2 =
+        InsuredPerson.builder()
+            .id(PERSON_ID_2)
+            .firstName(FIRST_NAME_2)
+            .secondName(SECOND_NAME_2)
+            .premium(PREMIUM_2)
+            .build();
+    Set<InsuredPerson> insuredPersonSet = Set.of(insuredPerson1, insuredPerson2);
+    for (InsuredPerson insuredPerson : policyFetchResponse.getInsuredPersons()) {
+      assertTrue(insuredPersonSet.contains(insuredPerson));
+    }
+  }
+}
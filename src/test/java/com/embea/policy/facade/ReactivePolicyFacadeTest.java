@@ -0,0 +1,247 @@
+package com.embea.policy.facade;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.dto.Person;
+import com.embea.policy.dto.Policy;
+import com.embea.policy.dto.PolicyMapping;
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.dto.PolicyPremiumChange;
+import com.embea.policy.exception.PolicyNotFoundException;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.model.*;
+import com.embea.policy.repository.ReactivePolicyRepo;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class ReactivePolicyFacadeTest {
+
+  private static final Date START_DATE = new Date(new Date().getTime() + 86400000);
+  private static final Date EFFECTIVE_DATE = new Date(START_DATE.getTime() + 432000000);
+  private static final String POLICY_ID = UUID.randomUUID().toString();
+  private static final BigDecimal PREMIUM_1 = new BigDecimal("12.90");
+  private static final BigDecimal PREMIUM_2 = new BigDecimal("15.90");
+  private static final Long PERSON_ID_1 = 1L;
+  private static final Long PERSON_ID_2 = 2L;
+  private static final Long PERSON_ID_3 = 3L;
+
+  @Mock private ReactivePolicyRepo reactivePolicyRepo;
+
+  @Mock private TransactionalOperator reactiveTransactionalOperator;
+
+  @Mock private PolicyMetrics policyMetrics;
+
+  @InjectMocks private ReactivePolicyFacade reactivePolicyFacade;
+
+  @Captor private ArgumentCaptor<List<Person>> personListCaptor;
+
+  @Captor private ArgumentCaptor<List<PolicyMapping>> policyMappingListCaptor;
+
+  @Captor private ArgumentCaptor<List<PolicyPremiumChange>> policyPremiumChangeListCaptor;
+
+  @BeforeEach
+  void setUp() {
+    lenient()
+        .doAnswer(invocation -> invocation.getArgument(0))
+        .when(reactiveTransactionalOperator)
+        .transactional(any(Mono.class));
+    lenient().doReturn(Mono.empty()).when(reactivePolicyRepo).insertPolicy(any(Policy.class));
+    lenient().doReturn(Mono.empty()).when(reactivePolicyRepo).insertPersons(anyList());
+    lenient().doReturn(Mono.empty()).when(reactivePolicyRepo).insertPolicyMappings(anyList());
+    lenient()
+        .doAnswer(
+            invocation ->
+                Mono.just(
+                    LongStream.rangeClosed(1, invocation.<Integer>getArgument(0))
+                        .boxed()
+                        .collect(Collectors.toList())))
+        .when(reactivePolicyRepo)
+        .allocatePolicyPremiumChangeIds(anyInt());
+    lenient().doReturn(Mono.empty()).when(reactivePolicyRepo).insertPolicyPremiumChanges(anyList());
+  }
+
+  @Test
+  @DisplayName(
+      "Given create policy request with valid inputs "
+          + "When we try to create policy "
+          + "Then persons and mappings are inserted with allocated ids in one transaction.")
+  void testCreatePolicy() {
+    doReturn(Mono.just(List.of(PERSON_ID_1, PERSON_ID_2)))
+        .when(reactivePolicyRepo)
+        .allocatePersonIds(2);
+    doReturn(Mono.just(List.of(11L, 12L))).when(reactivePolicyRepo).allocatePolicyMappingIds(2);
+    PolicyCreationRequest policyCreationRequest =
+        PolicyCreationRequest.builder()
+            .startDate(START_DATE)
+            .insuredPersons(
+                new ArrayList<>(
+                    List.of(
+                        buildPerson(null, "Jane", PREMIUM_1),
+                        buildPerson(null, "Jack", PREMIUM_2))))
+            .build();
+
+    StepVerifier.create(reactivePolicyFacade.createPolicy(policyCreationRequest))
+        .assertNext(
+            policyResponse -> {
+              assertEquals(PERSON_ID_1, policyResponse.getInsuredPersons().get(0).getId());
+              assertEquals(PERSON_ID_2, policyResponse.getInsuredPersons().get(1).getId());
+              assertEquals(0, new BigDecimal("28.80").compareTo(policyResponse.getTotalPremium()));
+              assertEquals(START_DATE, ((PolicyCreationResponse) policyResponse).getStartDate());
+            })
+        .verifyComplete();
+
+    verify(reactivePolicyRepo).insertPersons(personListCaptor.capture());
+    verify(reactivePolicyRepo).insertPolicyMappings(policyMappingListCaptor.capture());
+    assertEquals(PERSON_ID_2, personListCaptor.getValue().get(1).getPersonId());
+    PolicyMapping policyMapping = policyMappingListCaptor.getValue().get(1);
+    assertEquals(12L, policyMapping.getId());
+    assertEquals(PERSON_ID_2, policyMapping.getPersonId());
+    assertEquals(PREMIUM_2, policyMapping.getPremium());
+    assertEquals(START_DATE, policyMapping.getAdditionDate());
+    verify(reactivePolicyRepo).insertPolicyPremiumChanges(policyPremiumChangeListCaptor.capture());
+    PolicyPremiumChange policyPremiumChange = policyPremiumChangeListCaptor.getValue().get(0);
+    assertEquals(START_DATE, policyPremiumChange.getChangeDate());
+    assertEquals(0, new BigDecimal("28.80").compareTo(policyPremiumChange.getPremiumDelta()));
+    verify(reactiveTransactionalOperator).transactional(any(Mono.class));
+  }
+
+  @Test
+  @DisplayName(
+      "Given modify policy request keeping one person, dropping one and adding one "
+          + "When we try to modify policy "
+          + "Then the new person is added, only the dropped person is removed "
+          + "And the premium changes by their difference on the effective date.")
+  void testModifyPolicy() {
+    doReturn(Mono.just(Policy.builder().policyId(POLICY_ID).startDate(START_DATE).build()))
+        .when(reactivePolicyRepo)
+        .getPolicy(POLICY_ID, EFFECTIVE_DATE);
+    doReturn(
+            Flux.just(
+                buildPolicyMapping(PERSON_ID_1, PREMIUM_1),
+                buildPolicyMapping(PERSON_ID_2, PREMIUM_1)))
+        .when(reactivePolicyRepo)
+        .findActivePolicyMappings(POLICY_ID, EFFECTIVE_DATE);
+    doReturn(Mono.just(List.of(PERSON_ID_3))).when(reactivePolicyRepo).allocatePersonIds(1);
+    doReturn(Mono.just(List.of(13L))).when(reactivePolicyRepo).allocatePolicyMappingIds(1);
+    doReturn(Mono.just(1))
+        .when(reactivePolicyRepo)
+        .setRemovalDate(List.of(PERSON_ID_2), POLICY_ID, EFFECTIVE_DATE);
+    PolicyModificationRequest policyModificationRequest =
+        PolicyModificationRequest.builder()
+            .policyId(POLICY_ID)
+            .effectiveDate(EFFECTIVE_DATE)
+            .insuredPersons(
+                List.of(
+                    buildPerson(PERSON_ID_1, "Jane", PREMIUM_1),
+                    buildPerson(null, "Will", PREMIUM_2)))
+            .build();
+
+    StepVerifier.create(reactivePolicyFacade.modifyPolicy(policyModificationRequest))
+        .assertNext(
+            policyResponse -> {
+              assertEquals(PERSON_ID_3, policyResponse.getInsuredPersons().get(1).getId());
+              assertEquals(0, new BigDecimal("28.80").compareTo(policyResponse.getTotalPremium()));
+            })
+        .verifyComplete();
+
+    verify(reactivePolicyRepo).setRemovalDate(List.of(PERSON_ID_2), POLICY_ID, EFFECTIVE_DATE);
+    verify(reactivePolicyRepo).insertPolicyMappings(policyMappingListCaptor.capture());
+    assertEquals(EFFECTIVE_DATE, policyMappingListCaptor.getValue().get(0).getAdditionDate());
+    verify(reactivePolicyRepo).insertPolicyPremiumChanges(policyPremiumChangeListCaptor.capture());
+    PolicyPremiumChange policyPremiumChange = policyPremiumChangeListCaptor.getValue().get(0);
+    assertEquals(1, policyPremiumChangeListCaptor.getValue().size());
+    assertEquals(EFFECTIVE_DATE, policyPremiumChange.getChangeDate());
+    assertEquals(0, new BigDecimal("3.00").compareTo(policyPremiumChange.getPremiumDelta()));
+  }
+
+  @Test
+  @DisplayName(
+      "Given modify policy request for a policy not started on the effective date "
+          + "When we try to modify policy "
+          + "Then PolicyNotFoundException is emitted and nothing is written.")
+  void testModifyPolicyNotFound() {
+    doReturn(Mono.empty()).when(reactivePolicyRepo).getPolicy(POLICY_ID, EFFECTIVE_DATE);
+    PolicyModificationRequest policyModificationRequest =
+        PolicyModificationRequest.builder()
+            .policyId(POLICY_ID)
+            .effectiveDate(EFFECTIVE_DATE)
+            .insuredPersons(List.of(buildPerson(null, "Will", PREMIUM_2)))
+            .build();
+
+    StepVerifier.create(reactivePolicyFacade.modifyPolicy(policyModificationRequest))
+        .expectError(PolicyNotFoundException.class)
+        .verify();
+
+    verify(reactivePolicyRepo, never()).insertPersons(anyList());
+    verify(reactivePolicyRepo, never()).setRemovalDate(anyList(), any(), any());
+    verify(reactivePolicyRepo, never()).insertPolicyPremiumChanges(anyList());
+  }
+
+  @Test
+  @DisplayName(
+      "Given fetch policy request "
+          + "When the policy has members on the request date "
+          + "Then they are returned with their total premium, "
+          + "And PolicyNotFoundException is emitted for unknown policies.")
+  void testFetchPolicy() {
+    doReturn(
+            Flux.just(
+                new PolicyMember(POLICY_ID, PERSON_ID_1, "Jane", "Jackson", PREMIUM_1),
+                new PolicyMember(POLICY_ID, PERSON_ID_2, "Jack", "Doe", PREMIUM_2)))
+        .when(reactivePolicyRepo)
+        .findPolicyMembers(POLICY_ID, START_DATE);
+    doReturn(Flux.empty()).when(reactivePolicyRepo).findPolicyMembers(POLICY_ID, EFFECTIVE_DATE);
+
+    StepVerifier.create(
+            reactivePolicyFacade.fetchPolicy(
+                PolicyFetchRequest.builder().policyId(POLICY_ID).requestDate(START_DATE).build()))
+        .assertNext(
+            policyResponse -> {
+              assertEquals(2, policyResponse.getInsuredPersons().size());
+              assertEquals(0, new BigDecimal("28.80").compareTo(policyResponse.getTotalPremium()));
+            })
+        .verifyComplete();
+    StepVerifier.create(
+            reactivePolicyFacade.fetchPolicy(
+                PolicyFetchRequest.builder()
+                    .policyId(POLICY_ID)
+                    .requestDate(EFFECTIVE_DATE)
+                    .build()))
+        .expectError(PolicyNotFoundException.class)
+        .verify();
+  }
+
+  private PolicyMapping buildPolicyMapping(Long personId, BigDecimal premium) {
+    return PolicyMapping.builder().policyId(POLICY_ID).personId(personId).premium(premium).build();
+  }
+
+  private InsuredPerson buildPerson(Long id, String firstName, BigDecimal premium) {
+    return InsuredPerson.builder()
+        .id(id)
+        .firstName(firstName)
+        .secondName("Doe")
+        .premium(premium)
+        .build();
+  }
+}
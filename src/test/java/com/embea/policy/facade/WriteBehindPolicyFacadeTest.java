@@ -0,0 +1,124 @@
+package com.embea.policy.facade;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyModificationRequest;
+import com.embea.policy.model.PolicyResponse;
+import com.embea.policy.writebehind.PolicyWriteBehind;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindPolicyFacadeTest {
+
+  private static final String POLICY_ID = UUID.randomUUID().toString();
+
+  @Mock private PolicyFacade policyFacade;
+
+  @Mock private PolicyWriteBehind policyWriteBehind;
+
+  @InjectMocks private WriteBehindPolicyFacade writeBehindPolicyFacade;
+
+  @Test
+  @DisplayName(
+      "Given write-behind disabled "
+          + "When we modify a policy "
+          + "Then it is modified directly by the policy facade.")
+  void testModifyWithoutWriteBehind() {
+    PolicyModificationRequest policyModificationRequest = buildModificationRequest();
+    PolicyResponse policyResponse = PolicyResponse.builder().policyId(POLICY_ID).build();
+    doReturn(false).when(policyWriteBehind).isEnabled();
+    doReturn(policyResponse).when(policyFacade).modifyPolicy(policyModificationRequest);
+
+    assertSame(policyResponse, writeBehindPolicyFacade.modifyPolicy(policyModificationRequest));
+    verify(policyWriteBehind, never()).write(any(), any());
+  }
+
+  @Test
+  @DisplayName(
+      "Given write-behind enabled "
+          + "When we modify a policy "
+          + "Then the whole modification is handed to the writer under the policy id "
+          + "And its result is returned.")
+  void testModifyThroughWriteBehind() {
+    PolicyModificationRequest policyModificationRequest = buildModificationRequest();
+    PolicyResponse policyResponse = PolicyResponse.builder().policyId(POLICY_ID).build();
+    doReturn(true).when(policyWriteBehind).isEnabled();
+    doAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get())
+        .when(policyWriteBehind)
+        .write(eq(POLICY_ID), any());
+    doReturn(policyResponse).when(policyFacade).modifyPolicy(policyModificationRequest);
+
+    assertSame(policyResponse, writeBehindPolicyFacade.modifyPolicy(policyModificationRequest));
+    verify(policyWriteBehind).write(eq(POLICY_ID), any());
+    verify(policyFacade).modifyPolicy(policyModificationRequest);
+  }
+
+  @Test
+  @DisplayName(
+      "Given write-behind enabled "
+          + "When the writer runs a modification twice, the first run setting the person id "
+          + "Then each run gets its own copy of the request "
+          + "And the persons of the request are left unchanged.")
+  void testModifyThroughWriteBehindWorksOnCopies() {
+    PolicyModificationRequest policyModificationRequest = buildModificationRequest();
+    List<PolicyModificationRequest> modifiedRequests = new ArrayList<>();
+    doReturn(true).when(policyWriteBehind).isEnabled();
+    doAnswer(
+            invocation -> {
+              invocation.<Supplier<?>>getArgument(1).get();
+              return invocation.<Supplier<?>>getArgument(1).get();
+            })
+        .when(policyWriteBehind)
+        .write(eq(POLICY_ID), any());
+    doAnswer(
+            invocation -> {
+              PolicyModificationRequest modifiedRequest = invocation.getArgument(0);
+              assertNull(modifiedRequest.getInsuredPersons().get(0).getId());
+              modifiedRequest.getInsuredPersons().get(0).setId(1L);
+              modifiedRequests.add(modifiedRequest);
+              return PolicyResponse.builder().policyId(POLICY_ID).build();
+            })
+        .when(policyFacade)
+        .modifyPolicy(any());
+
+    writeBehindPolicyFacade.modifyPolicy(policyModificationRequest);
+
+    assertEquals(2, modifiedRequests.size());
+    assertNotSame(policyModificationRequest, modifiedRequests.get(0));
+    assertNotSame(modifiedRequests.get(0), modifiedRequests.get(1));
+    assertNull(policyModificationRequest.getInsuredPersons().get(0).getId());
+    assertEquals(POLICY_ID, modifiedRequests.get(1).getPolicyId());
+    assertEquals(
+        policyModificationRequest.getEffectiveDate(), modifiedRequests.get(1).getEffectiveDate());
+  }
+
+  private PolicyModificationRequest buildModificationRequest() {
+    return PolicyModificationRequest.builder()
+        .policyId(POLICY_ID)
+        .effectiveDate(new Date())
+        .insuredPersons(
+            new ArrayList<>(
+                List.of(
+                    InsuredPerson.builder()
+                        .firstName("Jane")
+                        .secondName("Doe")
+                        .premium(new BigDecimal("12.90"))
+                        .build())))
+        .build();
+  }
+}
@@ -0,0 +1,228 @@
+package com.embea.policy.idempotency;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.exception.IdempotencyKeyReusedException;
+import com.embea.policy.exception.PolicyNotFoundException;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.model.PolicyResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+
+  private static final String KEY_1 = UUID.randomUUID().toString();
+  private static final String KEY_2 = UUID.randomUUID().toString();
+  private static final Date START_DATE = new Date();
+
+  @Mock private PolicyMetrics policyMetrics;
+
+  private PolicyProperties policyProperties;
+
+  private IdempotencyStore idempotencyStore;
+
+  private AtomicInteger executions;
+
+  @BeforeEach
+  void setUp() {
+    policyProperties = new PolicyProperties();
+    idempotencyStore = new IdempotencyStore(policyProperties, policyMetrics, new ObjectMapper());
+    executions = new AtomicInteger();
+  }
+
+  @Test
+  @DisplayName(
+      "Given a create request executed with an idempotency key "
+          + "When it is retried with the same key "
+          + "Then the stored response is returned without running it again "
+          + "And ids filled into the first request do not break the match.")
+  void testRetryIsReplayed() {
+    PolicyCreationRequest request = buildRequest("Jane");
+    PolicyResponse response = create(KEY_1, request);
+    request.getInsuredPersons().get(0).setId(1L);
+
+    assertSame(response, create(KEY_1, buildRequest("Jane")));
+    assertEquals(1, executions.get());
+    verify(policyMetrics).recordIdempotentReplay(PolicyMetrics.OPERATION_CREATE);
+  }
+
+  @Test
+  @DisplayName(
+      "Given a create request executed with an idempotency key "
+          + "When a different request is sent with the same key "
+          + "Then it is rejected "
+          + "And the same key is independent for another operation.")
+  void testKeyReusedWithDifferentRequest() {
+    create(KEY_1, buildRequest("Jane"));
+
+    assertThrows(IdempotencyKeyReusedException.class, () -> create(KEY_1, buildRequest("Jack")));
+    idempotencyStore.execute(
+        PolicyMetrics.OPERATION_MODIFY, KEY_1, buildRequest("Jack"), this::execute);
+    assertEquals(2, executions.get());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a create request executed with an idempotency key "
+          + "When a request differing only in a premium is sent with the same key "
+          + "Then it is rejected instead of getting the stored response.")
+  void testKeyReusedWithDifferentPremium() {
+    create(KEY_1, buildRequest("Jane"));
+
+    assertThrows(
+        IdempotencyKeyReusedException.class,
+        () -> create(KEY_1, buildRequest("Jane", new BigDecimal("15.90"))));
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a request still executing "
+          + "When a duplicate with the same key arrives "
+          + "Then it waits for the first execution and returns its response.")
+  void testConcurrentDuplicateWaits() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<PolicyResponse> first =
+          executor.submit(
+              () ->
+                  idempotencyStore.execute(
+                      PolicyMetrics.OPERATION_CREATE,
+                      KEY_1,
+                      buildRequest("Jane"),
+                      () -> {
+                        started.countDown();
+                        await(release);
+                        return execute();
+                      }));
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      Future<PolicyResponse> duplicate = executor.submit(() -> create(KEY_1, buildRequest("Jane")));
+
+      verify(policyMetrics, timeout(5000)).recordIdempotentReplay(PolicyMetrics.OPERATION_CREATE);
+      assertFalse(duplicate.isDone());
+      release.countDown();
+
+      assertSame(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+      assertEquals(1, executions.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given a request with an idempotency key that failed "
+          + "When it is retried with the same key "
+          + "Then it runs again.")
+  void testFailureIsNotStored() {
+    assertThrows(
+        PolicyNotFoundException.class,
+        () ->
+            idempotencyStore.execute(
+                PolicyMetrics.OPERATION_MODIFY,
+                KEY_1,
+                buildRequest("Jane"),
+                () -> {
+                  throw new PolicyNotFoundException("Not found");
+                }));
+
+    create(KEY_1, buildRequest("Jane"));
+    assertEquals(1, executions.get());
+    assertEquals(1, idempotencyStore.size());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a store for one key "
+          + "When requests with two keys and the first key again are executed "
+          + "Then the first key was evicted and runs again.")
+  void testEldestKeyIsEvicted() {
+    policyProperties.getIdempotency().setMaxEntries(1);
+
+    create(KEY_1, buildRequest("Jane"));
+    create(KEY_2, buildRequest("Jane"));
+    create(KEY_1, buildRequest("Jane"));
+
+    assertEquals(3, executions.get());
+    assertEquals(1, idempotencyStore.size());
+  }
+
+  @Test
+  @DisplayName(
+      "Given requests without idempotency key or with the store disabled "
+          + "When they are executed twice "
+          + "Then they run every time.")
+  void testWithoutKeyOrDisabledRunsEveryTime() {
+    create(null, buildRequest("Jane"));
+    create(null, buildRequest("Jane"));
+    policyProperties.getIdempotency().setEnabled(false);
+    create(KEY_1, buildRequest("Jane"));
+    create(KEY_1, buildRequest("Jane"));
+
+    assertEquals(4, executions.get());
+    assertEquals(0, idempotencyStore.size());
+  }
+
+  private PolicyResponse create(String idempotencyKey, PolicyCreationRequest request) {
+    Supplier<PolicyResponse> action = this::execute;
+    return idempotencyStore.execute(
+        PolicyMetrics.OPERATION_CREATE, idempotencyKey, request, action);
+  }
+
+  private PolicyResponse execute() {
+    return PolicyResponse.builder()
+        .policyId(String.valueOf(executions.incrementAndGet()))
+        .totalPremium(BigDecimal.TEN)
+        .build();
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private PolicyCreationRequest buildRequest(String firstName) {
+    return buildRequest(firstName, new BigDecimal("12.90"));
+  }
+
+  private PolicyCreationRequest buildRequest(String firstName, BigDecimal premium) {
+    return PolicyCreationRequest.builder()
+        .startDate(START_DATE)
+        .insuredPersons(
+            new ArrayList<>(
+                List.of(
+                    InsuredPerson.builder()
+                        .firstName(firstName)
+                        .secondName("Doe")
+                        .premium(premium)
+                        .build())))
+        .build();
+  }
+}
@@ -0,0 +1,177 @@
+package com.embea.policy.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.journal.MappedJournal.JournalRecord;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedJournalTest {
+
+  private static final int SEGMENT_SIZE = 4096;
+  private static final Date START_DATE = new Date(1_700_000_000_000L);
+  private static final String POLICY_ID = UUID.randomUUID().toString();
+
+  @TempDir Path directory;
+
+  @Test
+  @DisplayName(
+      "Given events of every type appended to the journal "
+          + "When we read it before and after they are durable "
+          + "Then they are only read once durable, in order and unchanged.")
+  void testAppendAndRead() throws IOException {
+    List<PolicyEvent> events =
+        List.of(
+            PolicyEvent.builder()
+                .type(PolicyEvent.Type.POLICY_CREATED)
+                .policyId(POLICY_ID)
+                .date(START_DATE)
+                .build(),
+            personAdded(1L),
+            PolicyEvent.builder()
+                .type(PolicyEvent.Type.PERSON_REMOVED)
+                .policyId(POLICY_ID)
+                .personId(1L)
+                .date(new Date(START_DATE.getTime() + 86400000))
+                .build());
+    try (MappedJournal mappedJournal = new MappedJournal(directory, SEGMENT_SIZE)) {
+      long[] eventEndPositions = mappedJournal.append(events);
+
+      assertTrue(mappedJournal.read(0, 10).isEmpty());
+      mappedJournal.awaitDurable(eventEndPositions[2]);
+      List<JournalRecord> records = mappedJournal.read(0, 10);
+
+      assertEquals(events, toEvents(records));
+      assertEquals(0, records.get(0).getPosition());
+      assertEquals(eventEndPositions[0], records.get(1).getPosition());
+      assertEquals(eventEndPositions[2], mappedJournal.getDurablePosition());
+      assertEquals(events.subList(1, 3), toEvents(mappedJournal.read(eventEndPositions[0], 10)));
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given more events than fit into one segment "
+          + "When we reopen the journal and read it "
+          + "Then all events are read across segments and appends continue at the end.")
+  void testSegmentRollAndReopen() throws IOException {
+    List<PolicyEvent> events = new ArrayList<>();
+    for (long personId = 0; personId < 200; personId++) {
+      events.add(personAdded(personId));
+    }
+    long endPosition;
+    try (MappedJournal mappedJournal = new MappedJournal(directory, SEGMENT_SIZE)) {
+      mappedJournal.append(events);
+      endPosition = mappedJournal.getEndPosition();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      assertTrue(files.count() > 1);
+    }
+
+    try (MappedJournal mappedJournal = new MappedJournal(directory, SEGMENT_SIZE)) {
+      assertEquals(endPosition, mappedJournal.getEndPosition());
+      mappedJournal.awaitDurable(mappedJournal.append(List.of(personAdded(200L)))[0]);
+
+      List<JournalRecord> records = mappedJournal.read(0, Integer.MAX_VALUE);
+      assertEquals(201, records.size());
+      assertEquals(events, toEvents(records.subList(0, 200)));
+      assertEquals(endPosition, records.get(200).getPosition());
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given a journal whose last entry was torn by a crash "
+          + "When we reopen it "
+          + "Then it ends before the torn entry and the next append overwrites it.")
+  void testTornEntryIsDiscarded() throws IOException {
+    long firstEndPosition;
+    try (MappedJournal mappedJournal = new MappedJournal(directory, SEGMENT_SIZE)) {
+      firstEndPosition = mappedJournal.append(List.of(personAdded(1L), personAdded(2L)))[0];
+    }
+    try (RandomAccessFile segment =
+        new RandomAccessFile(directory.resolve(String.format("%020d.journal", 0)).toFile(), "rw")) {
+      segment.seek(firstEndPosition + 20);
+      segment.write(0xFF);
+    }
+
+    try (MappedJournal mappedJournal = new MappedJournal(directory, SEGMENT_SIZE)) {
+      assertEquals(firstEndPosition, mappedJournal.getEndPosition());
+      mappedJournal.awaitDurable(mappedJournal.append(List.of(personAdded(3L)))[0]);
+
+      assertEquals(
+          List.of(personAdded(1L), personAdded(3L)),
+          toEvents(mappedJournal.read(0, Integer.MAX_VALUE)));
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given events in several segments "
+          + "When the segments before a position are released "
+          + "Then kept segments are read again, deleted ones are skipped also after a reopen "
+          + "And the segment of the last event is never deleted.")
+  void testReleaseSegments() throws IOException {
+    List<PolicyEvent> events = new ArrayList<>();
+    for (long personId = 0; personId < 200; personId++) {
+      events.add(personAdded(personId));
+    }
+    long endPosition;
+    try (MappedJournal mappedJournal = new MappedJournal(directory, SEGMENT_SIZE)) {
+      mappedJournal.awaitDurable(mappedJournal.append(events)[199]);
+      endPosition = mappedJournal.getEndPosition();
+
+      mappedJournal.releaseBefore(endPosition, false);
+      assertEquals(0, mappedJournal.getStartPosition());
+      assertEquals(events, toEvents(mappedJournal.read(0, Integer.MAX_VALUE)));
+
+      mappedJournal.releaseBefore(2 * SEGMENT_SIZE, true);
+      assertEquals(2 * SEGMENT_SIZE, mappedJournal.getStartPosition());
+      List<JournalRecord> records = mappedJournal.read(0, Integer.MAX_VALUE);
+      assertEquals(2 * SEGMENT_SIZE, records.get(0).getPosition());
+      assertEquals(events.subList(200 - records.size(), 200), toEvents(records));
+    }
+
+    try (MappedJournal mappedJournal = new MappedJournal(directory, SEGMENT_SIZE)) {
+      assertEquals(2 * SEGMENT_SIZE, mappedJournal.getStartPosition());
+      assertEquals(endPosition, mappedJournal.getEndPosition());
+
+      mappedJournal.releaseBefore(endPosition, true);
+      assertEquals(
+          (endPosition - 1) / SEGMENT_SIZE * SEGMENT_SIZE, mappedJournal.getStartPosition());
+      try (Stream<Path> files = Files.list(directory)) {
+        assertEquals(1, files.count());
+      }
+    }
+
+    try (MappedJournal mappedJournal = new MappedJournal(directory, SEGMENT_SIZE)) {
+      assertEquals(endPosition, mappedJournal.getEndPosition());
+    }
+  }
+
+  private List<PolicyEvent> toEvents(List<JournalRecord> records) {
+    return records.stream().map(JournalRecord::getEvent).collect(Collectors.toList());
+  }
+
+  private PolicyEvent personAdded(Long personId) {
+    return PolicyEvent.builder()
+        .type(PolicyEvent.Type.PERSON_ADDED)
+        .policyId(POLICY_ID)
+        .personId(personId)
+        .premium(new BigDecimal("12.90"))
+        .date(START_DATE)
+        .build();
+  }
+}
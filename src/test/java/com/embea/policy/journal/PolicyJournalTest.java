@@ -0,0 +1,292 @@
+package com.embea.policy.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.dto.PolicyJournalCheckpoint;
+import com.embea.policy.dto.PolicyJournalCommit;
+import com.embea.policy.dto.PolicyMapping;
+import com.embea.policy.exception.ServiceBusyException;
+import com.embea.policy.journal.MappedJournal.JournalRecord;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.repository.PolicyJournalCheckpointRepo;
+import com.embea.policy.repository.PolicyJournalCommitRepo;
+import com.embea.policy.repository.PolicyMappingRepo;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+@ExtendWith(MockitoExtension.class)
+class PolicyJournalTest {
+
+  private static final Date START_DATE = new Date(1_700_000_000_000L);
+  private static final Date EFFECTIVE_DATE = new Date(START_DATE.getTime() + 432000000);
+  private static final String POLICY_ID = UUID.randomUUID().toString();
+  private static final BigDecimal PREMIUM_1 = new BigDecimal("12.90");
+  private static final BigDecimal PREMIUM_2 = new BigDecimal("15.90");
+  private static final Long PERSON_ID_1 = 1L;
+  private static final Long PERSON_ID_2 = 2L;
+
+  @Mock private PolicyMappingRepo policyMappingRepo;
+
+  @Mock private PolicyJournalCheckpointRepo policyJournalCheckpointRepo;
+
+  @Mock private PolicyJournalCommitRepo policyJournalCommitRepo;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Captor private ArgumentCaptor<List<PolicyMapping>> policyMappingListCaptor;
+
+  @Captor private ArgumentCaptor<Long> positionCaptor;
+
+  @TempDir Path directory;
+
+  private PolicyProperties policyProperties;
+
+  @BeforeEach
+  void setUp() {
+    policyProperties = new PolicyProperties();
+    policyProperties.getJournal().setEnabled(true);
+    policyProperties.getJournal().setDirectory(directory.toString());
+    policyProperties.getJournal().setApplyInterval(Duration.ofMillis(1));
+    policyProperties.getJournal().setApplyTimeout(Duration.ofSeconds(5));
+    doReturn(Optional.of(new PolicyJournalCheckpoint(PolicyJournalCheckpoint.CHECKPOINT_ID, 0L)))
+        .when(policyJournalCheckpointRepo)
+        .findById(PolicyJournalCheckpoint.CHECKPOINT_ID);
+  }
+
+  @Test
+  @DisplayName(
+      "Given persons added to and removed from a policy through the journal "
+          + "When we wait for the policy to be applied "
+          + "Then each change is marked as committed "
+          + "And mappings are inserted, the removal is applied after them "
+          + "And the checkpoint moves to the end of the journal.")
+  void testEventsAreApplied() throws Exception {
+    PolicyJournal policyJournal = createPolicyJournal();
+    policyJournal.start();
+
+    policyJournal.policyCreated(POLICY_ID, START_DATE);
+    policyJournal.personsAdded(
+        POLICY_ID,
+        List.of(buildPerson(PERSON_ID_1, PREMIUM_1), buildPerson(PERSON_ID_2, PREMIUM_2)),
+        START_DATE);
+    policyJournal.personsRemoved(POLICY_ID, List.of(PERSON_ID_1), EFFECTIVE_DATE);
+    policyJournal.awaitApplied(POLICY_ID);
+    policyJournal.stop();
+
+    InOrder inOrder = inOrder(policyMappingRepo, policyJournalCheckpointRepo);
+    inOrder.verify(policyMappingRepo).saveAll(policyMappingListCaptor.capture());
+    inOrder
+        .verify(policyMappingRepo)
+        .setRemovalDateByPolicyIdAndPersonIds(List.of(PERSON_ID_1), POLICY_ID, EFFECTIVE_DATE);
+    inOrder.verify(policyJournalCheckpointRepo).setAppliedPosition(anyLong());
+    verify(policyJournalCommitRepo, times(3)).insertCommit(anyLong(), anyLong());
+    List<PolicyMapping> policyMappings = policyMappingListCaptor.getValue();
+    assertEquals(2, policyMappings.size());
+    assertEquals(PERSON_ID_2, policyMappings.get(1).getPersonId());
+    assertEquals(PREMIUM_2, policyMappings.get(1).getPremium());
+    assertEquals(START_DATE, policyMappings.get(1).getAdditionDate());
+    assertEquals(4, policyJournal.read(0, Integer.MAX_VALUE).size());
+  }
+
+  @Test
+  @DisplayName(
+      "Given journaled events which could not be applied before a restart "
+          + "When the journal is started again "
+          + "Then reads wait for them and they are replayed from the checkpoint.")
+  void testEventsAreReplayedOnStart() throws Exception {
+    policyProperties.getJournal().setApplyTimeout(Duration.ofMillis(50));
+    doThrow(IllegalStateException.class).when(policyMappingRepo).saveAll(anyList());
+    PolicyJournal failingJournal = createPolicyJournal();
+    failingJournal.start();
+    failingJournal.personsAdded(
+        POLICY_ID, List.of(buildPerson(PERSON_ID_1, PREMIUM_1)), START_DATE);
+    assertThrows(ServiceBusyException.class, () -> failingJournal.awaitApplied(POLICY_ID));
+    failingJournal.stop();
+    verify(policyJournalCommitRepo)
+        .insertCommit(positionCaptor.capture(), positionCaptor.capture());
+    doReturn(
+            List.of(
+                new PolicyJournalCommit(
+                    positionCaptor.getAllValues().get(0), positionCaptor.getAllValues().get(1))))
+        .when(policyJournalCommitRepo)
+        .findByToPositionGreaterThan(0L);
+
+    policyProperties.getJournal().setApplyTimeout(Duration.ofSeconds(5));
+    reset(policyMappingRepo);
+    PolicyJournal restartedJournal = createPolicyJournal();
+    restartedJournal.start();
+    restartedJournal.awaitApplied(List.of(POLICY_ID));
+    restartedJournal.stop();
+
+    verify(policyMappingRepo).saveAll(policyMappingListCaptor.capture());
+    assertEquals(PERSON_ID_1, policyMappingListCaptor.getValue().get(0).getPersonId());
+    verify(policyJournalCheckpointRepo).setAppliedPosition(anyLong());
+  }
+
+  @Test
+  @DisplayName(
+      "Given persons added in a transaction whose events are appended before its commit "
+          + "When the commit fails "
+          + "Then the events are not applied before the transaction completes "
+          + "And they are skipped, also when the journal is replayed after a restart.")
+  void testEventsOfAbortedTransactionAreSkipped() throws Exception {
+    policyProperties.getJournal().setApplyTimeout(Duration.ofMillis(50));
+    PolicyJournal policyJournal = createPolicyJournal();
+    policyJournal.start();
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      policyJournal.personsAdded(
+          POLICY_ID, List.of(buildPerson(PERSON_ID_1, PREMIUM_1)), START_DATE);
+      for (TransactionSynchronization synchronization :
+          TransactionSynchronizationManager.getSynchronizations()) {
+        synchronization.beforeCommit(false);
+      }
+      assertEquals(1, policyJournal.read(0, Integer.MAX_VALUE).size());
+      assertThrows(ServiceBusyException.class, () -> policyJournal.awaitApplied(POLICY_ID));
+      for (TransactionSynchronization synchronization :
+          TransactionSynchronizationManager.getSynchronizations()) {
+        synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+      }
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    policyProperties.getJournal().setApplyTimeout(Duration.ofSeconds(5));
+    policyJournal.awaitApplied(POLICY_ID);
+    policyJournal.stop();
+
+    PolicyJournal restartedJournal = createPolicyJournal();
+    restartedJournal.start();
+    restartedJournal.awaitApplied(POLICY_ID);
+    restartedJournal.stop();
+
+    verify(policyMappingRepo, never()).saveAll(anyList());
+    assertEquals(
+        PolicyEvent.Type.TRANSACTION_ABORTED,
+        restartedJournal.read(0, Integer.MAX_VALUE).get(1).getEvent().getType());
+  }
+
+  @Test
+  @DisplayName(
+      "Given persons added in a transaction whose events are durable "
+          + "When the process stops before the transaction commits "
+          + "Then the events are skipped when the journal is replayed after a restart.")
+  void testEventsOfUncommittedTransactionAreSkipped() throws Exception {
+    PolicyJournal policyJournal = createPolicyJournal();
+    policyJournal.start();
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      policyJournal.personsAdded(
+          POLICY_ID, List.of(buildPerson(PERSON_ID_1, PREMIUM_1)), START_DATE);
+      for (TransactionSynchronization synchronization :
+          TransactionSynchronizationManager.getSynchronizations()) {
+        synchronization.beforeCommit(false);
+      }
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    policyJournal.stop();
+
+    PolicyJournal restartedJournal = createPolicyJournal();
+    restartedJournal.start();
+    restartedJournal.awaitApplied(POLICY_ID);
+    restartedJournal.stop();
+
+    verify(policyMappingRepo, never()).saveAll(anyList());
+    verify(policyJournalCheckpointRepo).setAppliedPosition(anyLong());
+    assertEquals(1, restartedJournal.read(0, Integer.MAX_VALUE).size());
+  }
+
+  @Test
+  @DisplayName(
+      "Given more applied events than fit into one segment "
+          + "When the applier has applied them "
+          + "Then the applied segments are deleted unless they are retained.")
+  void testAppliedSegmentsAreDeleted() throws Exception {
+    policyProperties.getJournal().setSegmentSize(DataSize.ofKilobytes(4));
+    PolicyJournal policyJournal = createPolicyJournal();
+    policyJournal.start();
+
+    for (long personId = 0; personId < 100; personId++) {
+      policyJournal.personsAdded(POLICY_ID, List.of(buildPerson(personId, PREMIUM_1)), START_DATE);
+    }
+    policyJournal.awaitApplied(POLICY_ID);
+    policyJournal.stop();
+
+    List<JournalRecord> records = policyJournal.read(0, Integer.MAX_VALUE);
+    assertFalse(records.isEmpty());
+    assertTrue(records.get(0).getPosition() > 0);
+    assertEquals(1, countSegments());
+    verify(policyJournalCheckpointRepo, atLeastOnce()).setAppliedPosition(positionCaptor.capture());
+    doReturn(
+            Optional.of(
+                new PolicyJournalCheckpoint(
+                    PolicyJournalCheckpoint.CHECKPOINT_ID, positionCaptor.getValue())))
+        .when(policyJournalCheckpointRepo)
+        .findById(PolicyJournalCheckpoint.CHECKPOINT_ID);
+
+    policyProperties.getJournal().setRetainAppliedSegments(true);
+    PolicyJournal retainingJournal = createPolicyJournal();
+    retainingJournal.start();
+    for (long personId = 100; personId < 200; personId++) {
+      retainingJournal.personsAdded(
+          POLICY_ID, List.of(buildPerson(personId, PREMIUM_1)), START_DATE);
+    }
+    retainingJournal.awaitApplied(POLICY_ID);
+    retainingJournal.stop();
+
+    assertTrue(countSegments() > 1);
+    assertEquals(
+        records.get(0).getPosition(),
+        retainingJournal.read(0, Integer.MAX_VALUE).get(0).getPosition());
+  }
+
+  private long countSegments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  private PolicyJournal createPolicyJournal() {
+    return new PolicyJournal(
+        policyProperties,
+        policyMappingRepo,
+        policyJournalCheckpointRepo,
+        policyJournalCommitRepo,
+        transactionManager);
+  }
+
+  private InsuredPerson buildPerson(Long id, BigDecimal premium) {
+    return InsuredPerson.builder()
+        .id(id)
+        .firstName("Jane")
+        .secondName("Jackson")
+        .premium(premium)
+        .build();
+  }
+}
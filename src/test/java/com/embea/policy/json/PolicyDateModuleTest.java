@@ -0,0 +1,80 @@
+package com.embea.policy.json;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.model.PolicyFetchResponse;
+import com.embea.policy.utils.DateUtils;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import java.time.LocalDate;
+import java.util.Date;
+import lombok.Data;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PolicyDateModuleTest {
+
+  private static final Date REQUEST_DATE =
+      DateUtils.fromEpochDay(LocalDate.of(2024, 3, 5).toEpochDay());
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper().registerModule(new PolicyDateModule());
+
+  @Test
+  @DisplayName(
+      "Given a response with a dd.MM.yyyy date "
+          + "When we write and read it "
+          + "Then the date is written in UTC and read back to the start of the day.")
+  void testRoundTrip() throws Exception {
+    PolicyFetchResponse response =
+        PolicyFetchResponse.builder().policyId("policy-id").requestDate(REQUEST_DATE).build();
+
+    String json = objectMapper.writeValueAsString(response);
+
+    assertTrue(json.contains("\"requestDate\":\"05.03.2024\""));
+    assertEquals(response, objectMapper.readValue(json, PolicyFetchResponse.class));
+    assertNull(
+        objectMapper
+            .readValue("{\"requestDate\":\" \"}", PolicyFetchResponse.class)
+            .getRequestDate());
+    assertEquals(
+        REQUEST_DATE,
+        objectMapper
+            .readValue(
+                "{\"requestDate\":" + REQUEST_DATE.getTime() + "}", PolicyFetchResponse.class)
+            .getRequestDate());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a day that does not exist "
+          + "When we read it "
+          + "Then an invalid format error is raised.")
+  void testInvalidDate() {
+    assertThrows(
+        InvalidFormatException.class,
+        () ->
+            objectMapper.readValue("{\"requestDate\":\"31.02.2024\"}", PolicyFetchResponse.class));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a date property with another pattern "
+          + "When we write and read it "
+          + "Then Jackson's own date codec is used.")
+  void testOtherPatternKeepsDefaultCodec() throws Exception {
+    String json = "{\"date\":\"2024-03-05\"}";
+
+    OtherPattern otherPattern = objectMapper.readValue(json, OtherPattern.class);
+
+    assertEquals(REQUEST_DATE, otherPattern.getDate());
+    assertEquals(json, objectMapper.writeValueAsString(otherPattern));
+  }
+
+  @Data
+  static class OtherPattern {
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private Date date;
+  }
+}
@@ -0,0 +1,207 @@
+package com.embea.policy.limiter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.exception.ServiceBusyException;
+import com.embea.policy.metrics.PolicyMetrics;
+import com.embea.policy.writebehind.PolicyWriteBehind;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionLimiterTest {
+
+  private static final String RESULT = "result";
+  private static final String POLICY_ID = "policy";
+
+  @Mock private DataSource dataSource;
+
+  @Mock private PolicyMetrics policyMetrics;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Mock private EntityManager entityManager;
+
+  @Mock private ProceedingJoinPoint outerJoinPoint;
+
+  @Mock private ProceedingJoinPoint innerJoinPoint;
+
+  @Mock private Signature signature;
+
+  private PolicyProperties policyProperties;
+
+  @BeforeEach
+  void setUp() {
+    policyProperties = new PolicyProperties();
+    policyProperties.getExecution().getLimiter().setEnabled(true);
+    policyProperties.getExecution().getLimiter().setMaxConcurrency(1);
+    policyProperties.getExecution().getLimiter().setAcquireTimeout(Duration.ofMillis(10));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a limiter with a free permit "
+          + "When a limited operation is called "
+          + "Then it proceeds and its permit is released afterwards.")
+  void testLimitProceedsAndReleasesPermit() throws Throwable {
+    ConnectionLimiter connectionLimiter =
+        new ConnectionLimiter(policyProperties, dataSource, policyMetrics);
+    doReturn(RESULT).when(outerJoinPoint).proceed();
+
+    assertEquals(RESULT, connectionLimiter.limit(outerJoinPoint));
+    assertEquals(RESULT, connectionLimiter.limit(outerJoinPoint));
+
+    verify(outerJoinPoint, times(2)).proceed();
+    verify(policyMetrics).registerLimiter(any(Semaphore.class));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a limiter whose only permit is held "
+          + "When another limited operation is called "
+          + "Then it is rejected with ServiceBusyException after the acquire timeout.")
+  void testLimitRejectsWhenPermitsAreExhausted() throws Throwable {
+    ConnectionLimiter connectionLimiter =
+        new ConnectionLimiter(policyProperties, dataSource, policyMetrics);
+    doReturn(signature).when(innerJoinPoint).getSignature();
+    doReturn("fetchPolicies").when(signature).getName();
+    doAnswer(invocation -> connectionLimiter.limit(innerJoinPoint)).when(outerJoinPoint).proceed();
+
+    assertThrows(ServiceBusyException.class, () -> connectionLimiter.limit(outerJoinPoint));
+
+    verify(innerJoinPoint, never()).proceed();
+    doReturn(RESULT).when(outerJoinPoint).proceed();
+    assertEquals(RESULT, connectionLimiter.limit(outerJoinPoint));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a disabled limiter "
+          + "When limited operations are nested beyond the permits "
+          + "Then all of them proceed.")
+  void testDisabledLimiterDoesNotLimit() throws Throwable {
+    policyProperties.getExecution().getLimiter().setEnabled(false);
+    ConnectionLimiter connectionLimiter =
+        new ConnectionLimiter(policyProperties, dataSource, policyMetrics);
+    doAnswer(invocation -> connectionLimiter.limit(innerJoinPoint)).when(outerJoinPoint).proceed();
+    doReturn(RESULT).when(innerJoinPoint).proceed();
+
+    assertEquals(RESULT, connectionLimiter.limit(outerJoinPoint));
+
+    verifyNoInteractions(policyMetrics);
+  }
+
+  @Test
+  @DisplayName(
+      "Given the limiter not configured and platform execution mode "
+          + "When limited operations are nested beyond the permits "
+          + "Then all of them proceed.")
+  void testLimiterIsDisabledByDefaultOnPlatformThreads() throws Throwable {
+    policyProperties.getExecution().getLimiter().setEnabled(null);
+    ConnectionLimiter connectionLimiter =
+        new ConnectionLimiter(policyProperties, dataSource, policyMetrics);
+    doAnswer(invocation -> connectionLimiter.limit(innerJoinPoint)).when(outerJoinPoint).proceed();
+    doReturn(RESULT).when(innerJoinPoint).proceed();
+
+    assertEquals(RESULT, connectionLimiter.limit(outerJoinPoint));
+
+    verifyNoInteractions(policyMetrics);
+  }
+
+  @Test
+  @DisplayName(
+      "Given the limiter not configured and virtual execution mode "
+          + "When a limited operation is called "
+          + "Then it is limited and the limiter metrics are registered.")
+  void testLimiterIsEnabledByDefaultOnVirtualThreads() throws Throwable {
+    policyProperties.getExecution().getLimiter().setEnabled(null);
+    policyProperties.getExecution().setMode(PolicyProperties.ExecutionMode.VIRTUAL);
+    ConnectionLimiter connectionLimiter =
+        new ConnectionLimiter(policyProperties, dataSource, policyMetrics);
+    doReturn(signature).when(innerJoinPoint).getSignature();
+    doReturn("fetchPolicy").when(signature).getName();
+    doAnswer(invocation -> connectionLimiter.limit(innerJoinPoint)).when(outerJoinPoint).proceed();
+
+    assertThrows(ServiceBusyException.class, () -> connectionLimiter.limit(outerJoinPoint));
+
+    verify(policyMetrics).registerLimiter(any(Semaphore.class));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a limiter whose only permit is held "
+          + "When the write-behind writer runs a limited operation "
+          + "Then it proceeds without a permit of its own.")
+  void testLimitSkipsOperationsOfWriteBehindWriter() throws Throwable {
+    policyProperties.getWriteBehind().setEnabled(true);
+    ConnectionLimiter connectionLimiter =
+        new ConnectionLimiter(policyProperties, dataSource, policyMetrics);
+    PolicyWriteBehind policyWriteBehind =
+        new PolicyWriteBehind(policyProperties, transactionManager, entityManager, policyMetrics);
+    policyWriteBehind.start();
+    doReturn(RESULT).when(innerJoinPoint).proceed();
+    doAnswer(
+            invocation ->
+                policyWriteBehind.write(
+                    POLICY_ID,
+                    () -> {
+                      try {
+                        return connectionLimiter.limit(innerJoinPoint);
+                      } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                      }
+                    }))
+        .when(outerJoinPoint)
+        .proceed();
+
+    try {
+      assertEquals(RESULT, connectionLimiter.limit(outerJoinPoint));
+    } finally {
+      policyWriteBehind.stop();
+    }
+    verify(innerJoinPoint).proceed();
+  }
+
+  @Test
+  @DisplayName(
+      "Given a limiter whose only permit is held "
+          + "When a limited operation is called within a read-only transaction, as by a policy fetch "
+          + "Then it still needs a permit and is rejected.")
+  void testLimitAppliesWithinTransaction() throws Throwable {
+    ConnectionLimiter connectionLimiter =
+        new ConnectionLimiter(policyProperties, dataSource, policyMetrics);
+    doReturn(signature).when(innerJoinPoint).getSignature();
+    doReturn("getPolicyMembers").when(signature).getName();
+    doAnswer(
+            invocation -> {
+              TransactionSynchronizationManager.setActualTransactionActive(true);
+              TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+              try {
+                return connectionLimiter.limit(innerJoinPoint);
+              } finally {
+                TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+                TransactionSynchronizationManager.setActualTransactionActive(false);
+              }
+            })
+        .when(outerJoinPoint)
+        .proceed();
+
+    assertThrows(ServiceBusyException.class, () -> connectionLimiter.limit(outerJoinPoint));
+    verify(innerJoinPoint, never()).proceed();
+  }
+}
@@ -0,0 +1,76 @@
+package com.embea.policy.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.exception.PolicyNotFoundException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PolicyMetricsTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private PolicyMetrics policyMetrics;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    policyMetrics = new PolicyMetrics(meterRegistry);
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy metrics "
+          + "When insured person counts are recorded for an operation "
+          + "Then they are summarised per operation.")
+  void testRecordInsuredPersons() {
+    policyMetrics.recordInsuredPersons(PolicyMetrics.OPERATION_CREATE, 2);
+    policyMetrics.recordInsuredPersons(PolicyMetrics.OPERATION_CREATE, 4);
+    policyMetrics.recordInsuredPersons(PolicyMetrics.OPERATION_FETCH, 1);
+
+    DistributionSummary createSummary =
+        meterRegistry
+            .get(PolicyMetrics.INSURED_PERSONS)
+            .tag("operation", PolicyMetrics.OPERATION_CREATE)
+            .summary();
+    assertEquals(2, createSummary.count());
+    assertEquals(6, createSummary.totalAmount());
+    assertEquals(4, createSummary.max());
+    assertEquals(
+        1,
+        meterRegistry
+            .get(PolicyMetrics.INSURED_PERSONS)
+            .tag("operation", PolicyMetrics.OPERATION_FETCH)
+            .summary()
+            .count());
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy metrics "
+          + "When errors are recorded "
+          + "Then they are counted per exception type.")
+  void testRecordError() {
+    policyMetrics.recordError(new PolicyNotFoundException("Not found"));
+    policyMetrics.recordError(new PolicyNotFoundException("Not found"));
+    policyMetrics.recordError(new IllegalStateException());
+
+    assertEquals(
+        2,
+        meterRegistry
+            .get(PolicyMetrics.ERRORS)
+            .tag("exception", "PolicyNotFoundException")
+            .counter()
+            .count());
+    assertEquals(
+        1,
+        meterRegistry
+            .get(PolicyMetrics.ERRORS)
+            .tag("exception", "IllegalStateException")
+            .counter()
+            .count());
+  }
+}
@@ -0,0 +1,103 @@
+package com.embea.policy.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.dto.Person;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.repository.PersonRepo;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+
+@ExtendWith(MockitoExtension.class)
+class PersonIdentityIndexTest {
+
+  private static final Person JANE =
+      Person.builder().personId(1L).firstName("Jane").secondName("Jackson").build();
+  private static final Person JACK =
+      Person.builder().personId(2L).firstName("Jack").secondName("Doe").build();
+
+  @Mock private PersonRepo personRepo;
+
+  @Mock private ApplicationContext applicationContext;
+
+  private PolicyProperties policyProperties;
+
+  @BeforeEach
+  void setUp() {
+    policyProperties = new PolicyProperties();
+    policyProperties.getPersonIdentity().setEnabled(true);
+  }
+
+  @Test
+  @DisplayName(
+      "Given stored persons "
+          + "When the index is loaded "
+          + "Then persons are found by name regardless of case, spacing and Unicode form.")
+  void testFindByNormalizedName() {
+    doReturn(List.of(JANE, JACK)).when(personRepo).findAll();
+    PersonIdentityIndex personIdentityIndex =
+        new PersonIdentityIndex(personRepo, policyProperties, applicationContext);
+
+    personIdentityIndex.load();
+
+    assertEquals(2, personIdentityIndex.size());
+    assertSame(JANE, personIdentityIndex.find(buildInsuredPerson("  jane ", "JACKSON")));
+    assertSame(JACK, personIdentityIndex.find(buildInsuredPerson("Ｊａｃｋ", "Doe")));
+    assertNull(personIdentityIndex.find(buildInsuredPerson("Jane", "Doe")));
+    assertNull(personIdentityIndex.find(buildInsuredPerson("Ja ne", "Jackson")));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a loaded index "
+          + "When persons are created outside a transaction "
+          + "Then they are indexed and an existing identity keeps its person.")
+  void testPersonsCreated() {
+    doReturn(List.of(JANE)).when(personRepo).findAll();
+    PersonIdentityIndex personIdentityIndex =
+        new PersonIdentityIndex(personRepo, policyProperties, applicationContext);
+    personIdentityIndex.load();
+    Person otherJane =
+        Person.builder().personId(3L).firstName("Jane").secondName("Jackson").build();
+
+    personIdentityIndex.personsCreated(List.of(JACK, otherJane));
+
+    assertEquals(2, personIdentityIndex.size());
+    assertSame(JANE, personIdentityIndex.find(buildInsuredPerson("Jane", "Jackson")));
+    assertSame(JACK, personIdentityIndex.find(buildInsuredPerson("Jack", "Doe")));
+  }
+
+  @Test
+  @DisplayName(
+      "Given person identity disabled or a reactive application "
+          + "When the index is loaded "
+          + "Then the person table is not read.")
+  void testNotLoadedWhenDisabledOrReactive() {
+    PersonIdentityIndex reactiveIndex =
+        new PersonIdentityIndex(
+            personRepo, policyProperties, mock(ReactiveWebApplicationContext.class));
+    policyProperties.getPersonIdentity().setEnabled(false);
+    PersonIdentityIndex disabledIndex =
+        new PersonIdentityIndex(personRepo, policyProperties, applicationContext);
+
+    reactiveIndex.load();
+    disabledIndex.load();
+
+    assertFalse(reactiveIndex.isEnabled());
+    assertFalse(disabledIndex.isEnabled());
+    verify(personRepo, never()).findAll();
+  }
+
+  private InsuredPerson buildInsuredPerson(String firstName, String secondName) {
+    return InsuredPerson.builder().firstName(firstName).secondName(secondName).build();
+  }
+}
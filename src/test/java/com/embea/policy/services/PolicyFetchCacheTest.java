@@ -0,0 +1,219 @@
+package com.embea.policy.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.exception.PolicyNotFoundException;
+import com.embea.policy.model.PolicyFetchResponse;
+import com.embea.policy.services.PolicyFetchCache.CacheStatistics;
+import com.embea.policy.utils.DayRange;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PolicyFetchCacheTest {
+
+  private static final long DAY = TimeUnit.DAYS.toMillis(1);
+  private static final long START_DAY = 19000;
+  private static final long EFFECTIVE_DAY = START_DAY + 5;
+  private static final Date START_DATE = new Date(START_DAY * DAY);
+  private static final Date LATER_DATE = new Date((START_DAY + 2) * DAY);
+  private static final Date EFFECTIVE_DATE = new Date(EFFECTIVE_DAY * DAY);
+  private static final BigDecimal TOTAL_PREMIUM = BigDecimal.valueOf(28.80);
+  private static final String POLICY_ID = UUID.randomUUID().toString();
+
+  @Mock private PolicyMembershipIndex policyMembershipIndex;
+
+  private PolicyProperties policyProperties;
+
+  private PolicyFetchCache policyFetchCache;
+
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    policyProperties = new PolicyProperties();
+    policyFetchCache = new PolicyFetchCache(policyMembershipIndex, policyProperties);
+    loads = new AtomicInteger();
+  }
+
+  @Test
+  @DisplayName(
+      "Given a response cached on start date and valid until effective date "
+          + "When we fetch the policy on a later date inside that range "
+          + "Then cached response is returned with the later request date.")
+  void testRequestDateInsideValidityIsHit() {
+    doReturn(new DayRange(START_DAY, EFFECTIVE_DAY))
+        .when(policyMembershipIndex)
+        .getValidity(POLICY_ID, START_DATE);
+
+    policyFetchCache.get(POLICY_ID, START_DATE, () -> load(START_DATE));
+    PolicyFetchResponse response = policyFetchCache.get(POLICY_ID, LATER_DATE, this::failLoad);
+
+    assertEquals(LATER_DATE, response.getRequestDate());
+    assertEquals(TOTAL_PREMIUM, response.getTotalPremium());
+    assertEquals(1, loads.get());
+    assertEquals(new CacheStatistics(1, 1, 0, 1), policyFetchCache.getStatistics());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a response cached until effective date "
+          + "When we fetch the policy on effective date "
+          + "Then the response is loaded again.")
+  void testRequestDateOutsideValidityIsMiss() {
+    doReturn(new DayRange(START_DAY, EFFECTIVE_DAY))
+        .when(policyMembershipIndex)
+        .getValidity(POLICY_ID, START_DATE);
+    doReturn(new DayRange(EFFECTIVE_DAY, Long.MAX_VALUE))
+        .when(policyMembershipIndex)
+        .getValidity(POLICY_ID, EFFECTIVE_DATE);
+
+    policyFetchCache.get(POLICY_ID, START_DATE, () -> load(START_DATE));
+    policyFetchCache.get(POLICY_ID, EFFECTIVE_DATE, () -> load(EFFECTIVE_DATE));
+
+    assertEquals(2, loads.get());
+    assertEquals(new CacheStatistics(0, 2, 0, 2), policyFetchCache.getStatistics());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a response cached from start date without end "
+          + "When the policy is modified on effective date "
+          + "Then the response stays cached before effective date only.")
+  void testModificationTruncatesValidity() {
+    doReturn(new DayRange(START_DAY, Long.MAX_VALUE))
+        .when(policyMembershipIndex)
+        .getValidity(POLICY_ID, START_DATE);
+    policyFetchCache.get(POLICY_ID, START_DATE, () -> load(START_DATE));
+
+    policyFetchCache.policyModified(POLICY_ID, EFFECTIVE_DATE);
+
+    policyFetchCache.get(POLICY_ID, LATER_DATE, this::failLoad);
+    doReturn(new DayRange(EFFECTIVE_DAY, Long.MAX_VALUE))
+        .when(policyMembershipIndex)
+        .getValidity(POLICY_ID, EFFECTIVE_DATE);
+    policyFetchCache.get(POLICY_ID, EFFECTIVE_DATE, () -> load(EFFECTIVE_DATE));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a modification committed while a response is being loaded "
+          + "When the load completes "
+          + "Then the possibly stale response is not cached.")
+  void testLoadRacingWithModificationIsNotCached() {
+    doReturn(new DayRange(START_DAY, Long.MAX_VALUE))
+        .when(policyMembershipIndex)
+        .getValidity(POLICY_ID, START_DATE);
+
+    policyFetchCache.get(
+        POLICY_ID,
+        START_DATE,
+        () -> {
+          policyFetchCache.policyModified(POLICY_ID, EFFECTIVE_DATE);
+          return load(START_DATE);
+        });
+
+    assertEquals(0, policyFetchCache.getStatistics().getSize());
+  }
+
+  @Test
+  @DisplayName(
+      "Given cache size of one entry "
+          + "When responses of two policies are cached "
+          + "Then least recently used response is evicted.")
+  void testLeastRecentlyUsedIsEvicted() {
+    policyProperties.getFetchCache().setMaxEntries(1);
+    String otherPolicyId = UUID.randomUUID().toString();
+    doReturn(new DayRange(START_DAY, Long.MAX_VALUE))
+        .when(policyMembershipIndex)
+        .getValidity(anyString(), any(Date.class));
+
+    policyFetchCache.get(POLICY_ID, START_DATE, () -> load(START_DATE));
+    policyFetchCache.get(otherPolicyId, START_DATE, () -> load(START_DATE));
+    policyFetchCache.get(POLICY_ID, START_DATE, () -> load(START_DATE));
+
+    assertEquals(3, loads.get());
+    assertEquals(new CacheStatistics(0, 3, 2, 1), policyFetchCache.getStatistics());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy not found on request date "
+          + "When we fetch it twice "
+          + "Then the exception is thrown both times and nothing is cached.")
+  void testLoaderExceptionIsNotCached() {
+    Supplier<PolicyFetchResponse> notFound =
+        () -> {
+          loads.incrementAndGet();
+          throw new PolicyNotFoundException("No policy found");
+        };
+
+    assertThrows(
+        PolicyNotFoundException.class, () -> policyFetchCache.get(POLICY_ID, START_DATE, notFound));
+    assertThrows(
+        PolicyNotFoundException.class, () -> policyFetchCache.get(POLICY_ID, START_DATE, notFound));
+
+    assertEquals(2, loads.get());
+    verifyNoInteractions(policyMembershipIndex);
+  }
+
+  @Test
+  @DisplayName(
+      "Given fetch cache is disabled "
+          + "When we fetch the policy twice "
+          + "Then the response is loaded both times.")
+  void testDisabledCacheAlwaysLoads() {
+    policyProperties.getFetchCache().setEnabled(false);
+
+    policyFetchCache.get(POLICY_ID, START_DATE, () -> load(START_DATE));
+    policyFetchCache.get(POLICY_ID, START_DATE, () -> load(START_DATE));
+
+    assertEquals(2, loads.get());
+    verifyNoInteractions(policyMembershipIndex);
+  }
+
+  @Test
+  @DisplayName(
+      "Given a read replica and the membership index disabled "
+          + "When we fetch the policy twice "
+          + "Then the response read from the replica is not cached and loaded both times.")
+  void testReplicaResponseWithoutIndexIsNotCached() {
+    policyProperties.getReadReplica().setEnabled(true);
+    policyProperties.getMembershipIndex().setEnabled(false);
+
+    policyFetchCache.get(POLICY_ID, START_DATE, () -> load(START_DATE));
+    policyFetchCache.get(POLICY_ID, START_DATE, () -> load(START_DATE));
+
+    assertEquals(2, loads.get());
+    verifyNoInteractions(policyMembershipIndex);
+  }
+
+  private PolicyFetchResponse load(Date requestDate) {
+    loads.incrementAndGet();
+    return PolicyFetchResponse.builder()
+        .policyId(POLICY_ID)
+        .insuredPersons(List.of())
+        .totalPremium(TOTAL_PREMIUM)
+        .requestDate(requestDate)
+        .build();
+  }
+
+  private PolicyFetchResponse failLoad() {
+    return fail("Response expected from cache");
+  }
+}
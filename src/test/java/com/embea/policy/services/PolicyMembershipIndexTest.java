@@ -0,0 +1,358 @@
+package com.embea.policy.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.dto.PolicyMemberInterval;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.utils.DateUtils;
+import com.embea.policy.utils.DayRange;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class PolicyMembershipIndexTest {
+
+  private static final long DAY = TimeUnit.DAYS.toMillis(1);
+  private static final Date START_DATE = new Date(19000 * DAY);
+  private static final Date BEFORE_START_DATE = new Date(START_DATE.getTime() - DAY);
+  private static final Date EFFECTIVE_DATE = new Date(START_DATE.getTime() + 5 * DAY);
+  private static final Date BEFORE_EFFECTIVE_DATE = new Date(EFFECTIVE_DATE.getTime() - 1);
+  private static final Date AFTER_EFFECTIVE_DATE = new Date(EFFECTIVE_DATE.getTime() + DAY / 2);
+  private static final String FIRST_NAME_1 = "Jane";
+  private static final String SECOND_NAME_1 = "Jackson";
+  private static final BigDecimal PREMIUM_1 = new BigDecimal("12.90");
+  private static final String FIRST_NAME_2 = "Jack";
+  private static final String SECOND_NAME_2 = "Doe";
+  private static final BigDecimal PREMIUM_2 = new BigDecimal("15.90");
+  private static final String POLICY_ID = UUID.randomUUID().toString();
+  private static final Long PERSON_ID_1 = 1L;
+  private static final Long PERSON_ID_2 = 2L;
+
+  @Mock private PolicyService policyService;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private PolicyProperties policyProperties;
+
+  private PolicyMembershipIndex policyMembershipIndex;
+
+  @BeforeEach
+  void setUp() {
+    policyProperties = new PolicyProperties();
+    policyMembershipIndex =
+        new PolicyMembershipIndex(policyService, policyProperties, transactionManager);
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy created through the index "
+          + "When we fetch policy members before and from the start date "
+          + "Then members are answered without database access.")
+  void testCreatedPolicyIsServedFromIndex() {
+    policyMembershipIndex.policyCreated(
+        POLICY_ID, START_DATE, List.of(buildInsuredPerson1(), buildInsuredPerson2()));
+
+    assertTrue(policyMembershipIndex.getPolicyMembers(POLICY_ID, BEFORE_START_DATE).isEmpty());
+    assertEquals(
+        List.of(buildPolicyMember1(), buildPolicyMember2()),
+        policyMembershipIndex.getPolicyMembers(POLICY_ID, START_DATE));
+    verifyNoInteractions(policyService);
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy not yet in the index "
+          + "When we fetch policy members twice "
+          + "Then its history is loaded once and answered per request date.")
+  void testPolicyIsLoadedOnce() {
+    doReturn(
+            List.of(
+                buildInterval(PERSON_ID_1, FIRST_NAME_1, SECOND_NAME_1, PREMIUM_1, EFFECTIVE_DATE),
+                buildInterval(PERSON_ID_2, FIRST_NAME_2, SECOND_NAME_2, PREMIUM_2, null)))
+        .when(policyService)
+        .getPolicyMemberIntervals(POLICY_ID);
+
+    assertEquals(
+        List.of(buildPolicyMember1(), buildPolicyMember2()),
+        policyMembershipIndex.getPolicyMembers(POLICY_ID, START_DATE));
+    assertEquals(
+        List.of(buildPolicyMember2()),
+        policyMembershipIndex.getPolicyMembers(POLICY_ID, AFTER_EFFECTIVE_DATE));
+    verify(policyService).getPolicyMemberIntervals(POLICY_ID);
+  }
+
+  @Test
+  @DisplayName(
+      "Given a read replica and a policy not yet in the index "
+          + "When we fetch policy members in a read-only transaction "
+          + "Then its history is loaded in a new transaction routed to the primary.")
+  void testPolicyIsLoadedFromPrimaryWithReadReplica() {
+    policyProperties.getReadReplica().setEnabled(true);
+    doReturn(List.of(buildInterval(PERSON_ID_1, FIRST_NAME_1, SECOND_NAME_1, PREMIUM_1, null)))
+        .when(policyService)
+        .getPolicyMemberIntervals(POLICY_ID);
+
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    try {
+      assertEquals(
+          List.of(buildPolicyMember1()),
+          policyMembershipIndex.getPolicyMembers(POLICY_ID, START_DATE));
+    } finally {
+      TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+    verify(transactionManager)
+        .getTransaction(
+            argThat(
+                definition ->
+                    definition.getPropagationBehavior()
+                            == TransactionDefinition.PROPAGATION_REQUIRES_NEW
+                        && !definition.isReadOnly()));
+    verify(transactionManager).commit(any());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy in the index "
+          + "When one person is added and one removed on effective date "
+          + "Then members change from the effective date only.")
+  void testModifiedPolicyIsUpdated() {
+    policyMembershipIndex.policyCreated(POLICY_ID, START_DATE, List.of(buildInsuredPerson1()));
+
+    policyMembershipIndex.policyModified(
+        POLICY_ID, EFFECTIVE_DATE, List.of(buildInsuredPerson2()), List.of(PERSON_ID_1));
+
+    assertEquals(
+        List.of(buildPolicyMember1()),
+        policyMembershipIndex.getPolicyMembers(POLICY_ID, BEFORE_EFFECTIVE_DATE));
+    assertEquals(
+        List.of(buildPolicyMember2()),
+        policyMembershipIndex.getPolicyMembers(POLICY_ID, AFTER_EFFECTIVE_DATE));
+    verifyNoInteractions(policyService);
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy in the index modified on effective date "
+          + "When we ask for the validity of its members on a date "
+          + "Then the range between the surrounding membership changes is returned.")
+  void testValidityOfIndexedPolicy() {
+    long startDay = DateUtils.toEpochDay(START_DATE);
+    long effectiveDay = DateUtils.toEpochDay(EFFECTIVE_DATE);
+    policyMembershipIndex.policyCreated(POLICY_ID, START_DATE, List.of(buildInsuredPerson1()));
+    policyMembershipIndex.policyModified(
+        POLICY_ID, EFFECTIVE_DATE, List.of(buildInsuredPerson2()), List.of(PERSON_ID_1));
+
+    assertEquals(
+        new DayRange(startDay, effectiveDay),
+        policyMembershipIndex.getValidity(POLICY_ID, BEFORE_EFFECTIVE_DATE));
+    assertEquals(
+        new DayRange(effectiveDay, Long.MAX_VALUE),
+        policyMembershipIndex.getValidity(POLICY_ID, AFTER_EFFECTIVE_DATE));
+    assertEquals(
+        new DayRange(startDay - 1, startDay),
+        policyMembershipIndex.getValidity(POLICY_ID, BEFORE_START_DATE));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy not in the index "
+          + "When we ask for the validity of its members on a date "
+          + "Then only the request day itself is returned.")
+  void testValidityOfPolicyNotInIndex() {
+    long startDay = DateUtils.toEpochDay(START_DATE);
+
+    assertEquals(
+        new DayRange(startDay, startDay + 1),
+        policyMembershipIndex.getValidity(POLICY_ID, START_DATE));
+    verifyNoInteractions(policyService);
+  }
+
+  @Test
+  @DisplayName(
+      "Given a person removed from a policy "
+          + "When the person is removed again on a later date "
+          + "Then the earlier removal is kept.")
+  void testClosedIntervalIsNotReopened() {
+    policyMembershipIndex.policyCreated(
+        POLICY_ID, START_DATE, List.of(buildInsuredPerson1(), buildInsuredPerson2()));
+    policyMembershipIndex.policyModified(
+        POLICY_ID, BEFORE_EFFECTIVE_DATE, List.of(), List.of(PERSON_ID_1));
+
+    policyMembershipIndex.policyModified(
+        POLICY_ID, EFFECTIVE_DATE, List.of(), List.of(PERSON_ID_1, PERSON_ID_2));
+
+    assertEquals(
+        List.of(buildPolicyMember2()),
+        policyMembershipIndex.getPolicyMembers(POLICY_ID, BEFORE_EFFECTIVE_DATE));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy whose only person is removed "
+          + "When we fetch policy members after removal "
+          + "Then a single row without person is returned.")
+  void testPolicyWithoutMembers() {
+    policyMembershipIndex.policyCreated(POLICY_ID, START_DATE, List.of(buildInsuredPerson1()));
+    policyMembershipIndex.policyModified(
+        POLICY_ID, EFFECTIVE_DATE, List.of(), List.of(PERSON_ID_1));
+
+    assertEquals(
+        List.of(new PolicyMember(POLICY_ID, null, null, null, null)),
+        policyMembershipIndex.getPolicyMembers(POLICY_ID, AFTER_EFFECTIVE_DATE));
+  }
+
+  @Test
+  @DisplayName(
+      "Given an unknown policy id "
+          + "When we fetch policy members twice "
+          + "Then nothing is returned and the absence is not cached.")
+  void testUnknownPolicyIsNotCached() {
+    doReturn(List.of()).when(policyService).getPolicyMemberIntervals(POLICY_ID);
+
+    assertTrue(policyMembershipIndex.getPolicyMembers(POLICY_ID, START_DATE).isEmpty());
+    assertTrue(policyMembershipIndex.getPolicyMembers(POLICY_ID, START_DATE).isEmpty());
+    verify(policyService, times(2)).getPolicyMemberIntervals(POLICY_ID);
+  }
+
+  @Test
+  @DisplayName(
+      "Given a modification committed while a policy is being loaded "
+          + "When we fetch policy members again "
+          + "Then the possibly stale load was not kept and the policy is loaded again.")
+  void testLoadRacingWithWriteIsNotKept() {
+    doAnswer(
+            invocation -> {
+              policyMembershipIndex.policyModified(
+                  POLICY_ID, EFFECTIVE_DATE, List.of(), List.of(PERSON_ID_1));
+              return List.of(
+                  buildInterval(PERSON_ID_1, FIRST_NAME_1, SECOND_NAME_1, PREMIUM_1, null));
+            })
+        .doReturn(
+            List.of(
+                buildInterval(PERSON_ID_1, FIRST_NAME_1, SECOND_NAME_1, PREMIUM_1, EFFECTIVE_DATE)))
+        .when(policyService)
+        .getPolicyMemberIntervals(POLICY_ID);
+
+    policyMembershipIndex.getPolicyMembers(POLICY_ID, START_DATE);
+
+    assertEquals(
+        List.of(new PolicyMember(POLICY_ID, null, null, null, null)),
+        policyMembershipIndex.getPolicyMembers(POLICY_ID, AFTER_EFFECTIVE_DATE));
+    verify(policyService, times(2)).getPolicyMemberIntervals(POLICY_ID);
+  }
+
+  @Test
+  @DisplayName(
+      "Given an index full of policies "
+          + "When another policy is created "
+          + "Then the least recently fetched policy is evicted "
+          + "And is loaded from the database on its next fetch.")
+  void testLeastRecentlyUsedPolicyIsEvicted() {
+    policyProperties.getMembershipIndex().setMaxPolicies(2);
+    String otherPolicyId = UUID.randomUUID().toString();
+    String newPolicyId = UUID.randomUUID().toString();
+    policyMembershipIndex.policyCreated(POLICY_ID, START_DATE, List.of(buildInsuredPerson1()));
+    policyMembershipIndex.policyCreated(otherPolicyId, START_DATE, List.of(buildInsuredPerson2()));
+    policyMembershipIndex.getPolicyMembers(POLICY_ID, START_DATE);
+    policyMembershipIndex.policyCreated(newPolicyId, START_DATE, List.of(buildInsuredPerson2()));
+    doReturn(List.of()).when(policyService).getPolicyMemberIntervals(otherPolicyId);
+
+    assertEquals(
+        List.of(buildPolicyMember1()),
+        policyMembershipIndex.getPolicyMembers(POLICY_ID, START_DATE));
+    assertEquals(1, policyMembershipIndex.getPolicyMembers(newPolicyId, START_DATE).size());
+    assertEquals(2, policyMembershipIndex.getIndexedPolicies().size());
+    policyMembershipIndex.getPolicyMembers(otherPolicyId, START_DATE);
+    verify(policyService).getPolicyMemberIntervals(otherPolicyId);
+    verifyNoMoreInteractions(policyService);
+  }
+
+  @Test
+  @DisplayName(
+      "Given membership index is disabled "
+          + "When we fetch policy members "
+          + "Then they are read from the database every time.")
+  void testDisabledIndexDelegatesToDatabase() {
+    policyProperties.getMembershipIndex().setEnabled(false);
+    policyMembershipIndex.policyCreated(POLICY_ID, START_DATE, List.of(buildInsuredPerson1()));
+    doReturn(List.of(buildPolicyMember1()))
+        .when(policyService)
+        .getPolicyMembers(POLICY_ID, START_DATE);
+
+    assertEquals(
+        List.of(buildPolicyMember1()),
+        policyMembershipIndex.getPolicyMembers(POLICY_ID, START_DATE));
+    verify(policyService).getPolicyMembers(POLICY_ID, START_DATE);
+    verify(policyService, never()).getPolicyMemberIntervals(anyString());
+  }
+
+  @Test
+  @DisplayName(
+      "Given the indexed policies of one index "
+          + "When we restore them into a new index "
+          + "Then members are answered from the new index without database access.")
+  void testRestoreIndexedPolicies() {
+    policyMembershipIndex.policyCreated(
+        POLICY_ID, START_DATE, List.of(buildInsuredPerson1(), buildInsuredPerson2()));
+    policyMembershipIndex.policyModified(
+        POLICY_ID, EFFECTIVE_DATE, List.of(), List.of(PERSON_ID_1));
+    PolicyMembershipIndex restoredIndex =
+        new PolicyMembershipIndex(policyService, policyProperties, transactionManager);
+
+    assertEquals(1, restoredIndex.restore(policyMembershipIndex.getIndexedPolicies()));
+
+    assertEquals(
+        List.of(buildPolicyMember1(), buildPolicyMember2()),
+        restoredIndex.getPolicyMembers(POLICY_ID, START_DATE));
+    assertEquals(
+        List.of(buildPolicyMember2()),
+        restoredIndex.getPolicyMembers(POLICY_ID, AFTER_EFFECTIVE_DATE));
+    verifyNoInteractions(policyService);
+  }
+
+  private PolicyMemberInterval buildInterval(
+      Long personId, String firstName, String secondName, BigDecimal premium, Date removalDate) {
+    return new PolicyMemberInterval(
+        POLICY_ID, START_DATE, personId, firstName, secondName, premium, START_DATE, removalDate);
+  }
+
+  private InsuredPerson buildInsuredPerson1() {
+    return InsuredPerson.builder()
+        .id(PERSON_ID_1)
+        .firstName(FIRST_NAME_1)
+        .secondName(SECOND_NAME_1)
+        .premium(PREMIUM_1)
+        .build();
+  }
+
+  private InsuredPerson buildInsuredPerson2() {
+    return InsuredPerson.builder()
+        .id(PERSON_ID_2)
+        .firstName(FIRST_NAME_2)
+        .secondName(SECOND_NAME_2)
+        .premium(PREMIUM_2)
+        .build();
+  }
+
+  private PolicyMember buildPolicyMember1() {
+    return new PolicyMember(POLICY_ID, PERSON_ID_1, FIRST_NAME_1, SECOND_NAME_1, PREMIUM_1);
+  }
+
+  private PolicyMember buildPolicyMember2() {
+    return new PolicyMember(POLICY_ID, PERSON_ID_2, FIRST_NAME_2, SECOND_NAME_2, PREMIUM_2);
+  }
+}
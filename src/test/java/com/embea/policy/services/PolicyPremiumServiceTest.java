@@ -0,0 +1,133 @@
+package com.embea.policy.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.dto.PolicyMapping;
+import com.embea.policy.dto.PolicyPremiumChange;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.repository.PolicyPremiumChangeRepo;
+import com.embea.policy.utils.DateUtils;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PolicyPremiumServiceTest {
+
+  private static final long DAY = TimeUnit.DAYS.toMillis(1);
+  private static final Date START_DATE = new Date(19000 * DAY);
+  private static final Date EFFECTIVE_DATE = new Date(START_DATE.getTime() + 5 * DAY);
+  private static final Date REMOVAL_DATE = new Date(START_DATE.getTime() + 10 * DAY);
+  private static final BigDecimal PREMIUM_1 = new BigDecimal("12.90");
+  private static final BigDecimal PREMIUM_2 = new BigDecimal("15.90");
+  private static final String POLICY_ID = UUID.randomUUID().toString();
+
+  @Mock private PolicyPremiumChangeRepo policyPremiumChangeRepo;
+
+  @InjectMocks private PolicyPremiumService policyPremiumService;
+
+  @Captor private ArgumentCaptor<List<PolicyPremiumChange>> policyPremiumChangeListCaptor;
+
+  @Test
+  @DisplayName(
+      "Given a newly created policy "
+          + "When we record its premium "
+          + "Then a single change with the total premium is stored on the start date.")
+  void testPolicyCreated() {
+    policyPremiumService.policyCreated(
+        POLICY_ID,
+        START_DATE,
+        List.of(buildInsuredPerson(PREMIUM_1), buildInsuredPerson(PREMIUM_2)));
+
+    verify(policyPremiumChangeRepo).saveAll(policyPremiumChangeListCaptor.capture());
+    List<PolicyPremiumChange> policyPremiumChanges = policyPremiumChangeListCaptor.getValue();
+    assertEquals(1, policyPremiumChanges.size());
+    assertEquals(POLICY_ID, policyPremiumChanges.get(0).getPolicyId());
+    assertEquals(START_DATE, policyPremiumChanges.get(0).getChangeDate());
+    assertEquals(new BigDecimal("28.80"), policyPremiumChanges.get(0).getPremiumDelta());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a modification adding one person and removing a mapping already ending later "
+          + "When we record its premium changes "
+          + "Then the effective date gets the difference "
+          + "And the later removal no longer lowers the premium.")
+  void testPolicyModified() {
+    PolicyMapping removedMapping =
+        PolicyMapping.builder()
+            .policyId(POLICY_ID)
+            .personId(1L)
+            .premium(PREMIUM_1)
+            .removalDate(new Timestamp(REMOVAL_DATE.getTime()))
+            .build();
+
+    policyPremiumService.policyModified(
+        POLICY_ID, EFFECTIVE_DATE, List.of(buildInsuredPerson(PREMIUM_2)), List.of(removedMapping));
+
+    verify(policyPremiumChangeRepo).saveAll(policyPremiumChangeListCaptor.capture());
+    List<PolicyPremiumChange> policyPremiumChanges = policyPremiumChangeListCaptor.getValue();
+    assertEquals(2, policyPremiumChanges.size());
+    assertEquals(EFFECTIVE_DATE, policyPremiumChanges.get(0).getChangeDate());
+    assertEquals(new BigDecimal("3.00"), policyPremiumChanges.get(0).getPremiumDelta());
+    assertEquals(REMOVAL_DATE, policyPremiumChanges.get(1).getChangeDate());
+    assertEquals(PREMIUM_1, policyPremiumChanges.get(1).getPremiumDelta());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a modification replacing a person by one with the same premium "
+          + "When we record its premium changes "
+          + "Then nothing is stored.")
+  void testPolicyModifiedWithoutPremiumChange() {
+    PolicyMapping removedMapping =
+        PolicyMapping.builder().policyId(POLICY_ID).personId(1L).premium(PREMIUM_1).build();
+
+    policyPremiumService.policyModified(
+        POLICY_ID, EFFECTIVE_DATE, List.of(buildInsuredPerson(PREMIUM_1)), List.of(removedMapping));
+
+    verify(policyPremiumChangeRepo, never()).saveAll(anyList());
+  }
+
+  @Test
+  @DisplayName(
+      "Given a request date in the middle of a day "
+          + "When we fetch the total premium of a policy "
+          + "Then the premium changes are summed up to the end of that day.")
+  void testGetTotalPremium() {
+    Date requestDate = new Date(EFFECTIVE_DATE.getTime() + DAY / 2);
+    Date nextDay = DateUtils.fromEpochDay(DateUtils.toEpochDay(EFFECTIVE_DATE) + 1);
+    doReturn(new BigDecimal("44.70"))
+        .when(policyPremiumChangeRepo)
+        .sumPremiumDeltasByPolicyIdAndChangeDateBefore(POLICY_ID, nextDay);
+
+    assertEquals(
+        new BigDecimal("44.70"), policyPremiumService.getTotalPremium(POLICY_ID, requestDate));
+  }
+
+  @Test
+  @DisplayName(
+      "Given no premium changes of a policy up to the request date "
+          + "When we fetch its total premium "
+          + "Then no total premium is returned.")
+  void testGetTotalPremiumOfUnknownPolicy() {
+    assertNull(policyPremiumService.getTotalPremium(POLICY_ID, START_DATE));
+  }
+
+  private InsuredPerson buildInsuredPerson(BigDecimal premium) {
+    return InsuredPerson.builder().firstName("Jane").secondName("Jackson").premium(premium).build();
+  }
+}
@@ -1,169 +1,204 @@
-package com.embea.policy.services;
-
-import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.*;
-
-import com.embea.policy.dto.Policy;
-import com.embea.policy.model.InsuredPerson;
-import com.embea.policy.model.PolicyCreationRequest;
-import com.embea.policy.repository.PolicyRepo;
-import java.math.BigDecimal;
-import java.util.*;
-import org.junit.jupiter.api.DisplayName;
-import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
-
-@ExtendWith(MockitoExtension.class)
-class PolicyServiceTest {
-
-  private static final Date START_DATE = new Date();
-  private static final String FIRST_NAME_1 = "Jane";
-  private static final String SECOND_NAME_1 = "Jackson";
-  private static final BigDecimal PREMIUM_1 = BigDecimal.valueOf(12.90);
-  private static final String FIRST_NAME_2 = "Jack";
-  private static final String SECOND_NAME_2 = "Doe";
-  private static final BigDecimal PREMIUM_2 = BigDecimal.valueOf(15.90);
-  private static final String POLICY_ID = UUID.randomUUID().toString();
-
-  @Mock private PolicyRepo policyRepo;
-
-  @InjectMocks private PolicyService policyService;
-
-  @Mock private Policy mockPolicy;
-
-  @Captor private ArgumentCaptor<Policy> policyCaptor;
-
-  @Test
-  @DisplayName(
-      "Given create policy request with valid inputs "
-          + "When we try to insert policy into database "
-          + "Then it returns inserted Policy object.")
-  void testInsertPolicyWithValidInputs() {
-    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
-    doReturn(mockPolicy).when(policyRepo).save(any(Policy.class));
-
-    Policy insertedPolicy = policyService.insertPolicy(policyCreationRequest);
-
-    assertEquals(mockPolicy, insertedPolicy);
-    verify(policyRepo).save(policyCaptor.capture());
-    Policy policyCaptorValue = policyCaptor.getValue();
-    assertEquals(policyCreationRequest.getStartDate(), policyCaptorValue.getStartDate());
-  }
-
-  @Test
-  @DisplayName(
-      "Given create policy request with invalid inputs "
-          + "When we try to insert policy into database "
-          + "Then throws IllegalArgumentException back to the caller.")
-  void testInsertPolicyWithInvalidInputs() {
-    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
-    doThrow(IllegalArgumentException.class).when(policyRepo).save(any(Policy.class));
-
-    assertThrows(
-        IllegalArgumentException.class, () -> policyService.insertPolicy(policyCreationRequest));
-
-    verify(policyRepo).save(policyCaptor.capture());
-    Policy policyCaptorValue = policyCaptor.getValue();
-    assertEquals(policyCreationRequest.getStartDate(), policyCaptorValue.getStartDate());
-  }
-
-  @Test
-  @DisplayName(
-      "Given valid policy object "
-          + "When we try to save policy into database "
-          + "Then it executes successfully and returns saved Policy.")
-  void testSavePolicyWithValidInputs() {
-    doReturn(mockPolicy).when(policyRepo).save(any(Policy.class));
-
-    Policy insertedPolicy = policyService.savePolicy(mockPolicy);
-
-    assertEquals(mockPolicy, insertedPolicy);
-    verify(policyRepo).save(mockPolicy);
-  }
-
-  @Test
-  @DisplayName(
-      "Given invalid policy object "
-          + "When we try to save policy into database "
-          + "Then throws IllegalArgumentException back to the caller.")
-  void testSavePolicyWithInvalidInputs() {
-    doThrow(IllegalArgumentException.class).when(policyRepo).save(any(Policy.class));
-
-    assertThrows(IllegalArgumentException.class, () -> policyService.savePolicy(mockPolicy));
-
-    verify(policyRepo).save(mockPolicy);
-  }
-
-  @Test
-  @DisplayName(
-      "Given valid policy id "
-          + "When we try to fetch policy from database "
-          + "Then it executes successfully and returns saved Policy.")
-  void testGetPolicyReturnsPolicy() {
-    doReturn(Optional.of(mockPolicy)).when(policyRepo).findById(POLICY_ID);
-
-    Policy policy = policyService.getPolicy(POLICY_ID);
-
-    assertEquals(mockPolicy, policy);
-    verify(policyRepo).findById(POLICY_ID);
-  }
-
-  @Test
-  @DisplayName(
-      "Given invalid policy id "
-          + "When we try to fetch policy from database "
-          + "Then it executes successfully, but does not return any Policy.")
-  void testGetPolicyDoesNotReturnsPolicy() {
-    doReturn(Optional.empty()).when(policyRepo).findById(POLICY_ID);
-
-    Policy policy = policyService.getPolicy(POLICY_ID);
-
-    assertNull(policy);
-    verify(policyRepo).findById(POLICY_ID);
-  }
-
-  @Test
-  @DisplayName(
-      "Given null policy id "
-          + "When we try to fetch policy from database "
-          + "Then throws IllegalArgumentException back to the caller.")
-  void testGetPolicyThrowsException() {
-    doThrow(IllegalArgumentException.class).when(policyRepo).findById(null);
-
-    assertThrows(IllegalArgumentException.class, () -> policyService.getPolicy(null));
-
-    verify(policyRepo).findById(null);
-  }
-
-  private PolicyCreationRequest buildPolicyCreationRequest() {
-    return PolicyCreationRequest.builder()
-        .startDate(START_DATE)
-        .insuredPersons(getInsuredPersonList())
-        .build();
-  }
-
-  private List<InsuredPerson> getInsuredPersonList() {
-    InsuredPerson insuredPerson1 =
-        InsuredPerson.builder()
-            .firstName(FIRST_NAME_1)
-            .secondName(SECOND_NAME_1)
-            .premium(PREMIUM_1)
-            .build();
-    InsuredPerson insuredPerson2 =
-        InsuredPerson.builder()
-            .firstName(FIRST_NAME_2)
-            .secondName(SECOND_NAME_2)
-            .premium(PREMIUM_2)
-            .build();
-    List<InsuredPerson> insuredPersonList = new ArrayList<>();
-    insuredPersonList.add(insuredPerson1);
-    insuredPersonList.add(insuredPerson2);
-    return insuredPersonList;
-  }
-}
+package com.embea.policy.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.dto.Policy;
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.journal.PolicyJournal;
+import com.embea.policy.model.InsuredPerson;
+import com.embea.policy.model.PolicyCreationRequest;
+import com.embea.policy.repository.PolicyRepo;
+import com.embea.policy.utils.Constants;
+import java.math.BigDecimal;
+import java.util.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PolicyServiceTest {
+
+  private static final Date START_DATE = new Date();
+  private static final String FIRST_NAME_1 = "Jane";
+  private static final String SECOND_NAME_1 = "Jackson";
+  private static final BigDecimal PREMIUM_1 = BigDecimal.valueOf(12.90);
+  private static final String FIRST_NAME_2 = "Jack";
+  private static final String SECOND_NAME_2 = "Doe";
+  private static final BigDecimal PREMIUM_2 = BigDecimal.valueOf(15.90);
+  private static final String POLICY_ID = UUID.randomUUID().toString();
+
+  @Mock private PolicyRepo policyRepo;
+
+  @Mock private PolicyJournal policyJournal;
+
+  @InjectMocks private PolicyService policyService;
+
+  @Mock private Policy mockPolicy;
+
+  @Captor private ArgumentCaptor<Policy> policyCaptor;
+
+  @Test
+  @DisplayName(
+      "Given create policy request with valid inputs "
+          + "When we try to insert policy into database "
+          + "Then it returns inserted Policy object.")
+  void testInsertPolicyWithValidInputs() {
+    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
+    doReturn(mockPolicy).when(policyRepo).save(any(Policy.class));
+
+    Policy insertedPolicy = policyService.insertPolicy(policyCreationRequest);
+
+    assertEquals(mockPolicy, insertedPolicy);
+    verify(policyRepo).save(policyCaptor.capture());
+    Policy policyCaptorValue = policyCaptor.getValue();
+    assertEquals(policyCreationRequest.getStartDate(), policyCaptorValue.getStartDate());
+  }
+
+  @Test
+  @DisplayName(
+      "Given create policy request with invalid inputs "
+          + "When we try to insert policy into database "
+          + "Then throws IllegalArgumentException back to the caller.")
+  void testInsertPolicyWithInvalidInputs() {
+    PolicyCreationRequest policyCreationRequest = buildPolicyCreationRequest();
+    doThrow(IllegalArgumentException.class).when(policyRepo).save(any(Policy.class));
+
+    assertThrows(
+        IllegalArgumentException.class, () -> policyService.insertPolicy(policyCreationRequest));
+
+    verify(policyRepo).save(policyCaptor.capture());
+    Policy policyCaptorValue = policyCaptor.getValue();
+    assertEquals(policyCreationRequest.getStartDate(), policyCaptorValue.getStartDate());
+  }
+
+  @Test
+  @DisplayName(
+      "Given valid policy id "
+          + "When we try to fetch policy from database "
+          + "Then it executes successfully and returns saved Policy.")
+  void testGetPolicyReturnsPolicy() {
+    doReturn(Optional.of(mockPolicy)).when(policyRepo).findById(POLICY_ID);
+
+    Policy policy = policyService.getPolicy(POLICY_ID);
+
+    assertEquals(mockPolicy, policy);
+    verify(policyRepo).findById(POLICY_ID);
+  }
+
+  @Test
+  @DisplayName(
+      "Given invalid policy id "
+          + "When we try to fetch policy from database "
+          + "Then it executes successfully, but does not return any Policy.")
+  void testGetPolicyDoesNotReturnsPolicy() {
+    doReturn(Optional.empty()).when(policyRepo).findById(POLICY_ID);
+
+    Policy policy = policyService.getPolicy(POLICY_ID);
+
+    assertNull(policy);
+    verify(policyRepo).findById(POLICY_ID);
+  }
+
+  @Test
+  @DisplayName(
+      "Given null policy id "
+          + "When we try to fetch policy from database "
+          + "Then throws IllegalArgumentException back to the caller.")
+  void testGetPolicyThrowsException() {
+    doThrow(IllegalArgumentException.class).when(policyRepo).findById(null);
+
+    assertThrows(IllegalArgumentException.class, () -> policyService.getPolicy(null));
+
+    verify(policyRepo).findById(null);
+  }
+
+  @Test
+  @DisplayName(
+      "Given valid policy id and request date "
+          + "When we try to fetch policy members from database "
+          + "Then pending journal events of the policy are applied first "
+          + "And it executes successfully and returns policy members.")
+  void testGetPolicyMembersReturnsMembers() {
+    List<PolicyMember> policyMembers =
+        List.of(new PolicyMember(POLICY_ID, 1L, FIRST_NAME_1, SECOND_NAME_1, PREMIUM_1));
+    doReturn(policyMembers)
+        .when(policyRepo)
+        .findPolicyMembersByPolicyIdAndRequestDate(POLICY_ID, START_DATE);
+
+    List<PolicyMember> fetchedMembers = policyService.getPolicyMembers(POLICY_ID, START_DATE);
+
+    assertEquals(policyMembers, fetchedMembers);
+    InOrder inOrder = inOrder(policyJournal, policyRepo);
+    inOrder.verify(policyJournal).awaitApplied(POLICY_ID);
+    inOrder.verify(policyRepo).findPolicyMembersByPolicyIdAndRequestDate(POLICY_ID, START_DATE);
+  }
+
+  @Test
+  @DisplayName(
+      "Given more policy ids than fit in one IN clause "
+          + "When we try to fetch policy members from database "
+          + "Then policy ids are queried in chunks and members of all chunks returned.")
+  void testGetPolicyMembersForPolicyIdsQueriesInChunks() {
+    List<String> policyIds = new ArrayList<>();
+    for (int i = 0; i <= Constants.IN_CLAUSE_CHUNK_SIZE; i++) {
+      policyIds.add(UUID.randomUUID().toString());
+    }
+    PolicyMember firstMember =
+        new PolicyMember(policyIds.get(0), 1L, FIRST_NAME_1, SECOND_NAME_1, PREMIUM_1);
+    PolicyMember lastMember =
+        new PolicyMember(
+            policyIds.get(Constants.IN_CLAUSE_CHUNK_SIZE),
+            2L,
+            FIRST_NAME_2,
+            SECOND_NAME_2,
+            PREMIUM_2);
+    doReturn(List.of(firstMember))
+        .when(policyRepo)
+        .findPolicyMembersByPolicyIdsAndRequestDate(
+            policyIds.subList(0, Constants.IN_CLAUSE_CHUNK_SIZE), START_DATE);
+    doReturn(List.of(lastMember))
+        .when(policyRepo)
+        .findPolicyMembersByPolicyIdsAndRequestDate(
+            policyIds.subList(Constants.IN_CLAUSE_CHUNK_SIZE, policyIds.size()), START_DATE);
+
+    List<PolicyMember> fetchedMembers = policyService.getPolicyMembers(policyIds, START_DATE);
+
+    assertEquals(List.of(firstMember, lastMember), fetchedMembers);
+    verify(policyRepo, times(2)).findPolicyMembersByPolicyIdsAndRequestDate(anyList(), any());
+  }
+
+  private PolicyCreationRequest buildPolicyCreationRequest() {
+    return PolicyCreationRequest.builder()
+        .startDate(START_DATE)
+        .insuredPersons(getInsuredPersonList())
+        .build();
+  }
+
+  private List<InsuredPerson> getInsuredPersonList() {
+    InsuredPerson insuredPerson1 =
+        InsuredPerson.builder()
+            .firstName(FIRST_NAME_1)
+            .secondName(SECOND_NAME_1)
+            .premium(PREMIUM_1)
+            .build();
+    InsuredPerson insuredPerson2 =
+        InsuredPerson.builder()
+            .firstName(FIRST_NAME_2)
+            .secondName(SECOND_NAME_2)
+            .premium(PREMIUM_2)
+            .build();
+    List<InsuredPerson> insuredPersonList = new ArrayList<>();
+    insuredPersonList.add(insuredPerson1);
+    insuredPersonList.add(insuredPerson2);
+    return insuredPersonList;
+  }
+}
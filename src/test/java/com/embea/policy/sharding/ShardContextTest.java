@@ -0,0 +1,69 @@
+package com.embea.policy.sharding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.utils.PolicyIdUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ShardContextTest {
+
+  private static final int SHARD_COUNT = 3;
+
+  @AfterEach
+  void tearDown() {
+    ShardContext.unbind();
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy ids generated in quick succession "
+          + "When we compute their shards "
+          + "Then every shard receives a share of them.")
+  void testShardsAreSpread() {
+    int[] policiesPerShard = new int[SHARD_COUNT];
+
+    for (int i = 0; i < 3000; i++) {
+      String policyId = PolicyIdUtils.generate();
+      policiesPerShard[ShardContext.shardOf(policyId, SHARD_COUNT)]++;
+    }
+
+    for (int policies : policiesPerShard) {
+      assertTrue(policies > 800, "Shard received only " + policies + " policies");
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given a bound shard "
+          + "When we generate policy ids "
+          + "Then they all belong to the bound shard.")
+  void testGeneratedIdsBelongToBoundShard() {
+    assertTrue(ShardContext.bind(new ShardContext.Shard(2, SHARD_COUNT)));
+
+    for (int i = 0; i < 100; i++) {
+      assertEquals(2, ShardContext.shardOf(ShardContext.generatePolicyId(), SHARD_COUNT));
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given a bound shard "
+          + "When we bind another shard and then unbind "
+          + "Then the other shard is rejected and nothing is bound afterwards.")
+  void testBindConflictAndUnbind() {
+    ShardContext.bind(new ShardContext.Shard(1, SHARD_COUNT));
+
+    assertFalse(ShardContext.bind(new ShardContext.Shard(1, SHARD_COUNT)));
+    assertThrows(
+        IllegalStateException.class,
+        () -> ShardContext.bind(new ShardContext.Shard(0, SHARD_COUNT)));
+    assertEquals(1, ShardContext.connectionShard(SHARD_COUNT));
+
+    ShardContext.unbind();
+
+    assertNull(ShardContext.getBoundShard());
+    assertEquals(ShardContext.HOME_SHARD, ShardContext.connectionShard(SHARD_COUNT));
+  }
+}
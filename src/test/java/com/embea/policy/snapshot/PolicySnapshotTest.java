@@ -0,0 +1,99 @@
+package com.embea.policy.snapshot;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.embea.policy.dto.PolicyMember;
+import com.embea.policy.services.PolicyMembershipIndex.IndexedPolicy;
+import com.embea.policy.utils.IntervalTree.Interval;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PolicySnapshotTest {
+
+  private static final long START_DAY = 19000;
+  private static final String POLICY_ID_1 = UUID.randomUUID().toString();
+  private static final String POLICY_ID_2 = UUID.randomUUID().toString();
+
+  @TempDir Path directory;
+
+  @Test
+  @DisplayName(
+      "Given a snapshot of policies with and without members "
+          + "When we write it twice to the same file and read it back "
+          + "Then the last snapshot is read unchanged.")
+  void testWriteAndRead() throws IOException {
+    Path path = directory.resolve("snapshot").resolve("policy-snapshot.bin");
+    PolicySnapshot policySnapshot =
+        new PolicySnapshot(
+            42L,
+            List.of(
+                new IndexedPolicy(
+                    POLICY_ID_1,
+                    START_DAY,
+                    List.of(
+                        new Interval<>(
+                            START_DAY,
+                            START_DAY + 5,
+                            new PolicyMember(
+                                POLICY_ID_1, 1L, "Jane", "Jackson", new BigDecimal("12.90"))),
+                        new Interval<>(
+                            START_DAY,
+                            Long.MAX_VALUE,
+                            new PolicyMember(
+                                POLICY_ID_1, 2L, "Jörg", "Doe", new BigDecimal("15.9"))))),
+                new IndexedPolicy(POLICY_ID_2, START_DAY + 1, List.of())));
+
+    new PolicySnapshot(41L, List.of()).write(path);
+    policySnapshot.write(path);
+
+    assertEquals(policySnapshot, PolicySnapshot.read(path));
+    try (Stream<Path> files = Files.list(path.getParent())) {
+      assertEquals(1, files.count());
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given a snapshot with a member whose names are missing "
+          + "When we write and read it "
+          + "Then the member is read back without names.")
+  void testWriteAndReadMissingNames() throws IOException {
+    Path path = directory.resolve("policy-snapshot.bin");
+    PolicySnapshot policySnapshot =
+        new PolicySnapshot(
+            43L,
+            List.of(
+                new IndexedPolicy(
+                    POLICY_ID_1,
+                    START_DAY,
+                    List.of(
+                        new Interval<>(
+                            START_DAY,
+                            Long.MAX_VALUE,
+                            new PolicyMember(
+                                POLICY_ID_1, 1L, null, "", new BigDecimal("12.90")))))));
+
+    policySnapshot.write(path);
+
+    assertEquals(policySnapshot, PolicySnapshot.read(path));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a file that is not a policy snapshot " + "When we read it " + "Then it is rejected.")
+  void testReadRejectsOtherFile() throws IOException {
+    Path path = directory.resolve("policy-snapshot.bin");
+    Files.write(path, "not a snapshot".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(IllegalStateException.class, () -> PolicySnapshot.read(path));
+  }
+}
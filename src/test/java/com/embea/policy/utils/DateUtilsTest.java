@@ -0,0 +1,85 @@
+package com.embea.policy.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class DateUtilsTest {
+
+  @Test
+  @DisplayName(
+      "Given days inside and outside the cached range "
+          + "When we format them and parse them back "
+          + "Then they match the ISO calendar and survive the round trip.")
+  void testFormatAndParseRoundTrip() {
+    long[] epochDays = {
+      LocalDate.of(1899, 12, 31).toEpochDay(),
+      0,
+      LocalDate.of(2000, 2, 29).toEpochDay(),
+      LocalDate.of(2024, 12, 31).toEpochDay(),
+      LocalDate.of(2099, 12, 31).toEpochDay(),
+      LocalDate.of(2100, 3, 1).toEpochDay()
+    };
+    for (long epochDay : epochDays) {
+      LocalDate day = LocalDate.ofEpochDay(epochDay);
+      String expected =
+          String.format("%02d.%02d.%04d", day.getDayOfMonth(), day.getMonthValue(), day.getYear());
+
+      String formatted = DateUtils.formatDate(DateUtils.fromEpochDay(epochDay));
+
+      assertEquals(expected, formatted);
+      assertEquals(epochDay, parse(formatted));
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given a day in the cached range "
+          + "When we format it twice "
+          + "Then the same string is returned.")
+  void testFormatIsCached() {
+    assertSame(
+        DateUtils.formatDate(DateUtils.fromEpochDay(19000)),
+        DateUtils.formatDate(DateUtils.fromEpochDay(19000)));
+  }
+
+  @Test
+  @DisplayName(
+      "Given a day with single digit day and month and surrounding whitespace "
+          + "When we parse it from the middle of a buffer "
+          + "Then only the given range is read.")
+  void testParseLenientDigitsAndWhitespace() {
+    char[] chars = "xx 1.2.2024 yy".toCharArray();
+
+    assertEquals(LocalDate.of(2024, 2, 1).toEpochDay(), DateUtils.parseEpochDay(chars, 2, 10));
+  }
+
+  @Test
+  @DisplayName(
+      "Given days that do not exist or are not in dd.MM.yyyy format "
+          + "When we parse them "
+          + "Then they are rejected instead of rolled over.")
+  void testParseInvalidDays() {
+    for (String text :
+        new String[] {
+          "31.02.2024",
+          "29.02.2023",
+          "00.01.2024",
+          "01.13.2024",
+          "01.01.24",
+          "2024-01-01",
+          "01.01.2024x",
+          "1..2024",
+          "",
+          "a1.01.2024"
+        }) {
+      assertThrows(IllegalArgumentException.class, () -> parse(text), text);
+    }
+  }
+
+  private static long parse(String text) {
+    return DateUtils.parseEpochDay(text.toCharArray(), 0, text.length());
+  }
+}
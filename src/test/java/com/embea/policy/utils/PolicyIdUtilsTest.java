@@ -0,0 +1,54 @@
+package com.embea.policy.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PolicyIdUtilsTest {
+
+  @Test
+  @DisplayName(
+      "Given a generated policy id "
+          + "When we convert it to bytes and back "
+          + "Then it is a version 7 UUID in canonical form and survives the round trip.")
+  void testGenerateAndRoundTrip() {
+    String policyId = PolicyIdUtils.generate();
+    UUID uuid = UUID.fromString(policyId);
+
+    assertTrue(policyId.matches(PolicyIdUtils.POLICY_ID_PATTERN));
+    assertEquals(7, uuid.version());
+    assertEquals(2, uuid.variant());
+    assertEquals(PolicyIdUtils.POLICY_ID_BYTES, PolicyIdUtils.toBytes(policyId).length);
+    assertEquals(policyId, PolicyIdUtils.fromBytes(PolicyIdUtils.toBytes(policyId)));
+  }
+
+  @Test
+  @DisplayName(
+      "Given policy ids generated a millisecond apart "
+          + "When we compare their bytes unsigned "
+          + "Then the later id sorts after the earlier one and starts with its timestamp.")
+  void testIdsAreTimeOrdered() {
+    long epochMillis = System.currentTimeMillis();
+    UUID earlier = PolicyIdUtils.generate(epochMillis);
+    UUID later = PolicyIdUtils.generate(epochMillis + 1);
+
+    assertEquals(epochMillis, earlier.getMostSignificantBits() >>> 16);
+    assertTrue(
+        Arrays.compareUnsigned(
+                PolicyIdUtils.toBytes(earlier.toString()), PolicyIdUtils.toBytes(later.toString()))
+            < 0);
+  }
+
+  @Test
+  @DisplayName(
+      "Given a policy id that is not a UUID "
+          + "When we convert it to bytes "
+          + "Then it is rejected.")
+  void testInvalidPolicyId() {
+    assertFalse("unknown-policy-id".matches(PolicyIdUtils.POLICY_ID_PATTERN));
+    assertThrows(IllegalArgumentException.class, () -> PolicyIdUtils.toBytes("unknown-policy-id"));
+  }
+}
@@ -0,0 +1,315 @@
+package com.embea.policy.writebehind;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.embea.policy.config.PolicyProperties;
+import com.embea.policy.exception.ServiceBusyException;
+import com.embea.policy.metrics.PolicyMetrics;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+@ExtendWith(MockitoExtension.class)
+class PolicyWriteBehindTest {
+
+  private static final int WRITES = 5;
+  private static final String POLICY_ID = "policy";
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Mock private EntityManager entityManager;
+
+  @Mock private Session session;
+
+  @Mock private TransactionStatus transactionStatus;
+
+  @Mock private PolicyMetrics policyMetrics;
+
+  @Captor private ArgumentCaptor<BlockingQueue<?>> queueCaptor;
+
+  private PolicyProperties policyProperties;
+  private PolicyWriteBehind policyWriteBehind;
+  private ExecutorService executorService;
+  private CountDownLatch writerBlocked;
+  private CountDownLatch writerReleased;
+
+  @BeforeEach
+  void setUp() {
+    policyProperties = new PolicyProperties();
+    policyProperties.getWriteBehind().setEnabled(true);
+    policyProperties.getWriteBehind().setTimeout(Duration.ofSeconds(5));
+    executorService = Executors.newCachedThreadPool();
+    writerBlocked = new CountDownLatch(1);
+    writerReleased = new CountDownLatch(1);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    writerReleased.countDown();
+    executorService.shutdownNow();
+    if (policyWriteBehind != null) {
+      policyWriteBehind.stop();
+    }
+  }
+
+  @Test
+  @DisplayName(
+      "Given write-behind enabled "
+          + "When many requests write while the writer is busy "
+          + "Then their writes are committed together in one transaction "
+          + "And every request returns after the commit.")
+  void testWritesAreGroupCommitted() throws Exception {
+    doReturn(session).when(entityManager).unwrap(Session.class);
+    startWriteBehind();
+    Future<?> blockingWrite = submitBlockingWrite();
+    AtomicInteger writesMade = new AtomicInteger();
+    List<Future<Integer>> writes = new ArrayList<>();
+
+    for (int i = 0; i < WRITES; i++) {
+      String policyId = POLICY_ID + i;
+      writes.add(
+          executorService.submit(
+              () -> policyWriteBehind.write(policyId, writesMade::incrementAndGet)));
+    }
+    awaitQueued(WRITES);
+    writerReleased.countDown();
+    blockingWrite.get(5, TimeUnit.SECONDS);
+    int resultSum = 0;
+    for (Future<Integer> write : writes) {
+      resultSum += write.get(5, TimeUnit.SECONDS);
+    }
+
+    assertEquals(WRITES, writesMade.get());
+    // Every request gets the result of its own writes
+    assertEquals(WRITES * (WRITES + 1) / 2, resultSum);
+    verify(transactionManager, times(2)).getTransaction(any());
+    verify(transactionManager, times(2)).commit(any());
+    verify(policyMetrics).recordWriteBehindBatch(1);
+    verify(policyMetrics).recordWriteBehindBatch(WRITES);
+    // Every write of the batch behind a savepoint of its own
+    verify(session, times(WRITES)).doReturningWork(any());
+    verify(entityManager, times(WRITES)).flush();
+  }
+
+  @Test
+  @DisplayName(
+      "Given write-behind enabled "
+          + "When several requests modify the same policy while the writer is busy "
+          + "Then their writes are committed in separate transactions, in queue order.")
+  void testWritesOfOnePolicyAreNotBatchedTogether() throws Exception {
+    doReturn(session).when(entityManager).unwrap(Session.class);
+    startWriteBehind();
+    Future<?> blockingWrite = submitBlockingWrite();
+    List<Integer> writeOrder = new ArrayList<>();
+    List<Future<?>> writes = new ArrayList<>();
+
+    for (int i = 0; i < 3; i++) {
+      int write = i;
+      writes.add(
+          executorService.submit(
+              () -> policyWriteBehind.write(POLICY_ID, () -> writeOrder.add(write))));
+      awaitQueued(i + 1);
+    }
+    writes.add(
+        executorService.submit(
+            () -> policyWriteBehind.write(POLICY_ID + 1, () -> writeOrder.add(3))));
+    awaitQueued(4);
+    writerReleased.countDown();
+    blockingWrite.get(5, TimeUnit.SECONDS);
+    for (Future<?> write : writes) {
+      write.get(5, TimeUnit.SECONDS);
+    }
+
+    assertEquals(List.of(0, 1, 2, 3), writeOrder);
+    // The blocking write, then one batch per write of the policy, the last one with the other
+    verify(transactionManager, times(4)).commit(any());
+    verify(policyMetrics, times(3)).recordWriteBehindBatch(1);
+    verify(policyMetrics).recordWriteBehindBatch(2);
+  }
+
+  @Test
+  @DisplayName(
+      "Given a batch in which one request's writes fail "
+          + "When the batch is committed "
+          + "Then the failing writes are rolled back to their savepoint "
+          + "And only that request fails while the rest of the batch is committed.")
+  void testFailingWriteOnlyFailsItsRequest() throws Exception {
+    doReturn(transactionStatus).when(transactionManager).getTransaction(any());
+    doReturn(session).when(entityManager).unwrap(Session.class);
+    startWriteBehind();
+    AtomicInteger writesMade = new AtomicInteger();
+
+    List<Future<?>> writes = submitWritesAroundFailingWrite(writesMade);
+
+    assertEquals(1, writes.get(0).get(5, TimeUnit.SECONDS));
+    assertEquals(2, writes.get(2).get(5, TimeUnit.SECONDS));
+    Exception exception =
+        assertThrows(Exception.class, () -> writes.get(1).get(5, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalStateException.class, exception.getCause());
+    // Every write runs once, the failing one rolled back to its savepoint
+    assertEquals(2, writesMade.get());
+    verify(transactionManager, times(2)).commit(any());
+    verify(transactionManager, never()).rollback(any());
+    verify(session, times(3)).doWork(any(Work.class));
+    verify(entityManager).clear();
+    verify(policyMetrics).recordWriteBehindBatch(3);
+  }
+
+  @Test
+  @DisplayName(
+      "Given a batch in which one request's writes fail and mark the transaction rollback-only "
+          + "When the batch is committed "
+          + "Then the writes are committed one by one and only that request fails.")
+  void testRollbackOnlyFailureCommitsWritesOneByOne() throws Exception {
+    doReturn(transactionStatus).when(transactionManager).getTransaction(any());
+    doReturn(true).when(transactionStatus).isRollbackOnly();
+    doReturn(session).when(entityManager).unwrap(Session.class);
+    startWriteBehind();
+    AtomicInteger writesMade = new AtomicInteger();
+
+    List<Future<?>> writes = submitWritesAroundFailingWrite(writesMade);
+
+    writes.get(0).get(5, TimeUnit.SECONDS);
+    writes.get(2).get(5, TimeUnit.SECONDS);
+    Exception exception =
+        assertThrows(Exception.class, () -> writes.get(1).get(5, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalStateException.class, exception.getCause());
+    // The batch stops at the failing request, then each request is written again on its own
+    assertEquals(3, writesMade.get());
+    verify(transactionManager, times(3)).commit(any());
+    verify(transactionManager, times(2)).rollback(any());
+    verify(entityManager, never()).clear();
+  }
+
+  @Test
+  @DisplayName(
+      "Given a full write-behind queue "
+          + "When another request writes "
+          + "Then it is rejected after the timeout "
+          + "And writes not taken by the writer in time are never made.")
+  void testFullQueueRejectsWrites() throws Exception {
+    policyProperties.getWriteBehind().setQueueCapacity(1);
+    policyProperties.getWriteBehind().setTimeout(Duration.ofMillis(50));
+    startWriteBehind();
+    submitBlockingWrite();
+    AtomicInteger writesMade = new AtomicInteger();
+    Future<?> queuedWrite =
+        executorService.submit(
+            () -> policyWriteBehind.write(POLICY_ID + 1, writesMade::incrementAndGet));
+    awaitQueued(1);
+
+    assertThrows(
+        ServiceBusyException.class,
+        () -> policyWriteBehind.write(POLICY_ID + 2, writesMade::incrementAndGet));
+    Exception exception = assertThrows(Exception.class, () -> queuedWrite.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(ServiceBusyException.class, exception.getCause());
+    writerReleased.countDown();
+    policyWriteBehind.stop();
+
+    assertEquals(0, writesMade.get());
+  }
+
+  @Test
+  @DisplayName(
+      "Given write-behind disabled "
+          + "When a request writes "
+          + "Then the writes are made directly without a transaction of the writer.")
+  void testDisabledWritesDirectly() {
+    policyProperties.getWriteBehind().setEnabled(false);
+    startWriteBehind();
+    AtomicInteger writesMade = new AtomicInteger();
+
+    assertEquals(1, policyWriteBehind.write(POLICY_ID, writesMade::incrementAndGet));
+
+    assertEquals(1, writesMade.get());
+    verifyNoInteractions(transactionManager, policyMetrics);
+  }
+
+  private void startWriteBehind() {
+    policyWriteBehind =
+        new PolicyWriteBehind(policyProperties, transactionManager, entityManager, policyMetrics);
+    policyWriteBehind.start();
+  }
+
+  /** Submit a write keeping the writer busy until released, returns once the writer runs it. */
+  private Future<?> submitBlockingWrite() throws InterruptedException {
+    Future<?> blockingWrite =
+        executorService.submit(
+            () ->
+                policyWriteBehind.write(
+                    POLICY_ID,
+                    () -> {
+                      writerBlocked.countDown();
+                      try {
+                        writerReleased.await();
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                      }
+                      return null;
+                    }));
+    assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+    return blockingWrite;
+  }
+
+  /**
+   * Submit a write, a failing write and another write while the writer is busy, returns once the
+   * writer has committed the blocking write.
+   */
+  private List<Future<?>> submitWritesAroundFailingWrite(AtomicInteger writesMade)
+      throws Exception {
+    Future<?> blockingWrite = submitBlockingWrite();
+    List<Future<?>> writes = new ArrayList<>();
+    writes.add(
+        executorService.submit(
+            () -> policyWriteBehind.write(POLICY_ID + 1, writesMade::incrementAndGet)));
+    awaitQueued(1);
+    writes.add(
+        executorService.submit(
+            () ->
+                policyWriteBehind.write(
+                    POLICY_ID + 2,
+                    () -> {
+                      throw new IllegalStateException("Constraint violated");
+                    })));
+    awaitQueued(2);
+    writes.add(
+        executorService.submit(
+            () -> policyWriteBehind.write(POLICY_ID + 3, writesMade::incrementAndGet)));
+    awaitQueued(3);
+    writerReleased.countDown();
+    blockingWrite.get(5, TimeUnit.SECONDS);
+    return writes;
+  }
+
+  private void awaitQueued(int writes) {
+    verify(policyMetrics).registerWriteBehind(queueCaptor.capture());
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (queueCaptor.getValue().size() < writes) {
+      assertTrue(System.nanoTime() < deadline, "Writes were not queued");
+      Thread.onSpinWait();
+    }
+  }
+}